@@ -31,6 +31,7 @@ import com.sun.beans.finder.PropertyEditorFinder;
 import java.awt.GraphicsEnvironment;
 import java.util.Map;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentWeakHashMap;
 
 /**
  * The {@code ThreadGroupContext} is an application-dependent
@@ -41,12 +42,7 @@ import java.util.WeakHashMap;
  */
 final class ThreadGroupContext {
 
-    private static final WeakIdentityMap<ThreadGroupContext> contexts = new WeakIdentityMap<ThreadGroupContext>() {
-        @Override
-        protected ThreadGroupContext create(Object key) {
-            return new ThreadGroupContext();
-        }
-    };
+    private static final ConcurrentWeakHashMap<ThreadGroup, ThreadGroupContext> contexts = new ConcurrentWeakHashMap<>();
 
     /**
      * Returns the appropriate {@code ThreadGroupContext} for the caller,
@@ -55,7 +51,7 @@ final class ThreadGroupContext {
      * @return  the application-dependent context
      */
     static ThreadGroupContext getContext() {
-        return contexts.get(Thread.currentThread().getThreadGroup());
+        return contexts.computeIfAbsent(Thread.currentThread().getThreadGroup(), group -> new ThreadGroupContext());
     }
 
     private volatile boolean isDesignTime;
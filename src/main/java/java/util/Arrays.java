@@ -78,6 +78,16 @@ public class Arrays {
      */
     private static final int MIN_ARRAY_SORT_GRAN = 1 << 13;
 
+    /**
+     * The minimum array length at which the parallel sorting of int,
+     * long, float and double arrays uses radix sort instead of
+     * sort-merge.  Radix sort needs the same working space, and its
+     * linear number of passes over the data outweighs its fixed costs
+     * well below this length, but the parallel sort-merge remains
+     * competitive for arrays that fit in the processor caches.
+     */
+    private static final int MIN_ARRAY_RADIX_SORT = 1 << 20;
+
     // Suppresses default constructor, ensuring non-instantiability.
     private Arrays() {}
 
@@ -671,6 +681,9 @@ public class Arrays {
      * working space no greater than the size of the original array. The
      * {@link ForkJoinPool#commonPool() ForkJoin common pool} is used to
      * execute any parallel tasks.
+     * Arrays of at least 2<sup>20</sup> elements are instead sorted by a
+     * parallel least-significant-digit radix sort, which requires the
+     * same working space; see {@link Arrays#radixSort(int[]) Arrays.radixSort}.
      *
      * @param a the array to be sorted
      *
@@ -681,6 +694,8 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1) {
             DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
+        } else if (n >= MIN_ARRAY_RADIX_SORT) {
+            RadixSort.parallelSort(a, 0, n, new int[n], p);
         } else {
             new ArraysParallelSortHelpers.FJInt.Sorter
                 (null, a, new int[n], 0, n, 0,
@@ -705,6 +720,9 @@ public class Arrays {
      * space no greater than the size of the specified range of the original
      * array. The {@link ForkJoinPool#commonPool() ForkJoin common pool} is
      * used to execute any parallel tasks.
+     * Ranges of at least 2<sup>20</sup> elements are instead sorted by a
+     * parallel least-significant-digit radix sort, which requires the
+     * same working space; see {@link Arrays#radixSort(int[]) Arrays.radixSort}.
      *
      * @param a the array to be sorted
      * @param fromIndex the index of the first element, inclusive, to be sorted
@@ -722,6 +740,8 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1) {
             DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+        } else if (n >= MIN_ARRAY_RADIX_SORT) {
+            RadixSort.parallelSort(a, fromIndex, toIndex, new int[n], p);
         } else {
             new ArraysParallelSortHelpers.FJInt.Sorter
                 (null, a, new int[n], fromIndex, n, 0,
@@ -743,6 +763,9 @@ public class Arrays {
      * working space no greater than the size of the original array. The
      * {@link ForkJoinPool#commonPool() ForkJoin common pool} is used to
      * execute any parallel tasks.
+     * Arrays of at least 2<sup>20</sup> elements are instead sorted by a
+     * parallel least-significant-digit radix sort, which requires the
+     * same working space; see {@link Arrays#radixSort(long[]) Arrays.radixSort}.
      *
      * @param a the array to be sorted
      *
@@ -753,6 +776,8 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1) {
             DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
+        } else if (n >= MIN_ARRAY_RADIX_SORT) {
+            RadixSort.parallelSort(a, 0, n, new long[n], p);
         } else {
             new ArraysParallelSortHelpers.FJLong.Sorter
                 (null, a, new long[n], 0, n, 0,
@@ -777,6 +802,9 @@ public class Arrays {
      * space no greater than the size of the specified range of the original
      * array. The {@link ForkJoinPool#commonPool() ForkJoin common pool} is
      * used to execute any parallel tasks.
+     * Ranges of at least 2<sup>20</sup> elements are instead sorted by a
+     * parallel least-significant-digit radix sort, which requires the
+     * same working space; see {@link Arrays#radixSort(long[]) Arrays.radixSort}.
      *
      * @param a the array to be sorted
      * @param fromIndex the index of the first element, inclusive, to be sorted
@@ -794,6 +822,8 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1) {
             DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+        } else if (n >= MIN_ARRAY_RADIX_SORT) {
+            RadixSort.parallelSort(a, fromIndex, toIndex, new long[n], p);
         } else {
             new ArraysParallelSortHelpers.FJLong.Sorter
                 (null, a, new long[n], fromIndex, n, 0,
@@ -823,6 +853,9 @@ public class Arrays {
      * working space no greater than the size of the original array. The
      * {@link ForkJoinPool#commonPool() ForkJoin common pool} is used to
      * execute any parallel tasks.
+     * Arrays of at least 2<sup>20</sup> elements are instead sorted by a
+     * parallel least-significant-digit radix sort, which requires the
+     * same working space; see {@link Arrays#radixSort(float[]) Arrays.radixSort}.
      *
      * @param a the array to be sorted
      *
@@ -833,6 +866,8 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1) {
             DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
+        } else if (n >= MIN_ARRAY_RADIX_SORT) {
+            RadixSort.parallelSort(a, 0, n, new float[n], p);
         } else {
             new ArraysParallelSortHelpers.FJFloat.Sorter
                 (null, a, new float[n], 0, n, 0,
@@ -865,6 +900,9 @@ public class Arrays {
      * space no greater than the size of the specified range of the original
      * array. The {@link ForkJoinPool#commonPool() ForkJoin common pool} is
      * used to execute any parallel tasks.
+     * Ranges of at least 2<sup>20</sup> elements are instead sorted by a
+     * parallel least-significant-digit radix sort, which requires the
+     * same working space; see {@link Arrays#radixSort(float[]) Arrays.radixSort}.
      *
      * @param a the array to be sorted
      * @param fromIndex the index of the first element, inclusive, to be sorted
@@ -882,6 +920,8 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1) {
             DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+        } else if (n >= MIN_ARRAY_RADIX_SORT) {
+            RadixSort.parallelSort(a, fromIndex, toIndex, new float[n], p);
         } else {
             new ArraysParallelSortHelpers.FJFloat.Sorter
                 (null, a, new float[n], fromIndex, n, 0,
@@ -911,6 +951,9 @@ public class Arrays {
      * working space no greater than the size of the original array. The
      * {@link ForkJoinPool#commonPool() ForkJoin common pool} is used to
      * execute any parallel tasks.
+     * Arrays of at least 2<sup>20</sup> elements are instead sorted by a
+     * parallel least-significant-digit radix sort, which requires the
+     * same working space; see {@link Arrays#radixSort(double[]) Arrays.radixSort}.
      *
      * @param a the array to be sorted
      *
@@ -921,6 +964,8 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1) {
             DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
+        } else if (n >= MIN_ARRAY_RADIX_SORT) {
+            RadixSort.parallelSort(a, 0, n, new double[n], p);
         } else {
             new ArraysParallelSortHelpers.FJDouble.Sorter
                 (null, a, new double[n], 0, n, 0,
@@ -953,6 +998,9 @@ public class Arrays {
      * space no greater than the size of the specified range of the original
      * array. The {@link ForkJoinPool#commonPool() ForkJoin common pool} is
      * used to execute any parallel tasks.
+     * Ranges of at least 2<sup>20</sup> elements are instead sorted by a
+     * parallel least-significant-digit radix sort, which requires the
+     * same working space; see {@link Arrays#radixSort(double[]) Arrays.radixSort}.
      *
      * @param a the array to be sorted
      * @param fromIndex the index of the first element, inclusive, to be sorted
@@ -970,6 +1018,8 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1) {
             DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+        } else if (n >= MIN_ARRAY_RADIX_SORT) {
+            RadixSort.parallelSort(a, fromIndex, toIndex, new double[n], p);
         } else {
             new ArraysParallelSortHelpers.FJDouble.Sorter
                 (null, a, new double[n], fromIndex, n, 0,
@@ -978,6 +1028,543 @@ public class Arrays {
         }
     }
 
+    /*
+     * Radix sorting of primitive type arrays.
+     */
+
+    /**
+     * Sorts the specified array into ascending numerical order.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix
+     * sort, which distributes the elements by each byte of a key derived
+     * from their value in turn, in at most four passes over the array.
+     * Passes for bytes that are equal in all elements are skipped.  It
+     * takes time linear in the length of the array whatever the
+     * distribution of values, and is typically several times faster than
+     * {@link Arrays#sort(int[]) Arrays.sort} for large arrays, but requires
+     * a working space the size of the original array.  Arrays shorter than
+     * about a thousand elements are sorted using {@link
+     * Arrays#sort(int[]) Arrays.sort}.  See {@link
+     * Arrays#parallelSort(int[]) Arrays.parallelSort} for a parallel form.
+     *
+     * @param a the array to be sorted
+     *
+     * @since 1.8
+     */
+    public static void radixSort(int[] a) {
+        RadixSort.sort(a, 0, a.length, null);
+    }
+
+    /**
+     * Sorts the specified range of the array into ascending numerical order.
+     * The range to be sorted extends from the index {@code fromIndex},
+     * inclusive, to the index {@code toIndex}, exclusive. If
+     * {@code fromIndex == toIndex}, the range to be sorted is empty.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix
+     * sort, which distributes the elements by each byte of a key derived
+     * from their value in turn, in at most four passes over the range.
+     * Passes for bytes that are equal in all elements are skipped.  It
+     * takes time linear in the length of the range whatever the
+     * distribution of values, and is typically several times faster than
+     * {@link Arrays#sort(int[]) Arrays.sort} for large arrays, but requires
+     * a working space the size of the specified range.  Ranges shorter than
+     * about a thousand elements are sorted using {@link
+     * Arrays#sort(int[]) Arrays.sort}.  See {@link
+     * Arrays#parallelSort(int[]) Arrays.parallelSort} for a parallel form.
+     *
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *     if {@code fromIndex < 0} or {@code toIndex > a.length}
+     *
+     * @since 1.8
+     */
+    public static void radixSort(int[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        RadixSort.sort(a, fromIndex, toIndex, null);
+    }
+
+    /**
+     * Sorts the specified array into ascending numerical order.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix
+     * sort, which distributes the elements by each byte of a key derived
+     * from their value in turn, in at most eight passes over the array.
+     * Passes for bytes that are equal in all elements are skipped.  It
+     * takes time linear in the length of the array whatever the
+     * distribution of values, and is typically several times faster than
+     * {@link Arrays#sort(long[]) Arrays.sort} for large arrays, but requires
+     * a working space the size of the original array.  Arrays shorter than
+     * about a thousand elements are sorted using {@link
+     * Arrays#sort(long[]) Arrays.sort}.  See {@link
+     * Arrays#parallelSort(long[]) Arrays.parallelSort} for a parallel form.
+     *
+     * @param a the array to be sorted
+     *
+     * @since 1.8
+     */
+    public static void radixSort(long[] a) {
+        RadixSort.sort(a, 0, a.length, null);
+    }
+
+    /**
+     * Sorts the specified range of the array into ascending numerical order.
+     * The range to be sorted extends from the index {@code fromIndex},
+     * inclusive, to the index {@code toIndex}, exclusive. If
+     * {@code fromIndex == toIndex}, the range to be sorted is empty.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix
+     * sort, which distributes the elements by each byte of a key derived
+     * from their value in turn, in at most eight passes over the range.
+     * Passes for bytes that are equal in all elements are skipped.  It
+     * takes time linear in the length of the range whatever the
+     * distribution of values, and is typically several times faster than
+     * {@link Arrays#sort(long[]) Arrays.sort} for large arrays, but requires
+     * a working space the size of the specified range.  Ranges shorter than
+     * about a thousand elements are sorted using {@link
+     * Arrays#sort(long[]) Arrays.sort}.  See {@link
+     * Arrays#parallelSort(long[]) Arrays.parallelSort} for a parallel form.
+     *
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *     if {@code fromIndex < 0} or {@code toIndex > a.length}
+     *
+     * @since 1.8
+     */
+    public static void radixSort(long[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        RadixSort.sort(a, fromIndex, toIndex, null);
+    }
+
+    /**
+     * Sorts the specified array into ascending numerical order.
+     *
+     * <p>The {@code <} relation does not provide a total order on all float
+     * values: {@code -0.0f == 0.0f} is {@code true} and a {@code Float.NaN}
+     * value compares neither less than, greater than, nor equal to any value,
+     * even itself. This method uses the total order imposed by the method
+     * {@link Float#compareTo}: {@code -0.0f} is treated as less than value
+     * {@code 0.0f} and {@code Float.NaN} is considered greater than any
+     * other value and all {@code Float.NaN} values are considered equal.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix
+     * sort, which distributes the elements by each byte of a key derived
+     * from their value in turn, in at most four passes over the array.
+     * Passes for bytes that are equal in all elements are skipped.  It
+     * takes time linear in the length of the array whatever the
+     * distribution of values, and is typically several times faster than
+     * {@link Arrays#sort(float[]) Arrays.sort} for large arrays, but requires
+     * a working space the size of the original array.  Arrays shorter than
+     * about a thousand elements are sorted using {@link
+     * Arrays#sort(float[]) Arrays.sort}.  See {@link
+     * Arrays#parallelSort(float[]) Arrays.parallelSort} for a parallel form.
+     *
+     * @param a the array to be sorted
+     *
+     * @since 1.8
+     */
+    public static void radixSort(float[] a) {
+        RadixSort.sort(a, 0, a.length, null);
+    }
+
+    /**
+     * Sorts the specified range of the array into ascending numerical order.
+     * The range to be sorted extends from the index {@code fromIndex},
+     * inclusive, to the index {@code toIndex}, exclusive. If
+     * {@code fromIndex == toIndex}, the range to be sorted is empty.
+     *
+     * <p>The {@code <} relation does not provide a total order on all float
+     * values: {@code -0.0f == 0.0f} is {@code true} and a {@code Float.NaN}
+     * value compares neither less than, greater than, nor equal to any value,
+     * even itself. This method uses the total order imposed by the method
+     * {@link Float#compareTo}: {@code -0.0f} is treated as less than value
+     * {@code 0.0f} and {@code Float.NaN} is considered greater than any
+     * other value and all {@code Float.NaN} values are considered equal.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix
+     * sort, which distributes the elements by each byte of a key derived
+     * from their value in turn, in at most four passes over the range.
+     * Passes for bytes that are equal in all elements are skipped.  It
+     * takes time linear in the length of the range whatever the
+     * distribution of values, and is typically several times faster than
+     * {@link Arrays#sort(float[]) Arrays.sort} for large arrays, but requires
+     * a working space the size of the specified range.  Ranges shorter than
+     * about a thousand elements are sorted using {@link
+     * Arrays#sort(float[]) Arrays.sort}.  See {@link
+     * Arrays#parallelSort(float[]) Arrays.parallelSort} for a parallel form.
+     *
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *     if {@code fromIndex < 0} or {@code toIndex > a.length}
+     *
+     * @since 1.8
+     */
+    public static void radixSort(float[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        RadixSort.sort(a, fromIndex, toIndex, null);
+    }
+
+    /**
+     * Sorts the specified array into ascending numerical order.
+     *
+     * <p>The {@code <} relation does not provide a total order on all double
+     * values: {@code -0.0d == 0.0d} is {@code true} and a {@code Double.NaN}
+     * value compares neither less than, greater than, nor equal to any value,
+     * even itself. This method uses the total order imposed by the method
+     * {@link Double#compareTo}: {@code -0.0d} is treated as less than value
+     * {@code 0.0d} and {@code Double.NaN} is considered greater than any
+     * other value and all {@code Double.NaN} values are considered equal.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix
+     * sort, which distributes the elements by each byte of a key derived
+     * from their value in turn, in at most eight passes over the array.
+     * Passes for bytes that are equal in all elements are skipped.  It
+     * takes time linear in the length of the array whatever the
+     * distribution of values, and is typically several times faster than
+     * {@link Arrays#sort(double[]) Arrays.sort} for large arrays, but requires
+     * a working space the size of the original array.  Arrays shorter than
+     * about a thousand elements are sorted using {@link
+     * Arrays#sort(double[]) Arrays.sort}.  See {@link
+     * Arrays#parallelSort(double[]) Arrays.parallelSort} for a parallel form.
+     *
+     * @param a the array to be sorted
+     *
+     * @since 1.8
+     */
+    public static void radixSort(double[] a) {
+        RadixSort.sort(a, 0, a.length, null);
+    }
+
+    /**
+     * Sorts the specified range of the array into ascending numerical order.
+     * The range to be sorted extends from the index {@code fromIndex},
+     * inclusive, to the index {@code toIndex}, exclusive. If
+     * {@code fromIndex == toIndex}, the range to be sorted is empty.
+     *
+     * <p>The {@code <} relation does not provide a total order on all double
+     * values: {@code -0.0d == 0.0d} is {@code true} and a {@code Double.NaN}
+     * value compares neither less than, greater than, nor equal to any value,
+     * even itself. This method uses the total order imposed by the method
+     * {@link Double#compareTo}: {@code -0.0d} is treated as less than value
+     * {@code 0.0d} and {@code Double.NaN} is considered greater than any
+     * other value and all {@code Double.NaN} values are considered equal.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix
+     * sort, which distributes the elements by each byte of a key derived
+     * from their value in turn, in at most eight passes over the range.
+     * Passes for bytes that are equal in all elements are skipped.  It
+     * takes time linear in the length of the range whatever the
+     * distribution of values, and is typically several times faster than
+     * {@link Arrays#sort(double[]) Arrays.sort} for large arrays, but requires
+     * a working space the size of the specified range.  Ranges shorter than
+     * about a thousand elements are sorted using {@link
+     * Arrays#sort(double[]) Arrays.sort}.  See {@link
+     * Arrays#parallelSort(double[]) Arrays.parallelSort} for a parallel form.
+     *
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *     if {@code fromIndex < 0} or {@code toIndex > a.length}
+     *
+     * @since 1.8
+     */
+    public static void radixSort(double[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        RadixSort.sort(a, fromIndex, toIndex, null);
+    }
+
+    /*
+     * Sorting of keys with payloads, and index sorting.
+     */
+
+    /**
+     * Sorts the specified array of keys into ascending numerical order,
+     * applying the same permutation to the specified payload array, so
+     * that each element of the payload array stays with the key at the
+     * same index.  This sorts records held as parallel arrays by one
+     * of their columns without boxing.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>: payloads with equal
+     * keys will not be reordered as a result of the sort.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix
+     * sort that moves each payload with its key, as described for {@link
+     * Arrays#radixSort(long[]) Arrays.radixSort}, and requires a working
+     * space the size of both arrays.
+     *
+     * @param keys the keys to be sorted
+     * @param payload the payloads to be permuted with the keys
+     * @throws IllegalArgumentException if the arrays differ in length
+     *
+     * @since 1.8
+     */
+    public static void sort(long[] keys, int[] payload) {
+        checkPayloadLength(keys.length, payload.length);
+        RadixSort.sort(keys, payload, 0, keys.length, null, null);
+    }
+
+    /**
+     * Sorts the specified array of keys into ascending numerical order,
+     * applying the same permutation to the specified payload array, as
+     * {@link #sort(long[], int[])} does, using parallel tasks for large
+     * arrays.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>: payloads with equal
+     * keys will not be reordered as a result of the sort.
+     *
+     * @implNote The sorting algorithm is the parallel form of the radix
+     * sort used by {@link #sort(long[], int[])}, and requires a working
+     * space the size of both arrays.  Arrays shorter than a minimum
+     * granularity are sorted using that method.  The {@link
+     * ForkJoinPool#commonPool() ForkJoin common pool} is used to execute
+     * any parallel tasks.
+     *
+     * @param keys the keys to be sorted
+     * @param payload the payloads to be permuted with the keys
+     * @throws IllegalArgumentException if the arrays differ in length
+     *
+     * @since 1.8
+     */
+    public static void parallelSort(long[] keys, int[] payload) {
+        checkPayloadLength(keys.length, payload.length);
+        int n = keys.length, p;
+        if (n <= MIN_ARRAY_SORT_GRAN ||
+            (p = ForkJoinPool.getCommonPoolParallelism()) == 1) {
+            RadixSort.sort(keys, payload, 0, n, null, null);
+        } else {
+            RadixSort.parallelSort(keys, payload, 0, n,
+                                   new long[n], new int[n], p);
+        }
+    }
+
+    /**
+     * Sorts the specified array of keys into ascending numerical order,
+     * applying the same permutation to the specified payload array, so
+     * that each element of the payload array stays with the key at the
+     * same index.
+     *
+     * <p>Keys are ordered as by {@link Arrays#sort(double[])}: {@code -0.0d}
+     * is treated as less than {@code 0.0d}, and {@code Double.NaN} is
+     * considered greater than any other value, all {@code Double.NaN}
+     * values being considered equal.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>: payloads with equal
+     * keys will not be reordered as a result of the sort.
+     *
+     * @implNote The permutation is found by {@link #sortIndices(double[])}
+     * and then applied to copies of both arrays, so the working space is
+     * about three times the size of the key array.
+     *
+     * @param keys the keys to be sorted
+     * @param payload the payloads to be permuted with the keys
+     * @throws IllegalArgumentException if the arrays differ in length
+     *
+     * @since 1.8
+     */
+    public static void sort(double[] keys, Object[] payload) {
+        checkPayloadLength(keys.length, payload.length);
+        int[] indices = sortIndices(keys);
+        double[] k = keys.clone();
+        Object[] v = payload.clone();
+        for (int i = 0; i < indices.length; i++) {
+            keys[i] = k[indices[i]];
+            payload[i] = v[indices[i]];
+        }
+    }
+
+    /**
+     * Sorts the specified array of keys into ascending numerical order,
+     * applying the same permutation to the specified payload array, as
+     * {@link #sort(double[], Object[])} does, using parallel tasks for
+     * large arrays.
+     *
+     * <p>Keys are ordered as by {@link Arrays#sort(double[])}: {@code -0.0d}
+     * is treated as less than {@code 0.0d}, and {@code Double.NaN} is
+     * considered greater than any other value, all {@code Double.NaN}
+     * values being considered equal.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>: payloads with equal
+     * keys will not be reordered as a result of the sort.
+     *
+     * @implNote The permutation is found by {@link
+     * #parallelSortIndices(double[])} and then applied to copies of both
+     * arrays in parallel.  The {@link ForkJoinPool#commonPool() ForkJoin
+     * common pool} is used to execute any parallel tasks.
+     *
+     * @param keys the keys to be sorted
+     * @param payload the payloads to be permuted with the keys
+     * @throws IllegalArgumentException if the arrays differ in length
+     *
+     * @since 1.8
+     */
+    public static void parallelSort(double[] keys, Object[] payload) {
+        checkPayloadLength(keys.length, payload.length);
+        int[] indices = parallelSortIndices(keys);
+        double[] k = keys.clone();
+        Object[] v = payload.clone();
+        parallelSetAll(keys, i -> k[indices[i]]);
+        parallelSetAll(payload, i -> v[indices[i]]);
+    }
+
+    /**
+     * Returns the permutation that sorts the specified array into
+     * ascending numerical order: an array of the indices of its
+     * elements, such that {@code keys[indices[i]] <= keys[indices[i + 1]]}
+     * for each {@code i}.  The specified array is not modified.  The
+     * permutation can be used to reorder other arrays holding columns of
+     * the same records.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>: the indices of equal
+     * keys appear in ascending order.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix
+     * sort of a copy of the keys, moving each index with its key, as
+     * described for {@link Arrays#radixSort(long[]) Arrays.radixSort}.
+     *
+     * @param keys the keys to be sorted
+     * @return the indices of the keys, in the order of the sorted keys
+     *
+     * @since 1.8
+     */
+    public static int[] sortIndices(long[] keys) {
+        int n = keys.length;
+        long[] k = keys.clone();
+        int[] indices = new int[n];
+        for (int i = 0; i < n; i++) {
+            indices[i] = i;
+        }
+        RadixSort.sort(k, indices, 0, n, null, null);
+        return indices;
+    }
+
+    /**
+     * Returns the permutation that sorts the specified array into
+     * ascending numerical order, as {@link #sortIndices(long[])} does,
+     * using parallel tasks for large arrays.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>: the indices of equal
+     * keys appear in ascending order.
+     *
+     * @implNote The sorting algorithm is the parallel form of the radix
+     * sort used by {@link #sortIndices(long[])}.  Arrays shorter than a
+     * minimum granularity are sorted using that method.  The {@link
+     * ForkJoinPool#commonPool() ForkJoin common pool} is used to execute
+     * any parallel tasks.
+     *
+     * @param keys the keys to be sorted
+     * @return the indices of the keys, in the order of the sorted keys
+     *
+     * @since 1.8
+     */
+    public static int[] parallelSortIndices(long[] keys) {
+        int n = keys.length, p;
+        if (n <= MIN_ARRAY_SORT_GRAN ||
+            (p = ForkJoinPool.getCommonPoolParallelism()) == 1) {
+            return sortIndices(keys);
+        }
+        long[] k = new long[n];
+        int[] indices = new int[n];
+        parallelSetAll(k, i -> keys[i]);
+        parallelSetAll(indices, i -> i);
+        RadixSort.parallelSort(k, indices, 0, n, new long[n], new int[n], p);
+        return indices;
+    }
+
+    /**
+     * Returns the permutation that sorts the specified array into
+     * ascending numerical order: an array of the indices of its
+     * elements, such that
+     * {@code Double.compare(keys[indices[i]], keys[indices[i + 1]]) <= 0}
+     * for each {@code i}.  The specified array is not modified.
+     *
+     * <p>Keys are ordered as by {@link Arrays#sort(double[])}: {@code -0.0d}
+     * is treated as less than {@code 0.0d}, and {@code Double.NaN} is
+     * considered greater than any other value, all {@code Double.NaN}
+     * values being considered equal.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>: the indices of equal
+     * keys appear in ascending order.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix
+     * sort of the keys' bits, transformed so that their signed order is
+     * that of {@link Double#compare}, moving each index with its key.
+     *
+     * @param keys the keys to be sorted
+     * @return the indices of the keys, in the order of the sorted keys
+     *
+     * @since 1.8
+     */
+    public static int[] sortIndices(double[] keys) {
+        int n = keys.length;
+        long[] k = new long[n];
+        int[] indices = new int[n];
+        for (int i = 0; i < n; i++) {
+            k[i] = RadixSort.sortableBits(keys[i]);
+            indices[i] = i;
+        }
+        RadixSort.sort(k, indices, 0, n, null, null);
+        return indices;
+    }
+
+    /**
+     * Returns the permutation that sorts the specified array into
+     * ascending numerical order, as {@link #sortIndices(double[])} does,
+     * using parallel tasks for large arrays.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>: the indices of equal
+     * keys appear in ascending order.
+     *
+     * @implNote The sorting algorithm is the parallel form of the radix
+     * sort used by {@link #sortIndices(double[])}.  Arrays shorter than a
+     * minimum granularity are sorted using that method.  The {@link
+     * ForkJoinPool#commonPool() ForkJoin common pool} is used to execute
+     * any parallel tasks.
+     *
+     * @param keys the keys to be sorted
+     * @return the indices of the keys, in the order of the sorted keys
+     *
+     * @since 1.8
+     */
+    public static int[] parallelSortIndices(double[] keys) {
+        int n = keys.length, p;
+        if (n <= MIN_ARRAY_SORT_GRAN ||
+            (p = ForkJoinPool.getCommonPoolParallelism()) == 1) {
+            return sortIndices(keys);
+        }
+        long[] k = new long[n];
+        int[] indices = new int[n];
+        parallelSetAll(k, i -> RadixSort.sortableBits(keys[i]));
+        parallelSetAll(indices, i -> i);
+        RadixSort.parallelSort(k, indices, 0, n, new long[n], new int[n], p);
+        return indices;
+    }
+
+    /**
+     * Checks that a payload array is as long as its key array.
+     */
+    private static void checkPayloadLength(int keysLength, int payloadLength) {
+        if (keysLength != payloadLength) {
+            throw new IllegalArgumentException(
+                    "keys.length(" + keysLength + ") != payload.length(" +
+                    payloadLength + ")");
+        }
+    }
+
     /**
      * Sorts the specified array of objects into ascending order, according
      * to the {@linkplain Comparable natural ordering} of its elements.
@@ -0,0 +1,2567 @@
+package java.util;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * 基于 B+ 树的 NavigableMap 实现：每个节点以数组保存多个键，叶子节点之间相互链接，相比红黑树显著减少了查找与范围扫描时的缓存未命中。
+ *
+ * A B+ tree based {@link NavigableMap} implementation.  The map is sorted
+ * according to the {@linkplain Comparable natural ordering} of its keys, or
+ * by a {@link Comparator} provided at map creation time, depending on which
+ * constructor is used.
+ *
+ * <p>Unlike {@link TreeMap}, which allocates one node per mapping and
+ * follows one pointer per level of a binary tree, this map stores keys and
+ * values in arrays held by wide nodes of up to 64 entries.  A lookup
+ * therefore visits a few nodes, each searched by binary search over a
+ * contiguous array, and all mappings live in leaf nodes that are linked in
+ * key order, so that iteration and range scans walk arrays rather than
+ * chasing parent and child pointers.  The tree stays balanced: all leaves
+ * are at the same depth and every node except the root is at least half
+ * full.
+ *
+ * <p>This implementation provides guaranteed log(n) time cost for the
+ * {@code containsKey}, {@code get}, {@code put} and {@code remove}
+ * operations, and, like {@code TreeMap}, supports range views through
+ * {@link #subMap}, {@link #headMap}, {@link #tailMap} and
+ * {@link #descendingMap}.  A map built from a {@link SortedMap} with the
+ * same ordering is constructed in linear time, without any comparisons,
+ * and the spliterators of its views split the key range along the tree's
+ * subtrees, giving balanced halves for parallel streams.
+ *
+ * <p>Note that the ordering maintained by a B-tree map, like any sorted
+ * map, and whether or not an explicit comparator is provided, must be
+ * <em>consistent with {@code equals}</em> if this sorted map is to
+ * correctly implement the {@code Map} interface.  (See {@code TreeMap} for
+ * a precise definition.)
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * If multiple threads access a map concurrently, and at least one of the
+ * threads modifies the map structurally, it <em>must</em> be synchronized
+ * externally.
+ *
+ * <p>The iterators returned by the {@code iterator} method of the
+ * collections returned by all of this class's "collection view methods"
+ * are <em>fail-fast</em>: if the map is structurally modified at any time
+ * after the iterator is created, in any way except through the iterator's
+ * own {@code remove} method, the iterator will throw a {@link
+ * ConcurrentModificationException}.  Fail-fast behavior cannot be
+ * guaranteed and should be used only to detect bugs.
+ *
+ * <p>All {@code Map.Entry} pairs returned by methods in this class and its
+ * views represent snapshots of mappings at the time they were produced.
+ * They do <strong>not</strong> support the {@code Entry.setValue} method,
+ * except for entries returned by the iterators of entry set views, whose
+ * {@code setValue} writes through to the map.
+ *
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ *
+ * @see Map
+ * @see TreeMap
+ * @see NavigableMap
+ * @since 1.8
+ */
+public class BTreeMap<K,V>
+    extends AbstractMap<K,V>
+    implements NavigableMap<K,V>, Cloneable, Serializable
+{
+    private static final long serialVersionUID = 6148436394839237614L;
+
+    /*
+     * Implementation notes.
+     *
+     * This is a B+ tree: all mappings are held in Leaf nodes, which are
+     * doubly linked in key order, and Inner nodes hold only separator
+     * keys and children.  An Inner node with n children has n-1
+     * separators; every key in children[i+1] compares greater than or
+     * equal to keys[i], and every key in children[i] less than it.
+     *
+     * Every node holds at most NODE_CAPACITY entries (children, for Inner
+     * nodes) and every node other than the root at least MIN_ENTRIES.
+     * Both insertion and deletion are single top-down passes that keep
+     * this invariant by restructuring each node before descending into
+     * it: insertion splits any full node it is about to enter, so that a
+     * split never has to propagate upwards, and deletion tops up any
+     * minimal node it is about to enter by borrowing an entry from a
+     * sibling, or merging with one.  Since these passes may restructure
+     * nodes even when nothing is inserted or removed, put and remove
+     * first check whether the key is present with a read-only descent;
+     * a put of an existing key then just replaces the value in its leaf.
+     *
+     * The navigation and view code mirrors that of TreeMap, with
+     * (leaf, index) positions, held in Cursors, in place of entries.
+     */
+
+    /**
+     * The maximum number of entries held by a node.  Must be even.
+     */
+    static final int NODE_CAPACITY = 64;
+
+    /**
+     * The minimum number of entries held by a node other than the root.
+     */
+    static final int MIN_ENTRIES = NODE_CAPACITY / 2;
+
+    /**
+     * The comparator used to maintain order in this map, or null if it
+     * uses the natural ordering of its keys.
+     *
+     * @serial
+     */
+    private final Comparator<? super K> comparator;
+
+    private transient Node root;
+
+    /** The first and last leaves, or null if the map is empty */
+    private transient Leaf firstLeaf, lastLeaf;
+
+    /**
+     * The number of entries in the tree
+     */
+    private transient int size = 0;
+
+    /**
+     * The number of structural modifications to the tree.
+     */
+    private transient int modCount = 0;
+
+    /**
+     * Constructs a new, empty B-tree map, using the natural ordering of
+     * its keys.  All keys inserted into the map must implement the {@link
+     * Comparable} interface and be mutually comparable.
+     */
+    public BTreeMap() {
+        comparator = null;
+    }
+
+    /**
+     * Constructs a new, empty B-tree map, ordered according to the given
+     * comparator.
+     *
+     * @param comparator the comparator that will be used to order this
+     *        map.  If {@code null}, the {@linkplain Comparable natural
+     *        ordering} of the keys will be used.
+     */
+    public BTreeMap(Comparator<? super K> comparator) {
+        this.comparator = comparator;
+    }
+
+    /**
+     * Constructs a new B-tree map containing the same mappings as the
+     * given map, ordered according to the <em>natural ordering</em> of its
+     * keys.  If the given map is a {@link SortedMap} using natural
+     * ordering, the tree is built in linear time.
+     *
+     * @param  m the map whose mappings are to be placed in this map
+     * @throws ClassCastException if the keys in m are not {@link
+     *         Comparable}, or are not mutually comparable
+     * @throws NullPointerException if the specified map is null
+     */
+    public BTreeMap(Map<? extends K, ? extends V> m) {
+        comparator = null;
+        putAll(m);
+    }
+
+    /**
+     * Constructs a new B-tree map containing the same mappings and using
+     * the same ordering as the specified sorted map.  This method runs in
+     * linear time.
+     *
+     * @param  m the sorted map whose mappings are to be placed in this map,
+     *         and whose comparator is to be used to sort this map
+     * @throws NullPointerException if the specified map is null
+     */
+    public BTreeMap(SortedMap<K, ? extends V> m) {
+        comparator = m.comparator();
+        buildFromSorted(m);
+    }
+
+    // Query Operations
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return getNode(key) != null;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        for (Leaf l = firstLeaf; l != null; l = l.next) {
+            Object[] vs = l.vals;
+            for (int i = 0, n = l.n; i < n; ++i) {
+                if (valEquals(value, vs[i])) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        Leaf l = findLeaf(key);
+        int i;
+        return (l == null || (i = search(l.keys, l.n, key)) < 0) ? null :
+            (V)l.vals[i];
+    }
+
+    @Override
+    public Comparator<? super K> comparator() {
+        return comparator;
+    }
+
+    @Override
+    public K firstKey() {
+        return key(firstLeaf, 0);
+    }
+
+    @Override
+    public K lastKey() {
+        Leaf l = lastLeaf;
+        return key(l, (l == null) ? 0 : l.n - 1);
+    }
+
+    /**
+     * Copies all of the mappings from the specified map to this map.  If
+     * this map is empty and the specified map is a {@link SortedMap} with
+     * the same ordering, the tree is built in linear time.
+     *
+     * @param  map mappings to be stored in this map
+     * @throws ClassCastException if the class of a key or value in
+     *         the specified map prevents it from being stored in this map
+     * @throws NullPointerException if the specified map is null or
+     *         the specified map contains a null key and this map does not
+     *         permit null keys
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void putAll(Map<? extends K, ? extends V> map) {
+        if (size == 0 && map.size() != 0 && map instanceof SortedMap &&
+            Objects.equals(comparator, ((SortedMap<?,?>)map).comparator())) {
+            ++modCount;
+            buildFromSorted((SortedMap<K, ? extends V>)map);
+            return;
+        }
+        super.putAll(map);
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key, the old
+     * value is replaced.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     *
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}.
+     *         (A {@code null} return can also indicate that the map
+     *         previously associated {@code null} with {@code key}.)
+     * @throws ClassCastException if the specified key cannot be compared
+     *         with the keys currently in the map
+     * @throws NullPointerException if the specified key is null
+     *         and this map uses natural ordering, or its comparator
+     *         does not permit null keys
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        Node x = root;
+        if (x == null) {
+            compare(key, key); // type (and possibly null) check
+            Leaf l = new Leaf();
+            l.keys[0] = key;
+            l.vals[0] = value;
+            l.n = 1;
+            root = firstLeaf = lastLeaf = l;
+            size = 1;
+            modCount++;
+            return null;
+        }
+        Leaf l = findLeaf(key);
+        int i = search(l.keys, l.n, key);
+        if (i >= 0) {
+            V oldValue = (V)l.vals[i];
+            l.vals[i] = value;
+            return oldValue;
+        }
+        insert(key, value);
+        return null;
+    }
+
+    /**
+     * Removes the mapping for this key from this map if present.
+     *
+     * @param  key key for which mapping should be removed
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}.
+     *         (A {@code null} return can also indicate that the map
+     *         previously associated {@code null} with {@code key}.)
+     * @throws ClassCastException if the specified key cannot be compared
+     *         with the keys currently in the map
+     * @throws NullPointerException if the specified key is null
+     *         and this map uses natural ordering, or its comparator
+     *         does not permit null keys
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        Leaf l = findLeaf(key);
+        int i;
+        if (l == null || (i = search(l.keys, l.n, key)) < 0) {
+            return null;
+        }
+        V oldValue = (V)l.vals[i];
+        delete(key);
+        return oldValue;
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     * The map will be empty after this call returns.
+     */
+    @Override
+    public void clear() {
+        modCount++;
+        size = 0;
+        root = firstLeaf = lastLeaf = null;
+    }
+
+    /**
+     * Returns a shallow copy of this {@code BTreeMap} instance. (The keys
+     * and values themselves are not cloned.)
+     *
+     * @return a shallow copy of this map
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object clone() {
+        BTreeMap<K,?> clone;
+        try {
+            clone = (BTreeMap<K,?>) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+
+        // Put clone into "virgin" state (except for comparator)
+        clone.root = clone.firstLeaf = clone.lastLeaf = null;
+        clone.size = 0;
+        clone.modCount = 0;
+        clone.entrySet = null;
+        clone.navigableKeySet = null;
+        clone.descendingMap = null;
+
+        int n = size;
+        Object[] ks = new Object[n], vs = new Object[n];
+        toArrays(ks, vs);
+        clone.buildFromSorted(ks, vs, n);
+        return clone;
+    }
+
+    // NavigableMap API methods
+
+    @Override
+    public Map.Entry<K,V> firstEntry() {
+        return exportEntry(firstLeaf, 0);
+    }
+
+    @Override
+    public Map.Entry<K,V> lastEntry() {
+        Leaf l = lastLeaf;
+        return exportEntry(l, (l == null) ? 0 : l.n - 1);
+    }
+
+    @Override
+    public Map.Entry<K,V> pollFirstEntry() {
+        Map.Entry<K,V> e = firstEntry();
+        if (e != null) {
+            delete(e.getKey());
+        }
+        return e;
+    }
+
+    @Override
+    public Map.Entry<K,V> pollLastEntry() {
+        Map.Entry<K,V> e = lastEntry();
+        if (e != null) {
+            delete(e.getKey());
+        }
+        return e;
+    }
+
+    /**
+     * @throws ClassCastException {@inheritDoc}
+     * @throws NullPointerException if the specified key is null
+     *         and this map uses natural ordering, or its comparator
+     *         does not permit null keys
+     */
+    @Override
+    public Map.Entry<K,V> lowerEntry(K key) {
+        return findNear(key, LT);
+    }
+
+    /**
+     * @throws ClassCastException {@inheritDoc}
+     * @throws NullPointerException if the specified key is null
+     *         and this map uses natural ordering, or its comparator
+     *         does not permit null keys
+     */
+    @Override
+    public K lowerKey(K key) {
+        return keyOrNull(findNear(key, LT));
+    }
+
+    /**
+     * @throws ClassCastException {@inheritDoc}
+     * @throws NullPointerException if the specified key is null
+     *         and this map uses natural ordering, or its comparator
+     *         does not permit null keys
+     */
+    @Override
+    public Map.Entry<K,V> floorEntry(K key) {
+        return findNear(key, LT|EQ);
+    }
+
+    /**
+     * @throws ClassCastException {@inheritDoc}
+     * @throws NullPointerException if the specified key is null
+     *         and this map uses natural ordering, or its comparator
+     *         does not permit null keys
+     */
+    @Override
+    public K floorKey(K key) {
+        return keyOrNull(findNear(key, LT|EQ));
+    }
+
+    /**
+     * @throws ClassCastException {@inheritDoc}
+     * @throws NullPointerException if the specified key is null
+     *         and this map uses natural ordering, or its comparator
+     *         does not permit null keys
+     */
+    @Override
+    public Map.Entry<K,V> ceilingEntry(K key) {
+        return findNear(key, GT|EQ);
+    }
+
+    /**
+     * @throws ClassCastException {@inheritDoc}
+     * @throws NullPointerException if the specified key is null
+     *         and this map uses natural ordering, or its comparator
+     *         does not permit null keys
+     */
+    @Override
+    public K ceilingKey(K key) {
+        return keyOrNull(findNear(key, GT|EQ));
+    }
+
+    /**
+     * @throws ClassCastException {@inheritDoc}
+     * @throws NullPointerException if the specified key is null
+     *         and this map uses natural ordering, or its comparator
+     *         does not permit null keys
+     */
+    @Override
+    public Map.Entry<K,V> higherEntry(K key) {
+        return findNear(key, GT);
+    }
+
+    /**
+     * @throws ClassCastException {@inheritDoc}
+     * @throws NullPointerException if the specified key is null
+     *         and this map uses natural ordering, or its comparator
+     *         does not permit null keys
+     */
+    @Override
+    public K higherKey(K key) {
+        return keyOrNull(findNear(key, GT));
+    }
+
+    // Views
+
+    /**
+     * Fields initialized to contain an instance of the entry set view
+     * the first time this view is requested.  Views are stateless, so
+     * there's no reason to create more than one.
+     */
+    private transient EntrySet entrySet;
+    private transient KeySet<K> navigableKeySet;
+    private transient NavigableMap<K,V> descendingMap;
+
+    /**
+     * Returns a {@link Set} view of the keys contained in this map, in
+     * ascending order.  The set is backed by the map, so changes to the
+     * map are reflected in the set, and vice-versa.  The set supports
+     * element removal, but not element addition.
+     */
+    @Override
+    public Set<K> keySet() {
+        return navigableKeySet();
+    }
+
+    @Override
+    public NavigableSet<K> navigableKeySet() {
+        KeySet<K> nks = navigableKeySet;
+        return (nks != null) ? nks : (navigableKeySet = new KeySet<>(this));
+    }
+
+    @Override
+    public NavigableSet<K> descendingKeySet() {
+        return descendingMap().navigableKeySet();
+    }
+
+    /**
+     * Returns a {@link Collection} view of the values contained in this
+     * map, in the order of their corresponding keys.  The collection is
+     * backed by the map, so changes to the map are reflected in the
+     * collection, and vice-versa.  The collection supports element
+     * removal, but not element addition.
+     */
+    @Override
+    public Collection<V> values() {
+        Collection<V> vs = values;
+        if (vs == null) {
+            vs = new Values();
+            values = vs;
+        }
+        return vs;
+    }
+
+    /**
+     * Returns a {@link Set} view of the mappings contained in this map, in
+     * ascending key order.  The set is backed by the map, so changes to
+     * the map are reflected in the set, and vice-versa.  The set supports
+     * element removal, but not element addition.  The {@code setValue}
+     * method of entries returned by its iterator writes through to the
+     * map.
+     */
+    @Override
+    public Set<Map.Entry<K,V>> entrySet() {
+        EntrySet es = entrySet;
+        return (es != null) ? es : (entrySet = new EntrySet());
+    }
+
+    @Override
+    public NavigableMap<K, V> descendingMap() {
+        NavigableMap<K, V> km = descendingMap;
+        return (km != null) ? km :
+            (descendingMap = new DescendingSubMap<>(this,
+                                                    true, null, true,
+                                                    true, null, true));
+    }
+
+    /**
+     * @throws ClassCastException       {@inheritDoc}
+     * @throws NullPointerException if {@code fromKey} or {@code toKey} is
+     *         null and this map uses natural ordering, or its comparator
+     *         does not permit null keys
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    @Override
+    public NavigableMap<K,V> subMap(K fromKey, boolean fromInclusive,
+                                    K toKey,   boolean toInclusive) {
+        return new AscendingSubMap<>(this,
+                                     false, fromKey, fromInclusive,
+                                     false, toKey,   toInclusive);
+    }
+
+    /**
+     * @throws ClassCastException       {@inheritDoc}
+     * @throws NullPointerException if {@code toKey} is null
+     *         and this map uses natural ordering, or its comparator
+     *         does not permit null keys
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    @Override
+    public NavigableMap<K,V> headMap(K toKey, boolean inclusive) {
+        return new AscendingSubMap<>(this,
+                                     true,  null,  true,
+                                     false, toKey, inclusive);
+    }
+
+    /**
+     * @throws ClassCastException       {@inheritDoc}
+     * @throws NullPointerException if {@code fromKey} is null
+     *         and this map uses natural ordering, or its comparator
+     *         does not permit null keys
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    @Override
+    public NavigableMap<K,V> tailMap(K fromKey, boolean inclusive) {
+        return new AscendingSubMap<>(this,
+                                     false, fromKey, inclusive,
+                                     true,  null,    true);
+    }
+
+    @Override
+    public SortedMap<K,V> subMap(K fromKey, K toKey) {
+        return subMap(fromKey, true, toKey, false);
+    }
+
+    @Override
+    public SortedMap<K,V> headMap(K toKey) {
+        return headMap(toKey, false);
+    }
+
+    @Override
+    public SortedMap<K,V> tailMap(K fromKey) {
+        return tailMap(fromKey, true);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        int expectedModCount = modCount;
+        for (Leaf l = firstLeaf; l != null; l = l.next) {
+            Object[] ks = l.keys, vs = l.vals;
+            for (int i = 0, n = l.n; i < n; ++i) {
+                action.accept((K)ks[i], (V)vs[i]);
+            }
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        Objects.requireNonNull(function);
+        int expectedModCount = modCount;
+        for (Leaf l = firstLeaf; l != null; l = l.next) {
+            Object[] ks = l.keys, vs = l.vals;
+            for (int i = 0, n = l.n; i < n; ++i) {
+                vs[i] = function.apply((K)ks[i], (V)vs[i]);
+            }
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    // View class support
+
+    class Values extends AbstractCollection<V> {
+        @Override
+        public Iterator<V> iterator() {
+            return new ValueIterator(firstLeaf, 0, UNBOUNDED, false);
+        }
+
+        @Override
+        public int size() {
+            return BTreeMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return BTreeMap.this.containsValue(o);
+        }
+
+        @Override
+        public void clear() {
+            BTreeMap.this.clear();
+        }
+
+        @Override
+        public Spliterator<V> spliterator() {
+            return new ValueSpliterator<K,V>(BTreeMap.this);
+        }
+    }
+
+    class EntrySet extends AbstractSet<Map.Entry<K,V>> {
+        @Override
+        public Iterator<Map.Entry<K,V>> iterator() {
+            return new EntryIterator(firstLeaf, 0, UNBOUNDED, false);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?,?> entry = (Map.Entry<?,?>) o;
+            Object key = entry.getKey();
+            Leaf l = findLeaf(key);
+            int i;
+            return l != null && (i = search(l.keys, l.n, key)) >= 0 &&
+                valEquals(l.vals[i], entry.getValue());
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?,?> entry = (Map.Entry<?,?>) o;
+            Object key = entry.getKey();
+            Leaf l = findLeaf(key);
+            int i;
+            if (l != null && (i = search(l.keys, l.n, key)) >= 0 &&
+                valEquals(l.vals[i], entry.getValue())) {
+                delete(key);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public int size() {
+            return BTreeMap.this.size();
+        }
+
+        @Override
+        public void clear() {
+            BTreeMap.this.clear();
+        }
+
+        @Override
+        public Spliterator<Map.Entry<K,V>> spliterator() {
+            return new EntrySpliterator<K,V>(BTreeMap.this);
+        }
+    }
+
+    /*
+     * Unlike Values and EntrySet, the KeySet class is static,
+     * delegating to a NavigableMap to allow use by SubMaps, which
+     * outweighs the ugliness of needing type-tests for the following
+     * Iterator methods that are defined appropriately in main versus
+     * submap classes.
+     */
+
+    Iterator<K> keyIterator() {
+        return new KeyIterator(firstLeaf, 0, UNBOUNDED, false);
+    }
+
+    Iterator<K> descendingKeyIterator() {
+        Leaf l = lastLeaf;
+        return new KeyIterator(l, (l == null) ? 0 : l.n - 1, UNBOUNDED, true);
+    }
+
+    static final class KeySet<E> extends AbstractSet<E> implements NavigableSet<E> {
+        private final NavigableMap<E, ?> m;
+        KeySet(NavigableMap<E,?> map) { m = map; }
+
+        @Override
+        public Iterator<E> iterator() {
+            if (m instanceof BTreeMap) {
+                return ((BTreeMap<E,?>)m).keyIterator();
+            } else {
+                return ((NavigableSubMap<E,?>)m).keyIterator();
+            }
+        }
+
+        @Override
+        public Iterator<E> descendingIterator() {
+            if (m instanceof BTreeMap) {
+                return ((BTreeMap<E,?>)m).descendingKeyIterator();
+            } else {
+                return ((NavigableSubMap<E,?>)m).descendingKeyIterator();
+            }
+        }
+
+        @Override
+        public int size() { return m.size(); }
+        @Override
+        public boolean isEmpty() { return m.isEmpty(); }
+        @Override
+        public boolean contains(Object o) { return m.containsKey(o); }
+        @Override
+        public void clear() { m.clear(); }
+        @Override
+        public E lower(E e) { return m.lowerKey(e); }
+        @Override
+        public E floor(E e) { return m.floorKey(e); }
+        @Override
+        public E ceiling(E e) { return m.ceilingKey(e); }
+        @Override
+        public E higher(E e) { return m.higherKey(e); }
+        @Override
+        public E first() { return m.firstKey(); }
+        @Override
+        public E last() { return m.lastKey(); }
+        @Override
+        public Comparator<? super E> comparator() { return m.comparator(); }
+        @Override
+        public E pollFirst() {
+            Map.Entry<E,?> e = m.pollFirstEntry();
+            return (e == null) ? null : e.getKey();
+        }
+        @Override
+        public E pollLast() {
+            Map.Entry<E,?> e = m.pollLastEntry();
+            return (e == null) ? null : e.getKey();
+        }
+        @Override
+        public boolean remove(Object o) {
+            int oldSize = size();
+            m.remove(o);
+            return size() != oldSize;
+        }
+        @Override
+        public NavigableSet<E> subSet(E fromElement, boolean fromInclusive,
+                                      E toElement, boolean toInclusive) {
+            return new KeySet<>(m.subMap(fromElement, fromInclusive,
+                                          toElement,   toInclusive));
+        }
+        @Override
+        public NavigableSet<E> headSet(E toElement, boolean inclusive) {
+            return new KeySet<>(m.headMap(toElement, inclusive));
+        }
+        @Override
+        public NavigableSet<E> tailSet(E fromElement, boolean inclusive) {
+            return new KeySet<>(m.tailMap(fromElement, inclusive));
+        }
+        @Override
+        public SortedSet<E> subSet(E fromElement, E toElement) {
+            return subSet(fromElement, true, toElement, false);
+        }
+        @Override
+        public SortedSet<E> headSet(E toElement) {
+            return headSet(toElement, false);
+        }
+        @Override
+        public SortedSet<E> tailSet(E fromElement) {
+            return tailSet(fromElement, true);
+        }
+        @Override
+        public NavigableSet<E> descendingSet() {
+            return new KeySet<>(m.descendingMap());
+        }
+
+        @Override
+        public Spliterator<E> spliterator() {
+            if (m instanceof BTreeMap) {
+                return new KeySpliterator<>((BTreeMap<E,?>)m);
+            }
+            return Spliterators.spliteratorUnknownSize
+                (iterator(), Spliterator.DISTINCT | Spliterator.ORDERED);
+        }
+    }
+
+    /**
+     * A position in the leaf level: the entry at {@code index} of
+     * {@code leaf}.
+     */
+    static class Cursor {
+        Leaf leaf;
+        int index;
+    }
+
+    /**
+     * Base class for BTreeMap Iterators.  Iterates from a starting
+     * position, in either direction, until reaching the position of the
+     * fence key, which is the first key outside the iterated range, or
+     * UNBOUNDED to iterate to the end of the map.
+     */
+    abstract class PrivateEntryIterator<T> extends Cursor implements Iterator<T> {
+        final boolean descending;
+        final Object fenceKey;
+        Leaf fenceLeaf;
+        int fenceIndex;
+        Leaf current;                // leaf of the last returned entry
+        Object lastKey = UNBOUNDED;  // UNBOUNDED if none
+        int expectedModCount;
+
+        PrivateEntryIterator(Leaf first, int index, Object fenceKey,
+                             boolean descending) {
+            expectedModCount = modCount;
+            this.descending = descending;
+            this.fenceKey = fenceKey;
+            leaf = first;
+            this.index = index;
+            locateFence();
+        }
+
+        private void locateFence() {
+            Cursor f = new Cursor();
+            if (fenceKey != UNBOUNDED && locate(f, fenceKey, EQ)) {
+                fenceLeaf = f.leaf;
+                fenceIndex = f.index;
+            }
+        }
+
+        @Override
+        public final boolean hasNext() {
+            return leaf != null && (leaf != fenceLeaf || index != fenceIndex);
+        }
+
+        /**
+         * Steps over the next position and returns the index of the entry
+         * at it, which is in the leaf returned by {@code lastLeaf}.
+         */
+        final int nextIndex() {
+            Leaf l = leaf;
+            int i = index;
+            if (l == null || (l == fenceLeaf && i == fenceIndex)) {
+                throw new NoSuchElementException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            current = l;
+            if (!descending) {
+                if (i + 1 < l.n) {
+                    index = i + 1;
+                } else {
+                    leaf = l.next;
+                    index = 0;
+                }
+            } else if (i > 0) {
+                index = i - 1;
+            } else if ((leaf = l.prev) != null) {
+                index = leaf.n - 1;
+            }
+            lastKey = l.keys[i];
+            return i;
+        }
+
+        @Override
+        public void remove() {
+            Object k = lastKey;
+            if (k == UNBOUNDED) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            boolean more = hasNext();
+            Object nextKey = more ? leaf.keys[index] : null;
+            delete(k);
+            lastKey = UNBOUNDED;
+            expectedModCount = modCount;
+            // Positions may have moved; find them again by key
+            if (!more || !locate(this, nextKey, EQ)) {
+                leaf = null;
+            }
+            fenceLeaf = null;
+            locateFence();
+        }
+    }
+
+    final class EntryIterator extends PrivateEntryIterator<Map.Entry<K,V>> {
+        EntryIterator(Leaf first, int index, Object fenceKey,
+                      boolean descending) {
+            super(first, index, fenceKey, descending);
+        }
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<K,V> next() {
+            int i = nextIndex();
+            return new IteratorEntry((K)current.keys[i], (V)current.vals[i]);
+        }
+    }
+
+    final class ValueIterator extends PrivateEntryIterator<V> {
+        ValueIterator(Leaf first, int index, Object fenceKey,
+                      boolean descending) {
+            super(first, index, fenceKey, descending);
+        }
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            int i = nextIndex();
+            return (V)current.vals[i];
+        }
+    }
+
+    final class KeyIterator extends PrivateEntryIterator<K> {
+        KeyIterator(Leaf first, int index, Object fenceKey,
+                    boolean descending) {
+            super(first, index, fenceKey, descending);
+        }
+        @Override
+        @SuppressWarnings("unchecked")
+        public K next() {
+            int i = nextIndex();
+            return (K)current.keys[i];
+        }
+    }
+
+    /**
+     * Entry returned by entry set iterators.  Positions move as the tree
+     * is restructured, so setValue looks the key up again.
+     */
+    final class IteratorEntry extends AbstractMap.SimpleEntry<K,V> {
+        private static final long serialVersionUID = -3146283512346416935L;
+
+        IteratorEntry(K key, V value) {
+            super(key, value);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V setValue(V value) {
+            K key = getKey();
+            Leaf l = findLeaf(key);
+            int i;
+            if (l == null || (i = search(l.keys, l.n, key)) < 0) {
+                throw new IllegalStateException("entry no longer in map");
+            }
+            V oldValue = (V)l.vals[i];
+            l.vals[i] = value;
+            super.setValue(value);
+            return oldValue;
+        }
+    }
+
+    // Little utilities
+
+    /**
+     * Compares two keys using the correct comparison method for this
+     * BTreeMap.
+     */
+    @SuppressWarnings("unchecked")
+    final int compare(Object k1, Object k2) {
+        return comparator==null ? ((Comparable<? super K>)k1).compareTo((K)k2)
+            : comparator.compare((K)k1, (K)k2);
+    }
+
+    /**
+     * Test two values for equality.  Differs from o1.equals(o2) only in
+     * that it copes with {@code null} o1 properly.
+     */
+    static final boolean valEquals(Object o1, Object o2) {
+        return (o1==null ? o2==null : o1.equals(o2));
+    }
+
+    /**
+     * Return SimpleImmutableEntry for the entry at the given position, or
+     * null if the leaf is null
+     */
+    @SuppressWarnings("unchecked")
+    final Map.Entry<K,V> exportEntry(Leaf l, int i) {
+        return (l == null) ? null :
+            new AbstractMap.SimpleImmutableEntry<>((K)l.keys[i], (V)l.vals[i]);
+    }
+
+    /**
+     * Return key for entry, or null if null
+     */
+    static <K,V> K keyOrNull(Map.Entry<K,V> e) {
+        return (e == null) ? null : e.getKey();
+    }
+
+    /**
+     * Returns the key at the given position.
+     * @throws NoSuchElementException if the leaf is null
+     */
+    @SuppressWarnings("unchecked")
+    final K key(Leaf l, int i) {
+        if (l == null) {
+            throw new NoSuchElementException();
+        }
+        return (K)l.keys[i];
+    }
+
+    /**
+     * Returns the key of the specified Entry.
+     * @throws NoSuchElementException if the Entry is null
+     */
+    static <K> K key(Map.Entry<K,?> e) {
+        if (e == null) {
+            throw new NoSuchElementException();
+        }
+        return e.getKey();
+    }
+
+    /* ---------------- Nodes -------------- */
+
+    /**
+     * A tree node, holding {@code n} entries.
+     */
+    abstract static class Node {
+        final Object[] keys;
+        int n;
+        Node(int keyCapacity) {
+            keys = new Object[keyCapacity];
+        }
+    }
+
+    /**
+     * A leaf, holding n keys and their values, linked to its neighbors.
+     */
+    static final class Leaf extends Node {
+        final Object[] vals = new Object[NODE_CAPACITY];
+        Leaf prev, next;
+        Leaf() {
+            super(NODE_CAPACITY);
+        }
+    }
+
+    /**
+     * An inner node, holding n children and n-1 separator keys.
+     */
+    static final class Inner extends Node {
+        final Node[] children = new Node[NODE_CAPACITY];
+        Inner() {
+            super(NODE_CAPACITY - 1);
+        }
+    }
+
+    /* ---------------- Search -------------- */
+
+    /**
+     * Binary search over the first n keys: returns the index of the key,
+     * if found, else (-(insertion point) - 1).
+     */
+    @SuppressWarnings("unchecked")
+    final int search(Object[] keys, int n, Object key) {
+        int low = 0, high = n - 1;
+        Comparator<? super K> cpr = comparator;
+        if (cpr == null) {
+            if (key == null) {
+                throw new NullPointerException();
+            }
+            Comparable<? super K> k = (Comparable<? super K>) key;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int c = k.compareTo((K)keys[mid]);
+                if (c > 0) {
+                    low = mid + 1;
+                } else if (c < 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+        } else {
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int c = cpr.compare((K)key, (K)keys[mid]);
+                if (c > 0) {
+                    low = mid + 1;
+                } else if (c < 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Returns the index of the child of p whose range includes key.
+     */
+    final int childIndex(Inner p, Object key) {
+        int i = search(p.keys, p.n - 1, key);
+        return (i >= 0) ? i + 1 : -i - 1;
+    }
+
+    /**
+     * Returns the leaf whose range includes key, or null if the map is
+     * empty.
+     */
+    final Leaf findLeaf(Object key) {
+        Node x = root;
+        if (x == null) {
+            if (key == null && comparator == null) {
+                throw new NullPointerException();
+            }
+            return null;
+        }
+        while (x instanceof Inner) {
+            Inner p = (Inner)x;
+            x = p.children[childIndex(p, key)];
+        }
+        return (Leaf)x;
+    }
+
+    /**
+     * Returns the leaf containing key, or null if absent.
+     */
+    final Leaf getNode(Object key) {
+        Leaf l = findLeaf(key);
+        return (l != null && search(l.keys, l.n, key) >= 0) ? l : null;
+    }
+
+    /*
+     * Relations for locate and findNear, as in ConcurrentSkipListMap,
+     * except that GT has its own bit, so that EQ alone means an exact
+     * match.
+     */
+    static final int EQ = 1;
+    static final int LT = 2;
+    static final int GT = 4;
+
+    /**
+     * Positions the cursor at the entry for the key nearest to the given
+     * key in the given relation: EQ for an exact match, LT|EQ for floor,
+     * LT for lower, GT|EQ for ceiling and GT for higher.
+     *
+     * @return false, leaving the cursor unchanged, if there is no such
+     *         entry
+     */
+    final boolean locate(Cursor c, Object key, int rel) {
+        Leaf l = findLeaf(key);
+        if (l == null) {
+            return false;
+        }
+        int i = search(l.keys, l.n, key);
+        if (i >= 0) {
+            if ((rel & EQ) == 0) {
+                i += ((rel & LT) != 0) ? -1 : 1;
+            }
+        } else if (rel == EQ) {
+            return false;
+        } else {
+            i = -i - 1;
+            if ((rel & LT) != 0) {
+                --i;
+            }
+        }
+        if (i < 0) {
+            if ((l = l.prev) == null) {
+                return false;
+            }
+            i = l.n - 1;
+        } else if (i >= l.n) {
+            if ((l = l.next) == null) {
+                return false;
+            }
+            i = 0;
+        }
+        c.leaf = l;
+        c.index = i;
+        return true;
+    }
+
+    /**
+     * Returns a snapshot of the entry nearest to the given key in the
+     * given relation, or null if there is none.
+     */
+    final Map.Entry<K,V> findNear(Object key, int rel) {
+        Cursor c = new Cursor();
+        return locate(c, key, rel) ? exportEntry(c.leaf, c.index) : null;
+    }
+
+    /* ---------------- Insertion -------------- */
+
+    /**
+     * Inserts a mapping for a key known to be absent from the non-empty
+     * tree, splitting full nodes on the way down.
+     */
+    private void insert(K key, V value) {
+        Node x = root;
+        if (x.n == NODE_CAPACITY) {
+            Inner r = new Inner();
+            r.children[0] = x;
+            r.n = 1;
+            splitChild(r, 0);
+            root = x = r;
+        }
+        while (x instanceof Inner) {
+            Inner p = (Inner)x;
+            int i = childIndex(p, key);
+            if (p.children[i].n == NODE_CAPACITY) {
+                splitChild(p, i);
+                if (compare(key, p.keys[i]) >= 0) {
+                    ++i;
+                }
+            }
+            x = p.children[i];
+        }
+        Leaf l = (Leaf)x;
+        int i = -search(l.keys, l.n, key) - 1, m = l.n - i;
+        System.arraycopy(l.keys, i, l.keys, i + 1, m);
+        System.arraycopy(l.vals, i, l.vals, i + 1, m);
+        l.keys[i] = key;
+        l.vals[i] = value;
+        l.n++;
+        size++;
+        modCount++;
+    }
+
+    /**
+     * Splits the full child i of the non-full node p in two, adding the
+     * new right half as child i+1.
+     */
+    private void splitChild(Inner p, int i) {
+        Node c = p.children[i], r;
+        int h = NODE_CAPACITY >>> 1;
+        Object sep;
+        if (c instanceof Leaf) {
+            Leaf l = (Leaf)c, s = new Leaf();
+            int m = l.n - h;
+            System.arraycopy(l.keys, h, s.keys, 0, m);
+            System.arraycopy(l.vals, h, s.vals, 0, m);
+            Arrays.fill(l.keys, h, l.n, null);
+            Arrays.fill(l.vals, h, l.n, null);
+            s.n = m;
+            l.n = h;
+            if ((s.next = l.next) != null) {
+                s.next.prev = s;
+            } else {
+                lastLeaf = s;
+            }
+            s.prev = l;
+            l.next = s;
+            sep = s.keys[0];
+            r = s;
+        } else {
+            Inner q = (Inner)c, s = new Inner();
+            int m = q.n - h;
+            System.arraycopy(q.children, h, s.children, 0, m);
+            System.arraycopy(q.keys, h, s.keys, 0, m - 1);
+            sep = q.keys[h - 1];
+            Arrays.fill(q.children, h, q.n, null);
+            Arrays.fill(q.keys, h - 1, q.n - 1, null);
+            s.n = m;
+            q.n = h;
+            r = s;
+        }
+        int m = p.n - 1 - i;
+        System.arraycopy(p.keys, i, p.keys, i + 1, m);
+        System.arraycopy(p.children, i + 1, p.children, i + 2, m);
+        p.keys[i] = sep;
+        p.children[i + 1] = r;
+        p.n++;
+    }
+
+    /* ---------------- Deletion -------------- */
+
+    /**
+     * Deletes the mapping for a key known to be present, topping up
+     * minimal nodes on the way down.
+     */
+    final void delete(Object key) {
+        Node x = root;
+        while (x instanceof Inner) {
+            Inner p = (Inner)x;
+            int i = childIndex(p, key);
+            if (p.children[i].n <= MIN_ENTRIES) {
+                i = fixChild(p, i);
+                if (p.n == 1) {           // root lost its last separator
+                    root = p.children[0];
+                }
+            }
+            x = p.children[i];
+        }
+        Leaf l = (Leaf)x;
+        int i = search(l.keys, l.n, key), m = l.n - 1 - i;
+        System.arraycopy(l.keys, i + 1, l.keys, i, m);
+        System.arraycopy(l.vals, i + 1, l.vals, i, m);
+        l.n--;
+        l.keys[l.n] = null;
+        l.vals[l.n] = null;
+        modCount++;
+        if (--size == 0) {
+            root = firstLeaf = lastLeaf = null;
+        }
+    }
+
+    /**
+     * Gives the minimal child i of p an extra entry, by borrowing from a
+     * sibling or merging with one, and returns the index of the child
+     * now covering the range of child i.
+     */
+    private int fixChild(Inner p, int i) {
+        if (i > 0 && p.children[i - 1].n > MIN_ENTRIES) {
+            borrowFromLeft(p, i);
+            return i;
+        }
+        if (i < p.n - 1 && p.children[i + 1].n > MIN_ENTRIES) {
+            borrowFromRight(p, i);
+            return i;
+        }
+        if (i < p.n - 1) {
+            merge(p, i);
+            return i;
+        }
+        merge(p, i - 1);
+        return i - 1;
+    }
+
+    private void borrowFromLeft(Inner p, int i) {
+        Node c = p.children[i], s = p.children[i - 1];
+        if (c instanceof Leaf) {
+            Leaf l = (Leaf)c, ls = (Leaf)s;
+            System.arraycopy(l.keys, 0, l.keys, 1, l.n);
+            System.arraycopy(l.vals, 0, l.vals, 1, l.n);
+            int j = --ls.n;
+            l.keys[0] = ls.keys[j];
+            l.vals[0] = ls.vals[j];
+            ls.keys[j] = null;
+            ls.vals[j] = null;
+            l.n++;
+            p.keys[i - 1] = l.keys[0];
+        } else {
+            Inner q = (Inner)c, qs = (Inner)s;
+            System.arraycopy(q.children, 0, q.children, 1, q.n);
+            System.arraycopy(q.keys, 0, q.keys, 1, q.n - 1);
+            int j = --qs.n;
+            q.children[0] = qs.children[j];
+            q.keys[0] = p.keys[i - 1];
+            p.keys[i - 1] = qs.keys[j - 1];
+            qs.children[j] = null;
+            qs.keys[j - 1] = null;
+            q.n++;
+        }
+    }
+
+    private void borrowFromRight(Inner p, int i) {
+        Node c = p.children[i], s = p.children[i + 1];
+        if (c instanceof Leaf) {
+            Leaf l = (Leaf)c, rs = (Leaf)s;
+            l.keys[l.n] = rs.keys[0];
+            l.vals[l.n] = rs.vals[0];
+            l.n++;
+            int m = --rs.n;
+            System.arraycopy(rs.keys, 1, rs.keys, 0, m);
+            System.arraycopy(rs.vals, 1, rs.vals, 0, m);
+            rs.keys[m] = null;
+            rs.vals[m] = null;
+            p.keys[i] = rs.keys[0];
+        } else {
+            Inner q = (Inner)c, qs = (Inner)s;
+            q.children[q.n] = qs.children[0];
+            q.keys[q.n - 1] = p.keys[i];
+            q.n++;
+            p.keys[i] = qs.keys[0];
+            int m = --qs.n;
+            System.arraycopy(qs.children, 1, qs.children, 0, m);
+            System.arraycopy(qs.keys, 1, qs.keys, 0, m - 1);
+            qs.children[m] = null;
+            qs.keys[m - 1] = null;
+        }
+    }
+
+    /**
+     * Merges child i+1 of p into child i, removing separator i.
+     */
+    private void merge(Inner p, int i) {
+        Node c = p.children[i], s = p.children[i + 1];
+        if (c instanceof Leaf) {
+            Leaf l = (Leaf)c, rs = (Leaf)s;
+            System.arraycopy(rs.keys, 0, l.keys, l.n, rs.n);
+            System.arraycopy(rs.vals, 0, l.vals, l.n, rs.n);
+            l.n += rs.n;
+            if ((l.next = rs.next) != null) {
+                l.next.prev = l;
+            } else {
+                lastLeaf = l;
+            }
+        } else {
+            Inner q = (Inner)c, qs = (Inner)s;
+            q.keys[q.n - 1] = p.keys[i];
+            System.arraycopy(qs.keys, 0, q.keys, q.n, qs.n - 1);
+            System.arraycopy(qs.children, 0, q.children, q.n, qs.n);
+            q.n += qs.n;
+        }
+        int m = p.n - 2 - i;
+        System.arraycopy(p.keys, i + 1, p.keys, i, m);
+        System.arraycopy(p.children, i + 2, p.children, i + 1, m);
+        p.n--;
+        p.keys[p.n - 1] = null;
+        p.children[p.n] = null;
+    }
+
+    /* ---------------- Bulk loading -------------- */
+
+    /**
+     * Copies keys and values in order into the given arrays.
+     */
+    private void toArrays(Object[] ks, Object[] vs) {
+        int j = 0;
+        for (Leaf l = firstLeaf; l != null; l = l.next) {
+            System.arraycopy(l.keys, 0, ks, j, l.n);
+            System.arraycopy(l.vals, 0, vs, j, l.n);
+            j += l.n;
+        }
+    }
+
+    /**
+     * Builds the tree from the mappings of a sorted map known to use this
+     * map's ordering.
+     */
+    private void buildFromSorted(SortedMap<K, ? extends V> m) {
+        int n = m.size();
+        Object[] ks = new Object[n], vs = new Object[n];
+        int j = 0;
+        for (Map.Entry<K, ? extends V> e : m.entrySet()) {
+            if (j == n) {
+                throw new ConcurrentModificationException();
+            }
+            ks[j] = e.getKey();
+            vs[j++] = e.getValue();
+        }
+        if (j != n) {
+            throw new ConcurrentModificationException();
+        }
+        buildFromSorted(ks, vs, n);
+    }
+
+    /**
+     * Linear time tree building algorithm from sorted data.  Fills leaves
+     * as evenly as possible, each with at least MIN_ENTRIES entries unless
+     * there is only one, then builds each level of inner nodes above
+     * them the same way.  Assumes that the map is empty and the keys are
+     * distinct and in order.
+     */
+    private void buildFromSorted(Object[] ks, Object[] vs, int n) {
+        if (n == 0) {
+            return;
+        }
+        int count = (n + NODE_CAPACITY - 1) / NODE_CAPACITY;
+        Node[] level = new Node[count];
+        Object[] mins = new Object[count];   // least key under each node
+        Leaf prev = null;
+        for (int i = 0, off = 0; i < count; ++i) {
+            int len = (n - off) / (count - i);
+            Leaf l = new Leaf();
+            System.arraycopy(ks, off, l.keys, 0, len);
+            System.arraycopy(vs, off, l.vals, 0, len);
+            l.n = len;
+            if ((l.prev = prev) != null) {
+                prev.next = l;
+            } else {
+                firstLeaf = l;
+            }
+            level[i] = prev = l;
+            mins[i] = ks[off];
+            off += len;
+        }
+        lastLeaf = prev;
+        while (count > 1) {
+            int parents = (count + NODE_CAPACITY - 1) / NODE_CAPACITY;
+            for (int i = 0, off = 0; i < parents; ++i) {
+                int len = (count - off) / (parents - i);
+                Inner p = new Inner();
+                System.arraycopy(level, off, p.children, 0, len);
+                System.arraycopy(mins, off + 1, p.keys, 0, len - 1);
+                p.n = len;
+                level[i] = p;
+                mins[i] = mins[off];
+                off += len;
+            }
+            Arrays.fill(level, parents, count, null);
+            count = parents;
+        }
+        root = level[0];
+        size = n;
+    }
+
+    /**
+     * Save the state of the {@code BTreeMap} instance to a stream (i.e.,
+     * serialize it).
+     *
+     * @serialData The <em>size</em> of the BTreeMap (the number of
+     *             key-value mappings) is emitted (int), followed by the key
+     *             (Object) and value (Object) for each key-value mapping
+     *             represented by the BTreeMap. The key-value mappings are
+     *             emitted in key-order (as determined by the BTreeMap's
+     *             Comparator, or by the keys' natural ordering if the
+     *             BTreeMap has no Comparator).
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws IOException {
+        // Write out the Comparator and any hidden stuff
+        s.defaultWriteObject();
+
+        // Write out size (number of Mappings)
+        s.writeInt(size);
+
+        // Write out keys and values (alternating)
+        for (Leaf l = firstLeaf; l != null; l = l.next) {
+            for (int i = 0; i < l.n; ++i) {
+                s.writeObject(l.keys[i]);
+                s.writeObject(l.vals[i]);
+            }
+        }
+    }
+
+    /**
+     * Reconstitute the {@code BTreeMap} instance from a stream (i.e.,
+     * deserialize it).
+     */
+    private void readObject(final java.io.ObjectInputStream s)
+        throws IOException, ClassNotFoundException {
+        // Read in the Comparator and any hidden stuff
+        s.defaultReadObject();
+
+        // Read in size
+        int n = s.readInt();
+        if (n < 0) {
+            throw new java.io.InvalidObjectException("Illegal size: " + n);
+        }
+        Object[] ks = new Object[n], vs = new Object[n];
+        for (int i = 0; i < n; ++i) {
+            ks[i] = s.readObject();
+            vs[i] = s.readObject();
+            if (i > 0 && compare(ks[i - 1], ks[i]) >= 0) {
+                throw new java.io.InvalidObjectException("Keys out of order");
+            }
+        }
+        buildFromSorted(ks, vs, n);
+    }
+
+    // SubMaps
+
+    /**
+     * Dummy value serving as unmatchable fence key for unbounded
+     * iterators, and as the absent key in iterators.
+     */
+    private static final Object UNBOUNDED = new Object();
+
+    /**
+     * @serial include
+     */
+    abstract static class NavigableSubMap<K,V> extends AbstractMap<K,V>
+        implements NavigableMap<K,V>, java.io.Serializable {
+        private static final long serialVersionUID = 4718612893124376502L;
+        /**
+         * The backing map.
+         */
+        final BTreeMap<K,V> m;
+
+        /**
+         * Endpoints are represented as triples (fromStart, lo,
+         * loInclusive) and (toEnd, hi, hiInclusive). If fromStart is
+         * true, then the low (absolute) bound is the start of the
+         * backing map, and the other values are ignored. Otherwise,
+         * if loInclusive is true, lo is the inclusive bound, else lo
+         * is the exclusive bound. Similarly for the upper bound.
+         */
+        final K lo, hi;
+        final boolean fromStart, toEnd;
+        final boolean loInclusive, hiInclusive;
+
+        NavigableSubMap(BTreeMap<K,V> m,
+                        boolean fromStart, K lo, boolean loInclusive,
+                        boolean toEnd,     K hi, boolean hiInclusive) {
+            if (!fromStart && !toEnd) {
+                if (m.compare(lo, hi) > 0) {
+                    throw new IllegalArgumentException("fromKey > toKey");
+                }
+            } else {
+                if (!fromStart) { // type check
+                    m.compare(lo, lo);
+                }
+                if (!toEnd) {
+                    m.compare(hi, hi);
+                }
+            }
+
+            this.m = m;
+            this.fromStart = fromStart;
+            this.lo = lo;
+            this.loInclusive = loInclusive;
+            this.toEnd = toEnd;
+            this.hi = hi;
+            this.hiInclusive = hiInclusive;
+        }
+
+        // internal utilities
+
+        final boolean tooLow(Object key) {
+            if (!fromStart) {
+                int c = m.compare(key, lo);
+                if (c < 0 || (c == 0 && !loInclusive)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        final boolean tooHigh(Object key) {
+            if (!toEnd) {
+                int c = m.compare(key, hi);
+                if (c > 0 || (c == 0 && !hiInclusive)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        final boolean inRange(Object key) {
+            return !tooLow(key) && !tooHigh(key);
+        }
+
+        final boolean inClosedRange(Object key) {
+            return (fromStart || m.compare(key, lo) >= 0)
+                && (toEnd || m.compare(hi, key) >= 0);
+        }
+
+        final boolean inRange(Object key, boolean inclusive) {
+            return inclusive ? inRange(key) : inClosedRange(key);
+        }
+
+        /*
+         * Absolute versions of relation operations.
+         * Subclasses map to these using like-named "sub"
+         * versions that invert senses for descending maps
+         */
+
+        final Map.Entry<K,V> absLowest() {
+            Map.Entry<K,V> e =
+                (fromStart ?  m.firstEntry() :
+                 m.findNear(lo, loInclusive ? GT|EQ : GT));
+            return (e == null || tooHigh(e.getKey())) ? null : e;
+        }
+
+        final Map.Entry<K,V> absHighest() {
+            Map.Entry<K,V> e =
+                (toEnd ?  m.lastEntry() :
+                 m.findNear(hi, hiInclusive ? LT|EQ : LT));
+            return (e == null || tooLow(e.getKey())) ? null : e;
+        }
+
+        final Map.Entry<K,V> absCeiling(K key) {
+            if (tooLow(key)) {
+                return absLowest();
+            }
+            Map.Entry<K,V> e = m.findNear(key, GT|EQ);
+            return (e == null || tooHigh(e.getKey())) ? null : e;
+        }
+
+        final Map.Entry<K,V> absHigher(K key) {
+            if (tooLow(key)) {
+                return absLowest();
+            }
+            Map.Entry<K,V> e = m.findNear(key, GT);
+            return (e == null || tooHigh(e.getKey())) ? null : e;
+        }
+
+        final Map.Entry<K,V> absFloor(K key) {
+            if (tooHigh(key)) {
+                return absHighest();
+            }
+            Map.Entry<K,V> e = m.findNear(key, LT|EQ);
+            return (e == null || tooLow(e.getKey())) ? null : e;
+        }
+
+        final Map.Entry<K,V> absLower(K key) {
+            if (tooHigh(key)) {
+                return absHighest();
+            }
+            Map.Entry<K,V> e = m.findNear(key, LT);
+            return (e == null || tooLow(e.getKey())) ? null : e;
+        }
+
+        /** Returns the absolute high fence key for ascending traversal */
+        final Object absHighFence() {
+            Map.Entry<K,V> e = toEnd ? null :
+                m.findNear(hi, hiInclusive ? GT : GT|EQ);
+            return (e == null) ? UNBOUNDED : e.getKey();
+        }
+
+        /** Return the absolute low fence key for descending traversal */
+        final Object absLowFence() {
+            Map.Entry<K,V> e = fromStart ? null :
+                m.findNear(lo, loInclusive ? LT : LT|EQ);
+            return (e == null) ? UNBOUNDED : e.getKey();
+        }
+
+        /**
+         * Returns an iterator of the given kind (0 keys, 1 values,
+         * 2 entries) starting at the given entry and stopping at the
+         * fence key.
+         */
+        final <T> Iterator<T> iterator(int kind, Map.Entry<K,V> first,
+                                       Object fenceKey, boolean descending) {
+            Leaf l = null;
+            int i = 0;
+            if (first != null) {
+                Cursor c = new Cursor();
+                if (m.locate(c, first.getKey(), EQ)) {
+                    l = c.leaf;
+                    i = c.index;
+                }
+            }
+            Object it = (kind == 0) ?
+                m.new KeyIterator(l, i, fenceKey, descending) : (kind == 1) ?
+                m.new ValueIterator(l, i, fenceKey, descending) :
+                m.new EntryIterator(l, i, fenceKey, descending);
+            @SuppressWarnings("unchecked") Iterator<T> r = (Iterator<T>) it;
+            return r;
+        }
+
+        // Abstract methods defined in ascending vs descending classes
+        // These relay to the appropriate absolute versions
+
+        abstract Map.Entry<K,V> subLowest();
+        abstract Map.Entry<K,V> subHighest();
+        abstract Map.Entry<K,V> subCeiling(K key);
+        abstract Map.Entry<K,V> subHigher(K key);
+        abstract Map.Entry<K,V> subFloor(K key);
+        abstract Map.Entry<K,V> subLower(K key);
+
+        /** Returns ascending iterator from the perspective of this submap */
+        abstract <T> Iterator<T> subIterator(int kind);
+
+        /** Returns descending iterator from the perspective of this submap */
+        abstract <T> Iterator<T> descendingSubIterator(int kind);
+
+        final Iterator<K> keyIterator() {
+            return subIterator(0);
+        }
+
+        final Iterator<K> descendingKeyIterator() {
+            return descendingSubIterator(0);
+        }
+
+        // public methods
+
+        @Override
+        public boolean isEmpty() {
+            return (fromStart && toEnd) ? m.isEmpty() : entrySet().isEmpty();
+        }
+
+        @Override
+        public int size() {
+            return (fromStart && toEnd) ? m.size() : entrySet().size();
+        }
+
+        @Override
+        public final boolean containsKey(Object key) {
+            return inRange(key) && m.containsKey(key);
+        }
+
+        @Override
+        public final V put(K key, V value) {
+            if (!inRange(key)) {
+                throw new IllegalArgumentException("key out of range");
+            }
+            return m.put(key, value);
+        }
+
+        @Override
+        public final V get(Object key) {
+            return !inRange(key) ? null :  m.get(key);
+        }
+
+        @Override
+        public final V remove(Object key) {
+            return !inRange(key) ? null : m.remove(key);
+        }
+
+        @Override
+        public final Map.Entry<K,V> ceilingEntry(K key) {
+            return subCeiling(key);
+        }
+
+        @Override
+        public final K ceilingKey(K key) {
+            return keyOrNull(subCeiling(key));
+        }
+
+        @Override
+        public final Map.Entry<K,V> higherEntry(K key) {
+            return subHigher(key);
+        }
+
+        @Override
+        public final K higherKey(K key) {
+            return keyOrNull(subHigher(key));
+        }
+
+        @Override
+        public final Map.Entry<K,V> floorEntry(K key) {
+            return subFloor(key);
+        }
+
+        @Override
+        public final K floorKey(K key) {
+            return keyOrNull(subFloor(key));
+        }
+
+        @Override
+        public final Map.Entry<K,V> lowerEntry(K key) {
+            return subLower(key);
+        }
+
+        @Override
+        public final K lowerKey(K key) {
+            return keyOrNull(subLower(key));
+        }
+
+        @Override
+        public final K firstKey() {
+            return key(subLowest());
+        }
+
+        @Override
+        public final K lastKey() {
+            return key(subHighest());
+        }
+
+        @Override
+        public final Map.Entry<K,V> firstEntry() {
+            return subLowest();
+        }
+
+        @Override
+        public final Map.Entry<K,V> lastEntry() {
+            return subHighest();
+        }
+
+        @Override
+        public final Map.Entry<K,V> pollFirstEntry() {
+            Map.Entry<K,V> e = subLowest();
+            if (e != null) {
+                m.delete(e.getKey());
+            }
+            return e;
+        }
+
+        @Override
+        public final Map.Entry<K,V> pollLastEntry() {
+            Map.Entry<K,V> e = subHighest();
+            if (e != null) {
+                m.delete(e.getKey());
+            }
+            return e;
+        }
+
+        // Views
+        transient NavigableMap<K,V> descendingMapView;
+        transient EntrySetView entrySetView;
+        transient KeySet<K> navigableKeySetView;
+
+        @Override
+        public final NavigableSet<K> navigableKeySet() {
+            KeySet<K> nksv = navigableKeySetView;
+            return (nksv != null) ? nksv :
+                (navigableKeySetView = new BTreeMap.KeySet<>(this));
+        }
+
+        @Override
+        public final Set<K> keySet() {
+            return navigableKeySet();
+        }
+
+        @Override
+        public NavigableSet<K> descendingKeySet() {
+            return descendingMap().navigableKeySet();
+        }
+
+        @Override
+        public final SortedMap<K,V> subMap(K fromKey, K toKey) {
+            return subMap(fromKey, true, toKey, false);
+        }
+
+        @Override
+        public final SortedMap<K,V> headMap(K toKey) {
+            return headMap(toKey, false);
+        }
+
+        @Override
+        public final SortedMap<K,V> tailMap(K fromKey) {
+            return tailMap(fromKey, true);
+        }
+
+        @Override
+        public final Set<Map.Entry<K,V>> entrySet() {
+            EntrySetView es = entrySetView;
+            return (es != null) ? es : (entrySetView = new EntrySetView());
+        }
+
+        @Override
+        public final Collection<V> values() {
+            Collection<V> vs = values;
+            return (vs != null) ? vs : (values = new AbstractCollection<V>() {
+                @Override
+                public Iterator<V> iterator() {
+                    return subIterator(1);
+                }
+                @Override
+                public int size() {
+                    return NavigableSubMap.this.size();
+                }
+                @Override
+                public boolean isEmpty() {
+                    return NavigableSubMap.this.isEmpty();
+                }
+                @Override
+                public void clear() {
+                    NavigableSubMap.this.clear();
+                }
+            });
+        }
+
+        // View classes
+
+        final class EntrySetView extends AbstractSet<Map.Entry<K,V>> {
+            private transient int size = -1, sizeModCount;
+
+            @Override
+            public Iterator<Map.Entry<K,V>> iterator() {
+                return subIterator(2);
+            }
+
+            @Override
+            public int size() {
+                if (fromStart && toEnd) {
+                    return m.size();
+                }
+                if (size == -1 || sizeModCount != m.modCount) {
+                    sizeModCount = m.modCount;
+                    size = 0;
+                    Iterator<?> i = iterator();
+                    while (i.hasNext()) {
+                        size++;
+                        i.next();
+                    }
+                }
+                return size;
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return absLowest() == null;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof Map.Entry)) {
+                    return false;
+                }
+                Map.Entry<?,?> entry = (Map.Entry<?,?>) o;
+                Object key = entry.getKey();
+                return inRange(key) && m.entrySet().contains(entry);
+            }
+
+            @Override
+            public boolean remove(Object o) {
+                if (!(o instanceof Map.Entry)) {
+                    return false;
+                }
+                Map.Entry<?,?> entry = (Map.Entry<?,?>) o;
+                Object key = entry.getKey();
+                return inRange(key) && m.entrySet().remove(entry);
+            }
+        }
+    }
+
+    /**
+     * @serial include
+     */
+    static final class AscendingSubMap<K,V> extends NavigableSubMap<K,V> {
+        private static final long serialVersionUID = -4310725012374190384L;
+
+        AscendingSubMap(BTreeMap<K,V> m,
+                        boolean fromStart, K lo, boolean loInclusive,
+                        boolean toEnd,     K hi, boolean hiInclusive) {
+            super(m, fromStart, lo, loInclusive, toEnd, hi, hiInclusive);
+        }
+
+        @Override
+        public Comparator<? super K> comparator() {
+            return m.comparator();
+        }
+
+        @Override
+        public NavigableMap<K,V> subMap(K fromKey, boolean fromInclusive,
+                                        K toKey, boolean toInclusive) {
+            if (!inRange(fromKey, fromInclusive)) {
+                throw new IllegalArgumentException("fromKey out of range");
+            }
+            if (!inRange(toKey, toInclusive)) {
+                throw new IllegalArgumentException("toKey out of range");
+            }
+            return new AscendingSubMap<>(m,
+                                         false, fromKey, fromInclusive,
+                                         false, toKey,   toInclusive);
+        }
+
+        @Override
+        public NavigableMap<K,V> headMap(K toKey, boolean inclusive) {
+            if (!inRange(toKey, inclusive)) {
+                throw new IllegalArgumentException("toKey out of range");
+            }
+            return new AscendingSubMap<>(m,
+                                         fromStart, lo,    loInclusive,
+                                         false,     toKey, inclusive);
+        }
+
+        @Override
+        public NavigableMap<K,V> tailMap(K fromKey, boolean inclusive) {
+            if (!inRange(fromKey, inclusive)) {
+                throw new IllegalArgumentException("fromKey out of range");
+            }
+            return new AscendingSubMap<>(m,
+                                         false, fromKey, inclusive,
+                                         toEnd, hi,      hiInclusive);
+        }
+
+        @Override
+        public NavigableMap<K,V> descendingMap() {
+            NavigableMap<K,V> mv = descendingMapView;
+            return (mv != null) ? mv :
+                (descendingMapView =
+                 new DescendingSubMap<>(m,
+                                        fromStart, lo, loInclusive,
+                                        toEnd,     hi, hiInclusive));
+        }
+
+        @Override
+        <T> Iterator<T> subIterator(int kind) {
+            return iterator(kind, absLowest(), absHighFence(), false);
+        }
+
+        @Override
+        <T> Iterator<T> descendingSubIterator(int kind) {
+            return iterator(kind, absHighest(), absLowFence(), true);
+        }
+
+        @Override
+        Map.Entry<K,V> subLowest()       { return absLowest(); }
+        @Override
+        Map.Entry<K,V> subHighest()      { return absHighest(); }
+        @Override
+        Map.Entry<K,V> subCeiling(K key) { return absCeiling(key); }
+        @Override
+        Map.Entry<K,V> subHigher(K key)  { return absHigher(key); }
+        @Override
+        Map.Entry<K,V> subFloor(K key)   { return absFloor(key); }
+        @Override
+        Map.Entry<K,V> subLower(K key)   { return absLower(key); }
+    }
+
+    /**
+     * @serial include
+     */
+    static final class DescendingSubMap<K,V>  extends NavigableSubMap<K,V> {
+        private static final long serialVersionUID = 2869271043180493612L;
+        DescendingSubMap(BTreeMap<K,V> m,
+                        boolean fromStart, K lo, boolean loInclusive,
+                        boolean toEnd,     K hi, boolean hiInclusive) {
+            super(m, fromStart, lo, loInclusive, toEnd, hi, hiInclusive);
+        }
+
+        private final Comparator<? super K> reverseComparator =
+            Collections.reverseOrder(m.comparator);
+
+        @Override
+        public Comparator<? super K> comparator() {
+            return reverseComparator;
+        }
+
+        @Override
+        public NavigableMap<K,V> subMap(K fromKey, boolean fromInclusive,
+                                        K toKey, boolean toInclusive) {
+            if (!inRange(fromKey, fromInclusive)) {
+                throw new IllegalArgumentException("fromKey out of range");
+            }
+            if (!inRange(toKey, toInclusive)) {
+                throw new IllegalArgumentException("toKey out of range");
+            }
+            return new DescendingSubMap<>(m,
+                                          false, toKey,   toInclusive,
+                                          false, fromKey, fromInclusive);
+        }
+
+        @Override
+        public NavigableMap<K,V> headMap(K toKey, boolean inclusive) {
+            if (!inRange(toKey, inclusive)) {
+                throw new IllegalArgumentException("toKey out of range");
+            }
+            return new DescendingSubMap<>(m,
+                                          false, toKey, inclusive,
+                                          toEnd, hi,    hiInclusive);
+        }
+
+        @Override
+        public NavigableMap<K,V> tailMap(K fromKey, boolean inclusive) {
+            if (!inRange(fromKey, inclusive)) {
+                throw new IllegalArgumentException("fromKey out of range");
+            }
+            return new DescendingSubMap<>(m,
+                                          fromStart, lo, loInclusive,
+                                          false, fromKey, inclusive);
+        }
+
+        @Override
+        public NavigableMap<K,V> descendingMap() {
+            NavigableMap<K,V> mv = descendingMapView;
+            return (mv != null) ? mv :
+                (descendingMapView =
+                 new AscendingSubMap<>(m,
+                                       fromStart, lo, loInclusive,
+                                       toEnd,     hi, hiInclusive));
+        }
+
+        @Override
+        <T> Iterator<T> subIterator(int kind) {
+            return iterator(kind, absHighest(), absLowFence(), true);
+        }
+
+        @Override
+        <T> Iterator<T> descendingSubIterator(int kind) {
+            return iterator(kind, absLowest(), absHighFence(), false);
+        }
+
+        @Override
+        Map.Entry<K,V> subLowest()       { return absHighest(); }
+        @Override
+        Map.Entry<K,V> subHighest()      { return absLowest(); }
+        @Override
+        Map.Entry<K,V> subCeiling(K key) { return absFloor(key); }
+        @Override
+        Map.Entry<K,V> subHigher(K key)  { return absLower(key); }
+        @Override
+        Map.Entry<K,V> subFloor(K key)   { return absCeiling(key); }
+        @Override
+        Map.Entry<K,V> subLower(K key)   { return absHigher(key); }
+    }
+
+    /**
+     * Base class for spliterators over a whole BTreeMap.  A spliterator
+     * covers either children [lo, hi) of an inner node, or entries
+     * [lo, hi) of a leaf.  Splitting halves the range of children,
+     * descending when a single child remains, so that each half holds
+     * whole subtrees of roughly equal size; leaves are not split.
+     * Traversal walks the leaves from the first leaf of the range to the
+     * last, after which the spliterator can no longer be split.
+     */
+    static class BTreeSpliterator<K,V> {
+        final BTreeMap<K,V> tree;
+        Node node;          // range owner; null once traversal starts
+        int lo, hi;         // range of children, or of entries of a leaf
+        Leaf leaf;          // traverser; null until started or when done
+        int index;
+        Leaf endLeaf;       // last leaf of the range
+        int end;            // end index (exclusive) in endLeaf
+        int est;            // size estimate; -1 until first use
+        boolean sized;      // true if est is exact (not yet split)
+        int expectedModCount;
+
+        BTreeSpliterator(BTreeMap<K,V> tree) {
+            this.tree = tree;
+            this.est = -1;
+            this.sized = true;
+        }
+
+        final int getEstimate() { // force initialization
+            int s;
+            if ((s = est) < 0) {
+                BTreeMap<K,V> t = tree;
+                Node x = t.root;
+                if (x != null) {
+                    node = x;
+                    lo = 0;
+                    hi = x.n;
+                }
+                s = est = t.size;
+                expectedModCount = t.modCount;
+            }
+            return s;
+        }
+
+        public final long estimateSize() {
+            return (long)getEstimate();
+        }
+
+        /**
+         * Returns the index at which to split, or -1 if this spliterator
+         * cannot be split.
+         */
+        final int splitIndex() {
+            if (est < 0) {
+                getEstimate();
+            }
+            Node x = node;
+            while (x instanceof Inner && hi - lo == 1) {
+                x = node = ((Inner)x).children[lo];
+                lo = 0;
+                hi = x.n;
+            }
+            return (x instanceof Inner && hi - lo >= 2) ? (lo + hi) >>> 1 : -1;
+        }
+
+        /**
+         * Gives the lower half of this spliterator's range to the
+         * uninitialized spliterator p, and returns p.
+         */
+        final <S extends BTreeSpliterator<K,V>> S split(S p, int mid) {
+            int pe = (int)((long)est * (mid - lo) / (hi - lo));
+            p.node = node;
+            p.lo = lo;
+            p.hi = mid;
+            p.est = pe;
+            p.sized = false;
+            p.expectedModCount = expectedModCount;
+            lo = mid;
+            est -= pe;
+            sized = false;
+            return p;
+        }
+
+        /**
+         * Positions the traverser at the start of the range, if not
+         * already done.  Returns false if the range is empty or used up.
+         */
+        final boolean start() {
+            if (est < 0) {
+                getEstimate();
+            }
+            Node x = node;
+            if (x != null) {
+                if (tree.modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                node = null;
+                if (x instanceof Inner) {
+                    Node f = ((Inner)x).children[lo];
+                    Node l = ((Inner)x).children[hi - 1];
+                    while (f instanceof Inner) {
+                        f = ((Inner)f).children[0];
+                    }
+                    while (l instanceof Inner) {
+                        l = ((Inner)l).children[l.n - 1];
+                    }
+                    leaf = (Leaf)f;
+                    index = 0;
+                    endLeaf = (Leaf)l;
+                    end = l.n;
+                } else {
+                    leaf = endLeaf = (Leaf)x;
+                    index = lo;
+                    end = hi;
+                }
+            }
+            return leaf != null;
+        }
+
+        /**
+         * Advances the traverser past the current entry, exhausting it
+         * at the end of the range.
+         */
+        final void advance() {
+            Leaf l = leaf;
+            int i = index + 1;
+            if (l == endLeaf) {
+                if (i >= end) {
+                    leaf = null;
+                }
+                index = i;
+            } else if (i >= l.n) {
+                leaf = l.next;
+                index = 0;
+            } else {
+                index = i;
+            }
+        }
+
+        public int characteristics() {
+            return (sized ? Spliterator.SIZED : 0) |
+                Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.ORDERED;
+        }
+    }
+
+    static final class KeySpliterator<K,V>
+        extends BTreeSpliterator<K,V>
+        implements Spliterator<K> {
+        KeySpliterator(BTreeMap<K,V> tree) {
+            super(tree);
+        }
+
+        @Override
+        public KeySpliterator<K,V> trySplit() {
+            int mid = splitIndex();
+            return (mid < 0) ? null : split(new KeySpliterator<>(tree), mid);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEachRemaining(Consumer<? super K> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            if (start()) {
+                Leaf l = leaf, el = endLeaf;
+                int i = index;
+                leaf = null; // exhaust
+                for (;;) {
+                    Object[] ks = l.keys;
+                    for (int n = (l == el) ? end : l.n; i < n; ++i) {
+                        action.accept((K)ks[i]);
+                    }
+                    if (l == el) {
+                        break;
+                    }
+                    l = l.next;
+                    i = 0;
+                }
+                if (tree.modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super K> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            if (!start()) {
+                return false;
+            }
+            K k = (K)leaf.keys[index];
+            advance();
+            action.accept(k);
+            if (tree.modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            return true;
+        }
+
+        @Override
+        public final Comparator<? super K>  getComparator() {
+            return tree.comparator;
+        }
+    }
+
+    static final class ValueSpliterator<K,V>
+        extends BTreeSpliterator<K,V>
+        implements Spliterator<V> {
+        ValueSpliterator(BTreeMap<K,V> tree) {
+            super(tree);
+        }
+
+        @Override
+        public ValueSpliterator<K,V> trySplit() {
+            int mid = splitIndex();
+            return (mid < 0) ? null : split(new ValueSpliterator<>(tree), mid);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEachRemaining(Consumer<? super V> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            if (start()) {
+                Leaf l = leaf, el = endLeaf;
+                int i = index;
+                leaf = null; // exhaust
+                for (;;) {
+                    Object[] vs = l.vals;
+                    for (int n = (l == el) ? end : l.n; i < n; ++i) {
+                        action.accept((V)vs[i]);
+                    }
+                    if (l == el) {
+                        break;
+                    }
+                    l = l.next;
+                    i = 0;
+                }
+                if (tree.modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super V> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            if (!start()) {
+                return false;
+            }
+            V v = (V)leaf.vals[index];
+            advance();
+            action.accept(v);
+            if (tree.modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            return true;
+        }
+
+        @Override
+        public int characteristics() {
+            return (sized ? Spliterator.SIZED : 0) | Spliterator.ORDERED;
+        }
+    }
+
+    static final class EntrySpliterator<K,V>
+        extends BTreeSpliterator<K,V>
+        implements Spliterator<Map.Entry<K,V>> {
+        EntrySpliterator(BTreeMap<K,V> tree) {
+            super(tree);
+        }
+
+        @Override
+        public EntrySpliterator<K,V> trySplit() {
+            int mid = splitIndex();
+            return (mid < 0) ? null : split(new EntrySpliterator<>(tree), mid);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEachRemaining(Consumer<? super Map.Entry<K, V>> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            if (start()) {
+                Leaf l = leaf, el = endLeaf;
+                int i = index;
+                leaf = null; // exhaust
+                for (;;) {
+                    Object[] ks = l.keys, vs = l.vals;
+                    for (int n = (l == el) ? end : l.n; i < n; ++i) {
+                        action.accept(new AbstractMap.SimpleImmutableEntry<>
+                                      ((K)ks[i], (V)vs[i]));
+                    }
+                    if (l == el) {
+                        break;
+                    }
+                    l = l.next;
+                    i = 0;
+                }
+                if (tree.modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super Map.Entry<K,V>> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            if (!start()) {
+                return false;
+            }
+            Leaf l = leaf;
+            int i = index;
+            advance();
+            action.accept(new AbstractMap.SimpleImmutableEntry<>
+                          ((K)l.keys[i], (V)l.vals[i]));
+            if (tree.modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            return true;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Comparator<Map.Entry<K, V>> getComparator() {
+            // Adapt or create a key-based comparator
+            if (tree.comparator != null) {
+                return Map.Entry.comparingByKey(tree.comparator);
+            }
+            else {
+                return (Comparator<Map.Entry<K, V>> & Serializable) (e1, e2) -> {
+                    Comparable<? super K> k1 = (Comparable<? super K>) e1.getKey();
+                    return k1.compareTo(e2.getKey());
+                };
+            }
+        }
+    }
+}
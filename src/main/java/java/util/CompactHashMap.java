@@ -0,0 +1,1368 @@
+package java.util;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.Serializable;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/**
+ * 基于开放寻址的紧凑哈希表：键值存放在扁平数组中，每个槽位对应一个控制字节，按 8 个槽位一组进行探测（SwissTable 风格）。
+ *
+ * Hash table based implementation of the <tt>Map</tt> interface that uses
+ * open addressing over flat arrays instead of chained nodes.  Keys and values
+ * are stored interleaved in a single <tt>Object[]</tt>, and every slot has a
+ * one-byte control word: either <i>empty</i>, <i>deleted</i>, or <i>full</i>,
+ * in which case the byte holds 7 further bits of the key's hash.  Control
+ * bytes are packed eight to a <tt>long</tt>, so a lookup examines a whole
+ * group of eight slots with a handful of word operations and only touches
+ * the key array for slots whose control byte matches.  There is no per-entry
+ * object, so the per-mapping overhead is two array references plus one byte,
+ * compared to the 32 or more bytes of a {@link HashMap} node.
+ *
+ * <p>This implementation provides all of the optional map operations, and
+ * permits <tt>null</tt> values and the <tt>null</tt> key.  Like
+ * <tt>HashMap</tt>, it makes no guarantees as to the iteration order.  The
+ * table is kept at most 7/8 full; removed mappings leave a <i>deleted</i>
+ * marker unless the group they live in still has an empty slot, and the
+ * table is rebuilt in place when markers accumulate.
+ *
+ * <p>Unlike <tt>HashMap</tt>, this map never converts bins to trees, so it
+ * relies on keys having reasonably distributed hash codes; hash codes are
+ * scrambled before use to tolerate sequential and low-entropy values.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * If multiple threads access a map concurrently, and at least one of the
+ * threads modifies the map structurally, it <i>must</i> be synchronized
+ * externally.
+ *
+ * <p>The iterators returned by all of this class's "collection view methods"
+ * are <i>fail-fast</i>: if the map is structurally modified at any time after
+ * the iterator is created, in any way except through the iterator's own
+ * <tt>remove</tt> method, the iterator will throw a
+ * {@link ConcurrentModificationException}.
+ *
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ *
+ * @see     HashMap
+ * @see     IdentityHashMap
+ * @since   1.8
+ */
+public class CompactHashMap<K,V> extends AbstractMap<K,V>
+    implements Map<K,V>, Cloneable, Serializable {
+
+    private static final long serialVersionUID = -5093716342518265712L;
+
+    /*
+     * Implementation notes.
+     *
+     * The table has a power-of-two capacity of at least GROUP_WIDTH slots,
+     * split into aligned groups of GROUP_WIDTH.  Slot i keeps its key at
+     * table[2*i] and its value at table[2*i+1]; its control byte is byte
+     * (i & 7) of ctrl[i >>> 3].  A control byte is EMPTY (0x80), DELETED
+     * (0xFE) or, for a full slot, the low 7 bits of the hash (high bit
+     * clear).  The remaining hash bits select the first group to probe, and
+     * groups are then probed triangularly (offsets 1, 3, 6, ...), which
+     * visits every group of a power-of-two table.
+     *
+     * A lookup stops at the first group containing an EMPTY byte.  For that
+     * to stay correct, a group that has no EMPTY byte can never regain one
+     * except by rebuilding: removals therefore write EMPTY only if the
+     * group already contains an EMPTY byte (no probe can have passed through
+     * it), and DELETED otherwise.
+     *
+     * growthLeft counts how many EMPTY slots may still be claimed before the
+     * 7/8 load limit is reached.  Reusing a DELETED slot does not consume
+     * it.  When it reaches zero the table is rebuilt, at the same capacity
+     * if at least half the claimed slots are DELETED, else at twice the
+     * capacity.  Since the load limit is below the capacity, every table
+     * always has an EMPTY slot, so all probes terminate.
+     *
+     * The null key is stored as NULL_KEY so that a null table entry always
+     * means "no key here".
+     */
+
+    /**
+     * The number of slots in a group, which is the number of control bytes
+     * packed into one <tt>long</tt>.
+     */
+    static final int GROUP_WIDTH = 8;
+
+    /**
+     * The default initial capacity - MUST be a power of two.
+     */
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /**
+     * The maximum capacity.  Keys and values share one array, so this is
+     * half of the largest power-of-two array length.
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 29;
+
+    static final int EMPTY = 0x80;
+    static final int DELETED = 0xFE;
+    static final long LSBS = 0x0101010101010101L;
+    static final long MSBS = 0x8080808080808080L;
+    static final long EMPTY_GROUP = LSBS * EMPTY;
+
+    /**
+     * Value representing the null key inside tables.
+     */
+    static final Object NULL_KEY = new Object();
+
+    /**
+     * The control words, eight control bytes each, allocated on first use.
+     */
+    transient long[] ctrl;
+
+    /**
+     * Interleaved keys and values, allocated on first use.
+     */
+    transient Object[] table;
+
+    /**
+     * The number of key-value mappings contained in this map.
+     */
+    transient int size;
+
+    /**
+     * The number of times this map has been structurally modified.
+     */
+    transient int modCount;
+
+    /**
+     * The number of EMPTY slots that can still be claimed before the table
+     * must be rebuilt.  Before the table is allocated this holds the
+     * initial capacity.
+     */
+    transient int growthLeft;
+
+    /**
+     * Holds cached entrySet().
+     */
+    transient Set<Map.Entry<K,V>> entrySet;
+
+    /* ---------------- Static utilities -------------- */
+
+    /**
+     * Computes the hash of a key.  The hash code is multiplied by the 32-bit
+     * golden ratio and its upper half folded down, as in
+     * {@link HashMap#hash}; the low 7 bits then go to the control byte and
+     * the rest select the group.
+     */
+    static int hash(Object key) {
+        int h;
+        if (key == null) {
+            return 0;
+        }
+        h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Use NULL_KEY for key if it is null.
+     */
+    static Object maskNull(Object key) {
+        return (key == null ? NULL_KEY : key);
+    }
+
+    /**
+     * Returns internal representation of null key back to caller as null.
+     */
+    static Object unmaskNull(Object key) {
+        return (key == NULL_KEY ? null : key);
+    }
+
+    /**
+     * Returns the number of mappings a table of the given capacity may hold.
+     */
+    static int maxLoad(int cap) {
+        return cap - (cap >>> 3);
+    }
+
+    /**
+     * Returns the capacity needed to hold the given number of mappings.
+     */
+    static int capacityFor(int expectedSize) {
+        long n = (long) expectedSize + (expectedSize + 6L) / 7L;
+        return (n >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY :
+            Math.max(GROUP_WIDTH, HashMap.tableSizeFor((int) n));
+    }
+
+    /**
+     * Returns a mask with the high bit of each byte of the group set where
+     * the control byte equals h2.  May report false positives just above a
+     * true match, which the key comparison filters out.
+     */
+    static long matchByte(long group, int h2) {
+        long x = group ^ (LSBS * h2);
+        return (x - LSBS) & ~x & MSBS;
+    }
+
+    /**
+     * Returns a mask with the high bit of each EMPTY byte of the group set.
+     */
+    static long matchEmpty(long group) {
+        return group & ~(group << 6) & MSBS;
+    }
+
+    /**
+     * Returns a mask with the high bit of each EMPTY or DELETED byte of the
+     * group set.
+     */
+    static long matchEmptyOrDeleted(long group) {
+        return group & MSBS;
+    }
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Constructs an empty <tt>CompactHashMap</tt> able to hold the specified
+     * number of mappings without rebuilding its table.
+     *
+     * @param  initialCapacity the initial capacity.
+     * @throws IllegalArgumentException if the initial capacity is negative.
+     */
+    public CompactHashMap(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        }
+        this.growthLeft = capacityFor(initialCapacity);
+    }
+
+    /**
+     * Constructs an empty <tt>CompactHashMap</tt> with the default initial
+     * capacity (16).
+     */
+    public CompactHashMap() {
+        this.growthLeft = DEFAULT_INITIAL_CAPACITY;
+    }
+
+    /**
+     * Constructs a new <tt>CompactHashMap</tt> with the same mappings as the
+     * specified <tt>Map</tt>.
+     *
+     * @param   m the map whose mappings are to be placed in this map
+     * @throws  NullPointerException if the specified map is null
+     */
+    public CompactHashMap(Map<? extends K, ? extends V> m) {
+        this(m.size());
+        putAll(m);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the slot holding the given key, or -1 if absent.
+     */
+    final int find(Object key, int h) {
+        long[] c; Object[] tab;
+        if ((c = ctrl) == null) {
+            return -1;
+        }
+        tab = table;
+        Object k = maskNull(key);
+        int h2 = h & 0x7F, gmask = c.length - 1;
+        for (int g = (h >>> 7) & gmask, step = 0; ; g = (g + ++step) & gmask) {
+            long group = c[g];
+            for (long m = matchByte(group, h2); m != 0L; m &= m - 1) {
+                int i = (g << 3) + (Long.numberOfTrailingZeros(m) >>> 3);
+                Object q = tab[i << 1];
+                if (q == k || (q != null && k.equals(q))) {
+                    return i;
+                }
+            }
+            if (matchEmpty(group) != 0L) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Returns the first EMPTY or DELETED slot on the probe sequence of the
+     * given hash.
+     */
+    static int findInsertSlot(long[] c, int h) {
+        int gmask = c.length - 1;
+        for (int g = (h >>> 7) & gmask, step = 0; ; g = (g + ++step) & gmask) {
+            long m = matchEmptyOrDeleted(c[g]);
+            if (m != 0L) {
+                return (g << 3) + (Long.numberOfTrailingZeros(m) >>> 3);
+            }
+        }
+    }
+
+    /**
+     * Returns the control byte of slot i.
+     */
+    static int ctrlAt(long[] c, int i) {
+        return (int) (c[i >>> 3] >>> ((i & 7) << 3)) & 0xFF;
+    }
+
+    /**
+     * Sets the control byte of slot i.
+     */
+    static void setCtrl(long[] c, int i, int b) {
+        int shift = (i & 7) << 3;
+        c[i >>> 3] = (c[i >>> 3] & ~(0xFFL << shift)) | ((long) b << shift);
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or {@code null} if this map contains no mapping for the key.
+     *
+     * @see #put(Object, Object)
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int i;
+        return ((i = find(key, hash(key))) < 0) ? null :
+            (V) table[(i << 1) + 1];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(Object key, V defaultValue) {
+        int i;
+        return ((i = find(key, hash(key))) < 0) ? defaultValue :
+            (V) table[(i << 1) + 1];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key, hash(key)) >= 0;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        Object[] tab;
+        if ((tab = table) != null && size > 0) {
+            for (int i = 0; i < tab.length; i += 2) {
+                if (tab[i] != null && Objects.equals(value, tab[i + 1])) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key, the old
+     * value is replaced.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with <tt>key</tt>, or
+     *         <tt>null</tt> if there was no mapping for <tt>key</tt>.
+     *         (A <tt>null</tt> return can also indicate that the map
+     *         previously associated <tt>null</tt> with <tt>key</tt>.)
+     */
+    @Override
+    public V put(K key, V value) {
+        return putVal(hash(key), key, value, false);
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        return putVal(hash(key), key, value, true);
+    }
+
+    /**
+     * Implements Map.put and related methods.
+     *
+     * @param onlyIfAbsent if true, don't change existing value
+     * @return previous value, or null if none
+     */
+    @SuppressWarnings("unchecked")
+    final V putVal(int h, K key, V value, boolean onlyIfAbsent) {
+        int i;
+        if ((i = find(key, h)) >= 0) {
+            Object[] tab = table;
+            int vi = (i << 1) + 1;
+            V old = (V) tab[vi];
+            if (!onlyIfAbsent || old == null) {
+                tab[vi] = value;
+            }
+            return old;
+        }
+        insert(h, key, value);
+        return null;
+    }
+
+    /**
+     * Adds a mapping for a key known to be absent, growing or rebuilding
+     * the table as needed.
+     *
+     * @return the slot used
+     */
+    final int insert(int h, Object key, Object value) {
+        long[] c;
+        if ((c = ctrl) == null) {
+            c = resize(growthLeft);
+        }
+        int i = findInsertSlot(c, h);
+        if (growthLeft == 0 && ctrlAt(c, i) == EMPTY) {
+            c = rehash();
+            i = findInsertSlot(c, h);
+        }
+        if (ctrlAt(c, i) == EMPTY) {
+            --growthLeft;
+        }
+        setCtrl(c, i, h & 0x7F);
+        Object[] tab = table;
+        tab[i << 1] = maskNull(key);
+        tab[(i << 1) + 1] = value;
+        ++size;
+        ++modCount;
+        return i;
+    }
+
+    /**
+     * Rebuilds a table that has run out of EMPTY slots, in place if it is
+     * mostly tombstones, else at twice the capacity.
+     *
+     * @return the control words
+     */
+    final long[] rehash() {
+        int cap = table.length >>> 1;
+        if (size <= maxLoad(cap) >>> 1) {
+            return resize(cap);
+        }
+        if (cap >= MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("Capacity exhausted.");
+        }
+        return resize(cap << 1);
+    }
+
+    /**
+     * Initializes the table, or rebuilds it at the given capacity.
+     *
+     * @return the control words
+     */
+    final long[] resize(int newCap) {
+        Object[] oldTab = table;
+        long[] c = new long[newCap >>> 3];
+        Object[] tab = new Object[newCap << 1];
+        Arrays.fill(c, EMPTY_GROUP);
+        if (oldTab != null) {
+            for (int j = 0; j < oldTab.length; j += 2) {
+                Object k;
+                if ((k = oldTab[j]) != null) {
+                    int h = hash(unmaskNull(k));
+                    int i = findInsertSlot(c, h);
+                    setCtrl(c, i, h & 0x7F);
+                    tab[i << 1] = k;
+                    tab[(i << 1) + 1] = oldTab[j + 1];
+                }
+            }
+        }
+        ctrl = c;
+        table = tab;
+        growthLeft = maxLoad(newCap) - size;
+        return c;
+    }
+
+    /**
+     * Copies all of the mappings from the specified map to this map.
+     *
+     * @param m mappings to be stored in this map
+     * @throws NullPointerException if the specified map is null
+     */
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        int s = m.size();
+        if (s == 0) {
+            return;
+        }
+        if (ctrl == null) {
+            growthLeft = Math.max(growthLeft, capacityFor(s));
+        } else if (s > growthLeft + (size >>> 1)) {
+            int cap = capacityFor(size + s);
+            if (cap > table.length >>> 1) {
+                resize(cap);
+            }
+        }
+        for (Map.Entry<? extends K, ? extends V> e : m.entrySet()) {
+            K key = e.getKey();
+            putVal(hash(key), key, e.getValue(), false);
+        }
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param  key key whose mapping is to be removed from the map
+     * @return the previous value associated with <tt>key</tt>, or
+     *         <tt>null</tt> if there was no mapping for <tt>key</tt>.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        int i;
+        if ((i = find(key, hash(key))) < 0) {
+            return null;
+        }
+        V old = (V) table[(i << 1) + 1];
+        removeAt(i);
+        return old;
+    }
+
+    /**
+     * Removes the mapping held in slot i.
+     */
+    final void removeAt(int i) {
+        long[] c = ctrl;
+        Object[] tab = table;
+        if (matchEmpty(c[i >>> 3]) != 0L) {
+            setCtrl(c, i, EMPTY);
+            ++growthLeft;
+        } else {
+            setCtrl(c, i, DELETED);
+        }
+        tab[i << 1] = null;
+        tab[(i << 1) + 1] = null;
+        --size;
+        ++modCount;
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     * The map will be empty after this call returns.
+     */
+    @Override
+    public void clear() {
+        Object[] tab;
+        modCount++;
+        if ((tab = table) != null && size > 0) {
+            size = 0;
+            Arrays.fill(ctrl, EMPTY_GROUP);
+            Arrays.fill(tab, null);
+            growthLeft = maxLoad(tab.length >>> 1);
+        }
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        int i;
+        if ((i = find(key, hash(key))) >= 0 &&
+            Objects.equals(value, table[(i << 1) + 1])) {
+            removeAt(i);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        int i;
+        if ((i = find(key, hash(key))) >= 0 &&
+            Objects.equals(oldValue, table[(i << 1) + 1])) {
+            table[(i << 1) + 1] = newValue;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V replace(K key, V value) {
+        int i;
+        if ((i = find(key, hash(key))) >= 0) {
+            int vi = (i << 1) + 1;
+            V old = (V) table[vi];
+            table[vi] = value;
+            return old;
+        }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This method will, on a best-effort basis, throw a
+     * {@link ConcurrentModificationException} if it is detected that the
+     * mapping function modifies this map during computation.
+     *
+     * @throws ConcurrentModificationException if it is detected that the
+     * mapping function modified this map
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V computeIfAbsent(K key,
+                             Function<? super K, ? extends V> mappingFunction) {
+        if (mappingFunction == null) {
+            throw new NullPointerException();
+        }
+        int h = hash(key), i;
+        V old = null;
+        if ((i = find(key, h)) >= 0 &&
+            (old = (V) table[(i << 1) + 1]) != null) {
+            return old;
+        }
+        int mc = modCount;
+        V v = mappingFunction.apply(key);
+        if (mc != modCount) {
+            throw new ConcurrentModificationException();
+        }
+        if (v == null) {
+            return null;
+        } else if (i >= 0) {
+            table[(i << 1) + 1] = v;
+        } else {
+            insert(h, key, v);
+        }
+        return v;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This method will, on a best-effort basis, throw a
+     * {@link ConcurrentModificationException} if it is detected that the
+     * remapping function modifies this map during computation.
+     *
+     * @throws ConcurrentModificationException if it is detected that the
+     * remapping function modified this map
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V computeIfPresent(K key,
+                              BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        if (remappingFunction == null) {
+            throw new NullPointerException();
+        }
+        int i; V old;
+        if ((i = find(key, hash(key))) >= 0 &&
+            (old = (V) table[(i << 1) + 1]) != null) {
+            int mc = modCount;
+            V v = remappingFunction.apply(key, old);
+            if (mc != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (v == null) {
+                removeAt(i);
+            } else {
+                table[(i << 1) + 1] = v;
+            }
+            return v;
+        }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This method will, on a best-effort basis, throw a
+     * {@link ConcurrentModificationException} if it is detected that the
+     * remapping function modifies this map during computation.
+     *
+     * @throws ConcurrentModificationException if it is detected that the
+     * remapping function modified this map
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V compute(K key,
+                     BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        if (remappingFunction == null) {
+            throw new NullPointerException();
+        }
+        int h = hash(key), i;
+        V old = ((i = find(key, h)) < 0) ? null : (V) table[(i << 1) + 1];
+        int mc = modCount;
+        V v = remappingFunction.apply(key, old);
+        if (mc != modCount) {
+            throw new ConcurrentModificationException();
+        }
+        if (i >= 0) {
+            if (v == null) {
+                removeAt(i);
+            } else {
+                table[(i << 1) + 1] = v;
+            }
+        } else if (v != null) {
+            insert(h, key, v);
+        }
+        return v;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This method will, on a best-effort basis, throw a
+     * {@link ConcurrentModificationException} if it is detected that the
+     * remapping function modifies this map during computation.
+     *
+     * @throws ConcurrentModificationException if it is detected that the
+     * remapping function modified this map
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V merge(K key, V value,
+                   BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (value == null || remappingFunction == null) {
+            throw new NullPointerException();
+        }
+        int h = hash(key), i;
+        if ((i = find(key, h)) < 0) {
+            insert(h, key, value);
+            return value;
+        }
+        int vi = (i << 1) + 1;
+        V old = (V) table[vi], v;
+        if (old == null) {
+            v = value;
+        } else {
+            int mc = modCount;
+            v = remappingFunction.apply(old, value);
+            if (mc != modCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+        if (v == null) {
+            removeAt(i);
+        } else {
+            table[vi] = v;
+        }
+        return v;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Object[] tab;
+        if (action == null) {
+            throw new NullPointerException();
+        }
+        if (size > 0 && (tab = table) != null) {
+            int mc = modCount;
+            for (int i = 0; i < tab.length && modCount == mc; i += 2) {
+                Object k;
+                if ((k = tab[i]) != null) {
+                    action.accept((K) unmaskNull(k), (V) tab[i + 1]);
+                }
+            }
+            if (modCount != mc) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        Object[] tab;
+        if (function == null) {
+            throw new NullPointerException();
+        }
+        if (size > 0 && (tab = table) != null) {
+            int mc = modCount;
+            for (int i = 0; i < tab.length; i += 2) {
+                Object k;
+                if ((k = tab[i]) != null) {
+                    tab[i + 1] = function.apply((K) unmaskNull(k), (V) tab[i + 1]);
+                }
+            }
+            if (modCount != mc) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /**
+     * Returns a shallow copy of this <tt>CompactHashMap</tt> instance: the
+     * keys and values themselves are not cloned.
+     *
+     * @return a shallow copy of this map
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object clone() {
+        CompactHashMap<K,V> result;
+        try {
+            result = (CompactHashMap<K,V>) super.clone();
+        } catch (CloneNotSupportedException e) {
+            // this shouldn't happen, since we are Cloneable
+            throw new InternalError(e);
+        }
+        if (table != null) {
+            result.ctrl = ctrl.clone();
+            result.table = table.clone();
+        }
+        result.entrySet = null;
+        result.keySet = null;
+        result.values = null;
+        result.modCount = 0;
+        return result;
+    }
+
+    /* ------------------------------------------------------------ */
+    // Views
+
+    /**
+     * Returns a {@link Set} view of the keys contained in this map.
+     * The set is backed by the map, so changes to the map are
+     * reflected in the set, and vice-versa.  The set supports element
+     * removal, but not the <tt>add</tt> or <tt>addAll</tt> operations.
+     *
+     * @return a set view of the keys contained in this map
+     */
+    @Override
+    public Set<K> keySet() {
+        Set<K> ks;
+        return (ks = keySet) == null ? (keySet = new KeySet()) : ks;
+    }
+
+    final class KeySet extends AbstractSet<K> {
+        @Override
+        public final int size()                 { return size; }
+        @Override
+        public final void clear()               { CompactHashMap.this.clear(); }
+        @Override
+        public final Iterator<K> iterator()     { return new KeyIterator(); }
+        @Override
+        public final boolean contains(Object o) { return containsKey(o); }
+        @Override
+        public final boolean remove(Object key) {
+            int i;
+            if ((i = find(key, hash(key))) >= 0) {
+                removeAt(i);
+                return true;
+            }
+            return false;
+        }
+        @Override
+        public final Spliterator<K> spliterator() {
+            return new KeySpliterator<>(CompactHashMap.this, 0, -1, 0, 0);
+        }
+        @Override
+        public final void forEach(Consumer<? super K> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            CompactHashMap.this.forEach((k, v) -> action.accept(k));
+        }
+    }
+
+    /**
+     * Returns a {@link Collection} view of the values contained in this map.
+     * The collection is backed by the map, so changes to the map are
+     * reflected in the collection, and vice-versa.  The collection supports
+     * element removal, but not the <tt>add</tt> or <tt>addAll</tt>
+     * operations.
+     *
+     * @return a view of the values contained in this map
+     */
+    @Override
+    public Collection<V> values() {
+        Collection<V> vs;
+        return (vs = values) == null ? (values = new Values()) : vs;
+    }
+
+    final class Values extends AbstractCollection<V> {
+        @Override
+        public final int size()                 { return size; }
+        @Override
+        public final void clear()               { CompactHashMap.this.clear(); }
+        @Override
+        public final Iterator<V> iterator()     { return new ValueIterator(); }
+        @Override
+        public final boolean contains(Object o) { return containsValue(o); }
+        @Override
+        public final Spliterator<V> spliterator() {
+            return new ValueSpliterator<>(CompactHashMap.this, 0, -1, 0, 0);
+        }
+        @Override
+        public final void forEach(Consumer<? super V> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            CompactHashMap.this.forEach((k, v) -> action.accept(v));
+        }
+    }
+
+    /**
+     * Returns a {@link Set} view of the mappings contained in this map.
+     * The set is backed by the map, so changes to the map are reflected in
+     * the set, and vice-versa.  The entries returned by its iterator remain
+     * bound to their slot: {@code setValue} writes through to the map for
+     * as long as the mapping is present.
+     *
+     * @return a set view of the mappings contained in this map
+     */
+    @Override
+    public Set<Map.Entry<K,V>> entrySet() {
+        Set<Map.Entry<K,V>> es;
+        return (es = entrySet) == null ? (entrySet = new EntrySet()) : es;
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<K,V>> {
+        @Override
+        public final int size()                 { return size; }
+        @Override
+        public final void clear()               { CompactHashMap.this.clear(); }
+        @Override
+        public final Iterator<Map.Entry<K,V>> iterator() {
+            return new EntryIterator();
+        }
+        @Override
+        public final boolean contains(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+            Object key = e.getKey();
+            int i = find(key, hash(key));
+            return i >= 0 && Objects.equals(e.getValue(), table[(i << 1) + 1]);
+        }
+        @Override
+        public final boolean remove(Object o) {
+            if (o instanceof Map.Entry) {
+                Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+                return CompactHashMap.this.remove(e.getKey(), e.getValue());
+            }
+            return false;
+        }
+        @Override
+        public final Spliterator<Map.Entry<K,V>> spliterator() {
+            return new EntrySpliterator<>(CompactHashMap.this, 0, -1, 0, 0);
+        }
+    }
+
+    /**
+     * An entry bound to a slot of the table.
+     */
+    final class SlotEntry implements Map.Entry<K,V> {
+        final int index;
+        final Object key;    // masked
+        V value;             // last known value
+
+        SlotEntry(int index, Object key, V value) {
+            this.index = index;
+            this.key = key;
+            this.value = value;
+        }
+
+        private boolean live() {
+            Object[] tab = table;
+            return tab != null && (index << 1) < tab.length &&
+                tab[index << 1] == key;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public K getKey() {
+            return (K) unmaskNull(key);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V getValue() {
+            return live() ? (value = (V) table[(index << 1) + 1]) : value;
+        }
+
+        @Override
+        public V setValue(V newValue) {
+            if (!live()) {
+                throw new IllegalStateException("Entry was removed");
+            }
+            V old = getValue();
+            table[(index << 1) + 1] = value = newValue;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            }
+            if (o instanceof Map.Entry) {
+                Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+                return Objects.equals(getKey(), e.getKey()) &&
+                    Objects.equals(getValue(), e.getValue());
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+
+    /* ------------------------------------------------------------ */
+    // iterators
+
+    abstract class CompactIterator {
+        int next;             // next slot to examine
+        int current = -1;     // slot of last returned entry
+        int remaining;        // entries left to return
+        int expectedModCount; // for fast-fail
+
+        CompactIterator() {
+            expectedModCount = modCount;
+            remaining = size;
+        }
+
+        public final boolean hasNext() {
+            return remaining > 0;
+        }
+
+        /**
+         * Returns the slot of the next entry.
+         */
+        final int nextIndex() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (remaining <= 0) {
+                throw new NoSuchElementException();
+            }
+            Object[] tab = table;
+            int i = next;
+            while (tab[i << 1] == null) {
+                ++i;
+            }
+            next = i + 1;
+            --remaining;
+            return current = i;
+        }
+
+        public final void remove() {
+            if (current < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeAt(current);
+            current = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    final class KeyIterator extends CompactIterator
+        implements Iterator<K> {
+        @Override
+        @SuppressWarnings("unchecked")
+        public final K next() { return (K) unmaskNull(table[nextIndex() << 1]); }
+    }
+
+    final class ValueIterator extends CompactIterator
+        implements Iterator<V> {
+        @Override
+        @SuppressWarnings("unchecked")
+        public final V next() { return (V) table[(nextIndex() << 1) + 1]; }
+    }
+
+    final class EntryIterator extends CompactIterator
+        implements Iterator<Map.Entry<K,V>> {
+        @Override
+        @SuppressWarnings("unchecked")
+        public final Map.Entry<K,V> next() {
+            int i = nextIndex();
+            return new SlotEntry(i, table[i << 1], (V) table[(i << 1) + 1]);
+        }
+    }
+
+    /* ------------------------------------------------------------ */
+    // spliterators
+
+    static class CompactSpliterator<K,V> {
+        final CompactHashMap<K,V> map;
+        int index;                  // current slot, modified on advance/split
+        int fence;                  // one past last slot
+        int est;                    // size estimate
+        int expectedModCount;       // for comodification checks
+
+        CompactSpliterator(CompactHashMap<K,V> m, int origin,
+                           int fence, int est,
+                           int expectedModCount) {
+            this.map = m;
+            this.index = origin;
+            this.fence = fence;
+            this.est = est;
+            this.expectedModCount = expectedModCount;
+        }
+
+        final int getFence() { // initialize fence and size on first use
+            int hi;
+            if ((hi = fence) < 0) {
+                CompactHashMap<K,V> m = map;
+                est = m.size;
+                expectedModCount = m.modCount;
+                Object[] tab = m.table;
+                hi = fence = (tab == null) ? 0 : tab.length >>> 1;
+            }
+            return hi;
+        }
+
+        public final long estimateSize() {
+            getFence(); // force init
+            return (long) est;
+        }
+
+        /**
+         * Feeds the slots of this spliterator to the given consumer.
+         */
+        final void forEachSlot(Object[] tab, IntConsumer slot) {
+            int hi = getFence(), mc = expectedModCount, i = index;
+            if (tab != null && tab.length >= hi << 1 && i >= 0 &&
+                i < (index = hi)) {
+                for (; i < hi; ++i) {
+                    if (tab[i << 1] != null) {
+                        slot.accept(i);
+                    }
+                }
+                if (map.modCount != mc) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+        }
+
+        /**
+         * Returns the next full slot, or -1 if none remain.
+         */
+        final int advance(Object[] tab) {
+            int hi = getFence();
+            if (tab != null && tab.length >= hi << 1 && index >= 0) {
+                while (index < hi) {
+                    int i = index++;
+                    if (tab[i << 1] != null) {
+                        return i;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        final void checkForComodification() {
+            if (map.modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        final int sizedCharacteristics() {
+            return (fence < 0 || est == map.size) ? Spliterator.SIZED : 0;
+        }
+    }
+
+    static final class KeySpliterator<K,V>
+        extends CompactSpliterator<K,V>
+        implements Spliterator<K> {
+        KeySpliterator(CompactHashMap<K,V> m, int origin, int fence, int est,
+                       int expectedModCount) {
+            super(m, origin, fence, est, expectedModCount);
+        }
+
+        @Override
+        public KeySpliterator<K,V> trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            return (lo >= mid) ? null :
+                new KeySpliterator<>(map, lo, index = mid, est >>>= 1,
+                                     expectedModCount);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEachRemaining(Consumer<? super K> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            Object[] tab = map.table;
+            forEachSlot(tab, i -> action.accept((K) unmaskNull(tab[i << 1])));
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super K> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            Object[] tab = map.table;
+            int i;
+            if ((i = advance(tab)) < 0) {
+                return false;
+            }
+            action.accept((K) unmaskNull(tab[i << 1]));
+            checkForComodification();
+            return true;
+        }
+
+        @Override
+        public int characteristics() {
+            return sizedCharacteristics() | Spliterator.DISTINCT;
+        }
+    }
+
+    static final class ValueSpliterator<K,V>
+        extends CompactSpliterator<K,V>
+        implements Spliterator<V> {
+        ValueSpliterator(CompactHashMap<K,V> m, int origin, int fence, int est,
+                         int expectedModCount) {
+            super(m, origin, fence, est, expectedModCount);
+        }
+
+        @Override
+        public ValueSpliterator<K,V> trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            return (lo >= mid) ? null :
+                new ValueSpliterator<>(map, lo, index = mid, est >>>= 1,
+                                       expectedModCount);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEachRemaining(Consumer<? super V> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            Object[] tab = map.table;
+            forEachSlot(tab, i -> action.accept((V) tab[(i << 1) + 1]));
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super V> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            Object[] tab = map.table;
+            int i;
+            if ((i = advance(tab)) < 0) {
+                return false;
+            }
+            action.accept((V) tab[(i << 1) + 1]);
+            checkForComodification();
+            return true;
+        }
+
+        @Override
+        public int characteristics() {
+            return sizedCharacteristics();
+        }
+    }
+
+    static final class EntrySpliterator<K,V>
+        extends CompactSpliterator<K,V>
+        implements Spliterator<Map.Entry<K,V>> {
+        EntrySpliterator(CompactHashMap<K,V> m, int origin, int fence, int est,
+                         int expectedModCount) {
+            super(m, origin, fence, est, expectedModCount);
+        }
+
+        @Override
+        public EntrySpliterator<K,V> trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            return (lo >= mid) ? null :
+                new EntrySpliterator<>(map, lo, index = mid, est >>>= 1,
+                                       expectedModCount);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEachRemaining(Consumer<? super Map.Entry<K,V>> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            CompactHashMap<K,V> m = map;
+            Object[] tab = m.table;
+            forEachSlot(tab, i -> action.accept(
+                m.new SlotEntry(i, tab[i << 1], (V) tab[(i << 1) + 1])));
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super Map.Entry<K,V>> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            CompactHashMap<K,V> m = map;
+            Object[] tab = m.table;
+            int i;
+            if ((i = advance(tab)) < 0) {
+                return false;
+            }
+            action.accept(m.new SlotEntry(i, tab[i << 1],
+                                          (V) tab[(i << 1) + 1]));
+            checkForComodification();
+            return true;
+        }
+
+        @Override
+        public int characteristics() {
+            return sizedCharacteristics() | Spliterator.DISTINCT;
+        }
+    }
+
+    /* ------------------------------------------------------------ */
+    // Serialization
+
+    /**
+     * Save the state of the <tt>CompactHashMap</tt> instance to a stream
+     * (i.e., serialize it).
+     *
+     * @serialData The <i>size</i> of the map (the number of key-value
+     *             mappings) is emitted (int), followed by the key (Object)
+     *             and value (Object) for each key-value mapping.  The
+     *             key-value mappings are emitted in no particular order.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws IOException {
+        s.defaultWriteObject();
+        s.writeInt(size);
+        Object[] tab;
+        if (size > 0 && (tab = table) != null) {
+            for (int i = 0; i < tab.length; i += 2) {
+                Object k;
+                if ((k = tab[i]) != null) {
+                    s.writeObject(unmaskNull(k));
+                    s.writeObject(tab[i + 1]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reconstitute the <tt>CompactHashMap</tt> instance from a stream (i.e.,
+     * deserialize it).
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(java.io.ObjectInputStream s)
+        throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        int mappings = s.readInt();
+        if (mappings < 0) {
+            throw new InvalidObjectException("Illegal mappings count: " +
+                                             mappings);
+        }
+        ctrl = null;
+        table = null;
+        size = 0;
+        growthLeft = capacityFor(mappings);
+        for (int i = 0; i < mappings; i++) {
+            K key = (K) s.readObject();
+            V value = (V) s.readObject();
+            putVal(hash(key), key, value, false);
+        }
+    }
+}
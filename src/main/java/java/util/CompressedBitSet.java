@@ -0,0 +1,1798 @@
+package java.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 压缩位图（Roaring 风格）：按 2^16 大小的分块分别以有序数组、位图或游程容器存储，稀疏集合也只占用与元素个数成正比的内存。
+ *
+ * A set of nonnegative {@code int} indices, like {@link BitSet}, stored
+ * in compressed form.  Where a {@code BitSet} is a single dense array of
+ * words, so that a set holding only the indices 0 and
+ * {@code Integer.MAX_VALUE} occupies 256 megabytes, this class splits
+ * the index space into chunks of 2<sup>16</sup> indices, keyed by the
+ * high 16 bits of the index, and stores only the nonempty chunks, each
+ * in whichever of three <em>containers</em> suits its contents:
+ *
+ * <ul>
+ * <li>an <em>array container</em>, a sorted array of the low 16 bits of
+ *     each index, for chunks holding at most 4096 indices;
+ * <li>a <em>bitmap container</em>, 1024 words with one bit per index,
+ *     for denser chunks;
+ * <li>a <em>run container</em>, a sorted array of runs of consecutive
+ *     indices, for chunks made up of a few long runs.
+ * </ul>
+ *
+ * <p>Point updates keep each chunk in an array or bitmap container; run
+ * containers are produced by the range operations {@link #set(int, int)}
+ * and by {@link #optimize}, which converts every chunk to its smallest
+ * representation.  The logical operations {@link #and}, {@link #or},
+ * {@link #xor} and {@link #andNot} combine sets chunk by chunk, skipping
+ * chunks present in neither operand.
+ *
+ * <p>Sets can be written to and read from a {@link ByteBuffer} in the
+ * portable <a href="https://github.com/RoaringBitmap/RoaringFormatSpec">
+ * Roaring serialization format</a>, and so exchanged with other
+ * implementations of that format.  A set read with {@link #readFrom}
+ * decodes only its chunk directory up front, and each chunk the first
+ * time it is accessed, so that a large set can be used directly from a
+ * memory-mapped file at a cost proportional to the chunks actually
+ * visited.
+ *
+ * <p>Unless otherwise noted, passing a null parameter to any of the
+ * methods in a {@code CompressedBitSet} will result in a
+ * {@code NullPointerException}.
+ *
+ * <p>A {@code CompressedBitSet} is not safe for multithreaded use
+ * without external synchronization.  This includes read-only use of
+ * a set obtained from {@link #readFrom}, whose chunks are decoded as
+ * they are first accessed.
+ *
+ * @see BitSet
+ * @since 1.8
+ */
+public class CompressedBitSet implements Cloneable, java.io.Serializable {
+    private static final long serialVersionUID = -7093410356735493725L;
+
+    /*
+     * Implementation notes.
+     *
+     * The set is a sorted array of 16-bit keys, with a parallel array
+     * of containers.  Containers never hold zero values: a chunk
+     * emptied by an update or a logical operation is removed.
+     * Containers are mutable, and operations that change a
+     * container's kind return the replacement, which callers store
+     * back into the containers array.
+     *
+     * Binary operations between two array containers merge the sorted
+     * arrays; all other pairs are combined as bitmaps and the result
+     * converted back to an array container if sparse enough.
+     *
+     * A set read from a buffer keeps the buffer as its source: the
+     * containers array initially holds nulls, and container(i)
+     * decodes container i on demand using its offset and kind, kept
+     * in lazyInfo.  Any change to the chunk directory (adding or
+     * removing a chunk) first decodes all containers and drops the
+     * source.
+     */
+
+    /** The maximum number of values held by an array container */
+    static final int ARRAY_MAX = 4096;
+
+    /** The number of words in a bitmap container */
+    static final int BITMAP_WORDS = 1 << 10;
+
+    /** Format cookies, from the Roaring format specification */
+    private static final int SERIAL_COOKIE_NO_RUNCONTAINER = 12346;
+    private static final int SERIAL_COOKIE = 12347;
+
+    /**
+     * Sets with runs and fewer than this many containers omit the
+     * offset header.
+     */
+    private static final int NO_OFFSET_THRESHOLD = 4;
+
+    /** The high 16 bits of the indices of each chunk, ascending */
+    private transient char[] keys;
+
+    /** The container of each chunk, or null if not yet decoded */
+    private transient Container[] containers;
+
+    /** The number of chunks */
+    private transient int size;
+
+    /**
+     * The buffer this set was read from, if some containers are not
+     * yet decoded, else null.
+     */
+    private transient ByteBuffer source;
+
+    /**
+     * For each undecoded container: its offset in source (even
+     * elements), and its cardinality, ORed with RUN_FLAG for a run
+     * container (odd elements).
+     */
+    private transient int[] lazyInfo;
+
+    private static final int RUN_FLAG = 1 << 30;
+
+    /**
+     * Creates a new, empty compressed bit set.
+     */
+    public CompressedBitSet() {
+        keys = new char[4];
+        containers = new Container[4];
+    }
+
+    // Containers
+
+    /**
+     * A set of 16-bit values, the low bits of the indices of a chunk.
+     * Values are passed as chars and returned as ints.
+     */
+    abstract static class Container {
+        /** Returns the number of values, at least one */
+        abstract int cardinality();
+
+        abstract boolean contains(char x);
+
+        /** Adds x, returning this container or its replacement */
+        abstract Container add(char x);
+
+        /** Removes x, returning this container or its replacement */
+        abstract Container remove(char x);
+
+        /** Returns the number of values less than x */
+        abstract int rank(char x);
+
+        /** Returns the value at the given index in ascending order */
+        abstract int select(int j);
+
+        /** Returns the least value at least x, or -1 if none */
+        abstract int next(int x);
+
+        /** Returns the greatest value */
+        abstract int last();
+
+        /** Sets the bits of all values in the given bitmap words */
+        abstract void orInto(long[] words);
+
+        /** Passes each value, ORed with base, to the action */
+        abstract void forEach(int base, IntConsumer action);
+
+        /** Returns the size of the serialized form, in bytes */
+        abstract int serializedSize();
+
+        /** Writes the serialized form, little-endian */
+        abstract void writeTo(ByteBuffer out);
+
+        abstract Container copy();
+
+        /** Returns the values as a new array of bitmap words */
+        final long[] toWords() {
+            long[] w = new long[BITMAP_WORDS];
+            orInto(w);
+            return w;
+        }
+
+        /**
+         * Returns the number of runs of consecutive values.
+         */
+        int numberOfRuns() {
+            return CompressedBitSet.numberOfRuns(toWords());
+        }
+    }
+
+    static final class ArrayContainer extends Container {
+        char[] content;
+        int card;
+
+        ArrayContainer(char[] content, int card) {
+            this.content = content;
+            this.card = card;
+        }
+
+        @Override
+        int cardinality() {
+            return card;
+        }
+
+        @Override
+        boolean contains(char x) {
+            return Arrays.binarySearch(content, 0, card, x) >= 0;
+        }
+
+        @Override
+        Container add(char x) {
+            int i = Arrays.binarySearch(content, 0, card, x);
+            if (i >= 0) {
+                return this;
+            }
+            if (card == ARRAY_MAX) {
+                return toBitmap().add(x);
+            }
+            i = -i - 1;
+            if (card == content.length) {
+                content = Arrays.copyOf(content,
+                                        Math.min(ARRAY_MAX, Math.max(4, card << 1)));
+            }
+            System.arraycopy(content, i, content, i + 1, card - i);
+            content[i] = x;
+            ++card;
+            return this;
+        }
+
+        @Override
+        Container remove(char x) {
+            int i = Arrays.binarySearch(content, 0, card, x);
+            if (i >= 0) {
+                System.arraycopy(content, i + 1, content, i, --card - i);
+            }
+            return this;
+        }
+
+        @Override
+        int rank(char x) {
+            int i = Arrays.binarySearch(content, 0, card, x);
+            return (i >= 0) ? i : -i - 1;
+        }
+
+        @Override
+        int select(int j) {
+            return content[j];
+        }
+
+        @Override
+        int next(int x) {
+            if (x > 0xFFFF) {
+                return -1;
+            }
+            int i = rank((char)x);
+            return (i < card) ? content[i] : -1;
+        }
+
+        @Override
+        int last() {
+            return content[card - 1];
+        }
+
+        @Override
+        void orInto(long[] words) {
+            char[] c = content;
+            for (int i = 0, n = card; i < n; ++i) {
+                words[c[i] >>> 6] |= 1L << c[i];
+            }
+        }
+
+        @Override
+        void forEach(int base, IntConsumer action) {
+            char[] c = content;
+            for (int i = 0, n = card; i < n; ++i) {
+                action.accept(base | c[i]);
+            }
+        }
+
+        @Override
+        int numberOfRuns() {
+            int runs = 0;
+            for (int i = 0, prev = -2; i < card; prev = content[i++]) {
+                if (content[i] != prev + 1) {
+                    ++runs;
+                }
+            }
+            return runs;
+        }
+
+        @Override
+        int serializedSize() {
+            return card << 1;
+        }
+
+        @Override
+        void writeTo(ByteBuffer out) {
+            for (int i = 0; i < card; ++i) {
+                out.putChar(content[i]);
+            }
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(content, card), card);
+        }
+
+        BitmapContainer toBitmap() {
+            return new BitmapContainer(toWords(), card);
+        }
+    }
+
+    static final class BitmapContainer extends Container {
+        final long[] words;
+        int card;
+
+        BitmapContainer(long[] words, int card) {
+            this.words = words;
+            this.card = card;
+        }
+
+        @Override
+        int cardinality() {
+            return card;
+        }
+
+        @Override
+        boolean contains(char x) {
+            return (words[x >>> 6] & (1L << x)) != 0;
+        }
+
+        @Override
+        Container add(char x) {
+            long w = words[x >>> 6], b = 1L << x;
+            if ((w & b) == 0) {
+                words[x >>> 6] = w | b;
+                ++card;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char x) {
+            long w = words[x >>> 6], b = 1L << x;
+            if ((w & b) != 0) {
+                words[x >>> 6] = w & ~b;
+                if (--card <= ARRAY_MAX) {
+                    return fromWords(words, card);
+                }
+            }
+            return this;
+        }
+
+        @Override
+        int rank(char x) {
+            int r = 0, k = x >>> 6;
+            for (int i = 0; i < k; ++i) {
+                r += Long.bitCount(words[i]);
+            }
+            return r + Long.bitCount(words[k] & ((1L << x) - 1));
+        }
+
+        @Override
+        int select(int j) {
+            for (int i = 0;; ++i) {
+                long w = words[i];
+                int c = Long.bitCount(w);
+                if (j < c) {
+                    for (; j > 0; --j) {
+                        w &= w - 1;
+                    }
+                    return (i << 6) + Long.numberOfTrailingZeros(w);
+                }
+                j -= c;
+            }
+        }
+
+        @Override
+        int next(int x) {
+            if (x > 0xFFFF) {
+                return -1;
+            }
+            int i = x >>> 6;
+            long w = words[i] & (-1L << x);
+            for (;;) {
+                if (w != 0) {
+                    return (i << 6) + Long.numberOfTrailingZeros(w);
+                }
+                if (++i == BITMAP_WORDS) {
+                    return -1;
+                }
+                w = words[i];
+            }
+        }
+
+        @Override
+        int last() {
+            int i = BITMAP_WORDS - 1;
+            while (words[i] == 0) {
+                --i;
+            }
+            return (i << 6) + 63 - Long.numberOfLeadingZeros(words[i]);
+        }
+
+        @Override
+        void orInto(long[] w) {
+            for (int i = 0; i < BITMAP_WORDS; ++i) {
+                w[i] |= words[i];
+            }
+        }
+
+        @Override
+        void forEach(int base, IntConsumer action) {
+            for (int i = 0; i < BITMAP_WORDS; ++i) {
+                for (long w = words[i]; w != 0; w &= w - 1) {
+                    action.accept(base | (i << 6) + Long.numberOfTrailingZeros(w));
+                }
+            }
+        }
+
+        @Override
+        int numberOfRuns() {
+            return CompressedBitSet.numberOfRuns(words);
+        }
+
+        @Override
+        int serializedSize() {
+            return BITMAP_WORDS << 3;
+        }
+
+        @Override
+        void writeTo(ByteBuffer out) {
+            for (int i = 0; i < BITMAP_WORDS; ++i) {
+                out.putLong(words[i]);
+            }
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), card);
+        }
+    }
+
+    static final class RunContainer extends Container {
+        /** Pairs of (start, length - 1), ascending and non-adjacent */
+        final char[] runs;
+        final int nruns;
+        final int card;
+
+        RunContainer(char[] runs, int nruns) {
+            this.runs = runs;
+            this.nruns = nruns;
+            int c = 0;
+            for (int i = 0; i < nruns; ++i) {
+                c += runs[2 * i + 1] + 1;
+            }
+            this.card = c;
+        }
+
+        /** Returns the index of the last run starting at or before x, or -1 */
+        private int runFor(int x) {
+            int low = 0, high = nruns - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (runs[2 * mid] <= x) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return high;
+        }
+
+        @Override
+        int cardinality() {
+            return card;
+        }
+
+        @Override
+        boolean contains(char x) {
+            int r = runFor(x);
+            return r >= 0 && x - runs[2 * r] <= runs[2 * r + 1];
+        }
+
+        @Override
+        Container add(char x) {
+            return contains(x) ? this : fromWords(toWords(), card).add(x);
+        }
+
+        @Override
+        Container remove(char x) {
+            return contains(x) ? fromWords(toWords(), card).remove(x) : this;
+        }
+
+        @Override
+        int rank(char x) {
+            int r = runFor(x), c = 0;
+            for (int i = 0; i < r; ++i) {
+                c += runs[2 * i + 1] + 1;
+            }
+            return (r < 0) ? 0 : c + Math.min(x - runs[2 * r], runs[2 * r + 1] + 1);
+        }
+
+        @Override
+        int select(int j) {
+            for (int i = 0;; ++i) {
+                int len = runs[2 * i + 1] + 1;
+                if (j < len) {
+                    return runs[2 * i] + j;
+                }
+                j -= len;
+            }
+        }
+
+        @Override
+        int next(int x) {
+            if (x > 0xFFFF) {
+                return -1;
+            }
+            int r = runFor(x);
+            if (r >= 0 && x - runs[2 * r] <= runs[2 * r + 1]) {
+                return x;
+            }
+            return (r + 1 < nruns) ? runs[2 * (r + 1)] : -1;
+        }
+
+        @Override
+        int last() {
+            return runs[2 * nruns - 2] + runs[2 * nruns - 1];
+        }
+
+        @Override
+        void orInto(long[] words) {
+            for (int i = 0; i < nruns; ++i) {
+                setRange(words, runs[2 * i], runs[2 * i] + runs[2 * i + 1] + 1);
+            }
+        }
+
+        @Override
+        void forEach(int base, IntConsumer action) {
+            for (int i = 0; i < nruns; ++i) {
+                for (int v = runs[2 * i], e = v + runs[2 * i + 1]; v <= e; ++v) {
+                    action.accept(base | v);
+                }
+            }
+        }
+
+        @Override
+        int numberOfRuns() {
+            return nruns;
+        }
+
+        @Override
+        int serializedSize() {
+            return 2 + (nruns << 2);
+        }
+
+        @Override
+        void writeTo(ByteBuffer out) {
+            out.putChar((char)nruns);
+            for (int i = 0; i < 2 * nruns; ++i) {
+                out.putChar(runs[i]);
+            }
+        }
+
+        @Override
+        Container copy() {
+            return this;  // immutable
+        }
+    }
+
+    /**
+     * Returns the number of runs of set bits in the given words.
+     */
+    static int numberOfRuns(long[] words) {
+        int runs = 0;
+        long carry = 0;  // high bit of the previous word, moved to bit 0
+        for (long w : words) {
+            runs += Long.bitCount(w & ~((w << 1) | carry));
+            carry = w >>> 63;
+        }
+        return runs;
+    }
+
+    /**
+     * Sets bits [from, to) of the given words.
+     */
+    static void setRange(long[] words, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        int s = from >>> 6, e = (to - 1) >>> 6;
+        long first = -1L << from, last = -1L >>> -to;
+        if (s == e) {
+            words[s] |= first & last;
+        } else {
+            words[s] |= first;
+            for (int i = s + 1; i < e; ++i) {
+                words[i] = -1L;
+            }
+            words[e] |= last;
+        }
+    }
+
+    /**
+     * Clears bits [from, to) of the given words.
+     */
+    static void clearRange(long[] words, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        int s = from >>> 6, e = (to - 1) >>> 6;
+        long first = -1L << from, last = -1L >>> -to;
+        if (s == e) {
+            words[s] &= ~(first & last);
+        } else {
+            words[s] &= ~first;
+            for (int i = s + 1; i < e; ++i) {
+                words[i] = 0L;
+            }
+            words[e] &= ~last;
+        }
+    }
+
+    /**
+     * Returns an array or bitmap container for the given words and
+     * cardinality, or null if the cardinality is zero.  A returned
+     * bitmap container takes ownership of the words.
+     */
+    static Container fromWords(long[] words, int card) {
+        if (card == 0) {
+            return null;
+        }
+        if (card > ARRAY_MAX) {
+            return new BitmapContainer(words, card);
+        }
+        char[] c = new char[card];
+        int k = 0;
+        for (int i = 0; i < BITMAP_WORDS; ++i) {
+            for (long w = words[i]; w != 0; w &= w - 1) {
+                c[k++] = (char)((i << 6) + Long.numberOfTrailingZeros(w));
+            }
+        }
+        return new ArrayContainer(c, card);
+    }
+
+    static Container fromWords(long[] words) {
+        int card = 0;
+        for (long w : words) {
+            card += Long.bitCount(w);
+        }
+        return fromWords(words, card);
+    }
+
+    /**
+     * Returns a run container for the given words, which hold the
+     * given number of runs.
+     */
+    static RunContainer runsFromWords(long[] words, int nruns) {
+        char[] runs = new char[nruns << 1];
+        int k = 0, v = -1;
+        for (int i = 0; i < BITMAP_WORDS; ++i) {
+            long w = words[i];
+            while (w != 0) {
+                int start = (i << 6) + Long.numberOfTrailingZeros(w);
+                if (start > v) {       // else continues the previous run
+                    runs[k++] = (char)start;
+                    runs[k++] = 0;
+                }
+                long inv = ~(w | ((1L << (start & 63)) - 1));
+                int end = (inv == 0) ? (i << 6) + 64 :
+                    (i << 6) + Long.numberOfTrailingZeros(inv);
+                // extend run [start, end)
+                int runStart = runs[k - 2];
+                runs[k - 1] = (char)(end - 1 - runStart);
+                v = end;
+                w = (end - (i << 6) >= 64) ? 0 : w & (-1L << (end & 63));
+            }
+        }
+        return new RunContainer(runs, nruns);
+    }
+
+    /**
+     * Returns the smallest serialized representation of the given
+     * container.
+     */
+    static Container optimize(Container c) {
+        int card = c.cardinality();
+        int nruns = c.numberOfRuns();
+        int runBytes = 2 + (nruns << 2);
+        int otherBytes = (card <= ARRAY_MAX) ? card << 1 : BITMAP_WORDS << 3;
+        if (runBytes < otherBytes) {
+            return (c instanceof RunContainer) ? c : runsFromWords(c.toWords(), nruns);
+        }
+        return (c instanceof RunContainer) ? fromWords(c.toWords(), card) : c;
+    }
+
+    // Binary operations on containers, returning null if empty
+
+    static Container and(Container a, Container b) {
+        if (a instanceof ArrayContainer) {
+            ArrayContainer x = (ArrayContainer)a;
+            char[] c = new char[x.card];
+            int k = 0;
+            if (b instanceof ArrayContainer) {
+                ArrayContainer y = (ArrayContainer)b;
+                for (int i = 0, j = 0; i < x.card && j < y.card; ) {
+                    char u = x.content[i], v = y.content[j];
+                    if (u < v) {
+                        ++i;
+                    } else if (u > v) {
+                        ++j;
+                    } else {
+                        c[k++] = u;
+                        ++i;
+                        ++j;
+                    }
+                }
+            } else {
+                for (int i = 0; i < x.card; ++i) {
+                    if (b.contains(x.content[i])) {
+                        c[k++] = x.content[i];
+                    }
+                }
+            }
+            return (k == 0) ? null : new ArrayContainer(c, k);
+        }
+        if (b instanceof ArrayContainer) {
+            return and(b, a);
+        }
+        long[] w = a.toWords(), v = b.toWords();
+        for (int i = 0; i < BITMAP_WORDS; ++i) {
+            w[i] &= v[i];
+        }
+        return fromWords(w);
+    }
+
+    static Container or(Container a, Container b) {
+        if (a instanceof ArrayContainer && b instanceof ArrayContainer) {
+            ArrayContainer x = (ArrayContainer)a, y = (ArrayContainer)b;
+            if (x.card + y.card <= ARRAY_MAX) {
+                char[] c = new char[x.card + y.card];
+                int i = 0, j = 0, k = 0;
+                while (i < x.card && j < y.card) {
+                    char u = x.content[i], v = y.content[j];
+                    if (u <= v) {
+                        c[k++] = u;
+                        ++i;
+                        if (u == v) {
+                            ++j;
+                        }
+                    } else {
+                        c[k++] = v;
+                        ++j;
+                    }
+                }
+                while (i < x.card) {
+                    c[k++] = x.content[i++];
+                }
+                while (j < y.card) {
+                    c[k++] = y.content[j++];
+                }
+                return new ArrayContainer(c, k);
+            }
+        }
+        long[] w = a.toWords();
+        b.orInto(w);
+        return fromWords(w);
+    }
+
+    static Container xor(Container a, Container b) {
+        long[] w = a.toWords(), v = b.toWords();
+        for (int i = 0; i < BITMAP_WORDS; ++i) {
+            w[i] ^= v[i];
+        }
+        return fromWords(w);
+    }
+
+    static Container andNot(Container a, Container b) {
+        if (a instanceof ArrayContainer) {
+            ArrayContainer x = (ArrayContainer)a;
+            char[] c = new char[x.card];
+            int k = 0;
+            for (int i = 0; i < x.card; ++i) {
+                if (!b.contains(x.content[i])) {
+                    c[k++] = x.content[i];
+                }
+            }
+            return (k == 0) ? null : new ArrayContainer(c, k);
+        }
+        long[] w = a.toWords(), v = b.toWords();
+        for (int i = 0; i < BITMAP_WORDS; ++i) {
+            w[i] &= ~v[i];
+        }
+        return fromWords(w);
+    }
+
+    // Chunk directory
+
+    /**
+     * Returns the index of the chunk with the given key, or
+     * (-(insertion point) - 1) if absent.
+     */
+    private int indexOf(int key) {
+        return Arrays.binarySearch(keys, 0, size, (char)key);
+    }
+
+    /**
+     * Returns container i, decoding it if needed.
+     */
+    private Container container(int i) {
+        Container c = containers[i];
+        return (c != null) ? c : (containers[i] = decode(i));
+    }
+
+    /**
+     * Returns the cardinality of container i, without decoding it.
+     */
+    private int cardinality(int i) {
+        Container c = containers[i];
+        return (c != null) ? c.cardinality() : lazyInfo[2 * i + 1] & ~RUN_FLAG;
+    }
+
+    /**
+     * Decodes all containers and drops the source buffer.
+     */
+    private void decodeAll() {
+        if (source != null) {
+            for (int i = 0; i < size; ++i) {
+                container(i);
+            }
+            source = null;
+            lazyInfo = null;
+        }
+    }
+
+    private void insertChunk(int i, int key, Container c) {
+        decodeAll();
+        if (size == keys.length) {
+            int n = size + (size >> 1) + 1;
+            keys = Arrays.copyOf(keys, n);
+            containers = Arrays.copyOf(containers, n);
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(containers, i, containers, i + 1, size - i);
+        keys[i] = (char)key;
+        containers[i] = c;
+        ++size;
+    }
+
+    private void removeChunk(int i) {
+        decodeAll();
+        System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+        System.arraycopy(containers, i + 1, containers, i, size - i - 1);
+        containers[--size] = null;
+    }
+
+    /**
+     * Replaces the directory with the given arrays of n chunks.
+     */
+    private void setChunks(char[] ks, Container[] cs, int n) {
+        keys = ks;
+        containers = cs;
+        size = n;
+        source = null;
+        lazyInfo = null;
+    }
+
+    private static void checkIndex(int bitIndex) {
+        if (bitIndex < 0) {
+            throw new IndexOutOfBoundsException("bitIndex < 0: " + bitIndex);
+        }
+    }
+
+    /**
+     * Checks that fromIndex ... toIndex is a valid range of bit indices.
+     */
+    private static void checkRange(int fromIndex, int toIndex) {
+        if (fromIndex < 0) {
+            throw new IndexOutOfBoundsException("fromIndex < 0: " + fromIndex);
+        }
+        if (toIndex < 0) {
+            throw new IndexOutOfBoundsException("toIndex < 0: " + toIndex);
+        }
+        if (fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("fromIndex: " + fromIndex +
+                                                " > toIndex: " + toIndex);
+        }
+    }
+
+    // Public operations
+
+    /**
+     * Returns the value of the bit with the specified index.
+     *
+     * @param  bitIndex the bit index
+     * @return the value of the bit with the specified index
+     * @throws IndexOutOfBoundsException if the specified index is negative
+     */
+    public boolean get(int bitIndex) {
+        checkIndex(bitIndex);
+        int i = indexOf(bitIndex >>> 16);
+        return i >= 0 && container(i).contains((char)bitIndex);
+    }
+
+    /**
+     * Sets the bit at the specified index to {@code true}.
+     *
+     * @param  bitIndex a bit index
+     * @throws IndexOutOfBoundsException if the specified index is negative
+     */
+    public void set(int bitIndex) {
+        checkIndex(bitIndex);
+        int i = indexOf(bitIndex >>> 16);
+        if (i >= 0) {
+            containers[i] = container(i).add((char)bitIndex);
+        } else {
+            char[] c = new char[4];
+            c[0] = (char)bitIndex;
+            insertChunk(-i - 1, bitIndex >>> 16, new ArrayContainer(c, 1));
+        }
+    }
+
+    /**
+     * Sets the bit at the specified index to the specified value.
+     *
+     * @param  bitIndex a bit index
+     * @param  value a boolean value to set
+     * @throws IndexOutOfBoundsException if the specified index is negative
+     */
+    public void set(int bitIndex, boolean value) {
+        if (value) {
+            set(bitIndex);
+        } else {
+            clear(bitIndex);
+        }
+    }
+
+    /**
+     * Sets the bits from the specified {@code fromIndex} (inclusive) to the
+     * specified {@code toIndex} (exclusive) to {@code true}.  Chunks
+     * covered by the range are stored as runs where that is smaller.
+     *
+     * @param  fromIndex index of the first bit to be set
+     * @param  toIndex index after the last bit to be set
+     * @throws IndexOutOfBoundsException if {@code fromIndex} is negative,
+     *         or {@code toIndex} is negative, or {@code fromIndex} is
+     *         larger than {@code toIndex}
+     */
+    public void set(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (fromIndex == toIndex) {
+            return;
+        }
+        int last = toIndex - 1;
+        for (int key = fromIndex >>> 16, lastKey = last >>> 16; key <= lastKey; ++key) {
+            int lo = (key == fromIndex >>> 16) ? fromIndex & 0xFFFF : 0;
+            int hi = (key == lastKey) ? (last & 0xFFFF) + 1 : 0x10000;
+            int i = indexOf(key);
+            long[] w = (i >= 0) ? container(i).toWords() : new long[BITMAP_WORDS];
+            setRange(w, lo, hi);
+            Container c = optimize(fromWords(w));
+            if (i >= 0) {
+                containers[i] = c;
+            } else {
+                insertChunk(-i - 1, key, c);
+            }
+        }
+    }
+
+    /**
+     * Sets the bit specified by the index to {@code false}.
+     *
+     * @param  bitIndex the index of the bit to be cleared
+     * @throws IndexOutOfBoundsException if the specified index is negative
+     */
+    public void clear(int bitIndex) {
+        checkIndex(bitIndex);
+        int i = indexOf(bitIndex >>> 16);
+        if (i >= 0) {
+            Container c = container(i).remove((char)bitIndex);
+            if (c.cardinality() == 0) {
+                removeChunk(i);
+            } else {
+                containers[i] = c;
+            }
+        }
+    }
+
+    /**
+     * Sets the bits from the specified {@code fromIndex} (inclusive) to the
+     * specified {@code toIndex} (exclusive) to {@code false}.
+     *
+     * @param  fromIndex index of the first bit to be cleared
+     * @param  toIndex index after the last bit to be cleared
+     * @throws IndexOutOfBoundsException if {@code fromIndex} is negative,
+     *         or {@code toIndex} is negative, or {@code fromIndex} is
+     *         larger than {@code toIndex}
+     */
+    public void clear(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (fromIndex == toIndex) {
+            return;
+        }
+        int last = toIndex - 1;
+        for (int key = fromIndex >>> 16, lastKey = last >>> 16; key <= lastKey; ++key) {
+            int i = indexOf(key);
+            if (i < 0) {
+                continue;
+            }
+            int lo = (key == fromIndex >>> 16) ? fromIndex & 0xFFFF : 0;
+            int hi = (key == lastKey) ? (last & 0xFFFF) + 1 : 0x10000;
+            long[] w = container(i).toWords();
+            clearRange(w, lo, hi);
+            Container c = fromWords(w);
+            if (c == null) {
+                removeChunk(i);
+            } else {
+                containers[i] = c;
+            }
+        }
+    }
+
+    /**
+     * Sets all of the bits in this set to {@code false}.
+     */
+    public void clear() {
+        setChunks(new char[4], new Container[4], 0);
+    }
+
+    /**
+     * Sets the bit at the specified index to the complement of its
+     * current value.
+     *
+     * @param  bitIndex the index of the bit to flip
+     * @throws IndexOutOfBoundsException if the specified index is negative
+     */
+    public void flip(int bitIndex) {
+        if (get(bitIndex)) {
+            clear(bitIndex);
+        } else {
+            set(bitIndex);
+        }
+    }
+
+    /**
+     * Returns the index of the first bit that is set to {@code true}
+     * that occurs on or after the specified starting index. If no such
+     * bit exists then {@code -1} is returned.
+     *
+     * @param  fromIndex the index to start checking from (inclusive)
+     * @return the index of the next set bit, or {@code -1} if there
+     *         is no such bit
+     * @throws IndexOutOfBoundsException if the specified index is negative
+     */
+    public int nextSetBit(int fromIndex) {
+        checkIndex(fromIndex);
+        int i = indexOf(fromIndex >>> 16);
+        if (i >= 0) {
+            int v = container(i).next(fromIndex & 0xFFFF);
+            if (v >= 0) {
+                return (keys[i] << 16) | v;
+            }
+            ++i;
+        } else {
+            i = -i - 1;
+        }
+        return (i < size) ? (keys[i] << 16) | container(i).next(0) : -1;
+    }
+
+    /**
+     * Returns the "logical size" of this set: the index of the highest
+     * set bit plus one.  Returns zero if the set contains no set bits.
+     *
+     * @return the logical size of this set
+     */
+    public int length() {
+        return (size == 0) ? 0 : ((keys[size - 1] << 16) | container(size - 1).last()) + 1;
+    }
+
+    /**
+     * Returns true if this set contains no bits that are set to
+     * {@code true}.
+     *
+     * @return boolean indicating whether this set is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of bits set to {@code true} in this set.  The
+     * result is a {@code long}, since a set may hold all
+     * 2<sup>31</sup> nonnegative indices.
+     *
+     * @return the number of bits set to {@code true} in this set
+     */
+    public long cardinality() {
+        long n = 0;
+        for (int i = 0; i < size; ++i) {
+            n += cardinality(i);
+        }
+        return n;
+    }
+
+    /**
+     * Returns the number of bits set to {@code true} at indices less
+     * than the specified index, which is the position of that index in
+     * ascending order if its bit is set.
+     *
+     * @param  bitIndex a bit index
+     * @return the number of set bits below {@code bitIndex}
+     * @throws IndexOutOfBoundsException if the specified index is negative
+     * @see #select
+     */
+    public long rank(int bitIndex) {
+        checkIndex(bitIndex);
+        int key = bitIndex >>> 16;
+        long r = 0;
+        int i = 0;
+        for (; i < size && keys[i] < key; ++i) {
+            r += cardinality(i);
+        }
+        if (i < size && keys[i] == key) {
+            r += container(i).rank((char)bitIndex);
+        }
+        return r;
+    }
+
+    /**
+     * Returns the index of the bit set to {@code true} at position
+     * {@code n} in ascending order, counting from zero, or {@code -1}
+     * if fewer than {@code n + 1} bits are set.
+     *
+     * @param  n the position of a set bit
+     * @return the index of the set bit at that position, or {@code -1}
+     * @see #rank
+     */
+    public int select(long n) {
+        if (n < 0) {
+            return -1;
+        }
+        for (int i = 0; i < size; ++i) {
+            int c = cardinality(i);
+            if (n < c) {
+                return (keys[i] << 16) | container(i).select((int)n);
+            }
+            n -= c;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns true if the specified set has any bits set to {@code true}
+     * that are also set to {@code true} in this set.
+     *
+     * @param  set the set to intersect with
+     * @return boolean indicating whether this set intersects the specified set
+     */
+    public boolean intersects(CompressedBitSet set) {
+        for (int i = 0, j = 0; i < size && j < set.size; ) {
+            char a = keys[i], b = set.keys[j];
+            if (a < b) {
+                ++i;
+            } else if (a > b) {
+                ++j;
+            } else {
+                if (and(container(i), set.container(j)) != null) {
+                    return true;
+                }
+                ++i;
+                ++j;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Performs a logical <b>AND</b> of this target set with the argument
+     * set.  This set is modified so that each bit in it has the value
+     * {@code true} if and only if it both initially had the value
+     * {@code true} and the corresponding bit in the set argument also
+     * had the value {@code true}.
+     *
+     * @param set a compressed bit set
+     */
+    public void and(CompressedBitSet set) {
+        if (this == set) {
+            return;
+        }
+        char[] ks = new char[Math.max(1, Math.min(size, set.size))];
+        Container[] cs = new Container[ks.length];
+        int n = 0;
+        for (int i = 0, j = 0; i < size && j < set.size; ) {
+            char a = keys[i], b = set.keys[j];
+            if (a < b) {
+                ++i;
+            } else if (a > b) {
+                ++j;
+            } else {
+                Container c = and(container(i), set.container(j));
+                if (c != null) {
+                    ks[n] = a;
+                    cs[n++] = c;
+                }
+                ++i;
+                ++j;
+            }
+        }
+        setChunks(ks, cs, n);
+    }
+
+    /**
+     * Performs a logical <b>OR</b> of this set with the set argument.
+     * This set is modified so that a bit in it has the value
+     * {@code true} if and only if it either already had the value
+     * {@code true} or the corresponding bit in the set argument has
+     * the value {@code true}.
+     *
+     * @param set a compressed bit set
+     */
+    public void or(CompressedBitSet set) {
+        if (this == set) {
+            return;
+        }
+        char[] ks = new char[Math.max(1, size + set.size)];
+        Container[] cs = new Container[ks.length];
+        int n = 0, i = 0, j = 0;
+        while (i < size || j < set.size) {
+            int a = (i < size) ? keys[i] : Integer.MAX_VALUE;
+            int b = (j < set.size) ? set.keys[j] : Integer.MAX_VALUE;
+            if (a < b) {
+                ks[n] = (char)a;
+                cs[n++] = container(i++);
+            } else if (a > b) {
+                ks[n] = (char)b;
+                cs[n++] = set.container(j++).copy();
+            } else {
+                ks[n] = (char)a;
+                cs[n++] = or(container(i++), set.container(j++));
+            }
+        }
+        setChunks(ks, cs, n);
+    }
+
+    /**
+     * Performs a logical <b>XOR</b> of this set with the set argument.
+     * This set is modified so that a bit in it has the value
+     * {@code true} if and only if one of the following statements holds:
+     * <ul>
+     * <li>The bit initially has the value {@code true}, and the
+     *     corresponding bit in the argument has the value {@code false}.
+     * <li>The bit initially has the value {@code false}, and the
+     *     corresponding bit in the argument has the value {@code true}.
+     * </ul>
+     *
+     * @param  set a compressed bit set
+     */
+    public void xor(CompressedBitSet set) {
+        if (this == set) {
+            clear();
+            return;
+        }
+        char[] ks = new char[Math.max(1, size + set.size)];
+        Container[] cs = new Container[ks.length];
+        int n = 0, i = 0, j = 0;
+        while (i < size || j < set.size) {
+            int a = (i < size) ? keys[i] : Integer.MAX_VALUE;
+            int b = (j < set.size) ? set.keys[j] : Integer.MAX_VALUE;
+            if (a < b) {
+                ks[n] = (char)a;
+                cs[n++] = container(i++);
+            } else if (a > b) {
+                ks[n] = (char)b;
+                cs[n++] = set.container(j++).copy();
+            } else {
+                Container c = xor(container(i++), set.container(j++));
+                if (c != null) {
+                    ks[n] = (char)a;
+                    cs[n++] = c;
+                }
+            }
+        }
+        setChunks(ks, cs, n);
+    }
+
+    /**
+     * Clears all of the bits in this set whose corresponding
+     * bit is set in the specified set.
+     *
+     * @param  set the set with which to mask this set
+     */
+    public void andNot(CompressedBitSet set) {
+        if (this == set) {
+            clear();
+            return;
+        }
+        char[] ks = new char[Math.max(1, size)];
+        Container[] cs = new Container[ks.length];
+        int n = 0;
+        for (int i = 0, j = 0; i < size; ++i) {
+            char a = keys[i];
+            while (j < set.size && set.keys[j] < a) {
+                ++j;
+            }
+            Container c = container(i);
+            if (j < set.size && set.keys[j] == a) {
+                c = andNot(c, set.container(j));
+            }
+            if (c != null) {
+                ks[n] = a;
+                cs[n++] = c;
+            }
+        }
+        setChunks(ks, cs, n);
+    }
+
+    /**
+     * Converts each chunk of this set to whichever of the array, bitmap
+     * and run representations is smallest.  Sets built by point updates
+     * hold no runs until this method is called, so it is worth calling
+     * on sets containing long runs of consecutive indices before they are
+     * retained for a long time or serialized.
+     */
+    public void optimize() {
+        decodeAll();
+        for (int i = 0; i < size; ++i) {
+            containers[i] = optimize(containers[i]);
+        }
+    }
+
+    /**
+     * Returns a stream of indices for which this set contains a bit in
+     * the set state, in increasing order.  The stream's spliterator
+     * splits the set between chunks, giving halves of roughly equal
+     * numbers of chunks, and reports exact sizes.
+     *
+     * <p>The stream binds to this set when the terminal stream operation
+     * commences (specifically, the spliterator for the stream is
+     * <a href="Spliterator.html#binding"><em>late-binding</em></a>).  If the
+     * set is modified during that operation then the result is undefined.
+     *
+     * @return a stream of integers representing set indices
+     */
+    public IntStream stream() {
+        return StreamSupport.intStream(
+            () -> {
+                decodeAll();
+                return new IndexSpliterator(this, 0, size, 0);
+            },
+            Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED |
+            Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.NONNULL,
+            false);
+    }
+
+    /**
+     * Spliterator over chunks [index, fence) of a set, starting at the
+     * least value at least pos in chunk index.
+     */
+    static final class IndexSpliterator implements Spliterator.OfInt {
+        private final CompressedBitSet set;
+        private int index;
+        private final int fence;
+        private int pos;
+
+        IndexSpliterator(CompressedBitSet set, int index, int fence, int pos) {
+            this.set = set;
+            this.index = index;
+            this.fence = fence;
+            this.pos = pos;
+        }
+
+        @Override
+        public OfInt trySplit() {
+            int lo = index, mid = (lo + fence) >>> 1;
+            if (mid <= lo) {
+                return null;
+            }
+            IndexSpliterator prefix = new IndexSpliterator(set, lo, mid, pos);
+            index = mid;
+            pos = 0;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            while (index < fence) {
+                int v = set.containers[index].next(pos);
+                if (v >= 0) {
+                    pos = v + 1;
+                    action.accept((set.keys[index] << 16) | v);
+                    return true;
+                }
+                ++index;
+                pos = 0;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            int i = index, f = fence, p = pos;
+            index = f;
+            if (i < f && p > 0) {
+                Container c = set.containers[i];
+                int base = set.keys[i] << 16;
+                for (int v = c.next(p); v >= 0; v = c.next(v + 1)) {
+                    action.accept(base | v);
+                }
+                ++i;
+            }
+            for (; i < f; ++i) {
+                set.containers[i].forEach(set.keys[i] << 16, action);
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            long n = 0;
+            for (int i = index; i < fence; ++i) {
+                n += set.containers[i].cardinality();
+            }
+            if (pos > 0 && index < fence) {
+                n -= set.containers[index].rank((char)Math.min(pos, 0xFFFF));
+                if (pos > 0xFFFF) {
+                    n -= set.containers[index].contains((char)0xFFFF) ? 1 : 0;
+                }
+            }
+            return n;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED |
+                Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.NONNULL;
+        }
+
+        @Override
+        public Comparator<? super Integer> getComparator() {
+            return null;
+        }
+    }
+
+    // Serialized format
+
+    /**
+     * Returns the number of bytes written by {@link #writeTo}.
+     *
+     * @return the size of the serialized form of this set, in bytes
+     */
+    public int serializedSize() {
+        decodeAll();
+        boolean hasRuns = false;
+        int bytes = 0;
+        for (int i = 0; i < size; ++i) {
+            Container c = containers[i];
+            hasRuns |= c instanceof RunContainer;
+            bytes += c.serializedSize();
+        }
+        return bytes + headerSize(hasRuns);
+    }
+
+    private int headerSize(boolean hasRuns) {
+        int h = hasRuns ? 4 + ((size + 7) >>> 3) : 8;
+        h += 4 * size;                               // keys and cardinalities
+        if (!hasRuns || size >= NO_OFFSET_THRESHOLD) {
+            h += 4 * size;                           // offsets
+        }
+        return h;
+    }
+
+    /**
+     * Writes this set to the given buffer, starting at its current
+     * position, in the portable Roaring format: little-endian, with a
+     * header describing each chunk followed by the chunks' contents.
+     * On return the buffer's position is advanced past the written
+     * bytes; its byte order is unchanged.
+     *
+     * @param  out the buffer to write to
+     * @throws java.nio.BufferOverflowException if fewer than
+     *         {@link #serializedSize} bytes remain in the buffer
+     * @throws java.nio.ReadOnlyBufferException if the buffer is read-only
+     */
+    public void writeTo(ByteBuffer out) {
+        decodeAll();
+        if (out.remaining() < serializedSize()) {
+            throw new java.nio.BufferOverflowException();
+        }
+        ByteOrder order = out.order();
+        out.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            boolean hasRuns = false;
+            for (int i = 0; i < size; ++i) {
+                hasRuns |= containers[i] instanceof RunContainer;
+            }
+            if (hasRuns) {
+                out.putInt(SERIAL_COOKIE | ((size - 1) << 16));
+                byte[] flags = new byte[(size + 7) >>> 3];
+                for (int i = 0; i < size; ++i) {
+                    if (containers[i] instanceof RunContainer) {
+                        flags[i >>> 3] |= 1 << (i & 7);
+                    }
+                }
+                out.put(flags);
+            } else {
+                out.putInt(SERIAL_COOKIE_NO_RUNCONTAINER);
+                out.putInt(size);
+            }
+            for (int i = 0; i < size; ++i) {
+                out.putChar(keys[i]);
+                out.putChar((char)(containers[i].cardinality() - 1));
+            }
+            if (!hasRuns || size >= NO_OFFSET_THRESHOLD) {
+                int offset = headerSize(hasRuns);
+                for (int i = 0; i < size; ++i) {
+                    out.putInt(offset);
+                    offset += containers[i].serializedSize();
+                }
+            }
+            for (int i = 0; i < size; ++i) {
+                containers[i].writeTo(out);
+            }
+        } finally {
+            out.order(order);
+        }
+    }
+
+    /**
+     * Returns a new set read from the given buffer, starting at its
+     * current position, in the format written by {@link #writeTo}.  On
+     * return the buffer's position is advanced past the set.
+     *
+     * <p>Only the header is decoded by this method.  The contents of
+     * each chunk are read from the buffer the first time the chunk is
+     * accessed, or when the set is first modified in a way that adds or
+     * removes chunks, so that a set read from a
+     * {@link java.nio.MappedByteBuffer} touches only the pages holding
+     * the chunks it needs.  The region of the buffer holding the set
+     * must therefore not be modified while the set is in use.
+     *
+     * @param  in the buffer to read from
+     * @return a set backed by the buffer
+     * @throws IllegalArgumentException if the buffer does not hold a set
+     *         in the expected format, or holds indices too large to be
+     *         nonnegative {@code int} values
+     * @throws java.nio.BufferUnderflowException if the buffer ends
+     *         before the set
+     */
+    public static CompressedBitSet readFrom(ByteBuffer in) {
+        ByteBuffer b = in.slice().order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            int cookie = b.getInt(0), n, pos;
+            byte[] runFlags = null;
+            boolean hasRuns = (cookie & 0xFFFF) == SERIAL_COOKIE;
+            if (hasRuns) {
+                n = (cookie >>> 16) + 1;
+                runFlags = new byte[(n + 7) >>> 3];
+                for (int i = 0; i < runFlags.length; ++i) {
+                    runFlags[i] = b.get(4 + i);
+                }
+                pos = 4 + runFlags.length;
+            } else if (cookie == SERIAL_COOKIE_NO_RUNCONTAINER) {
+                n = b.getInt(4);
+                pos = 8;
+                if (n < 0 || n > 0x10000) {
+                    throw new IllegalArgumentException("Bad chunk count: " + n);
+                }
+            } else {
+                throw new IllegalArgumentException("Not a Roaring bitmap");
+            }
+            CompressedBitSet set = new CompressedBitSet();
+            char[] ks = new char[Math.max(1, n)];
+            int[] info = new int[2 * n];
+            int prev = -1;
+            for (int i = 0; i < n; ++i, pos += 4) {
+                char k = b.getChar(pos);
+                if (k <= prev || k > Short.MAX_VALUE) {
+                    throw new IllegalArgumentException("Bad chunk key: " + (int)k);
+                }
+                ks[i] = k;
+                prev = k;
+                boolean run = runFlags != null && (runFlags[i >>> 3] & (1 << (i & 7))) != 0;
+                info[2 * i + 1] = (b.getChar(pos + 2) + 1) | (run ? RUN_FLAG : 0);
+            }
+            int end = pos;
+            boolean hasOffsets = !hasRuns || n >= NO_OFFSET_THRESHOLD;
+            if (hasOffsets) {
+                end = pos + 4 * n;
+            }
+            for (int i = 0; i < n; ++i) {
+                int offset = hasOffsets ? b.getInt(pos + 4 * i) : end;
+                info[2 * i] = offset;
+                int c = info[2 * i + 1];
+                int bytes;
+                if ((c & RUN_FLAG) != 0) {
+                    int nruns = b.getChar(offset);
+                    bytes = 2 + 4 * nruns;
+                } else if (c > ARRAY_MAX) {
+                    bytes = BITMAP_WORDS << 3;
+                } else {
+                    bytes = c << 1;
+                }
+                end = Math.max(end, offset + bytes);
+            }
+            if (end > b.limit()) {
+                throw new java.nio.BufferUnderflowException();
+            }
+            b.limit(end);
+            set.keys = ks;
+            set.containers = new Container[ks.length];
+            set.size = n;
+            set.lazyInfo = info;
+            set.source = (n == 0) ? null : b;
+            in.position(in.position() + end);
+            return set;
+        } catch (IndexOutOfBoundsException e) {
+            throw new java.nio.BufferUnderflowException();
+        }
+    }
+
+    /**
+     * Decodes container i from the source buffer.
+     */
+    private Container decode(int i) {
+        ByteBuffer b = source;
+        int offset = lazyInfo[2 * i], c = lazyInfo[2 * i + 1];
+        if ((c & RUN_FLAG) != 0) {
+            int nruns = b.getChar(offset);
+            char[] runs = new char[2 * nruns];
+            for (int j = 0; j < runs.length; ++j) {
+                runs[j] = b.getChar(offset + 2 + 2 * j);
+            }
+            RunContainer r = new RunContainer(runs, nruns);
+            lazyInfo[2 * i + 1] = r.card | RUN_FLAG;
+            return r;
+        }
+        if (c > ARRAY_MAX) {
+            long[] w = new long[BITMAP_WORDS];
+            for (int j = 0; j < BITMAP_WORDS; ++j) {
+                w[j] = b.getLong(offset + 8 * j);
+            }
+            return new BitmapContainer(w, c);
+        }
+        char[] a = new char[c];
+        for (int j = 0; j < c; ++j) {
+            a[j] = b.getChar(offset + 2 * j);
+        }
+        return new ArrayContainer(a, c);
+    }
+
+    // Object methods
+
+    /**
+     * Cloning this {@code CompressedBitSet} produces a new
+     * {@code CompressedBitSet} that is equal to it.
+     *
+     * @return a clone of this set
+     */
+    @Override
+    public Object clone() {
+        decodeAll();
+        try {
+            CompressedBitSet result = (CompressedBitSet) super.clone();
+            result.keys = keys.clone();
+            result.containers = new Container[containers.length];
+            for (int i = 0; i < size; ++i) {
+                result.containers[i] = containers[i].copy();
+            }
+            return result;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+    }
+
+    /**
+     * Compares this object against the specified object.  The result is
+     * {@code true} if and only if the argument is not {@code null} and is
+     * a {@code CompressedBitSet} object that has exactly the same set of
+     * bits set to {@code true} as this set, however they are stored.
+     *
+     * @param  obj the object to compare with
+     * @return {@code true} if the objects are the same;
+     *         {@code false} otherwise
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof CompressedBitSet)) {
+            return false;
+        }
+        CompressedBitSet set = (CompressedBitSet) obj;
+        if (size != set.size) {
+            return false;
+        }
+        for (int i = 0; i < size; ++i) {
+            if (keys[i] != set.keys[i] || cardinality(i) != set.cardinality(i)) {
+                return false;
+            }
+        }
+        for (int i = 0; i < size; ++i) {
+            Container a = container(i), b = set.container(i);
+            if (a instanceof ArrayContainer && b instanceof ArrayContainer) {
+                char[] x = ((ArrayContainer)a).content, y = ((ArrayContainer)b).content;
+                for (int j = 0, n = a.cardinality(); j < n; ++j) {
+                    if (x[j] != y[j]) {
+                        return false;
+                    }
+                }
+            } else if (!Arrays.equals(a.toWords(), b.toWords())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the hash code value for this set, which depends only on
+     * the indices of the set bits, not on how they are stored.
+     *
+     * @return the hash code value for this set
+     */
+    @Override
+    public int hashCode() {
+        int[] h = { 1 };
+        for (int i = 0; i < size; ++i) {
+            container(i).forEach(keys[i] << 16, v -> h[0] = 31 * h[0] + v);
+        }
+        return h[0];
+    }
+
+    /**
+     * Returns a string representation of this set, in the same form as
+     * {@link BitSet#toString}: the indices of the set bits in increasing
+     * order, separated by ", " and surrounded by braces.
+     *
+     * @return a string representation of this set
+     */
+    @Override
+    public String toString() {
+        StringBuilder b = new StringBuilder("{");
+        for (int i = 0; i < size; ++i) {
+            container(i).forEach(keys[i] << 16, v -> {
+                if (b.length() > 1) {
+                    b.append(", ");
+                }
+                b.append(v);
+            });
+        }
+        return b.append('}').toString();
+    }
+
+    /**
+     * Save the state of the {@code CompressedBitSet} instance to a stream
+     * (i.e., serialize it).
+     *
+     * @serialData The length of the portable form written by
+     *             {@link #writeTo} (int), followed by its bytes.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws IOException {
+        s.defaultWriteObject();
+        ByteBuffer b = ByteBuffer.allocate(serializedSize());
+        writeTo(b);
+        s.writeInt(b.capacity());
+        s.write(b.array());
+    }
+
+    /**
+     * Reconstitute the {@code CompressedBitSet} instance from a stream
+     * (i.e., deserialize it).
+     */
+    private void readObject(java.io.ObjectInputStream s)
+        throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        int n = s.readInt();
+        if (n < 0) {
+            throw new java.io.InvalidObjectException("Illegal length: " + n);
+        }
+        byte[] bytes = new byte[n];
+        s.readFully(bytes);
+        try {
+            CompressedBitSet set = readFrom(ByteBuffer.wrap(bytes));
+            set.decodeAll();
+            keys = set.keys;
+            containers = set.containers;
+            size = set.size;
+        } catch (IllegalArgumentException | java.nio.BufferUnderflowException e) {
+            throw new java.io.InvalidObjectException(e.toString());
+        }
+    }
+}
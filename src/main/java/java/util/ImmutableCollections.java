@@ -0,0 +1,1109 @@
+package java.util;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * 不可变集合的实现：为 0~2 个元素的 List、Set、Map 使用字段专用的布局，更大的集合使用扁平的线性探测数组，供 List.of、Set.of、Map.of 等静态工厂方法使用。
+ *
+ * Container class for the immutable collection implementations returned
+ * by the static factory methods of {@link List}, {@link Set} and
+ * {@link Map}.  Lists and sets of at most two elements, and maps of at
+ * most two mappings, hold their contents in fields; larger lists hold
+ * a single array, and larger sets and maps a flat open-addressing
+ * table with linear probing, kept at most half full, so that each
+ * collection is a single object plus at most one array.  None of the
+ * implementations permits null elements, keys or values, which lets
+ * null mark an empty field or table slot.
+ *
+ * <p>All mutator methods throw {@code UnsupportedOperationException},
+ * whether or not they would change the collection.  All of the
+ * implementations are serializable through the private proxy class
+ * {@link CollSer}, so that their layout is not part of the serialized
+ * form.
+ *
+ * @since 1.8
+ */
+final class ImmutableCollections {
+
+    private ImmutableCollections() { }
+
+    static UnsupportedOperationException uoe() {
+        return new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns the index in a probe table of the given length, a power
+     * of two, at which to start the search for an object with the given
+     * hash code.
+     */
+    static int probeStart(int h, int length) {
+        return (h ^ (h >>> 16)) & (length - 1);
+    }
+
+    /**
+     * Returns the length of a probe table for the given number of
+     * elements: the least power of two at least twice as large.
+     */
+    static int tableLength(int size) {
+        return Integer.highestOneBit(Math.max(1, size) * 2 - 1) << 1;
+    }
+
+    // ---------- Collections ----------
+
+    abstract static class AbstractImmutableCollection<E> extends AbstractCollection<E> {
+        @Override public boolean add(E e) { throw uoe(); }
+        @Override public boolean addAll(Collection<? extends E> c) { throw uoe(); }
+        @Override public void    clear() { throw uoe(); }
+        @Override public boolean remove(Object o) { throw uoe(); }
+        @Override public boolean removeAll(Collection<?> c) { throw uoe(); }
+        @Override public boolean removeIf(Predicate<? super E> filter) { throw uoe(); }
+        @Override public boolean retainAll(Collection<?> c) { throw uoe(); }
+    }
+
+    // ---------- Lists ----------
+
+    static final ListN<?> EMPTY_LIST = new ListN<>(new Object[0]);
+
+    @SuppressWarnings("unchecked")
+    static <E> List<E> emptyList() {
+        return (List<E>) EMPTY_LIST;
+    }
+
+    /**
+     * Returns an immutable list of the given elements, using the array
+     * itself if it is not otherwise reachable.
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    static <E> List<E> listFromTrustedArray(E... input) {
+        for (E e : input) {
+            Objects.requireNonNull(e);
+        }
+        switch (input.length) {
+            case 0:
+                return emptyList();
+            case 1:
+                return new List12<>(input[0]);
+            case 2:
+                return new List12<>(input[0], input[1]);
+            default:
+                return new ListN<>(input);
+        }
+    }
+
+    abstract static class AbstractImmutableList<E> extends AbstractImmutableCollection<E>
+            implements List<E>, RandomAccess {
+
+        @Override public void    add(int index, E element) { throw uoe(); }
+        @Override public boolean addAll(int index, Collection<? extends E> c) { throw uoe(); }
+        @Override public E       remove(int index) { throw uoe(); }
+        @Override public void    replaceAll(UnaryOperator<E> operator) { throw uoe(); }
+        @Override public E       set(int index, E element) { throw uoe(); }
+        @Override public void    sort(Comparator<? super E> c) { throw uoe(); }
+
+        @Override
+        public boolean contains(Object o) {
+            return indexOf(o) >= 0;
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            Objects.requireNonNull(o);
+            for (int i = 0, n = size(); i < n; i++) {
+                if (o.equals(get(i))) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public int lastIndexOf(Object o) {
+            Objects.requireNonNull(o);
+            for (int i = size() - 1; i >= 0; i--) {
+                if (o.equals(get(i))) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new ListItr<>(this, 0);
+        }
+
+        @Override
+        public ListIterator<E> listIterator() {
+            return new ListItr<>(this, 0);
+        }
+
+        @Override
+        public ListIterator<E> listIterator(int index) {
+            if (index < 0 || index > size()) {
+                throw new IndexOutOfBoundsException("Index: " + index);
+            }
+            return new ListItr<>(this, index);
+        }
+
+        @Override
+        public List<E> subList(int fromIndex, int toIndex) {
+            int size = size();
+            if (fromIndex < 0) {
+                throw new IndexOutOfBoundsException("fromIndex = " + fromIndex);
+            }
+            if (toIndex > size) {
+                throw new IndexOutOfBoundsException("toIndex = " + toIndex);
+            }
+            if (fromIndex > toIndex) {
+                throw new IllegalArgumentException("fromIndex(" + fromIndex +
+                                                   ") > toIndex(" + toIndex + ")");
+            }
+            @SuppressWarnings("unchecked")
+            E[] a = (E[]) new Object[toIndex - fromIndex];
+            for (int i = fromIndex; i < toIndex; i++) {
+                a[i - fromIndex] = get(i);
+            }
+            return listFromTrustedArray(a);
+        }
+
+        @Override
+        public Spliterator<E> spliterator() {
+            return Spliterators.spliterator(this, Spliterator.ORDERED |
+                                            Spliterator.IMMUTABLE | Spliterator.NONNULL);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            }
+            if (!(o instanceof List)) {
+                return false;
+            }
+            int n = size();
+            if (o instanceof AbstractImmutableList) {
+                List<?> l = (List<?>) o;
+                if (l.size() != n) {
+                    return false;
+                }
+                for (int i = 0; i < n; i++) {
+                    if (!get(i).equals(l.get(i))) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            Iterator<?> it = ((List<?>) o).iterator();
+            for (int i = 0; i < n; i++) {
+                if (!it.hasNext() || !get(i).equals(it.next())) {
+                    return false;
+                }
+            }
+            return !it.hasNext();
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 1;
+            for (int i = 0, n = size(); i < n; i++) {
+                hash = 31 * hash + get(i).hashCode();
+            }
+            return hash;
+        }
+    }
+
+    static final class ListItr<E> implements ListIterator<E> {
+        private final List<E> list;
+        private int cursor;
+
+        ListItr(List<E> list, int cursor) {
+            this.list = list;
+            this.cursor = cursor;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor < list.size();
+        }
+
+        @Override
+        public E next() {
+            int i = cursor;
+            if (i >= list.size()) {
+                throw new NoSuchElementException();
+            }
+            cursor = i + 1;
+            return list.get(i);
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return cursor > 0;
+        }
+
+        @Override
+        public E previous() {
+            int i = cursor - 1;
+            if (i < 0) {
+                throw new NoSuchElementException();
+            }
+            cursor = i;
+            return list.get(i);
+        }
+
+        @Override
+        public int nextIndex() {
+            return cursor;
+        }
+
+        @Override
+        public int previousIndex() {
+            return cursor - 1;
+        }
+
+        @Override public void remove() { throw uoe(); }
+        @Override public void set(E e) { throw uoe(); }
+        @Override public void add(E e) { throw uoe(); }
+    }
+
+    /**
+     * A list of one or two elements; e1 is null for a list of one.
+     */
+    static final class List12<E> extends AbstractImmutableList<E> implements Serializable {
+        private static final long serialVersionUID = 2681766332215484795L;
+
+        private final E e0;
+        private final E e1;
+
+        List12(E e0) {
+            this.e0 = Objects.requireNonNull(e0);
+            this.e1 = null;
+        }
+
+        List12(E e0, E e1) {
+            this.e0 = Objects.requireNonNull(e0);
+            this.e1 = Objects.requireNonNull(e1);
+        }
+
+        @Override
+        public int size() {
+            return (e1 != null) ? 2 : 1;
+        }
+
+        @Override
+        public E get(int index) {
+            if (index == 0) {
+                return e0;
+            } else if (index == 1 && e1 != null) {
+                return e1;
+            }
+            throw new IndexOutOfBoundsException("Index: " + index + " Size: " + size());
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            Objects.requireNonNull(o);
+            return o.equals(e0) ? 0 : (o.equals(e1) ? 1 : -1);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 31 + e0.hashCode();
+            return (e1 != null) ? 31 * hash + e1.hashCode() : hash;
+        }
+
+        @Override
+        public Object[] toArray() {
+            return (e1 != null) ? new Object[] { e0, e1 } : new Object[] { e0 };
+        }
+
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            throw new InvalidObjectException("not serial proxy");
+        }
+
+        private Object writeReplace() {
+            return (e1 != null) ? new CollSer(CollSer.IMM_LIST, e0, e1)
+                                : new CollSer(CollSer.IMM_LIST, e0);
+        }
+    }
+
+    static final class ListN<E> extends AbstractImmutableList<E> implements Serializable {
+        private static final long serialVersionUID = 2126527822463376397L;
+
+        private final E[] elements;
+
+        ListN(E[] elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public int size() {
+            return elements.length;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return elements.length == 0;
+        }
+
+        @Override
+        public E get(int index) {
+            return elements[index];
+        }
+
+        @Override
+        public Object[] toArray() {
+            return Arrays.copyOf(elements, elements.length, Object[].class);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T[] toArray(T[] a) {
+            int size = elements.length;
+            if (a.length < size) {
+                return (T[]) Arrays.copyOf(elements, size, a.getClass());
+            }
+            System.arraycopy(elements, 0, a, 0, size);
+            if (a.length > size) {
+                a[size] = null;
+            }
+            return a;
+        }
+
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            throw new InvalidObjectException("not serial proxy");
+        }
+
+        private Object writeReplace() {
+            return new CollSer(CollSer.IMM_LIST, elements);
+        }
+    }
+
+    // ---------- Sets ----------
+
+    static final SetN<?> EMPTY_SET = new SetN<>(new Object[1], 0);
+
+    @SuppressWarnings("unchecked")
+    static <E> Set<E> emptySet() {
+        return (Set<E>) EMPTY_SET;
+    }
+
+    /**
+     * Returns an immutable set of the given elements.
+     *
+     * @param lenient whether duplicate elements are dropped rather than
+     *        rejected
+     * @throws IllegalArgumentException if not lenient and there are
+     *         duplicate elements
+     */
+    @SafeVarargs
+    static <E> Set<E> setOf(boolean lenient, E... input) {
+        for (E e : input) {
+            Objects.requireNonNull(e);
+        }
+        if (input.length == 0) {
+            return emptySet();
+        }
+        if (input.length <= 2) {
+            E e0 = input[0];
+            if (input.length == 1) {
+                return new Set12<>(e0);
+            }
+            E e1 = input[1];
+            if (!e0.equals(e1)) {
+                return new Set12<>(e0, e1);
+            }
+            if (lenient) {
+                return new Set12<>(e0);
+            }
+            throw new IllegalArgumentException("duplicate element: " + e1);
+        }
+        Object[] table = new Object[tableLength(input.length)];
+        int size = 0;
+        for (E e : input) {
+            int i = SetN.probe(table, e);
+            if (i >= 0) {
+                if (!lenient) {
+                    throw new IllegalArgumentException("duplicate element: " + e);
+                }
+            } else {
+                table[-(i + 1)] = e;
+                size++;
+            }
+        }
+        if (size <= 2) {   // only when lenient
+            @SuppressWarnings("unchecked")
+            E[] a = (E[]) new Object[size];
+            int k = 0;
+            for (E e : input) {
+                if (k == 0 || (k == 1 && !e.equals(a[0]))) {
+                    a[k++] = e;
+                }
+            }
+            return (size == 1) ? new Set12<>(a[0]) : new Set12<>(a[0], a[1]);
+        }
+        return new SetN<>(table, size);
+    }
+
+    abstract static class AbstractImmutableSet<E> extends AbstractImmutableCollection<E>
+            implements Set<E> {
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            }
+            if (!(o instanceof Set)) {
+                return false;
+            }
+            Collection<?> c = (Collection<?>) o;
+            if (c.size() != size()) {
+                return false;
+            }
+            for (Object e : c) {
+                if (e == null || !contains(e)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Spliterator<E> spliterator() {
+            return Spliterators.spliterator(this, Spliterator.DISTINCT |
+                                            Spliterator.IMMUTABLE | Spliterator.NONNULL);
+        }
+
+        @Override
+        public abstract int hashCode();
+    }
+
+    /**
+     * A set of one or two elements; e1 is null for a set of one.
+     */
+    static final class Set12<E> extends AbstractImmutableSet<E> implements Serializable {
+        private static final long serialVersionUID = 2076761483286801296L;
+
+        private final E e0;
+        private final E e1;
+
+        Set12(E e0) {
+            this.e0 = Objects.requireNonNull(e0);
+            this.e1 = null;
+        }
+
+        Set12(E e0, E e1) {
+            this.e0 = Objects.requireNonNull(e0);
+            this.e1 = Objects.requireNonNull(e1);
+        }
+
+        @Override
+        public int size() {
+            return (e1 != null) ? 2 : 1;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o.equals(e0) || o.equals(e1);
+        }
+
+        @Override
+        public int hashCode() {
+            return e0.hashCode() + ((e1 != null) ? e1.hashCode() : 0);
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new Iterator<E>() {
+                private int index;
+
+                @Override
+                public boolean hasNext() {
+                    return index < size();
+                }
+
+                @Override
+                public E next() {
+                    if (index == 0) {
+                        index = 1;
+                        return e0;
+                    } else if (index == 1 && e1 != null) {
+                        index = 2;
+                        return e1;
+                    }
+                    throw new NoSuchElementException();
+                }
+            };
+        }
+
+        @Override
+        public Object[] toArray() {
+            return (e1 != null) ? new Object[] { e0, e1 } : new Object[] { e0 };
+        }
+
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            throw new InvalidObjectException("not serial proxy");
+        }
+
+        private Object writeReplace() {
+            return (e1 != null) ? new CollSer(CollSer.IMM_SET, e0, e1)
+                                : new CollSer(CollSer.IMM_SET, e0);
+        }
+    }
+
+    /**
+     * A set held in an open-addressing table with linear probing.
+     */
+    static final class SetN<E> extends AbstractImmutableSet<E> implements Serializable {
+        private static final long serialVersionUID = 653262537711002652L;
+
+        private final E[] table;
+        private final int size;
+
+        @SuppressWarnings("unchecked")
+        SetN(Object[] table, int size) {
+            this.table = (E[]) table;
+            this.size = size;
+        }
+
+        /**
+         * Returns the index of the given element in the table, or
+         * (-(index of the empty slot where it would be) - 1) if absent.
+         */
+        static int probe(Object[] table, Object o) {
+            int i = probeStart(o.hashCode(), table.length);
+            for (;;) {
+                Object e = table[i];
+                if (e == null) {
+                    return -i - 1;
+                } else if (o.equals(e)) {
+                    return i;
+                } else if (++i == table.length) {
+                    i = 0;
+                }
+            }
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            Objects.requireNonNull(o);
+            return size > 0 && probe(table, o) >= 0;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = 0;
+            for (E e : table) {
+                if (e != null) {
+                    h += e.hashCode();
+                }
+            }
+            return h;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new Iterator<E>() {
+                private int remaining = size;
+                private int index;
+
+                @Override
+                public boolean hasNext() {
+                    return remaining > 0;
+                }
+
+                @Override
+                public E next() {
+                    if (remaining == 0) {
+                        throw new NoSuchElementException();
+                    }
+                    E e;
+                    while ((e = table[index++]) == null) { }
+                    remaining--;
+                    return e;
+                }
+            };
+        }
+
+        @Override
+        public Object[] toArray() {
+            Object[] a = new Object[size];
+            int k = 0;
+            for (E e : table) {
+                if (e != null) {
+                    a[k++] = e;
+                }
+            }
+            return a;
+        }
+
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            throw new InvalidObjectException("not serial proxy");
+        }
+
+        private Object writeReplace() {
+            return new CollSer(CollSer.IMM_SET, toArray());
+        }
+    }
+
+    // ---------- Maps ----------
+
+    static final MapN<?,?> EMPTY_MAP = new MapN<>(new Object[2], 0);
+
+    @SuppressWarnings("unchecked")
+    static <K,V> Map<K,V> emptyMap() {
+        return (Map<K,V>) EMPTY_MAP;
+    }
+
+    /**
+     * Returns an immutable map of the given alternating keys and
+     * values.
+     *
+     * @param lenient whether later mappings for duplicate keys are
+     *        dropped rather than rejected
+     * @throws IllegalArgumentException if not lenient and there are
+     *         duplicate keys
+     */
+    @SuppressWarnings("unchecked")
+    static <K,V> Map<K,V> mapOf(boolean lenient, Object... kvs) {
+        int n = kvs.length >> 1;
+        for (Object o : kvs) {
+            Objects.requireNonNull(o);
+        }
+        if (n == 0) {
+            return emptyMap();
+        }
+        if (n == 1) {
+            return new Map12<>((K) kvs[0], (V) kvs[1]);
+        }
+        if (n == 2) {
+            if (!kvs[0].equals(kvs[2])) {
+                return new Map12<>((K) kvs[0], (V) kvs[1], (K) kvs[2], (V) kvs[3]);
+            }
+            if (lenient) {
+                return new Map12<>((K) kvs[0], (V) kvs[1]);
+            }
+            throw new IllegalArgumentException("duplicate key: " + kvs[2]);
+        }
+        Object[] table = new Object[2 * tableLength(n)];
+        int size = 0;
+        for (int j = 0; j < kvs.length; j += 2) {
+            int i = MapN.probe(table, kvs[j]);
+            if (i >= 0) {
+                if (!lenient) {
+                    throw new IllegalArgumentException("duplicate key: " + kvs[j]);
+                }
+            } else {
+                i = -(i + 1);
+                table[i] = kvs[j];
+                table[i + 1] = kvs[j + 1];
+                size++;
+            }
+        }
+        return new MapN<>(table, size);
+    }
+
+    abstract static class AbstractImmutableMap<K,V> extends AbstractMap<K,V>
+            implements Serializable {
+        private static final long serialVersionUID = 2717728898629772654L;
+
+        @Override public void clear() { throw uoe(); }
+        @Override public V compute(K key, BiFunction<? super K,? super V,? extends V> rf) { throw uoe(); }
+        @Override public V computeIfAbsent(K key, Function<? super K,? extends V> mf) { throw uoe(); }
+        @Override public V computeIfPresent(K key, BiFunction<? super K,? super V,? extends V> rf) { throw uoe(); }
+        @Override public V merge(K key, V value, BiFunction<? super V,? super V,? extends V> rf) { throw uoe(); }
+        @Override public V put(K key, V value) { throw uoe(); }
+        @Override public void putAll(Map<? extends K,? extends V> m) { throw uoe(); }
+        @Override public V putIfAbsent(K key, V value) { throw uoe(); }
+        @Override public V remove(Object key) { throw uoe(); }
+        @Override public boolean remove(Object key, Object value) { throw uoe(); }
+        @Override public V replace(K key, V value) { throw uoe(); }
+        @Override public boolean replace(K key, V oldValue, V newValue) { throw uoe(); }
+        @Override public void replaceAll(BiFunction<? super K,? super V,? extends V> f) { throw uoe(); }
+
+        @Override
+        public V getOrDefault(Object key, V defaultValue) {
+            V v = get(key);
+            return (v != null) ? v : defaultValue;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        /**
+         * Returns an iterator over the mappings, in iteration order.
+         */
+        abstract Iterator<Map.Entry<K,V>> entryIterator();
+
+        /**
+         * Returns the keys and values, alternating, for serialization.
+         */
+        abstract Object[] toKeyValueArray();
+
+        @Override
+        public Set<Map.Entry<K,V>> entrySet() {
+            return new AbstractImmutableSet<Map.Entry<K,V>>() {
+                @Override
+                public int size() {
+                    return AbstractImmutableMap.this.size();
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    if (!(o instanceof Map.Entry)) {
+                        return false;
+                    }
+                    Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+                    Object k = e.getKey(), v = e.getValue();
+                    return k != null && v != null && v.equals(get(k));
+                }
+
+                @Override
+                public int hashCode() {
+                    return AbstractImmutableMap.this.hashCode();
+                }
+
+                @Override
+                public Iterator<Map.Entry<K,V>> iterator() {
+                    return entryIterator();
+                }
+            };
+        }
+
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            throw new InvalidObjectException("not serial proxy");
+        }
+
+        // package-private, so that it is inherited by the subclasses
+        Object writeReplace() {
+            return new CollSer(CollSer.IMM_MAP, toKeyValueArray());
+        }
+    }
+
+    /**
+     * A map of one or two mappings; k1 and v1 are null for a map of one.
+     */
+    static final class Map12<K,V> extends AbstractImmutableMap<K,V> {
+        private static final long serialVersionUID = 1164881169313696874L;
+
+        private final K k0;
+        private final V v0;
+        private final K k1;
+        private final V v1;
+
+        Map12(K k0, V v0) {
+            this.k0 = Objects.requireNonNull(k0);
+            this.v0 = Objects.requireNonNull(v0);
+            this.k1 = null;
+            this.v1 = null;
+        }
+
+        Map12(K k0, V v0, K k1, V v1) {
+            this.k0 = Objects.requireNonNull(k0);
+            this.v0 = Objects.requireNonNull(v0);
+            this.k1 = Objects.requireNonNull(k1);
+            this.v1 = Objects.requireNonNull(v1);
+        }
+
+        @Override
+        public int size() {
+            return (k1 != null) ? 2 : 1;
+        }
+
+        @Override
+        public V get(Object key) {
+            return key.equals(k0) ? v0 : (key.equals(k1) ? v1 : null);
+        }
+
+        @Override
+        public boolean containsValue(Object value) {
+            return value.equals(v0) || value.equals(v1);
+        }
+
+        @Override
+        public int hashCode() {
+            return (k0.hashCode() ^ v0.hashCode()) +
+                ((k1 != null) ? k1.hashCode() ^ v1.hashCode() : 0);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            }
+            if (!(o instanceof Map)) {
+                return false;
+            }
+            Map<?,?> m = (Map<?,?>) o;
+            return m.size() == size() && v0.equals(m.get(k0)) &&
+                (k1 == null || v1.equals(m.get(k1)));
+        }
+
+        @Override
+        Iterator<Map.Entry<K,V>> entryIterator() {
+            return new Iterator<Map.Entry<K,V>>() {
+                private int index;
+
+                @Override
+                public boolean hasNext() {
+                    return index < size();
+                }
+
+                @Override
+                public Map.Entry<K,V> next() {
+                    if (index == 0) {
+                        index = 1;
+                        return new SimpleImmutableEntry<>(k0, v0);
+                    } else if (index == 1 && k1 != null) {
+                        index = 2;
+                        return new SimpleImmutableEntry<>(k1, v1);
+                    }
+                    throw new NoSuchElementException();
+                }
+            };
+        }
+
+        @Override
+        Object[] toKeyValueArray() {
+            return (k1 != null) ? new Object[] { k0, v0, k1, v1 }
+                                : new Object[] { k0, v0 };
+        }
+    }
+
+    /**
+     * A map held in an open-addressing table with linear probing.  Each
+     * key is at an even index, with its value at the next index.
+     */
+    static final class MapN<K,V> extends AbstractImmutableMap<K,V> {
+        private static final long serialVersionUID = 2544145923822558922L;
+
+        private final Object[] table;
+        private final int size;
+
+        MapN(Object[] table, int size) {
+            this.table = table;
+            this.size = size;
+        }
+
+        /**
+         * Returns the index of the given key in the table, or
+         * (-(index of the empty slot where it would be) - 1) if absent.
+         */
+        static int probe(Object[] table, Object key) {
+            int i = probeStart(key.hashCode(), table.length >> 1) << 1;
+            for (;;) {
+                Object k = table[i];
+                if (k == null) {
+                    return -i - 1;
+                } else if (key.equals(k)) {
+                    return i;
+                } else if ((i += 2) == table.length) {
+                    i = 0;
+                }
+            }
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V get(Object key) {
+            if (size == 0) {
+                Objects.requireNonNull(key);
+                return null;
+            }
+            int i = probe(table, key);
+            return (i >= 0) ? (V) table[i + 1] : null;
+        }
+
+        @Override
+        public boolean containsValue(Object value) {
+            Objects.requireNonNull(value);
+            for (int i = 1; i < table.length; i += 2) {
+                if (value.equals(table[i])) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = 0;
+            for (int i = 0; i < table.length; i += 2) {
+                Object k = table[i];
+                if (k != null) {
+                    h += k.hashCode() ^ table[i + 1].hashCode();
+                }
+            }
+            return h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            }
+            if (!(o instanceof Map)) {
+                return false;
+            }
+            Map<?,?> m = (Map<?,?>) o;
+            if (m.size() != size) {
+                return false;
+            }
+            for (int i = 0; i < table.length; i += 2) {
+                Object k = table[i];
+                if (k != null && !table[i + 1].equals(m.get(k))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        Iterator<Map.Entry<K,V>> entryIterator() {
+            return new Iterator<Map.Entry<K,V>>() {
+                private int remaining = size;
+                private int index;
+
+                @Override
+                public boolean hasNext() {
+                    return remaining > 0;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public Map.Entry<K,V> next() {
+                    if (remaining == 0) {
+                        throw new NoSuchElementException();
+                    }
+                    while (table[index] == null) {
+                        index += 2;
+                    }
+                    K k = (K) table[index];
+                    V v = (V) table[index + 1];
+                    index += 2;
+                    remaining--;
+                    return new SimpleImmutableEntry<>(k, v);
+                }
+            };
+        }
+
+        @Override
+        Object[] toKeyValueArray() {
+            Object[] a = new Object[2 * size];
+            int k = 0;
+            for (int i = 0; i < table.length; i += 2) {
+                if (table[i] != null) {
+                    a[k++] = table[i];
+                    a[k++] = table[i + 1];
+                }
+            }
+            return a;
+        }
+    }
+}
+
+/**
+ * A unified serialization proxy class for the immutable collections.
+ *
+ * @serial
+ * @since 1.8
+ */
+final class CollSer implements Serializable {
+    private static final long serialVersionUID = 6309168927139932177L;
+
+    /**
+     * Indicates the type of collection that is serialized.  The low
+     * order 8 bits hold the tag, and the remaining bits are reserved.
+     *
+     * @serial
+     */
+    private final int tag;
+
+    /**
+     * The elements of the collection, or the alternating keys and
+     * values of the map.
+     *
+     * @serial
+     */
+    private Object[] array;
+
+    static final int IMM_LIST = 1;
+    static final int IMM_SET = 2;
+    static final int IMM_MAP = 3;
+
+    CollSer(int t, Object... a) {
+        tag = t;
+        array = a;
+    }
+
+    /**
+     * Reads the tag and elements, taking a private copy of the array.
+     */
+    private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+        ois.defaultReadObject();
+        if (array == null) {
+            throw new InvalidObjectException("missing elements");
+        }
+        array = array.clone();
+    }
+
+    /**
+     * Returns an immutable collection from this proxy.
+     *
+     * @return the collection
+     * @throws ObjectStreamException if the tag is not valid, or the
+     *         elements are not valid for a collection of that kind
+     */
+    private Object readResolve() throws ObjectStreamException {
+        try {
+            switch (tag & 0xff) {
+                case IMM_LIST:
+                    return ImmutableCollections.listFromTrustedArray(array);
+                case IMM_SET:
+                    return ImmutableCollections.setOf(false, array);
+                case IMM_MAP:
+                    if ((array.length & 1) != 0) {
+                        throw new InvalidObjectException("odd map array length");
+                    }
+                    return ImmutableCollections.mapOf(false, array);
+                default:
+                    throw new InvalidObjectException(String.format("invalid flags 0x%x", tag));
+            }
+        } catch (NullPointerException | IllegalArgumentException ex) {
+            InvalidObjectException ioe = new InvalidObjectException("invalid object");
+            ioe.initCause(ex);
+            throw ioe;
+        }
+    }
+}
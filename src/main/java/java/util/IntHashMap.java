@@ -0,0 +1,1113 @@
+package java.util;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.Serializable;
+import java.util.function.BiFunction;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 以 int 为键的哈希表，使用开放寻址（线性探测）与并行的原始类型数组存储，键不装箱，也不为每个映射分配节点。
+ *
+ * Hash table mapping primitive {@code int} keys to object values.  Keys are
+ * never boxed: they are held in a flat {@code int[]} that runs parallel to an
+ * {@code Object[]} of values, and collisions are resolved by linear probing,
+ * so no per-mapping node is allocated.  The key {@code 0} is used internally
+ * to mark a free slot and is therefore kept in a dedicated extra slot at the
+ * end of the arrays; it is nevertheless a perfectly valid key.
+ *
+ * <p>Removal uses backward-shift deletion rather than tombstones, so a table
+ * never degrades after a long series of puts and removes.  The table length
+ * is always a power of two, sized with {@link HashMap#tableSizeFor}, and keys
+ * are scrambled with a multiplicative mix followed by the same high-bit
+ * spreading that {@link HashMap#hash} applies, which keeps sequential and
+ * strided ids well distributed.
+ *
+ * <p>This class permits {@code null} values.  As with {@link HashMap}, a
+ * return value of {@code null} from {@link #get} does not necessarily mean
+ * that there is no mapping for the key; {@link #containsKey} may be used to
+ * distinguish the two cases.
+ *
+ * <p>Keys can be consumed without boxing through {@link #keyIterator()},
+ * {@link #keySpliterator()} and {@link #keyStream()}.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * The iterators and spliterators returned by this class are <i>fail-fast</i>
+ * in the same way as those of {@link HashMap}.
+ *
+ * @param <V> the type of mapped values
+ *
+ * @see HashMap
+ * @see IntHashSet
+ * @since 1.8
+ */
+public class IntHashMap<V> implements Cloneable, Serializable {
+
+    private static final long serialVersionUID = 2905346391734586372L;
+
+    /**
+     * The default initial capacity - MUST be a power of two.
+     */
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /**
+     * The maximum capacity, used if a higher value is implicitly specified
+     * by either of the constructors with arguments.
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * The load factor used when none specified in constructor.  Linear
+     * probing degrades quickly as the table fills, so this is lower than
+     * the chained {@link HashMap} default.
+     */
+    static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    /**
+     * The key used to mark an empty slot.
+     */
+    static final int FREE_KEY = 0;
+
+    /**
+     * The keys, initialized on first use.  When allocated, the length is
+     * always a power of two plus one; the last slot is reserved for
+     * {@link #FREE_KEY}.
+     */
+    transient int[] keys;
+
+    /**
+     * The values, parallel to {@link #keys}.
+     */
+    transient Object[] values;
+
+    /**
+     * Whether {@link #FREE_KEY} is currently mapped.  Its value lives in the
+     * last slot of {@link #values}.
+     */
+    transient boolean hasFreeKey;
+
+    /**
+     * The number of key-value mappings contained in this map.
+     */
+    transient int size;
+
+    /**
+     * The number of times this map has been structurally modified.
+     */
+    transient int modCount;
+
+    /**
+     * The next size value at which to resize (capacity * load factor).
+     * Before the table is allocated this holds the initial capacity.
+     */
+    int threshold;
+
+    /**
+     * The load factor for the hash table.
+     */
+    final float loadFactor;
+
+    /* ---------------- Static utilities -------------- */
+
+    /**
+     * Scrambles a key into a hash.  Integer ids tend to be sequential or to
+     * share low-order zero bits, so the key is first multiplied by the
+     * 32-bit golden ratio and then the upper half is folded down in the same
+     * way as {@link HashMap#hash}.
+     */
+    static int spread(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the table threshold for the given power-of-two capacity.
+     */
+    static int thresholdFor(int cap, float loadFactor) {
+        return (cap >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY - 1 :
+            Math.min(cap - 1, (int) Math.ceil(cap * loadFactor));
+    }
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Constructs an empty {@code IntHashMap} with the specified initial
+     * capacity and load factor.
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor, strictly between 0 and 1
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is not strictly between 0 and 1
+     */
+    public IntHashMap(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        }
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f)) {
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                               loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        this.threshold = HashMap.tableSizeFor(
+            (int) Math.min((long) Math.ceil(initialCapacity / loadFactor),
+                           MAXIMUM_CAPACITY));
+    }
+
+    /**
+     * Constructs an empty {@code IntHashMap} with the specified initial
+     * capacity and the default load factor (0.5).
+     *
+     * @param  initialCapacity the initial capacity.
+     * @throws IllegalArgumentException if the initial capacity is negative.
+     */
+    public IntHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty {@code IntHashMap} with the default initial
+     * capacity (16) and the default load factor (0.5).
+     */
+    public IntHashMap() {
+        this.loadFactor = DEFAULT_LOAD_FACTOR;
+        this.threshold = DEFAULT_INITIAL_CAPACITY;
+    }
+
+    /**
+     * Constructs a new {@code IntHashMap} with the same mappings as the
+     * specified map.
+     *
+     * @param   m the map whose mappings are to be placed in this map
+     * @throws  NullPointerException if the specified map is null
+     */
+    public IntHashMap(IntHashMap<? extends V> m) {
+        this(m.size, m.loadFactor);
+        putAll(m);
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this map contains no key-value mappings.
+     *
+     * @return {@code true} if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the slot index of the given key, or -1 if absent.
+     */
+    final int indexOf(int key) {
+        int[] ks; int k;
+        if ((ks = keys) == null) {
+            return -1;
+        }
+        int cap = ks.length - 1;
+        if (key == FREE_KEY) {
+            return hasFreeKey ? cap : -1;
+        }
+        int mask = cap - 1;
+        for (int i = spread(key) & mask; ; i = (i + 1) & mask) {
+            if ((k = ks[i]) == FREE_KEY) {
+                return -1;
+            }
+            if (k == key) {
+                return i;
+            }
+        }
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or {@code null} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped, or
+     *         {@code null} if this map contains no mapping for the key
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int i;
+        return ((i = indexOf(key)) < 0) ? null : (V) values[i];
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code defaultValue} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the default mapping of the key
+     * @return the value to which the specified key is mapped, or
+     *         {@code defaultValue} if this map contains no mapping for the key
+     */
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(int key, V defaultValue) {
+        int i;
+        return ((i = indexOf(key)) < 0) ? defaultValue : (V) values[i];
+    }
+
+    /**
+     * Returns {@code true} if this map contains a mapping for the
+     * specified key.
+     *
+     * @param   key   The key whose presence in this map is to be tested
+     * @return {@code true} if this map contains a mapping for the specified
+     *         key.
+     */
+    public boolean containsKey(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Returns {@code true} if this map maps one or more keys to the
+     * specified value.
+     *
+     * @param value value whose presence in this map is to be tested
+     * @return {@code true} if this map maps one or more keys to the
+     *         specified value
+     */
+    public boolean containsValue(Object value) {
+        int[] ks; Object[] vs;
+        if ((ks = keys) != null && size > 0) {
+            vs = values;
+            int cap = ks.length - 1;
+            if (hasFreeKey && Objects.equals(value, vs[cap])) {
+                return true;
+            }
+            for (int i = 0; i < cap; ++i) {
+                if (ks[i] != FREE_KEY && Objects.equals(value, vs[i])) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key, the old
+     * value is replaced.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}.
+     */
+    public V put(int key, V value) {
+        return putVal(key, value, false);
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value and returns {@code null}, else
+     * returns the current value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with the specified key, or
+     *         {@code null} if there was no mapping for the key.
+     */
+    public V putIfAbsent(int key, V value) {
+        return putVal(key, value, true);
+    }
+
+    /**
+     * Implements put and related methods.
+     *
+     * @param onlyIfAbsent if true, don't change existing value
+     * @return previous value, or null if none
+     */
+    @SuppressWarnings("unchecked")
+    final V putVal(int key, V value, boolean onlyIfAbsent) {
+        int i = insertionIndex(key);
+        if (i < 0) {
+            i = -i - 1;
+            Object old = values[i];
+            if (!onlyIfAbsent || old == null) {
+                values[i] = value;
+            }
+            return (V) old;
+        }
+        values[i] = value;
+        afterInsert();
+        return null;
+    }
+
+    /**
+     * Finds the slot for the given key, claiming a free slot if the key is
+     * absent.  Returns the slot index if the key was newly inserted (its
+     * value slot is left for the caller to fill and {@link #afterInsert}
+     * must then be called), or {@code -(index + 1)} if the key was already
+     * present.
+     */
+    final int insertionIndex(int key) {
+        int[] ks; int k;
+        if ((ks = keys) == null) {
+            ks = resize();
+        }
+        int cap = ks.length - 1;
+        if (key == FREE_KEY) {
+            if (hasFreeKey) {
+                return -cap - 1;
+            }
+            hasFreeKey = true;
+            return cap;
+        }
+        int mask = cap - 1, i = spread(key) & mask;
+        while ((k = ks[i]) != FREE_KEY) {
+            if (k == key) {
+                return -i - 1;
+            }
+            i = (i + 1) & mask;
+        }
+        if (size >= threshold && cap >= MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("Capacity exhausted.");
+        }
+        ks[i] = key;
+        return i;
+    }
+
+    /**
+     * Bookkeeping after a new key has been inserted.
+     */
+    final void afterInsert() {
+        ++modCount;
+        if (++size > threshold) {
+            resize();
+        }
+    }
+
+    /**
+     * Copies all of the mappings from the specified map to this map.
+     *
+     * @param m mappings to be stored in this map
+     * @throws NullPointerException if the specified map is null
+     */
+    @SuppressWarnings("unchecked")
+    public void putAll(IntHashMap<? extends V> m) {
+        int[] ks; Object[] vs;
+        if ((ks = m.keys) == null || m.size == 0) {
+            return;
+        }
+        vs = m.values;
+        int cap = ks.length - 1;
+        if (m.hasFreeKey) {
+            put(FREE_KEY, (V) vs[cap]);
+        }
+        for (int i = 0; i < cap; ++i) {
+            int k;
+            if ((k = ks[i]) != FREE_KEY) {
+                put(k, (V) vs[i]);
+            }
+        }
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param  key key whose mapping is to be removed from the map
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int i;
+        if ((i = indexOf(key)) < 0) {
+            return null;
+        }
+        Object old = values[i];
+        removeAt(i);
+        return (V) old;
+    }
+
+    /**
+     * Removes the mapping held in slot {@code i}.
+     */
+    final void removeAt(int i) {
+        ++modCount;
+        --size;
+        if (i == keys.length - 1) {
+            hasFreeKey = false;
+            values[i] = null;
+        } else {
+            shiftKeys(i);
+        }
+    }
+
+    /**
+     * Backward-shift deletion: empties slot {@code pos} and moves later
+     * members of the probe run into the hole so that every remaining key
+     * is still reachable from its home slot without tombstones.
+     */
+    final void shiftKeys(int pos) {
+        int[] ks = keys; Object[] vs = values;
+        int mask = ks.length - 2, last, slot, k;
+        for (;;) {
+            pos = ((last = pos) + 1) & mask;
+            for (;;) {
+                if ((k = ks[pos]) == FREE_KEY) {
+                    ks[last] = FREE_KEY;
+                    vs[last] = null;
+                    return;
+                }
+                slot = spread(k) & mask;
+                if (last <= pos ? (last >= slot || slot > pos)
+                                : (last >= slot && slot > pos)) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            ks[last] = k;
+            vs[last] = vs[pos];
+        }
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     * The map will be empty after this call returns.
+     */
+    public void clear() {
+        int[] ks;
+        modCount++;
+        if ((ks = keys) != null && size > 0) {
+            size = 0;
+            hasFreeKey = false;
+            Arrays.fill(ks, FREE_KEY);
+            Arrays.fill(values, null);
+        }
+    }
+
+    /**
+     * If the specified key is not already associated with a value, attempts
+     * to compute its value using the given mapping function and enters it
+     * into this map unless {@code null}.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param mappingFunction the function to compute a value
+     * @return the current (existing or computed) value associated with
+     *         the specified key, or null if the computed value is null
+     * @throws NullPointerException if the mapping function is null
+     * @throws ConcurrentModificationException if it is detected that the
+     *         mapping function modified this map
+     */
+    @SuppressWarnings("unchecked")
+    public V computeIfAbsent(int key,
+                             IntFunction<? extends V> mappingFunction) {
+        if (mappingFunction == null) {
+            throw new NullPointerException();
+        }
+        int i; V v;
+        if ((i = indexOf(key)) >= 0 && (v = (V) values[i]) != null) {
+            return v;
+        }
+        int mc = modCount;
+        v = mappingFunction.apply(key);
+        if (mc != modCount) {
+            throw new ConcurrentModificationException();
+        }
+        if (v != null) {
+            put(key, v);
+        }
+        return v;
+    }
+
+    /**
+     * If the specified key is not already associated with a value or is
+     * associated with null, associates it with the given non-null value.
+     * Otherwise, replaces the associated value with the results of the given
+     * remapping function, or removes if the result is {@code null}.
+     *
+     * @param key key with which the resulting value is to be associated
+     * @param value the non-null value to be merged with the existing value
+     * @param remappingFunction the function to recompute a value if present
+     * @return the new value associated with the specified key, or null if no
+     *         value is associated with the key
+     * @throws NullPointerException if the value or remapping function is null
+     * @throws ConcurrentModificationException if it is detected that the
+     *         remapping function modified this map
+     */
+    @SuppressWarnings("unchecked")
+    public V merge(int key, V value,
+                   BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (value == null || remappingFunction == null) {
+            throw new NullPointerException();
+        }
+        int i = insertionIndex(key);
+        if (i >= 0) {
+            values[i] = value;
+            afterInsert();
+            return value;
+        }
+        i = -i - 1;
+        V old = (V) values[i], v;
+        if (old == null) {
+            v = value;
+        } else {
+            int mc = modCount;
+            v = remappingFunction.apply(old, value);
+            if (mc != modCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+        if (v == null) {
+            removeAt(i);
+        } else {
+            values[i] = v;
+        }
+        return v;
+    }
+
+    /**
+     * Performs the given action for each mapping in this map until all
+     * mappings have been processed or the action throws an exception.  The
+     * action receives the value followed by its key.
+     *
+     * @param action The action to be performed for each mapping
+     * @throws NullPointerException if the specified action is null
+     * @throws ConcurrentModificationException if a mapping is found to be
+     *         added or removed during iteration
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(ObjIntConsumer<? super V> action) {
+        int[] ks; Object[] vs;
+        if (action == null) {
+            throw new NullPointerException();
+        }
+        if ((ks = keys) != null && size > 0) {
+            vs = values;
+            int mc = modCount, cap = ks.length - 1;
+            if (hasFreeKey) {
+                action.accept((V) vs[cap], FREE_KEY);
+            }
+            for (int i = 0; i < cap && modCount == mc; ++i) {
+                int k;
+                if ((k = ks[i]) != FREE_KEY) {
+                    action.accept((V) vs[i], k);
+                }
+            }
+            if (modCount != mc) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /**
+     * Performs the given action for each key in this map.
+     *
+     * @param action The action to be performed for each key
+     * @throws NullPointerException if the specified action is null
+     * @throws ConcurrentModificationException if a mapping is found to be
+     *         added or removed during iteration
+     */
+    public void forEachKey(IntConsumer action) {
+        keySpliterator().forEachRemaining(action);
+    }
+
+    /**
+     * Returns a new array containing all of the keys in this map, in no
+     * particular order.
+     *
+     * @return an array of the keys in this map
+     */
+    public int[] keys() {
+        int[] a = new int[size], ks;
+        if ((ks = keys) != null && size > 0) {
+            int j = 0, cap = ks.length - 1;
+            if (hasFreeKey) {
+                a[j++] = FREE_KEY;
+            }
+            for (int i = 0; i < cap; ++i) {
+                int k;
+                if ((k = ks[i]) != FREE_KEY) {
+                    a[j++] = k;
+                }
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Returns an iterator over the keys of this map.  The iterator supports
+     * removal.
+     *
+     * @return an iterator over the keys of this map
+     */
+    public PrimitiveIterator.OfInt keyIterator() {
+        return new KeyIterator();
+    }
+
+    /**
+     * Returns a late-binding and fail-fast {@link Spliterator.OfInt} over
+     * the keys of this map.  It reports {@link Spliterator#DISTINCT}, and
+     * {@link Spliterator#SIZED} while it still covers the whole map.
+     *
+     * @return a {@code Spliterator.OfInt} over the keys of this map
+     */
+    public Spliterator.OfInt keySpliterator() {
+        return new KeySpliterator<>(this, 0, -1, 0, 0);
+    }
+
+    /**
+     * Returns a sequential {@code IntStream} over the keys of this map.
+     *
+     * @return a sequential {@code IntStream} over the keys of this map
+     */
+    public IntStream keyStream() {
+        return StreamSupport.intStream(keySpliterator(), false);
+    }
+
+    /* ------------------------------------------------------------ */
+    // Resizing
+
+    /**
+     * Initializes or doubles table size.
+     *
+     * @return the key table
+     */
+    final int[] resize() {
+        int[] oldKeys = keys;
+        Object[] oldVals = values;
+        int oldCap = (oldKeys == null) ? 0 : oldKeys.length - 1;
+        int newCap;
+        if (oldCap > 0) {
+            if (oldCap >= MAXIMUM_CAPACITY) {
+                return oldKeys;
+            }
+            newCap = oldCap << 1;
+        } else {
+            newCap = Math.max(2, threshold);
+        }
+        int[] newKeys = new int[newCap + 1];
+        Object[] newVals = new Object[newCap + 1];
+        threshold = thresholdFor(newCap, loadFactor);
+        keys = newKeys;
+        values = newVals;
+        if (oldKeys != null) {
+            int mask = newCap - 1;
+            newVals[newCap] = oldVals[oldCap];
+            for (int j = 0; j < oldCap; ++j) {
+                int k;
+                if ((k = oldKeys[j]) != FREE_KEY) {
+                    int i = spread(k) & mask;
+                    while (newKeys[i] != FREE_KEY) {
+                        i = (i + 1) & mask;
+                    }
+                    newKeys[i] = k;
+                    newVals[i] = oldVals[j];
+                }
+            }
+        }
+        return newKeys;
+    }
+
+    /* ------------------------------------------------------------ */
+    // Object methods
+
+    /**
+     * Compares the specified object with this map for equality.  Returns
+     * {@code true} if the given object is also an {@code IntHashMap} and the
+     * two maps represent the same mappings.
+     *
+     * @param o object to be compared for equality with this map
+     * @return {@code true} if the specified object is equal to this map
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof IntHashMap)) {
+            return false;
+        }
+        IntHashMap<?> m = (IntHashMap<?>) o;
+        if (m.size != size) {
+            return false;
+        }
+        int[] ks;
+        if ((ks = keys) != null && size > 0) {
+            Object[] vs = values;
+            int cap = ks.length - 1;
+            for (int i = 0; i <= cap; ++i) {
+                int k = ks[i], j;
+                if (i == cap ? hasFreeKey : k != FREE_KEY) {
+                    if ((j = m.indexOf(k)) < 0 ||
+                        !Objects.equals(vs[i], m.values[j])) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the hash code value for this map, defined as the sum of
+     * {@code key ^ Objects.hashCode(value)} over all mappings, which is the
+     * value {@link HashMap#hashCode} would report for the boxed equivalent.
+     *
+     * @return the hash code value for this map
+     */
+    @Override
+    public int hashCode() {
+        int h = 0;
+        int[] ks;
+        if ((ks = keys) != null && size > 0) {
+            Object[] vs = values;
+            int cap = ks.length - 1;
+            if (hasFreeKey) {
+                h += Objects.hashCode(vs[cap]);
+            }
+            for (int i = 0; i < cap; ++i) {
+                int k;
+                if ((k = ks[i]) != FREE_KEY) {
+                    h += k ^ Objects.hashCode(vs[i]);
+                }
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Returns a string representation of this map, in the same form as
+     * {@link AbstractMap#toString}.
+     *
+     * @return a string representation of this map
+     */
+    @Override
+    public String toString() {
+        if (size == 0) {
+            return "{}";
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append('{');
+        forEach((v, k) -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(k).append('=').append(v == this ? "(this Map)" : v);
+        });
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Returns a shallow copy of this {@code IntHashMap} instance: the keys
+     * and values themselves are not cloned.
+     *
+     * @return a shallow copy of this map
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public IntHashMap<V> clone() {
+        IntHashMap<V> result;
+        try {
+            result = (IntHashMap<V>) super.clone();
+        } catch (CloneNotSupportedException e) {
+            // this shouldn't happen, since we are Cloneable
+            throw new InternalError(e);
+        }
+        if (keys != null) {
+            result.keys = keys.clone();
+            result.values = values.clone();
+        }
+        result.modCount = 0;
+        return result;
+    }
+
+    /**
+     * Save the state of the {@code IntHashMap} instance to a stream (i.e.,
+     * serialize it).
+     *
+     * @serialData The <i>size</i> of the map (the number of key-value
+     *             mappings) is emitted (int), followed by the key (int)
+     *             and value (Object) for each key-value mapping.  The
+     *             key-value mappings are emitted in no particular order.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws IOException {
+        s.defaultWriteObject();
+        s.writeInt(size);
+        int[] ks;
+        if ((ks = keys) != null && size > 0) {
+            Object[] vs = values;
+            int cap = ks.length - 1;
+            if (hasFreeKey) {
+                s.writeInt(FREE_KEY);
+                s.writeObject(vs[cap]);
+            }
+            for (int i = 0; i < cap; ++i) {
+                int k;
+                if ((k = ks[i]) != FREE_KEY) {
+                    s.writeInt(k);
+                    s.writeObject(vs[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reconstitute the {@code IntHashMap} instance from a stream (i.e.,
+     * deserialize it).
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(java.io.ObjectInputStream s)
+        throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f)) {
+            throw new InvalidObjectException("Illegal load factor: " +
+                                             loadFactor);
+        }
+        int mappings = s.readInt();
+        if (mappings < 0) {
+            throw new InvalidObjectException("Illegal mappings count: " +
+                                             mappings);
+        }
+        keys = null;
+        values = null;
+        hasFreeKey = false;
+        size = 0;
+        threshold = HashMap.tableSizeFor(
+            (int) Math.min((long) Math.ceil(mappings / loadFactor),
+                           MAXIMUM_CAPACITY));
+        for (int i = 0; i < mappings; i++) {
+            int key = s.readInt();
+            put(key, (V) s.readObject());
+        }
+    }
+
+    /* ------------------------------------------------------------ */
+    // iterators
+
+    /**
+     * Iterates from the last slot towards the first so that backward-shift
+     * deletion through {@link #remove} can only move not-yet-visited keys
+     * into visited slots when a probe run wraps around the end of the table;
+     * such keys are remembered and returned at the end.
+     */
+    abstract class HashIterator {
+        int pos;                  // next slot to examine, counting down
+        int last = -1;            // slot of last returned entry, or -1
+        int remaining;            // entries left to return
+        boolean mustReturnFreeKey;
+        int[] wrapped;            // keys moved behind the cursor by removal
+        int wrappedCount;
+        int expectedModCount;     // for fast-fail
+
+        HashIterator() {
+            expectedModCount = modCount;
+            remaining = size;
+            mustReturnFreeKey = hasFreeKey;
+            pos = (keys == null) ? 0 : keys.length - 1;
+        }
+
+        public final boolean hasNext() {
+            return remaining != 0;
+        }
+
+        /**
+         * Returns the slot of the next entry.
+         */
+        final int nextIndex() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (remaining == 0) {
+                throw new NoSuchElementException();
+            }
+            remaining--;
+            int[] ks = keys;
+            if (mustReturnFreeKey) {
+                mustReturnFreeKey = false;
+                return last = ks.length - 1;
+            }
+            for (;;) {
+                if (--pos < 0) {
+                    // Return keys moved across the wrap point by removal
+                    last = Integer.MIN_VALUE;
+                    int k = wrapped[-pos - 1];
+                    int mask = ks.length - 2, i = spread(k) & mask;
+                    while (ks[i] != k) {
+                        i = (i + 1) & mask;
+                    }
+                    return i;
+                }
+                if (ks[pos] != FREE_KEY) {
+                    return last = pos;
+                }
+            }
+        }
+
+        public final void remove() {
+            if (last == -1) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (last == Integer.MIN_VALUE) {
+                IntHashMap.this.remove(wrapped[-pos - 1]);
+            } else if (last == keys.length - 1) {
+                removeAt(last);
+            } else {
+                ++modCount;
+                --size;
+                shiftKeys(last);
+            }
+            last = -1;
+            expectedModCount = modCount;
+        }
+
+        /**
+         * Variant of {@link IntHashMap#shiftKeys} that records keys moving
+         * from an unvisited slot into a visited one.
+         */
+        private void shiftKeys(int p) {
+            int[] ks = keys; Object[] vs = values;
+            int mask = ks.length - 2, prev, slot, k;
+            for (;;) {
+                p = ((prev = p) + 1) & mask;
+                for (;;) {
+                    if ((k = ks[p]) == FREE_KEY) {
+                        ks[prev] = FREE_KEY;
+                        vs[prev] = null;
+                        return;
+                    }
+                    slot = spread(k) & mask;
+                    if (prev <= p ? (prev >= slot || slot > p)
+                                  : (prev >= slot && slot > p)) {
+                        break;
+                    }
+                    p = (p + 1) & mask;
+                }
+                if (p < prev) {
+                    if (wrapped == null) {
+                        wrapped = new int[2];
+                    } else if (wrappedCount == wrapped.length) {
+                        wrapped = Arrays.copyOf(wrapped, wrappedCount << 1);
+                    }
+                    wrapped[wrappedCount++] = k;
+                }
+                ks[prev] = k;
+                vs[prev] = vs[p];
+            }
+        }
+    }
+
+    final class KeyIterator extends HashIterator
+        implements PrimitiveIterator.OfInt {
+        @Override
+        public int nextInt() {
+            return keys[nextIndex()];
+        }
+    }
+
+    /* ------------------------------------------------------------ */
+    // spliterators
+
+    static final class KeySpliterator<V> implements Spliterator.OfInt {
+        final IntHashMap<V> map;
+        int index;                  // current slot, modified on advance/split
+        int fence;                  // one past last slot, including free-key slot
+        int est;                    // size estimate
+        int expectedModCount;       // for comodification checks
+
+        KeySpliterator(IntHashMap<V> m, int origin, int fence, int est,
+                       int expectedModCount) {
+            this.map = m;
+            this.index = origin;
+            this.fence = fence;
+            this.est = est;
+            this.expectedModCount = expectedModCount;
+        }
+
+        final int getFence() { // initialize fence and size on first use
+            int hi;
+            if ((hi = fence) < 0) {
+                IntHashMap<V> m = map;
+                est = m.size;
+                expectedModCount = m.modCount;
+                hi = fence = (m.keys == null) ? 0 : m.keys.length;
+            }
+            return hi;
+        }
+
+        @Override
+        public KeySpliterator<V> trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            return (lo >= mid) ? null :
+                new KeySpliterator<>(map, lo, index = mid, est >>>= 1,
+                                     expectedModCount);
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            IntHashMap<V> m = map;
+            int hi = getFence(), mc = expectedModCount, i = index;
+            int[] ks = m.keys;
+            if (ks != null && ks.length >= hi && i >= 0 && i < (index = hi)) {
+                int cap = ks.length - 1;
+                for (; i < hi; ++i) {
+                    int k = ks[i];
+                    if (i == cap ? m.hasFreeKey : k != FREE_KEY) {
+                        action.accept(k);
+                    }
+                }
+                if (m.modCount != mc) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            IntHashMap<V> m = map;
+            int hi = getFence();
+            int[] ks = m.keys;
+            if (ks != null && ks.length >= hi && index >= 0) {
+                int cap = ks.length - 1;
+                while (index < hi) {
+                    int i = index++, k = ks[i];
+                    if (i == cap ? m.hasFreeKey : k != FREE_KEY) {
+                        action.accept(k);
+                        if (m.modCount != expectedModCount) {
+                            throw new ConcurrentModificationException();
+                        }
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public long estimateSize() {
+            getFence(); // force init
+            return (long) est;
+        }
+
+        @Override
+        public int characteristics() {
+            return (fence < 0 || est == map.size ? Spliterator.SIZED : 0) |
+                Spliterator.DISTINCT;
+        }
+    }
+}
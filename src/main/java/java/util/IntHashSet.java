@@ -0,0 +1,742 @@
+package java.util;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.Serializable;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 以 int 为元素的哈希集合，使用开放寻址（线性探测）存储在原始类型数组中，元素不装箱。
+ *
+ * This class implements the <tt>Set</tt> interface for primitive {@code int}
+ * elements, backed by an open-addressing hash table that stores the elements
+ * in a flat {@code int[]}.  It uses the same layout as {@link IntHashMap}
+ * without the value array: linear probing, backward-shift deletion, and a
+ * dedicated slot for the element {@code 0}, which doubles as the free-slot
+ * marker.
+ *
+ * <p>Elements can be added, tested and removed through the {@code int}
+ * overloads without boxing, and traversed without boxing through
+ * {@link #iterator()}, which returns a {@link PrimitiveIterator.OfInt},
+ * {@link #spliterator()}, which returns a {@link Spliterator.OfInt}, and
+ * {@link #intStream()}.  The inherited {@code Set<Integer>} methods remain
+ * available for interoperation with boxed collections.  This set does not
+ * permit {@code null} elements.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * The iterators and spliterators returned by this class are <i>fail-fast</i>
+ * in the same way as those of {@link HashSet}.
+ *
+ * @see IntHashMap
+ * @see HashSet
+ * @since 1.8
+ */
+public class IntHashSet
+    extends AbstractSet<Integer>
+    implements Set<Integer>, Cloneable, Serializable
+{
+    private static final long serialVersionUID = -1548265706183940826L;
+
+    /**
+     * The elements, initialized on first use.  When allocated, the length
+     * is always a power of two plus one; the last slot is reserved for
+     * {@link IntHashMap#FREE_KEY}.
+     */
+    transient int[] keys;
+
+    /**
+     * Whether {@link IntHashMap#FREE_KEY} is currently a member.
+     */
+    transient boolean hasFreeKey;
+
+    /**
+     * The number of elements contained in this set.
+     */
+    transient int size;
+
+    /**
+     * The number of times this set has been structurally modified.
+     */
+    transient int modCount;
+
+    /**
+     * The next size value at which to resize (capacity * load factor).
+     * Before the table is allocated this holds the initial capacity.
+     */
+    int threshold;
+
+    /**
+     * The load factor for the hash table.
+     */
+    final float loadFactor;
+
+    /**
+     * Constructs a new, empty set with the specified initial capacity and
+     * load factor.
+     *
+     * @param      initialCapacity   the initial capacity of the hash table
+     * @param      loadFactor        the load factor, strictly between 0 and 1
+     * @throws     IllegalArgumentException if the initial capacity is less
+     *             than zero, or if the load factor is not strictly between
+     *             0 and 1
+     */
+    public IntHashSet(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        }
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f)) {
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                               loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        this.threshold = HashMap.tableSizeFor(
+            (int) Math.min((long) Math.ceil(initialCapacity / loadFactor),
+                           IntHashMap.MAXIMUM_CAPACITY));
+    }
+
+    /**
+     * Constructs a new, empty set with the specified initial capacity and
+     * the default load factor (0.5).
+     *
+     * @param      initialCapacity   the initial capacity of the hash table
+     * @throws     IllegalArgumentException if the initial capacity is less
+     *             than zero
+     */
+    public IntHashSet(int initialCapacity) {
+        this(initialCapacity, IntHashMap.DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs a new, empty set with the default initial capacity (16)
+     * and the default load factor (0.5).
+     */
+    public IntHashSet() {
+        this.loadFactor = IntHashMap.DEFAULT_LOAD_FACTOR;
+        this.threshold = IntHashMap.DEFAULT_INITIAL_CAPACITY;
+    }
+
+    /**
+     * Returns the number of elements in this set.
+     *
+     * @return the number of elements in this set
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this set contains no elements.
+     *
+     * @return <tt>true</tt> if this set contains no elements
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this set contains the specified element.
+     *
+     * @param e element whose presence in this set is to be tested
+     * @return <tt>true</tt> if this set contains the specified element
+     */
+    public boolean contains(int e) {
+        int[] ks; int k;
+        if ((ks = keys) == null) {
+            return false;
+        }
+        if (e == IntHashMap.FREE_KEY) {
+            return hasFreeKey;
+        }
+        int mask = ks.length - 2;
+        for (int i = IntHashMap.spread(e) & mask; ; i = (i + 1) & mask) {
+            if ((k = ks[i]) == IntHashMap.FREE_KEY) {
+                return false;
+            }
+            if (k == e) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return (o instanceof Integer) && contains(((Integer) o).intValue());
+    }
+
+    /**
+     * Adds the specified element to this set if it is not already present.
+     *
+     * @param e element to be added to this set
+     * @return <tt>true</tt> if this set did not already contain the specified
+     *         element
+     */
+    public boolean add(int e) {
+        int[] ks; int k;
+        if ((ks = keys) == null) {
+            ks = resize();
+        }
+        int cap = ks.length - 1;
+        if (e == IntHashMap.FREE_KEY) {
+            if (hasFreeKey) {
+                return false;
+            }
+            hasFreeKey = true;
+        } else {
+            int mask = cap - 1, i = IntHashMap.spread(e) & mask;
+            while ((k = ks[i]) != IntHashMap.FREE_KEY) {
+                if (k == e) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            if (size >= threshold && cap >= IntHashMap.MAXIMUM_CAPACITY) {
+                throw new IllegalStateException("Capacity exhausted.");
+            }
+            ks[i] = e;
+        }
+        ++modCount;
+        if (++size > threshold) {
+            resize();
+        }
+        return true;
+    }
+
+    /**
+     * Adds the specified element to this set if it is not already present.
+     *
+     * @param e element to be added to this set
+     * @return <tt>true</tt> if this set did not already contain the specified
+     *         element
+     * @throws NullPointerException if the specified element is null
+     */
+    @Override
+    public boolean add(Integer e) {
+        return add(e.intValue());
+    }
+
+    /**
+     * Adds all of the specified elements to this set.
+     *
+     * @param elements elements to be added to this set
+     * @return <tt>true</tt> if this set changed as a result of the call
+     * @throws NullPointerException if the specified array is null
+     */
+    public boolean addAll(int... elements) {
+        boolean modified = false;
+        for (int e : elements) {
+            if (add(e)) {
+                modified = true;
+            }
+        }
+        return modified;
+    }
+
+    /**
+     * Removes the specified element from this set if it is present.
+     *
+     * @param e element to be removed from this set, if present
+     * @return <tt>true</tt> if the set contained the specified element
+     */
+    public boolean remove(int e) {
+        int[] ks; int k;
+        if ((ks = keys) == null) {
+            return false;
+        }
+        if (e == IntHashMap.FREE_KEY) {
+            if (!hasFreeKey) {
+                return false;
+            }
+            hasFreeKey = false;
+        } else {
+            int mask = ks.length - 2, i = IntHashMap.spread(e) & mask;
+            while ((k = ks[i]) != e) {
+                if (k == IntHashMap.FREE_KEY) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            shiftKeys(i);
+        }
+        ++modCount;
+        --size;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return (o instanceof Integer) && remove(((Integer) o).intValue());
+    }
+
+    /**
+     * Backward-shift deletion, as in {@link IntHashMap#shiftKeys}.
+     */
+    final void shiftKeys(int pos) {
+        int[] ks = keys;
+        int mask = ks.length - 2, last, slot, k;
+        for (;;) {
+            pos = ((last = pos) + 1) & mask;
+            for (;;) {
+                if ((k = ks[pos]) == IntHashMap.FREE_KEY) {
+                    ks[last] = IntHashMap.FREE_KEY;
+                    return;
+                }
+                slot = IntHashMap.spread(k) & mask;
+                if (last <= pos ? (last >= slot || slot > pos)
+                                : (last >= slot && slot > pos)) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            ks[last] = k;
+        }
+    }
+
+    /**
+     * Removes all of the elements from this set.
+     * The set will be empty after this call returns.
+     */
+    @Override
+    public void clear() {
+        int[] ks;
+        modCount++;
+        if ((ks = keys) != null && size > 0) {
+            size = 0;
+            hasFreeKey = false;
+            Arrays.fill(ks, IntHashMap.FREE_KEY);
+        }
+    }
+
+    /**
+     * Performs the given action for each element of this set.
+     *
+     * @param action The action to be performed for each element
+     * @throws NullPointerException if the specified action is null
+     */
+    public void forEachInt(IntConsumer action) {
+        spliterator().forEachRemaining(action);
+    }
+
+    @Override
+    public void forEach(Consumer<? super Integer> action) {
+        spliterator().forEachRemaining(action);
+    }
+
+    /**
+     * Returns a new array containing all of the elements in this set, in no
+     * particular order.
+     *
+     * @return an array containing all the elements in this set
+     */
+    public int[] toIntArray() {
+        int[] a = new int[size], ks;
+        if ((ks = keys) != null && size > 0) {
+            int j = 0, cap = ks.length - 1;
+            if (hasFreeKey) {
+                a[j++] = IntHashMap.FREE_KEY;
+            }
+            for (int i = 0; i < cap; ++i) {
+                int k;
+                if ((k = ks[i]) != IntHashMap.FREE_KEY) {
+                    a[j++] = k;
+                }
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Returns an iterator over the elements in this set.  The elements are
+     * returned in no particular order.
+     *
+     * @return a {@code PrimitiveIterator.OfInt} over the elements in this set
+     */
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new SetIterator();
+    }
+
+    /**
+     * Creates a <em><a href="Spliterator.html#binding">late-binding</a></em>
+     * and <em>fail-fast</em> {@link Spliterator.OfInt} over the elements in
+     * this set.  It reports {@link Spliterator#DISTINCT} and
+     * {@link Spliterator#NONNULL}, and {@link Spliterator#SIZED} while it
+     * still covers the whole set.
+     *
+     * @return a {@code Spliterator.OfInt} over the elements in this set
+     */
+    @Override
+    public Spliterator.OfInt spliterator() {
+        return new SetSpliterator(this, 0, -1, 0, 0);
+    }
+
+    /**
+     * Returns a sequential {@code IntStream} with this set as its source.
+     *
+     * @return a sequential {@code IntStream} over the elements in this set
+     */
+    public IntStream intStream() {
+        return StreamSupport.intStream(spliterator(), false);
+    }
+
+    /**
+     * Initializes or doubles table size.
+     *
+     * @return the table
+     */
+    final int[] resize() {
+        int[] oldKeys = keys;
+        int oldCap = (oldKeys == null) ? 0 : oldKeys.length - 1;
+        int newCap;
+        if (oldCap > 0) {
+            if (oldCap >= IntHashMap.MAXIMUM_CAPACITY) {
+                return oldKeys;
+            }
+            newCap = oldCap << 1;
+        } else {
+            newCap = Math.max(2, threshold);
+        }
+        int[] newKeys = new int[newCap + 1];
+        threshold = IntHashMap.thresholdFor(newCap, loadFactor);
+        keys = newKeys;
+        if (oldKeys != null) {
+            int mask = newCap - 1;
+            for (int j = 0; j < oldCap; ++j) {
+                int k;
+                if ((k = oldKeys[j]) != IntHashMap.FREE_KEY) {
+                    int i = IntHashMap.spread(k) & mask;
+                    while (newKeys[i] != IntHashMap.FREE_KEY) {
+                        i = (i + 1) & mask;
+                    }
+                    newKeys[i] = k;
+                }
+            }
+        }
+        return newKeys;
+    }
+
+    /**
+     * Returns the hash code value for this set, which is the sum of its
+     * elements as required by {@link Set#hashCode}.
+     *
+     * @return the hash code value for this set
+     */
+    @Override
+    public int hashCode() {
+        int h = 0;
+        int[] ks;
+        if ((ks = keys) != null) {
+            for (int i = 0, cap = ks.length - 1; i < cap; ++i) {
+                h += ks[i];
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Compares the specified object with this set for equality.  Two
+     * {@code IntHashSet}s are compared without boxing; any other {@code Set}
+     * is compared as described in {@link AbstractSet#equals}.
+     *
+     * @param o object to be compared for equality with this set
+     * @return <tt>true</tt> if the specified object is equal to this set
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof IntHashSet)) {
+            return super.equals(o);
+        }
+        IntHashSet s = (IntHashSet) o;
+        if (s == this) {
+            return true;
+        }
+        if (s.size != size || s.hasFreeKey != hasFreeKey) {
+            return false;
+        }
+        int[] ks;
+        if ((ks = keys) != null) {
+            for (int i = 0, cap = ks.length - 1; i < cap; ++i) {
+                int k;
+                if ((k = ks[i]) != IntHashMap.FREE_KEY && !s.contains(k)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a shallow copy of this <tt>IntHashSet</tt> instance.
+     *
+     * @return a copy of this set
+     */
+    @Override
+    public IntHashSet clone() {
+        try {
+            IntHashSet newSet = (IntHashSet) super.clone();
+            if (keys != null) {
+                newSet.keys = keys.clone();
+            }
+            newSet.modCount = 0;
+            return newSet;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+    }
+
+    /**
+     * Save the state of this <tt>IntHashSet</tt> instance to a stream (that
+     * is, serialize it).
+     *
+     * @serialData The size of the set (the number of elements it contains)
+     *             (int), followed by all of its elements (each an int) in
+     *             no particular order.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws IOException {
+        s.defaultWriteObject();
+        s.writeInt(size);
+        for (int e : toIntArray()) {
+            s.writeInt(e);
+        }
+    }
+
+    /**
+     * Reconstitute the <tt>IntHashSet</tt> instance from a stream (that is,
+     * deserialize it).
+     */
+    private void readObject(java.io.ObjectInputStream s)
+        throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f)) {
+            throw new InvalidObjectException("Illegal load factor: " +
+                                             loadFactor);
+        }
+        int n = s.readInt();
+        if (n < 0) {
+            throw new InvalidObjectException("Illegal size: " + n);
+        }
+        keys = null;
+        hasFreeKey = false;
+        size = 0;
+        threshold = HashMap.tableSizeFor(
+            (int) Math.min((long) Math.ceil(n / loadFactor),
+                           IntHashMap.MAXIMUM_CAPACITY));
+        for (int i = 0; i < n; i++) {
+            add(s.readInt());
+        }
+    }
+
+    /* ------------------------------------------------------------ */
+    // iterators
+
+    /**
+     * Iterates from the last slot towards the first; see
+     * {@link IntHashMap.HashIterator} for why.
+     */
+    final class SetIterator implements PrimitiveIterator.OfInt {
+        int pos;                  // next slot to examine, counting down
+        int last = -1;            // slot of last returned element, or -1
+        int remaining;            // elements left to return
+        boolean mustReturnFreeKey;
+        int[] wrapped;            // elements moved behind the cursor by removal
+        int wrappedCount;
+        int lastWrapped;          // element to remove when last is wrapped
+        int expectedModCount;     // for fast-fail
+
+        SetIterator() {
+            expectedModCount = modCount;
+            remaining = size;
+            mustReturnFreeKey = hasFreeKey;
+            pos = (keys == null) ? 0 : keys.length - 1;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining != 0;
+        }
+
+        @Override
+        public int nextInt() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (remaining == 0) {
+                throw new NoSuchElementException();
+            }
+            remaining--;
+            int[] ks = keys;
+            if (mustReturnFreeKey) {
+                mustReturnFreeKey = false;
+                last = ks.length - 1;
+                return IntHashMap.FREE_KEY;
+            }
+            for (;;) {
+                if (--pos < 0) {
+                    // Return elements moved across the wrap point by removal
+                    last = Integer.MIN_VALUE;
+                    return lastWrapped = wrapped[-pos - 1];
+                }
+                if (ks[pos] != IntHashMap.FREE_KEY) {
+                    return ks[last = pos];
+                }
+            }
+        }
+
+        @Override
+        public void remove() {
+            if (last == -1) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (last == Integer.MIN_VALUE) {
+                IntHashSet.this.remove(lastWrapped);
+            } else if (last == keys.length - 1) {
+                IntHashSet.this.remove(IntHashMap.FREE_KEY);
+            } else {
+                ++modCount;
+                --size;
+                shiftKeys(last);
+            }
+            last = -1;
+            expectedModCount = modCount;
+        }
+
+        /**
+         * Variant of {@link IntHashSet#shiftKeys} that records elements
+         * moving from an unvisited slot into a visited one.
+         */
+        private void shiftKeys(int p) {
+            int[] ks = keys;
+            int mask = ks.length - 2, prev, slot, k;
+            for (;;) {
+                p = ((prev = p) + 1) & mask;
+                for (;;) {
+                    if ((k = ks[p]) == IntHashMap.FREE_KEY) {
+                        ks[prev] = IntHashMap.FREE_KEY;
+                        return;
+                    }
+                    slot = IntHashMap.spread(k) & mask;
+                    if (prev <= p ? (prev >= slot || slot > p)
+                                  : (prev >= slot && slot > p)) {
+                        break;
+                    }
+                    p = (p + 1) & mask;
+                }
+                if (p < prev) {
+                    if (wrapped == null) {
+                        wrapped = new int[2];
+                    } else if (wrappedCount == wrapped.length) {
+                        wrapped = Arrays.copyOf(wrapped, wrappedCount << 1);
+                    }
+                    wrapped[wrappedCount++] = k;
+                }
+                ks[prev] = k;
+            }
+        }
+    }
+
+    /* ------------------------------------------------------------ */
+    // spliterators
+
+    static final class SetSpliterator implements Spliterator.OfInt {
+        final IntHashSet set;
+        int index;                  // current slot, modified on advance/split
+        int fence;                  // one past last slot, including free-key slot
+        int est;                    // size estimate
+        int expectedModCount;       // for comodification checks
+
+        SetSpliterator(IntHashSet s, int origin, int fence, int est,
+                       int expectedModCount) {
+            this.set = s;
+            this.index = origin;
+            this.fence = fence;
+            this.est = est;
+            this.expectedModCount = expectedModCount;
+        }
+
+        final int getFence() { // initialize fence and size on first use
+            int hi;
+            if ((hi = fence) < 0) {
+                IntHashSet s = set;
+                est = s.size;
+                expectedModCount = s.modCount;
+                hi = fence = (s.keys == null) ? 0 : s.keys.length;
+            }
+            return hi;
+        }
+
+        @Override
+        public SetSpliterator trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            return (lo >= mid) ? null :
+                new SetSpliterator(set, lo, index = mid, est >>>= 1,
+                                   expectedModCount);
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            IntHashSet s = set;
+            int hi = getFence(), mc = expectedModCount, i = index;
+            int[] ks = s.keys;
+            if (ks != null && ks.length >= hi && i >= 0 && i < (index = hi)) {
+                int cap = ks.length - 1;
+                for (; i < hi; ++i) {
+                    int k = ks[i];
+                    if (i == cap ? s.hasFreeKey : k != IntHashMap.FREE_KEY) {
+                        action.accept(k);
+                    }
+                }
+                if (s.modCount != mc) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            IntHashSet s = set;
+            int hi = getFence();
+            int[] ks = s.keys;
+            if (ks != null && ks.length >= hi && index >= 0) {
+                int cap = ks.length - 1;
+                while (index < hi) {
+                    int i = index++, k = ks[i];
+                    if (i == cap ? s.hasFreeKey : k != IntHashMap.FREE_KEY) {
+                        action.accept(k);
+                        if (s.modCount != expectedModCount) {
+                            throw new ConcurrentModificationException();
+                        }
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public long estimateSize() {
+            getFence(); // force init
+            return (long) est;
+        }
+
+        @Override
+        public int characteristics() {
+            return (fence < 0 || est == set.size ? Spliterator.SIZED : 0) |
+                Spliterator.DISTINCT | Spliterator.NONNULL;
+        }
+    }
+}
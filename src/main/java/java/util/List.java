@@ -87,6 +87,26 @@ import java.util.function.UnaryOperator;
  * Such exceptions are marked as "optional" in the specification for this
  * interface.
  *
+ * <h2><a name="immutable">Immutable List Static Factory Methods</a></h2>
+ * <p>The {@link List#of(Object...) List.of} and {@link List#copyOf
+ * List.copyOf} static factory methods provide a convenient way to create
+ * immutable lists.  The {@code List} instances created by these methods
+ * have the following characteristics:
+ *
+ * <ul>
+ * <li>They are <em>immutable</em>.  Elements cannot be added, removed or
+ * replaced, and calling any mutator method always causes
+ * {@code UnsupportedOperationException} to be thrown.
+ * <li>They disallow null elements.  Attempts to create them with null
+ * elements, or to query them for null, result in
+ * {@code NullPointerException}.
+ * <li>They are serializable if all elements are serializable.
+ * <li>They are compact: lists of up to two elements hold them in fields,
+ * and larger lists hold a single array of exactly the required length.
+ * <li>They are value-based: callers should make no assumptions about the
+ * identity of the returned instances.
+ * </ul>
+ *
  * <p>This interface is a member of the
  * <a href="{@docRoot}/../technotes/guides/collections/index.html">
  * Java Collections Framework</a>.
@@ -746,4 +766,100 @@ public interface List<E> extends Collection<E> {
     default Spliterator<E> spliterator() {
         return Spliterators.spliterator(this, Spliterator.ORDERED);
     }
+
+    /**
+     * Returns an immutable list containing zero elements.
+     * See <a href="#immutable">Immutable List Static Factory Methods</a>
+     * for details.
+     *
+     * @param <E> the {@code List}'s element type
+     * @return an empty {@code List}
+     *
+     * @since 1.8
+     */
+    static <E> List<E> of() {
+        return ImmutableCollections.emptyList();
+    }
+
+    /**
+     * Returns an immutable list containing one element.
+     * See <a href="#immutable">Immutable List Static Factory Methods</a>
+     * for details.
+     *
+     * @param <E> the {@code List}'s element type
+     * @param e1 the single element
+     * @return a {@code List} containing the specified element
+     * @throws NullPointerException if the element is {@code null}
+     *
+     * @since 1.8
+     */
+    static <E> List<E> of(E e1) {
+        return new ImmutableCollections.List12<>(e1);
+    }
+
+    /**
+     * Returns an immutable list containing two elements.
+     * See <a href="#immutable">Immutable List Static Factory Methods</a>
+     * for details.
+     *
+     * @param <E> the {@code List}'s element type
+     * @param e1 the first element
+     * @param e2 the second element
+     * @return a {@code List} containing the specified elements
+     * @throws NullPointerException if an element is {@code null}
+     *
+     * @since 1.8
+     */
+    static <E> List<E> of(E e1, E e2) {
+        return new ImmutableCollections.List12<>(e1, e2);
+    }
+
+    /**
+     * Returns an immutable list containing an arbitrary number of elements.
+     * See <a href="#immutable">Immutable List Static Factory Methods</a>
+     * for details.  The array is copied, so later changes to it do not
+     * affect the returned list.
+     *
+     * @param <E> the {@code List}'s element type
+     * @param elements the elements to be contained in the list
+     * @return a {@code List} containing the specified elements
+     * @throws NullPointerException if an element is {@code null} or if
+     *         the array is {@code null}
+     *
+     * @since 1.8
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    static <E> List<E> of(E... elements) {
+        return ImmutableCollections.listFromTrustedArray(elements.clone());
+    }
+
+    /**
+     * Returns an immutable list containing the elements of the given
+     * collection, in its iteration order.  If the given collection is
+     * itself an immutable list created by one of these factory methods,
+     * it is returned without copying.
+     * See <a href="#immutable">Immutable List Static Factory Methods</a>
+     * for details.
+     *
+     * @param <E> the {@code List}'s element type
+     * @param coll a {@code Collection} from which elements are drawn
+     * @return a {@code List} containing the elements of the given
+     *         {@code Collection}
+     * @throws NullPointerException if coll is null, or if it contains
+     *         any nulls
+     *
+     * @since 1.8
+     */
+    @SuppressWarnings("unchecked")
+    static <E> List<E> copyOf(Collection<? extends E> coll) {
+        if (coll instanceof ImmutableCollections.AbstractImmutableList) {
+            return (List<E>) coll;
+        }
+        Object[] a = coll.toArray();
+        if (a.getClass() != Object[].class) {
+            a = Arrays.copyOf(a, a.length, Object[].class);
+        }
+        return (List<E>) ImmutableCollections.listFromTrustedArray(a);
+    }
 }
@@ -127,6 +127,32 @@ import java.io.Serializable;
  * Implementations may optionally handle the self-referential scenario, however
  * most current implementations do not do so.
  *
+ * <h2><a name="immutable">Immutable Map Static Factory Methods</a></h2>
+ * <p>The {@link Map#of() Map.of}, {@link Map#ofEntries Map.ofEntries}
+ * and {@link Map#copyOf Map.copyOf} static factory methods provide a
+ * convenient way to create immutable maps.  The {@code Map} instances
+ * created by these methods have the following characteristics:
+ *
+ * <ul>
+ * <li>They are <em>immutable</em>.  Keys and values cannot be added,
+ * removed or updated, and calling any mutator method always causes
+ * {@code UnsupportedOperationException} to be thrown.
+ * <li>They disallow null keys and values.  Attempts to create them with
+ * null keys or values, or to query them for null keys or values, result
+ * in {@code NullPointerException}.
+ * <li>They reject duplicate keys at creation time.  Duplicate keys
+ * passed to {@code Map.of} or {@code Map.ofEntries} result in
+ * {@code IllegalArgumentException}.
+ * <li>The iteration order of the mappings is unspecified.
+ * <li>They are serializable if all keys and values are serializable.
+ * <li>They are compact: maps of up to two mappings hold them in fields,
+ * and larger maps hold a single open-addressing table of alternating
+ * keys and values, at most half full, with no per-mapping entry
+ * objects.
+ * <li>They are value-based: callers should make no assumptions about the
+ * identity of the returned instances.
+ * </ul>
+ *
  * <p>This interface is a member of the
  * <a href="{@docRoot}/../technotes/guides/collections/index.html">
  * Java Collections Framework</a>.
@@ -1201,4 +1227,141 @@ public interface Map<K,V> {
         }
         return newValue;
     }
+
+    /**
+     * Returns an immutable map containing zero mappings.
+     * See <a href="#immutable">Immutable Map Static Factory Methods</a>
+     * for details.
+     *
+     * @param <K> the {@code Map}'s key type
+     * @param <V> the {@code Map}'s value type
+     * @return an empty {@code Map}
+     *
+     * @since 1.8
+     */
+    static <K, V> Map<K, V> of() {
+        return ImmutableCollections.emptyMap();
+    }
+
+    /**
+     * Returns an immutable map containing a single mapping.
+     * See <a href="#immutable">Immutable Map Static Factory Methods</a>
+     * for details.
+     *
+     * @param <K> the {@code Map}'s key type
+     * @param <V> the {@code Map}'s value type
+     * @param k1 the mapping's key
+     * @param v1 the mapping's value
+     * @return a {@code Map} containing the specified mapping
+     * @throws NullPointerException if the key or the value is {@code null}
+     *
+     * @since 1.8
+     */
+    static <K, V> Map<K, V> of(K k1, V v1) {
+        return new ImmutableCollections.Map12<>(k1, v1);
+    }
+
+    /**
+     * Returns an immutable map containing two mappings.
+     * See <a href="#immutable">Immutable Map Static Factory Methods</a>
+     * for details.
+     *
+     * @param <K> the {@code Map}'s key type
+     * @param <V> the {@code Map}'s value type
+     * @param k1 the first mapping's key
+     * @param v1 the first mapping's value
+     * @param k2 the second mapping's key
+     * @param v2 the second mapping's value
+     * @return a {@code Map} containing the specified mappings
+     * @throws IllegalArgumentException if the keys are duplicates
+     * @throws NullPointerException if any key or value is {@code null}
+     *
+     * @since 1.8
+     */
+    static <K, V> Map<K, V> of(K k1, V v1, K k2, V v2) {
+        return ImmutableCollections.mapOf(false, k1, v1, k2, v2);
+    }
+
+    /**
+     * Returns an immutable map containing keys and values extracted from
+     * the given entries.  The entries themselves are not stored in the
+     * map.  See <a href="#immutable">Immutable Map Static Factory
+     * Methods</a> for details.
+     *
+     * @param <K> the {@code Map}'s key type
+     * @param <V> the {@code Map}'s value type
+     * @param entries {@code Map.Entry}s containing the keys and values
+     *        from which the map is populated
+     * @return a {@code Map} containing the specified mappings
+     * @throws IllegalArgumentException if there are any duplicate keys
+     * @throws NullPointerException if any entry, key, or value is
+     *         {@code null}, or if the {@code entries} array is {@code null}
+     *
+     * @see Map#entry Map.entry()
+     * @since 1.8
+     */
+    @SafeVarargs
+    static <K, V> Map<K, V> ofEntries(Entry<? extends K, ? extends V>... entries) {
+        Object[] kvs = new Object[entries.length << 1];
+        int i = 0;
+        for (Entry<? extends K, ? extends V> e : entries) {
+            kvs[i++] = e.getKey();
+            kvs[i++] = e.getValue();
+        }
+        return ImmutableCollections.mapOf(false, kvs);
+    }
+
+    /**
+     * Returns an immutable {@link Entry} containing the given key and
+     * value, suitable for passing to {@link Map#ofEntries Map.ofEntries}.
+     * The returned entry does not support {@link Entry#setValue
+     * setValue}.
+     *
+     * @param <K> the key's type
+     * @param <V> the value's type
+     * @param k the key
+     * @param v the value
+     * @return an {@code Entry} containing the specified key and value
+     * @throws NullPointerException if the key or value is {@code null}
+     *
+     * @see Map#ofEntries Map.ofEntries()
+     * @since 1.8
+     */
+    static <K, V> Entry<K, V> entry(K k, V v) {
+        return new AbstractMap.SimpleImmutableEntry<>(Objects.requireNonNull(k),
+                                                      Objects.requireNonNull(v));
+    }
+
+    /**
+     * Returns an immutable map containing the mappings of the given map.
+     * If the given map is itself an immutable map created by one of these
+     * factory methods, it is returned without copying.
+     * See <a href="#immutable">Immutable Map Static Factory Methods</a>
+     * for details.
+     *
+     * @param <K> the {@code Map}'s key type
+     * @param <V> the {@code Map}'s value type
+     * @param map a {@code Map} from which entries are drawn
+     * @return a {@code Map} containing the mappings of the given {@code Map}
+     * @throws NullPointerException if map is null, or if it contains any
+     *         null keys or values
+     *
+     * @since 1.8
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> Map<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        if (map instanceof ImmutableCollections.AbstractImmutableMap) {
+            return (Map<K, V>) map;
+        }
+        Object[] kvs = new Object[map.size() << 1];
+        int i = 0;
+        for (Entry<? extends K, ? extends V> e : map.entrySet()) {
+            if (i == kvs.length) {
+                kvs = Arrays.copyOf(kvs, i + 2 + (i >> 1));
+            }
+            kvs[i++] = e.getKey();
+            kvs[i++] = e.getValue();
+        }
+        return ImmutableCollections.mapOf(true, (i == kvs.length) ? kvs : Arrays.copyOf(kvs, i));
+    }
 }
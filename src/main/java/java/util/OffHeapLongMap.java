@@ -0,0 +1,767 @@
+package java.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import sun.misc.Cleaner;
+import sun.nio.ch.DirectBuffer;
+
+/**
+ * 键和值均为 long 的堆外哈希表，数据存放在直接缓冲区（或内存映射文件）分段中，不受 GC 扫描，可通过 close() 显式释放。
+ *
+ * A hash table mapping primitive {@code long} keys to primitive {@code long}
+ * values whose table lives outside the Java heap.  The table is split into
+ * segments of at most 1 GB, each a direct {@link ByteBuffer}, so a map may
+ * hold far more than the 2 GB a single buffer can address while adding
+ * nothing for the garbage collector to trace or copy.  Each slot is sixteen
+ * bytes (key, then value); collisions are resolved by linear probing and
+ * removals by backward-shift deletion, as in {@link LongHashMap}.
+ *
+ * <p>Memory for in-memory maps is obtained through
+ * {@link ByteBuffer#allocateDirect}, which reserves it with
+ * {@code java.nio.Bits.reserveMemory}.  It therefore counts against
+ * {@code -XX:MaxDirectMemorySize} and is reported by the {@code direct}
+ * {@link java.lang.management.BufferPoolMXBean}.  {@link #close} releases
+ * every segment immediately rather than waiting for the buffers to become
+ * unreachable.  Growing an in-memory map rehashes it into a table twice the
+ * size, so the old and new tables are briefly both allocated.
+ *
+ * <p>A map may instead be backed by a file through {@link #open(Path, long)},
+ * in which case each segment is a {@link MappedByteBuffer} obtained from
+ * {@link FileChannel#map}, and the map survives a {@code close} and a later
+ * {@code open} of the same file.  File-backed maps have the fixed capacity
+ * given when the file was created; inserting beyond it throws
+ * {@code IllegalStateException}.  Data is stored little-endian so that
+ * files are portable between platforms.
+ *
+ * <p>Any operation on a closed map throws {@code IllegalStateException}.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * The iterators returned by this class are <i>fail-fast</i>.
+ *
+ * @see LongHashMap
+ * @since 1.8
+ */
+public class OffHeapLongMap implements Closeable {
+
+    /**
+     * An operation that accepts a key and its value.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        /**
+         * Performs this operation on the given mapping.
+         *
+         * @param key the key
+         * @param value the value
+         */
+        void accept(long key, long value);
+    }
+
+    /**
+     * The shift from a slot index to its byte offset.
+     */
+    static final int SLOT_SHIFT = 4;
+
+    /**
+     * log2 of the maximum number of slots per segment (1 GB segments).
+     */
+    static final int MAX_SEGMENT_SHIFT = 30 - SLOT_SHIFT;
+
+    /**
+     * The largest supported number of slots.
+     */
+    static final long MAXIMUM_CAPACITY = 1L << 40;
+
+    /**
+     * The smallest table allocated.
+     */
+    static final int MINIMUM_CAPACITY = 16;
+
+    /**
+     * The load factor used when none specified in constructor.
+     */
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    /**
+     * The key used to mark an empty slot.
+     */
+    static final long FREE_KEY = 0L;
+
+    /*
+     * File layout: a HEADER_SIZE byte header followed by the slots.
+     */
+    static final int HEADER_SIZE = 64;
+    static final long MAGIC = 0x4C4F4E474D415031L; // "LONGMAP1"
+    static final int VERSION = 1;
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 8;
+    static final int LOAD_FACTOR_OFFSET = 12;
+    static final int CAPACITY_OFFSET = 16;
+    static final int SIZE_OFFSET = 24;
+    static final int FREE_KEY_PRESENT_OFFSET = 32;
+    static final int FREE_KEY_VALUE_OFFSET = 40;
+
+    /** The table segments; null once closed. */
+    private ByteBuffer[] segments;
+
+    /** Number of slots, a power of two. */
+    private long capacity;
+
+    /** log2 of the number of slots in a segment. */
+    private int segmentShift;
+
+    /** Number of slots in a segment, less one. */
+    private long segmentMask;
+
+    /** The number of mappings. */
+    private long size;
+
+    /** The size above which the table must grow. */
+    private long threshold;
+
+    /** The load factor for the hash table. */
+    private final float loadFactor;
+
+    /** Whether {@link #FREE_KEY} is mapped, and to what. */
+    private boolean hasFreeKey;
+    private long freeKeyValue;
+
+    /** The backing file, or null for an in-memory map. */
+    private final FileChannel channel;
+
+    /** The mapped file header, or null for an in-memory map. */
+    private final MappedByteBuffer header;
+
+    /** Structural modification count, for fail-fast iterators. */
+    transient int modCount;
+
+    /**
+     * Constructs an empty in-memory map sized to hold the given number of
+     * mappings without growing, using the default load factor (0.75).
+     *
+     * @param expectedSize the expected number of mappings
+     * @throws IllegalArgumentException if {@code expectedSize} is negative
+     * @throws OutOfMemoryError if the direct memory cannot be reserved
+     */
+    public OffHeapLongMap(long expectedSize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty in-memory map sized to hold the given number of
+     * mappings without growing.
+     *
+     * @param expectedSize the expected number of mappings
+     * @param loadFactor the load factor, strictly between 0 and 1
+     * @throws IllegalArgumentException if {@code expectedSize} is negative
+     *         or the load factor is not strictly between 0 and 1
+     * @throws OutOfMemoryError if the direct memory cannot be reserved
+     */
+    public OffHeapLongMap(long expectedSize, float loadFactor) {
+        if (expectedSize < 0L) {
+            throw new IllegalArgumentException("Illegal expected size: " +
+                                               expectedSize);
+        }
+        checkLoadFactor(loadFactor);
+        this.loadFactor = loadFactor;
+        this.channel = null;
+        this.header = null;
+        allocate(capacityFor(expectedSize, loadFactor));
+    }
+
+    /**
+     * Constructor for file-backed maps.
+     */
+    private OffHeapLongMap(FileChannel channel, MappedByteBuffer header,
+                           float loadFactor) {
+        this.channel = channel;
+        this.header = header;
+        this.loadFactor = loadFactor;
+    }
+
+    /**
+     * Opens the map stored in the given file, creating the file if it does
+     * not exist.  A new file is sized to hold {@code expectedSize} mappings
+     * at the default load factor; for an existing file {@code expectedSize}
+     * is ignored and the stored capacity and mappings are used.
+     *
+     * @param file the file backing the map
+     * @param expectedSize the number of mappings a new file must hold
+     * @return the map
+     * @throws IllegalArgumentException if {@code expectedSize} is negative
+     * @throws IOException if the file cannot be opened or mapped, or does
+     *         not hold a map written by this class
+     */
+    public static OffHeapLongMap open(Path file, long expectedSize)
+        throws IOException {
+        if (expectedSize < 0L) {
+            throw new IllegalArgumentException("Illegal expected size: " +
+                                               expectedSize);
+        }
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.READ,
+                                          StandardOpenOption.WRITE,
+                                          StandardOpenOption.CREATE);
+        boolean ok = false;
+        try {
+            boolean created = ch.size() == 0L;
+            MappedByteBuffer h = ch.map(FileChannel.MapMode.READ_WRITE, 0L,
+                                        HEADER_SIZE);
+            h.order(ByteOrder.LITTLE_ENDIAN);
+            OffHeapLongMap m;
+            if (created) {
+                long cap = capacityFor(expectedSize, DEFAULT_LOAD_FACTOR);
+                h.putLong(MAGIC_OFFSET, MAGIC);
+                h.putInt(VERSION_OFFSET, VERSION);
+                h.putFloat(LOAD_FACTOR_OFFSET, DEFAULT_LOAD_FACTOR);
+                h.putLong(CAPACITY_OFFSET, cap);
+                m = new OffHeapLongMap(ch, h, DEFAULT_LOAD_FACTOR);
+                m.map(cap);
+            } else {
+                if (h.getLong(MAGIC_OFFSET) != MAGIC ||
+                    h.getInt(VERSION_OFFSET) != VERSION) {
+                    throw new IOException("Not an OffHeapLongMap file: " + file);
+                }
+                float lf = h.getFloat(LOAD_FACTOR_OFFSET);
+                long cap = h.getLong(CAPACITY_OFFSET);
+                if (!(lf > 0.0f && lf < 1.0f) || cap < MINIMUM_CAPACITY ||
+                    cap > MAXIMUM_CAPACITY || (cap & (cap - 1)) != 0L ||
+                    ch.size() < HEADER_SIZE + (cap << SLOT_SHIFT)) {
+                    throw new IOException("Corrupt OffHeapLongMap file: " + file);
+                }
+                m = new OffHeapLongMap(ch, h, lf);
+                m.map(cap);
+                m.size = h.getLong(SIZE_OFFSET);
+                m.hasFreeKey = h.getLong(FREE_KEY_PRESENT_OFFSET) != 0L;
+                m.freeKeyValue = h.getLong(FREE_KEY_VALUE_OFFSET);
+            }
+            ok = true;
+            return m;
+        } finally {
+            if (!ok) {
+                ch.close();
+            }
+        }
+    }
+
+    /* ---------------- Table management -------------- */
+
+    private static void checkLoadFactor(float loadFactor) {
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f)) {
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                               loadFactor);
+        }
+    }
+
+    /**
+     * Returns the power-of-two number of slots needed to hold the given
+     * number of mappings.
+     */
+    static long capacityFor(long expectedSize, float loadFactor) {
+        double n = Math.ceil(expectedSize / (double) loadFactor) + 1.0;
+        if (n >= MAXIMUM_CAPACITY) {
+            return MAXIMUM_CAPACITY;
+        }
+        long cap = Long.highestOneBit((long) n);
+        if (cap < (long) n) {
+            cap <<= 1;
+        }
+        return Math.max(MINIMUM_CAPACITY, cap);
+    }
+
+    /**
+     * Returns log2 of the number of slots in a segment of a table of
+     * the given capacity.
+     */
+    static int segmentShiftFor(long cap) {
+        return Math.min(MAX_SEGMENT_SHIFT, Long.numberOfTrailingZeros(cap));
+    }
+
+    /**
+     * Sets the geometry fields for a table of the given capacity.
+     * Called only once the segments of the table are in place, so that
+     * a failed allocation leaves the current table usable.
+     */
+    private void setCapacity(long cap) {
+        int shift = segmentShiftFor(cap);
+        capacity = cap;
+        segmentShift = shift;
+        segmentMask = (1L << shift) - 1L;
+        threshold = Math.min(cap - 1L, (long) Math.ceil(cap * (double) loadFactor));
+    }
+
+    /**
+     * Allocates a zeroed in-memory table of the given capacity.
+     */
+    private void allocate(long cap) {
+        int shift = segmentShiftFor(cap);
+        int n = (int) (cap >>> shift);
+        int bytes = 1 << (shift + SLOT_SHIFT);
+        ByteBuffer[] segs = new ByteBuffer[n];
+        try {
+            for (int i = 0; i < n; ++i) {
+                segs[i] = ByteBuffer.allocateDirect(bytes)
+                    .order(ByteOrder.nativeOrder());
+            }
+        } catch (OutOfMemoryError e) {
+            free(segs);
+            throw e;
+        }
+        setCapacity(cap);
+        segments = segs;
+    }
+
+    /**
+     * Maps a file-backed table of the given capacity.
+     */
+    private void map(long cap) throws IOException {
+        int shift = segmentShiftFor(cap);
+        int n = (int) (cap >>> shift);
+        long bytes = 1L << (shift + SLOT_SHIFT);
+        ByteBuffer[] segs = new ByteBuffer[n];
+        try {
+            for (int i = 0; i < n; ++i) {
+                segs[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                                      HEADER_SIZE + i * bytes, bytes)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            }
+        } catch (IOException | RuntimeException e) {
+            free(segs);
+            throw e;
+        }
+        setCapacity(cap);
+        segments = segs;
+    }
+
+    /**
+     * Releases the memory or mapping of the given buffers now.
+     */
+    private static void free(ByteBuffer[] segs) {
+        for (ByteBuffer b : segs) {
+            Cleaner c;
+            if (b != null && (c = ((DirectBuffer) b).cleaner()) != null) {
+                c.clean();
+            }
+        }
+    }
+
+    /**
+     * Doubles the capacity of an in-memory table.
+     */
+    private void grow() {
+        if (channel != null || capacity >= MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("Capacity exhausted.");
+        }
+        ByteBuffer[] oldSegs = segments;
+        int oldShift = segmentShift;
+        long oldMask = segmentMask, oldCap = capacity;
+        allocate(oldCap << 1);
+        long mask = capacity - 1L;
+        for (long j = 0L; j < oldCap; ++j) {
+            ByteBuffer seg = oldSegs[(int) (j >>> oldShift)];
+            int off = (int) (j & oldMask) << SLOT_SHIFT;
+            long k;
+            if ((k = seg.getLong(off)) != FREE_KEY) {
+                long i = mix(k) & mask;
+                while (keyAt(i) != FREE_KEY) {
+                    i = (i + 1L) & mask;
+                }
+                setSlot(i, k, seg.getLong(off + 8));
+            }
+        }
+        free(oldSegs);
+    }
+
+    /**
+     * Scrambles a key: multiplication by the 64-bit golden ratio followed
+     * by folding the upper half into the lower, so that all 64 bits take
+     * part in the slot index even for tables larger than 2^32 slots.
+     */
+    static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    private long keyAt(long i) {
+        return segments[(int) (i >>> segmentShift)]
+            .getLong((int) (i & segmentMask) << SLOT_SHIFT);
+    }
+
+    private long valueAt(long i) {
+        return segments[(int) (i >>> segmentShift)]
+            .getLong(((int) (i & segmentMask) << SLOT_SHIFT) + 8);
+    }
+
+    private void setValue(long i, long v) {
+        segments[(int) (i >>> segmentShift)]
+            .putLong(((int) (i & segmentMask) << SLOT_SHIFT) + 8, v);
+    }
+
+    private void setSlot(long i, long k, long v) {
+        ByteBuffer seg = segments[(int) (i >>> segmentShift)];
+        int off = (int) (i & segmentMask) << SLOT_SHIFT;
+        seg.putLong(off, k);
+        seg.putLong(off + 8, v);
+    }
+
+    private void ensureOpen() {
+        if (segments == null) {
+            throw new IllegalStateException("Map is closed");
+        }
+    }
+
+    /**
+     * Writes the size and free-key fields through to the file header.
+     */
+    private void syncHeader() {
+        MappedByteBuffer h;
+        if ((h = header) != null) {
+            h.putLong(SIZE_OFFSET, size);
+            h.putLong(FREE_KEY_PRESENT_OFFSET, hasFreeKey ? 1L : 0L);
+            h.putLong(FREE_KEY_VALUE_OFFSET, freeKeyValue);
+        }
+    }
+
+    /**
+     * Returns the slot of the given non-free key, or -1 if absent.
+     */
+    private long indexOf(long key) {
+        long mask = capacity - 1L, k;
+        for (long i = mix(key) & mask; ; i = (i + 1L) & mask) {
+            if ((k = keyAt(i)) == key) {
+                return i;
+            }
+            if (k == FREE_KEY) {
+                return -1L;
+            }
+        }
+    }
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Returns the number of mappings in this map.
+     *
+     * @return the number of mappings in this map
+     * @throws IllegalStateException if this map is closed
+     */
+    public long size() {
+        ensureOpen();
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this map contains no mappings.
+     *
+     * @return {@code true} if this map contains no mappings
+     * @throws IllegalStateException if this map is closed
+     */
+    public boolean isEmpty() {
+        return size() == 0L;
+    }
+
+    /**
+     * Returns the number of slots in the table.
+     *
+     * @return the number of slots in the table
+     * @throws IllegalStateException if this map is closed
+     */
+    public long capacity() {
+        ensureOpen();
+        return capacity;
+    }
+
+    /**
+     * Returns {@code true} if this map contains a mapping for the
+     * specified key.
+     *
+     * @param key key whose presence in this map is to be tested
+     * @return {@code true} if this map contains a mapping for the key
+     * @throws IllegalStateException if this map is closed
+     */
+    public boolean containsKey(long key) {
+        ensureOpen();
+        return (key == FREE_KEY) ? hasFreeKey : indexOf(key) >= 0L;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code defaultValue} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the value to return if the key is absent
+     * @return the value to which the key is mapped, or {@code defaultValue}
+     * @throws IllegalStateException if this map is closed
+     */
+    public long getOrDefault(long key, long defaultValue) {
+        ensureOpen();
+        long i;
+        if (key == FREE_KEY) {
+            return hasFreeKey ? freeKeyValue : defaultValue;
+        }
+        return ((i = indexOf(key)) < 0L) ? defaultValue : valueAt(i);
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map,
+     * replacing any previous value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return {@code true} if the map did not already contain the key
+     * @throws IllegalStateException if this map is closed, or is file-backed
+     *         and full
+     * @throws OutOfMemoryError if a larger in-memory table cannot be
+     *         allocated
+     */
+    public boolean put(long key, long value) {
+        ensureOpen();
+        if (key == FREE_KEY) {
+            boolean added = !hasFreeKey;
+            hasFreeKey = true;
+            freeKeyValue = value;
+            if (added) {
+                ++size;
+                ++modCount;
+            }
+            syncHeader();
+            return added;
+        }
+        long mask = capacity - 1L, i, k;
+        for (i = mix(key) & mask; (k = keyAt(i)) != FREE_KEY;
+             i = (i + 1L) & mask) {
+            if (k == key) {
+                setValue(i, value);
+                return false;
+            }
+        }
+        if (size >= threshold) {
+            grow();
+            mask = capacity - 1L;
+            i = mix(key) & mask;
+            while (keyAt(i) != FREE_KEY) {
+                i = (i + 1L) & mask;
+            }
+        }
+        setSlot(i, key, value);
+        ++size;
+        ++modCount;
+        syncHeader();
+        return true;
+    }
+
+    /**
+     * Adds {@code delta} to the value mapped to the key, treating an absent
+     * key as mapped to zero.
+     *
+     * @param key the key
+     * @param delta the amount to add
+     * @return the updated value
+     * @throws IllegalStateException if this map is closed, or is file-backed
+     *         and full
+     */
+    public long addTo(long key, long delta) {
+        ensureOpen();
+        long i;
+        if (key != FREE_KEY && (i = indexOf(key)) >= 0L) {
+            long v = valueAt(i) + delta;
+            setValue(i, v);
+            return v;
+        }
+        long v = getOrDefault(key, 0L) + delta;
+        put(key, v);
+        return v;
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return {@code true} if the map contained the key
+     * @throws IllegalStateException if this map is closed
+     */
+    public boolean remove(long key) {
+        ensureOpen();
+        if (key == FREE_KEY) {
+            if (!hasFreeKey) {
+                return false;
+            }
+            hasFreeKey = false;
+            freeKeyValue = 0L;
+        } else {
+            long i;
+            if ((i = indexOf(key)) < 0L) {
+                return false;
+            }
+            shiftKeys(i);
+        }
+        --size;
+        ++modCount;
+        syncHeader();
+        return true;
+    }
+
+    /**
+     * Backward-shift deletion, as in {@link LongHashMap#shiftKeys}.
+     */
+    private void shiftKeys(long pos) {
+        long mask = capacity - 1L, last, slot, k;
+        for (;;) {
+            pos = ((last = pos) + 1L) & mask;
+            for (;;) {
+                if ((k = keyAt(pos)) == FREE_KEY) {
+                    setSlot(last, FREE_KEY, 0L);
+                    return;
+                }
+                slot = mix(k) & mask;
+                if (last <= pos ? (last >= slot || slot > pos)
+                                : (last >= slot && slot > pos)) {
+                    break;
+                }
+                pos = (pos + 1L) & mask;
+            }
+            setSlot(last, k, valueAt(pos));
+        }
+    }
+
+    /**
+     * Removes all of the mappings from this map.  The table keeps its
+     * current capacity.
+     *
+     * @throws IllegalStateException if this map is closed
+     */
+    public void clear() {
+        ensureOpen();
+        for (ByteBuffer seg : segments) {
+            for (int off = 0, n = seg.capacity(); off < n; off += 8) {
+                seg.putLong(off, 0L);
+            }
+        }
+        size = 0L;
+        hasFreeKey = false;
+        freeKeyValue = 0L;
+        ++modCount;
+        syncHeader();
+    }
+
+    /**
+     * Performs the given action for each mapping in this map.
+     *
+     * @param action The action to be performed for each mapping
+     * @throws NullPointerException if the specified action is null
+     * @throws IllegalStateException if this map is closed
+     * @throws ConcurrentModificationException if a mapping is found to be
+     *         added or removed during iteration
+     */
+    public void forEach(EntryConsumer action) {
+        if (action == null) {
+            throw new NullPointerException();
+        }
+        ensureOpen();
+        int mc = modCount;
+        if (hasFreeKey) {
+            action.accept(FREE_KEY, freeKeyValue);
+        }
+        for (long i = 0L; i < capacity && modCount == mc; ++i) {
+            long k;
+            if ((k = keyAt(i)) != FREE_KEY) {
+                action.accept(k, valueAt(i));
+            }
+        }
+        if (modCount != mc) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Returns an iterator over the keys of this map.  The iterator does not
+     * support removal.
+     *
+     * @return an iterator over the keys of this map
+     * @throws IllegalStateException if this map is closed
+     */
+    public PrimitiveIterator.OfLong keyIterator() {
+        ensureOpen();
+        return new KeyIterator();
+    }
+
+    final class KeyIterator implements PrimitiveIterator.OfLong {
+        long next = -1L;          // next slot to return; capacity if free key
+        long remaining = size;    // keys left to return
+        int expectedModCount = modCount;
+        boolean mustReturnFreeKey = hasFreeKey;
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0L;
+        }
+
+        @Override
+        public long nextLong() {
+            ensureOpen();
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (remaining <= 0L) {
+                throw new NoSuchElementException();
+            }
+            --remaining;
+            if (mustReturnFreeKey) {
+                mustReturnFreeKey = false;
+                return FREE_KEY;
+            }
+            long k;
+            while ((k = keyAt(++next)) == FREE_KEY) {
+                // skip empty slots
+            }
+            return k;
+        }
+    }
+
+    /**
+     * Forces any changes to a file-backed map to be written to the storage
+     * device.  Has no effect on an in-memory map.
+     *
+     * @throws IllegalStateException if this map is closed
+     */
+    public void force() {
+        ensureOpen();
+        if (header != null) {
+            for (ByteBuffer seg : segments) {
+                ((MappedByteBuffer) seg).force();
+            }
+            header.force();
+        }
+    }
+
+    /**
+     * Releases the table.  For an in-memory map the direct memory is freed
+     * immediately; for a file-backed map pending changes are written and
+     * the file is unmapped and closed.  Closing an already closed map has no
+     * effect.
+     *
+     * @throws IOException if the backing file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        ByteBuffer[] segs;
+        if ((segs = segments) == null) {
+            return;
+        }
+        if (header != null) {
+            force();
+        }
+        segments = null;
+        free(segs);
+        if (header != null) {
+            free(new ByteBuffer[] { header });
+            channel.close();
+        }
+    }
+}
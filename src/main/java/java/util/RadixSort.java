@@ -0,0 +1,887 @@
+package java.util;
+
+import java.util.stream.IntStream;
+
+/**
+ * 基数排序：对 int、long、float、double 数组按 8 位一组从低位到高位进行稳定的分配排序（LSD），并提供分块的 fork/join 并行版本。
+ *
+ * This class implements least-significant-digit radix sort for arrays
+ * of the four primitive types wider than 16 bits, in sequential and
+ * fork/join parallel forms.  Each element is mapped to an unsigned
+ * key whose order is the numerical order of the elements: the sign bit
+ * of an integer is flipped, and the bits of a floating-point value are
+ * flipped entirely if it is negative, or only in the sign bit
+ * otherwise, so that {@code -0.0} sorts before {@code 0.0} as in
+ * {@link Double#compare}.  NaNs are first moved to the end of the range,
+ * as in {@link DualPivotQuicksort}, and are not otherwise reordered.
+ *
+ * The keys are sorted one 8-bit digit at a time, from least to most
+ * significant, each pass counting the occurrences of each digit value
+ * and then distributing the elements between the array and a workspace
+ * of the same length.  Histograms for all digits are gathered in a
+ * single initial scan, and a digit that has the same value in every
+ * element (as the high digits do for timestamps, or for small values)
+ * is skipped.  The parallel form splits the range into blocks; each
+ * pass counts and distributes the blocks in parallel, with each block
+ * writing to its own precomputed slice of every bucket.
+ *
+ * Since each pass is stable, long keys can also be sorted together
+ * with an int payload array, moved with them in every pass; this is
+ * the basis of the key/payload and index sorts in Arrays.  Double keys
+ * for those sorts are first mapped to longs by sortableBits.
+ *
+ * All exposed methods are package-private, designed to be invoked
+ * from public methods (in class Arrays) after performing any
+ * necessary array bounds checks and expanding parameters into the
+ * required forms.
+ *
+ * @since 1.8
+ */
+final class RadixSort {
+
+    /**
+     * Prevents instantiation.
+     */
+    private RadixSort() {}
+
+    /*
+     * Tuning parameters.
+     */
+
+    /**
+     * The number of key bits sorted by each pass.
+     */
+    private static final int RADIX_BITS = 8;
+
+    private static final int RADIX = 1 << RADIX_BITS;
+
+    private static final int MASK = RADIX - 1;
+
+    /**
+     * If the length of a range to be sorted is less than this
+     * constant, Dual-Pivot Quicksort is used in preference to radix
+     * sort, whose per-pass cost over the buckets then dominates.
+     */
+    private static final int RADIX_SORT_THRESHOLD = 1 << 10;
+
+    /**
+     * If the length of a range of keys and payloads to be sorted is
+     * less than this constant, insertion sort is used in preference to
+     * radix sort.
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 47;
+
+    /**
+     * The minimum length of a block processed by one task of a
+     * parallel pass.
+     */
+    private static final int MIN_BLOCK_LENGTH = 1 << 16;
+
+    /*
+     * Keys.
+     */
+
+    private static int key(int x) {
+        return x ^ Integer.MIN_VALUE;
+    }
+
+    private static long key(long x) {
+        return x ^ Long.MIN_VALUE;
+    }
+
+    private static int key(float x) {
+        int bits = Float.floatToRawIntBits(x);
+        return bits ^ ((bits >> 31) | Integer.MIN_VALUE);
+    }
+
+    private static long key(double x) {
+        long bits = Double.doubleToRawLongBits(x);
+        return bits ^ ((bits >> 63) | Long.MIN_VALUE);
+    }
+
+    /*
+     * Helpers for the parallel forms.
+     */
+
+    /**
+     * Returns the number of blocks into which a parallel sort splits a
+     * range of the given length.
+     */
+    private static int blockCount(int n, int parallelism) {
+        return Math.max(1, Math.min(parallelism << 2, n / MIN_BLOCK_LENGTH));
+    }
+
+    /**
+     * Returns the index of the first element of the given block.
+     */
+    private static int blockStart(int left, int n, int blocks, int b) {
+        return left + (int) ((long) n * b / blocks);
+    }
+
+    /**
+     * Converts the per-block counts of the digit at the given base
+     * into per-block starting offsets in the destination, which begins
+     * at dstBase.  Block b's elements with digit value v go to the
+     * slice after those of all smaller digit values, and of value v in
+     * blocks before b.
+     */
+    private static void offsets(int[][] counts, int base, int dstBase) {
+        int sum = dstBase;
+        for (int v = base, e = base + RADIX; v < e; ++v) {
+            for (int[] c : counts) {
+                int k = c[v];
+                c[v] = sum;
+                sum += k;
+            }
+        }
+    }
+
+    /**
+     * Returns true if the digit at the given base has the same value
+     * in all n elements, according to the given per-block counts.
+     */
+    private static boolean isConstant(int[][] counts, int base, int value, int n) {
+        int total = 0;
+        for (int[] c : counts) {
+            total += c[base + value];
+        }
+        return total == n;
+    }
+
+    /**
+     * Copies n elements from src to dst in parallel blocks.
+     */
+    private static void copy(Object src, int s, Object dst, int t, int n, int blocks) {
+        IntStream.range(0, blocks).parallel().forEach(b -> {
+            int from = blockStart(0, n, blocks, b);
+            System.arraycopy(src, s + from, dst, t + from,
+                             blockStart(0, n, blocks, b + 1) - from);
+        });
+    }
+
+    /*
+     * int
+     */
+
+    /**
+     * Sorts the specified range of the array, using the given
+     * workspace array if it is long enough.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, exclusive, to be sorted
+     * @param work a workspace array, or null
+     */
+    static void sort(int[] a, int left, int right, int[] work) {
+        int n = right - left;
+        if (n < RADIX_SORT_THRESHOLD) {
+            DualPivotQuicksort.sort(a, left, right - 1, null, 0, 0);
+            return;
+        }
+        if (work == null || work.length < n) {
+            work = new int[n];
+        }
+        int[] c = new int[4 << RADIX_BITS];
+        for (int i = left; i < right; ++i) {
+            int k = key(a[i]);
+            for (int d = 0; d < 4; ++d) {
+                ++c[(d << RADIX_BITS) | ((k >>> (d * RADIX_BITS)) & MASK)];
+            }
+        }
+        int[] src = a, dst = work;
+        int s = left, t = 0;
+        for (int d = 0; d < 4; ++d) {
+            int base = d << RADIX_BITS, shift = d * RADIX_BITS;
+            if (c[base | ((key(src[s]) >>> shift) & MASK)] == n) {
+                continue;
+            }
+            for (int v = base, sum = t, e = base + RADIX; v < e; ++v) {
+                int k = c[v];
+                c[v] = sum;
+                sum += k;
+            }
+            for (int i = s, e = s + n; i < e; ++i) {
+                int x = src[i];
+                dst[c[base | ((key(x) >>> shift) & MASK)]++] = x;
+            }
+            int[] ta = src; src = dst; dst = ta;
+            int ti = s; s = t; t = ti;
+        }
+        if (src != a) {
+            System.arraycopy(src, s, a, left, n);
+        }
+    }
+
+    /**
+     * Sorts the specified range of the array in parallel, using tasks
+     * in the common pool.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, exclusive, to be sorted
+     * @param work a workspace array at least as long as the range
+     * @param parallelism the target parallelism
+     */
+    static void parallelSort(int[] a, int left, int right, int[] work,
+                             int parallelism) {
+        int n = right - left, blocks = blockCount(n, parallelism);
+        if (blocks == 1) {
+            sort(a, left, right, work);
+            return;
+        }
+        int[][] c = new int[blocks][4 << RADIX_BITS];
+        IntStream.range(0, blocks).parallel().forEach(b -> {
+            int[] cb = c[b];
+            for (int i = blockStart(left, n, blocks, b),
+                     e = blockStart(left, n, blocks, b + 1); i < e; ++i) {
+                int k = key(a[i]);
+                for (int d = 0; d < 4; ++d) {
+                    ++cb[(d << RADIX_BITS) | ((k >>> (d * RADIX_BITS)) & MASK)];
+                }
+            }
+        });
+        int[] src = a, dst = work;
+        int s = left, t = 0;
+        boolean counted = true;
+        for (int d = 0; d < 4; ++d) {
+            int base = d << RADIX_BITS, shift = d * RADIX_BITS;
+            if (isConstant(c, base, (key(src[s]) >>> shift) & MASK, n)) {
+                continue;
+            }
+            if (!counted) {
+                count(src, s, n, blocks, c, base, shift);
+            }
+            counted = false;
+            offsets(c, base, t);
+            scatter(src, s, dst, n, blocks, c, base, shift);
+            int[] ta = src; src = dst; dst = ta;
+            int ti = s; s = t; t = ti;
+        }
+        if (src != a) {
+            copy(src, s, a, left, n, blocks);
+        }
+    }
+
+    /**
+     * Counts, for each block of src, the values of the digit at the
+     * given shift, replacing the counts at the given base.
+     */
+    private static void count(int[] src, int s, int n, int blocks,
+                              int[][] c, int base, int shift) {
+        IntStream.range(0, blocks).parallel().forEach(b -> {
+            int[] cb = c[b];
+            Arrays.fill(cb, base, base + RADIX, 0);
+            for (int i = blockStart(s, n, blocks, b),
+                     e = blockStart(s, n, blocks, b + 1); i < e; ++i) {
+                ++cb[base | ((key(src[i]) >>> shift) & MASK)];
+            }
+        });
+    }
+
+    /**
+     * Distributes each block of src to dst at the block's offsets.
+     */
+    private static void scatter(int[] src, int s, int[] dst, int n, int blocks,
+                                int[][] c, int base, int shift) {
+        IntStream.range(0, blocks).parallel().forEach(b -> {
+            int[] cb = c[b];
+            for (int i = blockStart(s, n, blocks, b),
+                     e = blockStart(s, n, blocks, b + 1); i < e; ++i) {
+                int x = src[i];
+                dst[cb[base | ((key(x) >>> shift) & MASK)]++] = x;
+            }
+        });
+    }
+
+    /*
+     * long
+     */
+
+    /**
+     * Sorts the specified range of the array, using the given
+     * workspace array if it is long enough.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, exclusive, to be sorted
+     * @param work a workspace array, or null
+     */
+    static void sort(long[] a, int left, int right, long[] work) {
+        int n = right - left;
+        if (n < RADIX_SORT_THRESHOLD) {
+            DualPivotQuicksort.sort(a, left, right - 1, null, 0, 0);
+            return;
+        }
+        if (work == null || work.length < n) {
+            work = new long[n];
+        }
+        int[] c = new int[8 << RADIX_BITS];
+        for (int i = left; i < right; ++i) {
+            long k = key(a[i]);
+            for (int d = 0; d < 8; ++d) {
+                ++c[(d << RADIX_BITS) | ((int) (k >>> (d * RADIX_BITS)) & MASK)];
+            }
+        }
+        long[] src = a, dst = work;
+        int s = left, t = 0;
+        for (int d = 0; d < 8; ++d) {
+            int base = d << RADIX_BITS, shift = d * RADIX_BITS;
+            if (c[base | ((int) (key(src[s]) >>> shift) & MASK)] == n) {
+                continue;
+            }
+            for (int v = base, sum = t, e = base + RADIX; v < e; ++v) {
+                int k = c[v];
+                c[v] = sum;
+                sum += k;
+            }
+            for (int i = s, e = s + n; i < e; ++i) {
+                long x = src[i];
+                dst[c[base | ((int) (key(x) >>> shift) & MASK)]++] = x;
+            }
+            long[] ta = src; src = dst; dst = ta;
+            int ti = s; s = t; t = ti;
+        }
+        if (src != a) {
+            System.arraycopy(src, s, a, left, n);
+        }
+    }
+
+    /**
+     * Sorts the specified range of the array in parallel, using tasks
+     * in the common pool.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, exclusive, to be sorted
+     * @param work a workspace array at least as long as the range
+     * @param parallelism the target parallelism
+     */
+    static void parallelSort(long[] a, int left, int right, long[] work,
+                             int parallelism) {
+        int n = right - left, blocks = blockCount(n, parallelism);
+        if (blocks == 1) {
+            sort(a, left, right, work);
+            return;
+        }
+        int[][] c = new int[blocks][8 << RADIX_BITS];
+        IntStream.range(0, blocks).parallel().forEach(b -> {
+            int[] cb = c[b];
+            for (int i = blockStart(left, n, blocks, b),
+                     e = blockStart(left, n, blocks, b + 1); i < e; ++i) {
+                long k = key(a[i]);
+                for (int d = 0; d < 8; ++d) {
+                    ++cb[(d << RADIX_BITS) | ((int) (k >>> (d * RADIX_BITS)) & MASK)];
+                }
+            }
+        });
+        long[] src = a, dst = work;
+        int s = left, t = 0;
+        boolean counted = true;
+        for (int d = 0; d < 8; ++d) {
+            int base = d << RADIX_BITS, shift = d * RADIX_BITS;
+            if (isConstant(c, base, (int) (key(src[s]) >>> shift) & MASK, n)) {
+                continue;
+            }
+            if (!counted) {
+                count(src, s, n, blocks, c, base, shift);
+            }
+            counted = false;
+            offsets(c, base, t);
+            scatter(src, s, dst, n, blocks, c, base, shift);
+            long[] ta = src; src = dst; dst = ta;
+            int ti = s; s = t; t = ti;
+        }
+        if (src != a) {
+            copy(src, s, a, left, n, blocks);
+        }
+    }
+
+    private static void count(long[] src, int s, int n, int blocks,
+                              int[][] c, int base, int shift) {
+        IntStream.range(0, blocks).parallel().forEach(b -> {
+            int[] cb = c[b];
+            Arrays.fill(cb, base, base + RADIX, 0);
+            for (int i = blockStart(s, n, blocks, b),
+                     e = blockStart(s, n, blocks, b + 1); i < e; ++i) {
+                ++cb[base | ((int) (key(src[i]) >>> shift) & MASK)];
+            }
+        });
+    }
+
+    private static void scatter(long[] src, int s, long[] dst, int n, int blocks,
+                                int[][] c, int base, int shift) {
+        IntStream.range(0, blocks).parallel().forEach(b -> {
+            int[] cb = c[b];
+            for (int i = blockStart(s, n, blocks, b),
+                     e = blockStart(s, n, blocks, b + 1); i < e; ++i) {
+                long x = src[i];
+                dst[cb[base | ((int) (key(x) >>> shift) & MASK)]++] = x;
+            }
+        });
+    }
+
+    /*
+     * float
+     */
+
+    /**
+     * Moves the NaNs in the specified range to its end, returning the
+     * index after the last non-NaN element.
+     */
+    private static int moveNaNs(float[] a, int left, int right) {
+        int last = right - 1;
+        while (left <= last && Float.isNaN(a[last])) {
+            --last;
+        }
+        for (int k = last; --k >= left; ) {
+            float ak = a[k];
+            if (ak != ak) { // a[k] is NaN
+                a[k] = a[last];
+                a[last] = ak;
+                --last;
+            }
+        }
+        return last + 1;
+    }
+
+    /**
+     * Sorts the specified range of the array, using the given
+     * workspace array if it is long enough.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, exclusive, to be sorted
+     * @param work a workspace array, or null
+     */
+    static void sort(float[] a, int left, int right, float[] work) {
+        if (right - left < RADIX_SORT_THRESHOLD) {
+            DualPivotQuicksort.sort(a, left, right - 1, null, 0, 0);
+            return;
+        }
+        right = moveNaNs(a, left, right);
+        int n = right - left;
+        if (n == 0) {
+            return;
+        }
+        if (work == null || work.length < n) {
+            work = new float[n];
+        }
+        int[] c = new int[4 << RADIX_BITS];
+        for (int i = left; i < right; ++i) {
+            int k = key(a[i]);
+            for (int d = 0; d < 4; ++d) {
+                ++c[(d << RADIX_BITS) | ((k >>> (d * RADIX_BITS)) & MASK)];
+            }
+        }
+        float[] src = a, dst = work;
+        int s = left, t = 0;
+        for (int d = 0; d < 4; ++d) {
+            int base = d << RADIX_BITS, shift = d * RADIX_BITS;
+            if (c[base | ((key(src[s]) >>> shift) & MASK)] == n) {
+                continue;
+            }
+            for (int v = base, sum = t, e = base + RADIX; v < e; ++v) {
+                int k = c[v];
+                c[v] = sum;
+                sum += k;
+            }
+            for (int i = s, e = s + n; i < e; ++i) {
+                float x = src[i];
+                dst[c[base | ((key(x) >>> shift) & MASK)]++] = x;
+            }
+            float[] ta = src; src = dst; dst = ta;
+            int ti = s; s = t; t = ti;
+        }
+        if (src != a) {
+            System.arraycopy(src, s, a, left, n);
+        }
+    }
+
+    /**
+     * Sorts the specified range of the array in parallel, using tasks
+     * in the common pool.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, exclusive, to be sorted
+     * @param work a workspace array at least as long as the range
+     * @param parallelism the target parallelism
+     */
+    static void parallelSort(float[] a, int left, int right, float[] work,
+                             int parallelism) {
+        int blocks = blockCount(right - left, parallelism);
+        if (blocks == 1) {
+            sort(a, left, right, work);
+            return;
+        }
+        int n = moveNaNs(a, left, right) - left;
+        if (n == 0) {
+            return;
+        }
+        int[][] c = new int[blocks][4 << RADIX_BITS];
+        IntStream.range(0, blocks).parallel().forEach(b -> {
+            int[] cb = c[b];
+            for (int i = blockStart(left, n, blocks, b),
+                     e = blockStart(left, n, blocks, b + 1); i < e; ++i) {
+                int k = key(a[i]);
+                for (int d = 0; d < 4; ++d) {
+                    ++cb[(d << RADIX_BITS) | ((k >>> (d * RADIX_BITS)) & MASK)];
+                }
+            }
+        });
+        float[] src = a, dst = work;
+        int s = left, t = 0;
+        boolean counted = true;
+        for (int d = 0; d < 4; ++d) {
+            int base = d << RADIX_BITS, shift = d * RADIX_BITS;
+            if (isConstant(c, base, (key(src[s]) >>> shift) & MASK, n)) {
+                continue;
+            }
+            if (!counted) {
+                count(src, s, n, blocks, c, base, shift);
+            }
+            counted = false;
+            offsets(c, base, t);
+            scatter(src, s, dst, n, blocks, c, base, shift);
+            float[] ta = src; src = dst; dst = ta;
+            int ti = s; s = t; t = ti;
+        }
+        if (src != a) {
+            copy(src, s, a, left, n, blocks);
+        }
+    }
+
+    private static void count(float[] src, int s, int n, int blocks,
+                              int[][] c, int base, int shift) {
+        IntStream.range(0, blocks).parallel().forEach(b -> {
+            int[] cb = c[b];
+            Arrays.fill(cb, base, base + RADIX, 0);
+            for (int i = blockStart(s, n, blocks, b),
+                     e = blockStart(s, n, blocks, b + 1); i < e; ++i) {
+                ++cb[base | ((key(src[i]) >>> shift) & MASK)];
+            }
+        });
+    }
+
+    private static void scatter(float[] src, int s, float[] dst, int n, int blocks,
+                                int[][] c, int base, int shift) {
+        IntStream.range(0, blocks).parallel().forEach(b -> {
+            int[] cb = c[b];
+            for (int i = blockStart(s, n, blocks, b),
+                     e = blockStart(s, n, blocks, b + 1); i < e; ++i) {
+                float x = src[i];
+                dst[cb[base | ((key(x) >>> shift) & MASK)]++] = x;
+            }
+        });
+    }
+
+    /*
+     * double
+     */
+
+    /**
+     * Moves the NaNs in the specified range to its end, returning the
+     * index after the last non-NaN element.
+     */
+    private static int moveNaNs(double[] a, int left, int right) {
+        int last = right - 1;
+        while (left <= last && Double.isNaN(a[last])) {
+            --last;
+        }
+        for (int k = last; --k >= left; ) {
+            double ak = a[k];
+            if (ak != ak) { // a[k] is NaN
+                a[k] = a[last];
+                a[last] = ak;
+                --last;
+            }
+        }
+        return last + 1;
+    }
+
+    /**
+     * Sorts the specified range of the array, using the given
+     * workspace array if it is long enough.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, exclusive, to be sorted
+     * @param work a workspace array, or null
+     */
+    static void sort(double[] a, int left, int right, double[] work) {
+        if (right - left < RADIX_SORT_THRESHOLD) {
+            DualPivotQuicksort.sort(a, left, right - 1, null, 0, 0);
+            return;
+        }
+        right = moveNaNs(a, left, right);
+        int n = right - left;
+        if (n == 0) {
+            return;
+        }
+        if (work == null || work.length < n) {
+            work = new double[n];
+        }
+        int[] c = new int[8 << RADIX_BITS];
+        for (int i = left; i < right; ++i) {
+            long k = key(a[i]);
+            for (int d = 0; d < 8; ++d) {
+                ++c[(d << RADIX_BITS) | ((int) (k >>> (d * RADIX_BITS)) & MASK)];
+            }
+        }
+        double[] src = a, dst = work;
+        int s = left, t = 0;
+        for (int d = 0; d < 8; ++d) {
+            int base = d << RADIX_BITS, shift = d * RADIX_BITS;
+            if (c[base | ((int) (key(src[s]) >>> shift) & MASK)] == n) {
+                continue;
+            }
+            for (int v = base, sum = t, e = base + RADIX; v < e; ++v) {
+                int k = c[v];
+                c[v] = sum;
+                sum += k;
+            }
+            for (int i = s, e = s + n; i < e; ++i) {
+                double x = src[i];
+                dst[c[base | ((int) (key(x) >>> shift) & MASK)]++] = x;
+            }
+            double[] ta = src; src = dst; dst = ta;
+            int ti = s; s = t; t = ti;
+        }
+        if (src != a) {
+            System.arraycopy(src, s, a, left, n);
+        }
+    }
+
+    /**
+     * Sorts the specified range of the array in parallel, using tasks
+     * in the common pool.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, exclusive, to be sorted
+     * @param work a workspace array at least as long as the range
+     * @param parallelism the target parallelism
+     */
+    static void parallelSort(double[] a, int left, int right, double[] work,
+                             int parallelism) {
+        int blocks = blockCount(right - left, parallelism);
+        if (blocks == 1) {
+            sort(a, left, right, work);
+            return;
+        }
+        int n = moveNaNs(a, left, right) - left;
+        if (n == 0) {
+            return;
+        }
+        int[][] c = new int[blocks][8 << RADIX_BITS];
+        IntStream.range(0, blocks).parallel().forEach(b -> {
+            int[] cb = c[b];
+            for (int i = blockStart(left, n, blocks, b),
+                     e = blockStart(left, n, blocks, b + 1); i < e; ++i) {
+                long k = key(a[i]);
+                for (int d = 0; d < 8; ++d) {
+                    ++cb[(d << RADIX_BITS) | ((int) (k >>> (d * RADIX_BITS)) & MASK)];
+                }
+            }
+        });
+        double[] src = a, dst = work;
+        int s = left, t = 0;
+        boolean counted = true;
+        for (int d = 0; d < 8; ++d) {
+            int base = d << RADIX_BITS, shift = d * RADIX_BITS;
+            if (isConstant(c, base, (int) (key(src[s]) >>> shift) & MASK, n)) {
+                continue;
+            }
+            if (!counted) {
+                count(src, s, n, blocks, c, base, shift);
+            }
+            counted = false;
+            offsets(c, base, t);
+            scatter(src, s, dst, n, blocks, c, base, shift);
+            double[] ta = src; src = dst; dst = ta;
+            int ti = s; s = t; t = ti;
+        }
+        if (src != a) {
+            copy(src, s, a, left, n, blocks);
+        }
+    }
+
+    private static void count(double[] src, int s, int n, int blocks,
+                              int[][] c, int base, int shift) {
+        IntStream.range(0, blocks).parallel().forEach(b -> {
+            int[] cb = c[b];
+            Arrays.fill(cb, base, base + RADIX, 0);
+            for (int i = blockStart(s, n, blocks, b),
+                     e = blockStart(s, n, blocks, b + 1); i < e; ++i) {
+                ++cb[base | ((int) (key(src[i]) >>> shift) & MASK)];
+            }
+        });
+    }
+
+    private static void scatter(double[] src, int s, double[] dst, int n, int blocks,
+                                int[][] c, int base, int shift) {
+        IntStream.range(0, blocks).parallel().forEach(b -> {
+            int[] cb = c[b];
+            for (int i = blockStart(s, n, blocks, b),
+                     e = blockStart(s, n, blocks, b + 1); i < e; ++i) {
+                double x = src[i];
+                dst[cb[base | ((int) (key(x) >>> shift) & MASK)]++] = x;
+            }
+        });
+    }
+
+    /*
+     * long keys with int payload
+     */
+
+    /**
+     * Returns a long whose signed order is the order of the given
+     * double imposed by {@link Double#compare}.  All NaNs map to the
+     * same, greatest, value.
+     */
+    static long sortableBits(double x) {
+        long bits = Double.doubleToLongBits(x);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    /**
+     * Sorts the specified range of the keys, applying the same
+     * permutation to the payloads.  The sort is stable: payloads with
+     * equal keys keep their relative order.
+     *
+     * @param a the keys to be sorted
+     * @param p the payloads, at the same indices as their keys
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, exclusive, to be sorted
+     * @param work a workspace array for keys, or null
+     * @param pwork a workspace array for payloads, or null
+     */
+    static void sort(long[] a, int[] p, int left, int right,
+                     long[] work, int[] pwork) {
+        int n = right - left;
+        if (n < INSERTION_SORT_THRESHOLD) {
+            for (int i = left + 1; i < right; ++i) {
+                long x = a[i];
+                int px = p[i], j = i - 1;
+                for (; j >= left && a[j] > x; --j) {
+                    a[j + 1] = a[j];
+                    p[j + 1] = p[j];
+                }
+                a[j + 1] = x;
+                p[j + 1] = px;
+            }
+            return;
+        }
+        if (work == null || work.length < n) {
+            work = new long[n];
+        }
+        if (pwork == null || pwork.length < n) {
+            pwork = new int[n];
+        }
+        int[] c = new int[8 << RADIX_BITS];
+        for (int i = left; i < right; ++i) {
+            long k = key(a[i]);
+            for (int d = 0; d < 8; ++d) {
+                ++c[(d << RADIX_BITS) | ((int) (k >>> (d * RADIX_BITS)) & MASK)];
+            }
+        }
+        long[] src = a, dst = work;
+        int[] psrc = p, pdst = pwork;
+        int s = left, t = 0;
+        for (int d = 0; d < 8; ++d) {
+            int base = d << RADIX_BITS, shift = d * RADIX_BITS;
+            if (c[base | ((int) (key(src[s]) >>> shift) & MASK)] == n) {
+                continue;
+            }
+            for (int v = base, sum = t, e = base + RADIX; v < e; ++v) {
+                int k = c[v];
+                c[v] = sum;
+                sum += k;
+            }
+            for (int i = s, e = s + n; i < e; ++i) {
+                long x = src[i];
+                int o = c[base | ((int) (key(x) >>> shift) & MASK)]++;
+                dst[o] = x;
+                pdst[o] = psrc[i];
+            }
+            long[] ta = src; src = dst; dst = ta;
+            int[] tp = psrc; psrc = pdst; pdst = tp;
+            int ti = s; s = t; t = ti;
+        }
+        if (src != a) {
+            System.arraycopy(src, s, a, left, n);
+            System.arraycopy(psrc, s, p, left, n);
+        }
+    }
+
+    /**
+     * Sorts the specified range of the keys in parallel, applying the
+     * same permutation to the payloads, using tasks in the common pool.
+     * The sort is stable.
+     *
+     * @param a the keys to be sorted
+     * @param p the payloads, at the same indices as their keys
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, exclusive, to be sorted
+     * @param work a workspace array for keys at least as long as the range
+     * @param pwork a workspace array for payloads at least as long as the range
+     * @param parallelism the target parallelism
+     */
+    static void parallelSort(long[] a, int[] p, int left, int right,
+                             long[] work, int[] pwork, int parallelism) {
+        int n = right - left, blocks = blockCount(n, parallelism);
+        if (blocks == 1) {
+            sort(a, p, left, right, work, pwork);
+            return;
+        }
+        int[][] c = new int[blocks][8 << RADIX_BITS];
+        IntStream.range(0, blocks).parallel().forEach(b -> {
+            int[] cb = c[b];
+            for (int i = blockStart(left, n, blocks, b),
+                     e = blockStart(left, n, blocks, b + 1); i < e; ++i) {
+                long k = key(a[i]);
+                for (int d = 0; d < 8; ++d) {
+                    ++cb[(d << RADIX_BITS) | ((int) (k >>> (d * RADIX_BITS)) & MASK)];
+                }
+            }
+        });
+        long[] src = a, dst = work;
+        int[] psrc = p, pdst = pwork;
+        int s = left, t = 0;
+        boolean counted = true;
+        for (int d = 0; d < 8; ++d) {
+            int base = d << RADIX_BITS, shift = d * RADIX_BITS;
+            if (isConstant(c, base, (int) (key(src[s]) >>> shift) & MASK, n)) {
+                continue;
+            }
+            if (!counted) {
+                count(src, s, n, blocks, c, base, shift);
+            }
+            counted = false;
+            offsets(c, base, t);
+            scatter(src, psrc, s, dst, pdst, n, blocks, c, base, shift);
+            long[] ta = src; src = dst; dst = ta;
+            int[] tp = psrc; psrc = pdst; pdst = tp;
+            int ti = s; s = t; t = ti;
+        }
+        if (src != a) {
+            copy(src, s, a, left, n, blocks);
+            copy(psrc, s, p, left, n, blocks);
+        }
+    }
+
+    private static void scatter(long[] src, int[] psrc, int s,
+                                long[] dst, int[] pdst, int n, int blocks,
+                                int[][] c, int base, int shift) {
+        IntStream.range(0, blocks).parallel().forEach(b -> {
+            int[] cb = c[b];
+            for (int i = blockStart(s, n, blocks, b),
+                     e = blockStart(s, n, blocks, b + 1); i < e; ++i) {
+                long x = src[i];
+                int o = cb[base | ((int) (key(x) >>> shift) & MASK)]++;
+                dst[o] = x;
+                pdst[o] = psrc[i];
+            }
+        });
+    }
+}
@@ -63,6 +63,31 @@ package java.util;
  * Such exceptions are marked as "optional" in the specification for this
  * interface.
  *
+ * <h2><a name="immutable">Immutable Set Static Factory Methods</a></h2>
+ * <p>The {@link Set#of(Object...) Set.of} and {@link Set#copyOf
+ * Set.copyOf} static factory methods provide a convenient way to create
+ * immutable sets.  The {@code Set} instances created by these methods
+ * have the following characteristics:
+ *
+ * <ul>
+ * <li>They are <em>immutable</em>.  Elements cannot be added or removed,
+ * and calling any mutator method always causes
+ * {@code UnsupportedOperationException} to be thrown.
+ * <li>They disallow null elements.  Attempts to create them with null
+ * elements, or to query them for null, result in
+ * {@code NullPointerException}.
+ * <li>They reject duplicate elements at creation time.  Duplicate
+ * elements passed to {@code Set.of} result in
+ * {@code IllegalArgumentException}.
+ * <li>The iteration order of the set elements is unspecified.
+ * <li>They are serializable if all elements are serializable.
+ * <li>They are compact: sets of up to two elements hold them in fields,
+ * and larger sets hold a single open-addressing table at most half
+ * full.
+ * <li>They are value-based: callers should make no assumptions about the
+ * identity of the returned instances.
+ * </ul>
+ *
  * <p>This interface is a member of the
  * <a href="{@docRoot}/../technotes/guides/collections/index.html">
  * Java Collections Framework</a>.
@@ -425,4 +450,99 @@ public interface Set<E> extends Collection<E> {
     default Spliterator<E> spliterator() {
         return Spliterators.spliterator(this, Spliterator.DISTINCT);
     }
+
+    /**
+     * Returns an immutable set containing zero elements.
+     * See <a href="#immutable">Immutable Set Static Factory Methods</a>
+     * for details.
+     *
+     * @param <E> the {@code Set}'s element type
+     * @return an empty {@code Set}
+     *
+     * @since 1.8
+     */
+    static <E> Set<E> of() {
+        return ImmutableCollections.emptySet();
+    }
+
+    /**
+     * Returns an immutable set containing one element.
+     * See <a href="#immutable">Immutable Set Static Factory Methods</a>
+     * for details.
+     *
+     * @param <E> the {@code Set}'s element type
+     * @param e1 the single element
+     * @return a {@code Set} containing the specified element
+     * @throws NullPointerException if the element is {@code null}
+     *
+     * @since 1.8
+     */
+    static <E> Set<E> of(E e1) {
+        return new ImmutableCollections.Set12<>(e1);
+    }
+
+    /**
+     * Returns an immutable set containing two elements.
+     * See <a href="#immutable">Immutable Set Static Factory Methods</a>
+     * for details.
+     *
+     * @param <E> the {@code Set}'s element type
+     * @param e1 the first element
+     * @param e2 the second element
+     * @return a {@code Set} containing the specified elements
+     * @throws IllegalArgumentException if the elements are duplicates
+     * @throws NullPointerException if an element is {@code null}
+     *
+     * @since 1.8
+     */
+    @SuppressWarnings("unchecked")
+    static <E> Set<E> of(E e1, E e2) {
+        return ImmutableCollections.setOf(false, e1, e2);
+    }
+
+    /**
+     * Returns an immutable set containing an arbitrary number of elements.
+     * See <a href="#immutable">Immutable Set Static Factory Methods</a>
+     * for details.
+     *
+     * @param <E> the {@code Set}'s element type
+     * @param elements the elements to be contained in the set
+     * @return a {@code Set} containing the specified elements
+     * @throws IllegalArgumentException if there are any duplicate elements
+     * @throws NullPointerException if an element is {@code null} or if
+     *         the array is {@code null}
+     *
+     * @since 1.8
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    static <E> Set<E> of(E... elements) {
+        return ImmutableCollections.setOf(false, elements);
+    }
+
+    /**
+     * Returns an immutable set containing the elements of the given
+     * collection.  If the given collection contains duplicate elements,
+     * an arbitrary element of the duplicates is preserved.  If the given
+     * collection is itself an immutable set created by one of these
+     * factory methods, it is returned without copying.
+     * See <a href="#immutable">Immutable Set Static Factory Methods</a>
+     * for details.
+     *
+     * @param <E> the {@code Set}'s element type
+     * @param coll a {@code Collection} from which elements are drawn
+     * @return a {@code Set} containing the elements of the given
+     *         {@code Collection}
+     * @throws NullPointerException if coll is null, or if it contains
+     *         any nulls
+     *
+     * @since 1.8
+     */
+    @SuppressWarnings("unchecked")
+    static <E> Set<E> copyOf(Collection<? extends E> coll) {
+        if (coll instanceof ImmutableCollections.AbstractImmutableSet) {
+            return (Set<E>) coll;
+        }
+        return (Set<E>) ImmutableCollections.setOf(true, coll.toArray());
+    }
 }
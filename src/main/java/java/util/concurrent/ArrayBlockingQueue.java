@@ -811,6 +811,143 @@ public class ArrayBlockingQueue<E> extends AbstractQueue<E>
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Waits for elements and removes them while holding the lock,
+     * releasing it only while waiting.
+     *
+     * @throws InterruptedException          {@inheritDoc}
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    @Override
+    public int drainTo(Collection<? super E> c, int minElements, int maxElements,
+                       long timeout, TimeUnit unit)
+        throws InterruptedException {
+        checkNotNull(c);
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        if (maxElements <= 0) {
+            return 0;
+        }
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            // Take elements as they arrive, so that each wakeup is
+            // paid for by an element, as in take
+            int n = drainTo(c, maxElements);
+            while (n < minElements && n < maxElements && nanos > 0) {
+                nanos = notEmpty.awaitNanos(nanos);
+                n += drainTo(c, maxElements - n);
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Inserts as many elements as there is space for, and signals
+     * waiting takers, under a single acquisition of the lock, waiting
+     * for space as many times as needed.  The collection is copied to
+     * an array before the lock is acquired, and no element is inserted
+     * if any of them is null.
+     *
+     * @throws InterruptedException     {@inheritDoc}
+     * @throws NullPointerException     {@inheritDoc}
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    @Override
+    public int offerAll(Collection<? extends E> c, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        return enqueueAll(toArrayChecked(c), true, unit.toNanos(timeout));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Inserts as many elements as there is space for, and signals
+     * waiting takers, under a single acquisition of the lock, waiting
+     * for space as many times as needed.  The collection is copied to
+     * an array before the lock is acquired, and no element is inserted
+     * if any of them is null.
+     *
+     * @throws InterruptedException     {@inheritDoc}
+     * @throws NullPointerException     {@inheritDoc}
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    @Override
+    public void putAll(Collection<? extends E> c) throws InterruptedException {
+        enqueueAll(toArrayChecked(c), false, 0L);
+    }
+
+    /**
+     * Returns the elements of c in an array, checking that c is not
+     * this queue, and that no element is null.
+     */
+    private Object[] toArrayChecked(Collection<? extends E> c) {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        Object[] a = c.toArray();
+        for (Object x : a) {
+            checkNotNull(x);
+        }
+        return a;
+    }
+
+    /**
+     * Inserts the elements of a in order, waiting for space if
+     * necessary, up to the given time if timed.
+     *
+     * @return the number of elements inserted
+     */
+    private int enqueueAll(Object[] a, boolean timed, long nanos)
+        throws InterruptedException {
+        final Object[] items = this.items;
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            int n = 0;
+            while (n < a.length) {
+                int k = Math.min(items.length - count, a.length - n);
+                if (k == 0) {
+                    if (!timed) {
+                        notFull.await();
+                    } else if (nanos <= 0) {
+                        break;
+                    } else {
+                        nanos = notFull.awaitNanos(nanos);
+                    }
+                    continue;
+                }
+                int put = putIndex;
+                int k1 = Math.min(k, items.length - put);
+                System.arraycopy(a, n, items, put, k1);
+                System.arraycopy(a, n + k1, items, 0, k - k1);
+                if ((put += k) >= items.length) {
+                    put -= items.length;
+                }
+                putIndex = put;
+                count += k;
+                n += k;
+                for (; k > 0 && lock.hasWaiters(notEmpty); k--) {
+                    notEmpty.signal();
+                }
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
     /**
      * Returns an iterator over the elements in this queue in proper sequence.
      * The elements will be returned in order from first (head) to last (tail).
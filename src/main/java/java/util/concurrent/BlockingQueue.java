@@ -396,4 +396,170 @@ public interface BlockingQueue<E> extends Queue<E> {
      *         it from being added to the specified collection
      */
     int drainTo(Collection<? super E> c, int maxElements);
+
+    /**
+     * Removes at most the given number of elements from this queue and
+     * adds them to the given collection, waiting if necessary up to the
+     * specified wait time for at least {@code minElements} of them to
+     * become available.  If fewer than {@code minElements} elements
+     * become available before the wait time elapses, removes those
+     * that are available.  A failure encountered while attempting to
+     * add elements to collection {@code c} may result in elements
+     * being in neither, either or both collections when the
+     * associated exception is thrown.  Attempts to drain a queue to
+     * itself result in {@code IllegalArgumentException}. Further, the
+     * behavior of this operation is undefined if the specified
+     * collection is modified while the operation is in progress.
+     *
+     * @implSpec
+     * The default implementation calls {@link #drainTo(Collection, int)},
+     * and then {@link #poll(long, TimeUnit)} while fewer than
+     * {@code minElements} elements have been removed, draining the
+     * elements available after each successful poll.  Implementations
+     * guarded by locks should override this method to wait and remove
+     * the elements under a single acquisition of the lock.
+     *
+     * @param c the collection to transfer elements into
+     * @param minElements the number of elements to wait for
+     * @param maxElements the maximum number of elements to transfer
+     * @param timeout how long to wait before giving up, in units of
+     *        {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the
+     *        {@code timeout} parameter
+     * @return the number of elements transferred
+     * @throws InterruptedException if interrupted while waiting
+     * @throws UnsupportedOperationException if addition of elements
+     *         is not supported by the specified collection
+     * @throws ClassCastException if the class of an element of this queue
+     *         prevents it from being added to the specified collection
+     * @throws NullPointerException if the specified collection is null
+     * @throws IllegalArgumentException if the specified collection is this
+     *         queue, or some property of an element of this queue prevents
+     *         it from being added to the specified collection
+     * @since 1.8
+     */
+    default int drainTo(Collection<? super E> c, int minElements, int maxElements,
+                        long timeout, TimeUnit unit)
+        throws InterruptedException {
+        if (c == null) {
+            throw new NullPointerException();
+        }
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        if (maxElements <= 0) {
+            return 0;
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int n = drainTo(c, maxElements);
+        while (n < minElements && n < maxElements) {
+            E e = poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (e == null) {
+                break;
+            }
+            c.add(e);
+            ++n;
+            n += drainTo(c, maxElements - n);
+        }
+        return n;
+    }
+
+    /**
+     * Inserts the elements of the specified collection into this queue,
+     * in the order returned by its iterator, waiting up to the
+     * specified wait time if necessary for space to become available.
+     * Elements are inserted as space allows, so if the wait time
+     * elapses, a leading part of the collection may have been
+     * inserted.  The behavior of this operation is undefined if the
+     * specified collection is modified while the operation is in
+     * progress.
+     *
+     * @implSpec
+     * The default implementation copies the collection to an array,
+     * checks that no element is null, and then calls {@link
+     * #offer(Object, long, TimeUnit)} for each element in turn.  Implementations guarded by
+     * locks should override this method to insert as many elements as
+     * there is space for, and to signal waiting consumers, under a
+     * single acquisition of the lock.
+     *
+     * @param c the elements to insert
+     * @param timeout how long to wait before giving up, in units of
+     *        {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the
+     *        {@code timeout} parameter
+     * @return the number of elements inserted, from the start of the
+     *         collection
+     * @throws InterruptedException if interrupted while waiting
+     * @throws ClassCastException if the class of an element of the
+     *         specified collection prevents it from being added to this queue
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements are null
+     * @throws IllegalArgumentException if the specified collection is
+     *         this queue, or some property of an element of it prevents
+     *         it from being added to this queue
+     * @since 1.8
+     */
+    default int offerAll(Collection<? extends E> c, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        Object[] a = c.toArray();
+        for (Object x : a) {
+            if (x == null) {
+                throw new NullPointerException();
+            }
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int n = 0;
+        for (Object x : a) {
+            @SuppressWarnings("unchecked") E e = (E) x;
+            if (!offer(e, deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                break;
+            }
+            ++n;
+        }
+        return n;
+    }
+
+    /**
+     * Inserts all of the elements of the specified collection into this
+     * queue, in the order returned by its iterator, waiting if
+     * necessary for space to become available.  If interrupted while
+     * waiting, a leading part of the collection may have been
+     * inserted.  The behavior of this operation is undefined if the
+     * specified collection is modified while the operation is in
+     * progress.
+     *
+     * @implSpec
+     * The default implementation copies the collection to an array,
+     * checks that no element is null, and then calls {@link #put} for
+     * each element in turn.
+     *
+     * @param c the elements to insert
+     * @throws InterruptedException if interrupted while waiting
+     * @throws ClassCastException if the class of an element of the
+     *         specified collection prevents it from being added to this queue
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements are null
+     * @throws IllegalArgumentException if the specified collection is
+     *         this queue, or some property of an element of it prevents
+     *         it from being added to this queue
+     * @since 1.8
+     */
+    default void putAll(Collection<? extends E> c) throws InterruptedException {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        Object[] a = c.toArray();
+        for (Object x : a) {
+            if (x == null) {
+                throw new NullPointerException();
+            }
+        }
+        for (Object x : a) {
+            @SuppressWarnings("unchecked") E e = (E) x;
+            put(e);
+        }
+    }
 }
@@ -0,0 +1,1235 @@
+package java.util.concurrent;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * 基于 ConcurrentHashMap 的有界并发缓存：使用 W-TinyLFU 准入与淘汰策略，支持按数量或权重限界、写后/访问后过期，读操作只写入分段的无锁缓冲区，由维护线程批量处理。
+ *
+ * A concurrent cache bounded by entry count or total weight, built on a
+ * {@link ConcurrentHashMap}.  Retrievals never block and updates block only
+ * on the map's own bin locks; the eviction policy is maintained separately,
+ * under a single lock that is only ever acquired with {@code tryLock}.
+ *
+ * <p><b>Eviction policy.</b> Entries are evicted by <em>W-TinyLFU</em>.  New
+ * entries enter a small LRU <em>admission window</em> (1% of the bound).
+ * Entries leaving the window compete for a place in the <em>main</em>
+ * region, a segmented LRU split into <em>probation</em> and
+ * <em>protected</em> (80% of main) segments: a candidate from the window is
+ * admitted only if its estimated access frequency is higher than that of
+ * the probation segment's least recently used entry, which is evicted in
+ * its place.  Frequencies are estimated with a 4-bit count-min sketch of
+ * all recent accesses, halved periodically so that the popularity of old
+ * entries decays.  This keeps recently and frequently used entries alike,
+ * and resists scans that would flush an LRU cache.
+ *
+ * <p><b>Concurrency.</b> A hit records the access in one of several
+ * striped, lossy ring buffers chosen by the thread's probe, as in
+ * {@link java.util.concurrent.atomic.LongAdder}, and returns.  Insertions,
+ * updates and removals are appended to a write queue, which, unlike the
+ * read buffers, never drops entries.  Whichever thread fills a read buffer
+ * or appends a write then tries to take the eviction lock and, if it gets
+ * it, applies the buffered events in one batch, expires entries and
+ * evicts down to the bound.  The policy therefore lags the map slightly,
+ * and the cache may briefly exceed its bound under heavy write load.
+ *
+ * <p><b>Expiration.</b> Entries may expire a fixed time after they were
+ * created or last replaced ({@link Builder#expireAfterWrite}) and/or after
+ * they were last read or written ({@link Builder#expireAfterAccess}).  An
+ * expired entry is never returned; it is removed during the next
+ * maintenance run.
+ *
+ * <p><b>Statistics.</b> Hit, miss, load and eviction counts are kept in
+ * {@link LongAdder}s and reported by {@link #stats()}.
+ *
+ * <p>Like {@code ConcurrentHashMap}, this class does not allow {@code null}
+ * to be used as a key or value.
+ *
+ * @param <K> the type of keys maintained by this cache
+ * @param <V> the type of cached values
+ * @since 1.8
+ */
+public class BoundedConcurrentCache<K,V> {
+
+    /*
+     * Overview:
+     *
+     * The map holds Nodes.  A Node is created by a put or load inside a
+     * ConcurrentHashMap compute method, updated in place by later puts
+     * (also inside compute, so updates and conditional removals of the
+     * same key are serialized by the bin lock), and "retired" once it has
+     * been removed from the map.  Every change to the map is followed by
+     * a task on writeBuffer (AddTask, UpdateTask, RemovalTask) that
+     * replays the change against the policy; since these are appended
+     * after the map operation, tasks for the same node may be applied in
+     * either order, which the tasks tolerate by checking the node's state
+     * and whether it is currently linked.
+     *
+     * Policy state (the deques, weights and the sketch) is guarded by
+     * evictionLock.  The deques are intrusive: each Node carries its own
+     * access-order links and, when expireAfterWrite is set, write-order
+     * links.  Each deque is a circular list through a sentinel Node.
+     *
+     * Maintenance is triggered by a full read buffer or by any write, and
+     * runs in the triggering thread if it can tryLock evictionLock.  After
+     * releasing the lock, a maintainer re-checks writeBuffer so that a
+     * write whose tryLock failed while the lock was held is never left
+     * unapplied.
+     */
+
+    /** Number of CPUS, to place bound on the number of read buffers */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /** The number of read buffers, a power of two */
+    static final int READ_BUFFER_STRIPES = tableSizeFor(NCPU);
+
+    /** Percentage of the maximum given to the admission window */
+    static final int WINDOW_PERCENT = 1;
+
+    /** Percentage of the main region given to the protected segment */
+    static final int PROTECTED_PERCENT = 80;
+
+    /** Node queue positions */
+    static final int UNLINKED  = 0;
+    static final int WINDOW    = 1;
+    static final int PROBATION = 2;
+    static final int PROTECTED = 3;
+
+    /** Node states */
+    static final int ALIVE   = 0;
+    static final int RETIRED = 1;
+    static final int DEAD    = 2;
+
+    /** The backing map */
+    final ConcurrentHashMap<K,Node<K,V>> data;
+
+    /** The maximum total weight of the cache */
+    final long maximum;
+
+    /** The maximum weight of the admission window */
+    final long windowMaximum;
+
+    /** The maximum weight of the protected segment */
+    final long protectedMaximum;
+
+    /** Computes entry weights, or null if every entry weighs 1 */
+    final ToIntBiFunction<? super K, ? super V> weigher;
+
+    /** Nanoseconds after a write at which an entry expires, or 0 */
+    final long expireAfterWriteNanos;
+
+    /** Nanoseconds after an access at which an entry expires, or 0 */
+    final long expireAfterAccessNanos;
+
+    /** The time source */
+    final LongSupplier ticker;
+
+    /** Guards the policy state below */
+    final ReentrantLock evictionLock = new ReentrantLock();
+
+    /** Pending writes to apply to the policy */
+    final ConcurrentLinkedQueue<Runnable> writeBuffer =
+        new ConcurrentLinkedQueue<Runnable>();
+
+    /** Pending reads to apply to the policy */
+    final ReadBuffer[] readBuffers;
+
+    /** Access-order deque sentinels */
+    final Node<K,V> window = new Node<K,V>();
+    final Node<K,V> probation = new Node<K,V>();
+    final Node<K,V> protectedSegment = new Node<K,V>();
+
+    /** Write-order deque sentinel, used if expireAfterWriteNanos != 0 */
+    final Node<K,V> writeOrder = new Node<K,V>();
+
+    /** Access frequency estimates */
+    final FrequencySketch sketch;
+
+    /** Weights, guarded by evictionLock */
+    volatile long weightedSize;
+    long windowWeight;
+    long protectedWeight;
+
+    /** Statistics */
+    final LongAdder hitCount = new LongAdder();
+    final LongAdder missCount = new LongAdder();
+    final LongAdder loadSuccessCount = new LongAdder();
+    final LongAdder loadFailureCount = new LongAdder();
+    final LongAdder totalLoadTime = new LongAdder();
+    final LongAdder evictionCount = new LongAdder();
+    final LongAdder evictionWeight = new LongAdder();
+
+    BoundedConcurrentCache(Builder<K,V> b) {
+        this.maximum = b.maximum;
+        this.weigher = b.weigher;
+        this.expireAfterWriteNanos = b.expireAfterWriteNanos;
+        this.expireAfterAccessNanos = b.expireAfterAccessNanos;
+        this.ticker = b.ticker;
+        this.data = new ConcurrentHashMap<K,Node<K,V>>(b.initialCapacity);
+        long w = maximum * WINDOW_PERCENT / 100L;
+        this.windowMaximum = (maximum > 0L) ? Math.max(1L, w) : 0L;
+        this.protectedMaximum =
+            (maximum - windowMaximum) * PROTECTED_PERCENT / 100L;
+        this.sketch = new FrequencySketch(
+            (weigher == null) ? maximum : Math.max(b.initialCapacity, 16L));
+        ReadBuffer[] rbs = new ReadBuffer[READ_BUFFER_STRIPES];
+        for (int i = 0; i < rbs.length; ++i) {
+            rbs[i] = new ReadBuffer();
+        }
+        this.readBuffers = rbs;
+        window.prev = window.next = window;
+        probation.prev = probation.next = probation;
+        protectedSegment.prev = protectedSegment.next = protectedSegment;
+        writeOrder.prevWrite = writeOrder.nextWrite = writeOrder;
+    }
+
+    /**
+     * Returns a power of two size for the given target capacity.
+     */
+    static int tableSizeFor(int c) {
+        int n = -1 >>> Integer.numberOfLeadingZeros(Math.max(1, c) - 1);
+        return (n < 0) ? 1 : (n >= 1 << 16) ? 1 << 16 : n + 1;
+    }
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Returns the value associated with the key in this cache, or
+     * {@code null} if there is no unexpired value for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the cached value, or {@code null}
+     * @throws NullPointerException if the specified key is null
+     */
+    public V getIfPresent(Object key) {
+        long now = ticker.getAsLong();
+        Node<K,V> n = data.get(key);
+        if (n == null || hasExpired(n, now)) {
+            missCount.increment();
+            if (n != null) {
+                scheduleDrain();
+            }
+            return null;
+        }
+        hitCount.increment();
+        afterRead(n, now);
+        return n.value;
+    }
+
+    /**
+     * Returns the value associated with the key in this cache, obtaining
+     * it from the loader if necessary.  The loader is invoked at most once
+     * per miss, atomically, using
+     * {@link ConcurrentHashMap#computeIfAbsent}; other threads requesting
+     * the same key wait for it, so it should be short and must not update
+     * this cache.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param loader the function to compute a value
+     * @return the current (existing or computed) value, or {@code null} if
+     *         the loader returned {@code null}
+     * @throws NullPointerException if the specified key or loader is null
+     * @throws RuntimeException or Error if the loader does so, in which
+     *         case the mapping is left unestablished
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        if (key == null || loader == null) {
+            throw new NullPointerException();
+        }
+        long now = ticker.getAsLong();
+        Node<K,V> n = data.get(key);
+        if (n != null && !hasExpired(n, now)) {
+            hitCount.increment();
+            afterRead(n, now);
+            return n.value;
+        }
+        missCount.increment();
+        Outcome<K,V> out = new Outcome<K,V>();
+        if (n == null) {
+            n = data.computeIfAbsent(key, k -> {
+                V v = load(k, loader);
+                return (v == null) ? null : (out.added = newNode(k, v, now));
+            });
+        } else {
+            n = data.compute(key, (k, p) -> {
+                if (p != null && !hasExpired(p, now)) {
+                    return p;
+                }
+                out.replaced = p;
+                V v = load(k, loader);
+                return (v == null) ? null : (out.added = newNode(k, v, now));
+            });
+        }
+        afterWrite(out);
+        if (n == null) {
+            return null;
+        }
+        if (n != out.added) {
+            afterRead(n, now);
+        }
+        return n.value;
+    }
+
+    /**
+     * Associates the value with the key in this cache, replacing any
+     * existing value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous unexpired value associated with the key, or
+     *         {@code null} if there was none
+     * @throws NullPointerException if the specified key or value is null
+     */
+    public V put(K key, V value) {
+        if (key == null || value == null) {
+            throw new NullPointerException();
+        }
+        long now = ticker.getAsLong();
+        int weight = weigh(key, value);
+        Outcome<K,V> out = new Outcome<K,V>();
+        data.compute(key, (k, p) -> {
+            if (p == null || hasExpired(p, now)) {
+                out.replaced = p;
+                return out.added = new Node<K,V>(k, value, weight, now);
+            }
+            out.oldValue = p.value;
+            p.value = value;
+            p.weight = weight;
+            p.writeTime = now;
+            p.accessTime = now;
+            return out.updated = p;
+        });
+        afterWrite(out);
+        return out.oldValue;
+    }
+
+    /**
+     * Removes the mapping for the key from this cache, if present.
+     *
+     * @param key key whose mapping is to be removed from the cache
+     * @return the previous unexpired value associated with the key, or
+     *         {@code null} if there was none
+     * @throws NullPointerException if the specified key is null
+     */
+    public V remove(Object key) {
+        Node<K,V> n = data.remove(key);
+        if (n == null) {
+            return null;
+        }
+        Outcome<K,V> out = new Outcome<K,V>();
+        out.replaced = n;
+        afterWrite(out);
+        return hasExpired(n, ticker.getAsLong()) ? null : n.value;
+    }
+
+    /**
+     * Removes all entries from this cache.
+     */
+    public void invalidateAll() {
+        for (Node<K,V> n : data.values()) {
+            if (data.remove(n.key, n)) {
+                n.state = RETIRED;
+                writeBuffer.offer(new RemovalTask(n, false));
+            }
+        }
+        scheduleDrain();
+    }
+
+    /**
+     * Returns the approximate number of entries in this cache, which may
+     * include entries that have expired but not yet been removed.
+     *
+     * @return the estimated number of entries
+     */
+    public long estimatedSize() {
+        return data.mappingCount();
+    }
+
+    /**
+     * Returns the total weight of the entries currently known to the
+     * eviction policy.  When no weigher is configured this is their count.
+     *
+     * @return the weighted size of this cache
+     */
+    public long weightedSize() {
+        return weightedSize;
+    }
+
+    /**
+     * Returns the maximum total weight of this cache.
+     *
+     * @return the maximum weight
+     */
+    public long maximum() {
+        return maximum;
+    }
+
+    /**
+     * Performs any pending maintenance: applies buffered reads and writes,
+     * removes expired entries and evicts down to the bound.  Maintenance
+     * normally happens as a side effect of other operations, so calling
+     * this is rarely necessary.
+     */
+    public void cleanUp() {
+        evictionLock.lock();
+        try {
+            maintenance();
+        } finally {
+            evictionLock.unlock();
+        }
+        if (!writeBuffer.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * Returns a snapshot of this cache's cumulative statistics.
+     *
+     * @return the current statistics
+     */
+    public Stats stats() {
+        return new Stats(hitCount.sum(), missCount.sum(),
+                         loadSuccessCount.sum(), loadFailureCount.sum(),
+                         totalLoadTime.sum(), evictionCount.sum(),
+                         evictionWeight.sum());
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + "[size=" + estimatedSize() +
+            ", weightedSize=" + weightedSize + ", maximum=" + maximum + "]";
+    }
+
+    /* ---------------- Entry helpers -------------- */
+
+    final int weigh(K key, V value) {
+        if (weigher == null) {
+            return 1;
+        }
+        int w = weigher.applyAsInt(key, value);
+        if (w < 0) {
+            throw new IllegalArgumentException("Negative weight: " + w);
+        }
+        return w;
+    }
+
+    final Node<K,V> newNode(K key, V value, long now) {
+        return new Node<K,V>(key, value, weigh(key, value), now);
+    }
+
+    final boolean hasExpired(Node<K,V> n, long now) {
+        return (expireAfterWriteNanos != 0L &&
+                now - n.writeTime >= expireAfterWriteNanos) ||
+            (expireAfterAccessNanos != 0L &&
+             now - n.accessTime >= expireAfterAccessNanos);
+    }
+
+    /**
+     * Invokes the loader, recording statistics.
+     */
+    final V load(K key, Function<? super K, ? extends V> loader) {
+        long start = ticker.getAsLong();
+        boolean ok = false;
+        try {
+            V v = loader.apply(key);
+            ok = true;
+            return v;
+        } finally {
+            totalLoadTime.add(ticker.getAsLong() - start);
+            if (ok) {
+                loadSuccessCount.increment();
+            } else {
+                loadFailureCount.increment();
+            }
+        }
+    }
+
+    /**
+     * The effect of a compute call on the map, for afterWrite.
+     */
+    static final class Outcome<K,V> {
+        Node<K,V> added;     // node newly placed in the map
+        Node<K,V> replaced;  // node removed from the map
+        Node<K,V> updated;   // node whose value was replaced in place
+        V oldValue;          // value replaced in place
+    }
+
+    /* ---------------- Buffering -------------- */
+
+    /**
+     * Records a hit in a read buffer, draining the buffers if it is full.
+     */
+    final void afterRead(Node<K,V> n, long now) {
+        if (expireAfterAccessNanos != 0L) {
+            n.accessTime = now;
+        }
+        int h;
+        if ((h = ThreadLocalRandom.getProbe()) == 0) {
+            ThreadLocalRandom.localInit();
+            h = ThreadLocalRandom.getProbe();
+        }
+        int r = readBuffers[h & (readBuffers.length - 1)].offer(n);
+        if (r == ReadBuffer.FULL) {
+            scheduleDrain();
+        } else if (r == ReadBuffer.FAILED) {
+            ThreadLocalRandom.advanceProbe(h);
+        }
+    }
+
+    /**
+     * Queues the policy updates for a map change and runs maintenance if
+     * the eviction lock is free.
+     */
+    final void afterWrite(Outcome<K,V> out) {
+        Node<K,V> n;
+        if ((n = out.replaced) != null) {
+            n.state = RETIRED;
+            writeBuffer.offer(new RemovalTask(n, false));
+        }
+        if ((n = out.added) != null) {
+            writeBuffer.offer(new AddTask(n));
+        }
+        if ((n = out.updated) != null) {
+            writeBuffer.offer(new UpdateTask(n));
+        }
+        if (out.replaced != null || out.added != null || out.updated != null) {
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * Runs maintenance if the eviction lock is free.  If it is held, the
+     * holder is guaranteed to see any write queued before this call.
+     */
+    final void scheduleDrain() {
+        do {
+            if (!evictionLock.tryLock()) {
+                return;
+            }
+            try {
+                maintenance();
+            } finally {
+                evictionLock.unlock();
+            }
+        } while (!writeBuffer.isEmpty());
+    }
+
+    /**
+     * Applies buffered events, expires and evicts.  Called with
+     * evictionLock held.
+     */
+    final void maintenance() {
+        for (ReadBuffer rb : readBuffers) {
+            rb.drain(this);
+        }
+        Runnable task;
+        while ((task = writeBuffer.poll()) != null) {
+            task.run();
+        }
+        if (expireAfterWriteNanos != 0L || expireAfterAccessNanos != 0L) {
+            expireEntries(ticker.getAsLong());
+        }
+        evictEntries();
+    }
+
+    /**
+     * Lossy, bounded, multiple-producer ring buffer of recent reads,
+     * drained under the eviction lock.  Padded, like the cells of
+     * {@code Striped64}, so that threads hitting different stripes do not
+     * contend on the same cache line.
+     */
+    @sun.misc.Contended static final class ReadBuffer {
+        static final int SIZE = 16;
+        static final int MASK = SIZE - 1;
+        static final int SUCCESS = 0;
+        static final int FAILED = 1;
+        static final int FULL = 2;
+
+        final Object[] buffer = new Object[SIZE];
+        volatile long head;   // written only under the eviction lock
+        volatile long tail;   // CASed by producers
+
+        int offer(Object e) {
+            long h = head, t = tail;
+            if (t - h >= SIZE) {
+                return FULL;
+            }
+            if (!UNSAFE.compareAndSwapLong(this, TAIL, t, t + 1L)) {
+                return FAILED;
+            }
+            UNSAFE.putOrderedObject(buffer, ABASE + ((t & MASK) << ASHIFT), e);
+            return (t + 1L - h >= SIZE) ? FULL : SUCCESS;
+        }
+
+        @SuppressWarnings("unchecked")
+        <K,V> void drain(BoundedConcurrentCache<K,V> cache) {
+            long h = head, t = tail;
+            for (; h != t; ++h) {
+                long offset = ABASE + ((h & MASK) << ASHIFT);
+                Object e = UNSAFE.getObjectVolatile(buffer, offset);
+                if (e == null) {
+                    break; // claimed but not yet published
+                }
+                UNSAFE.putOrderedObject(buffer, offset, null);
+                cache.onAccess((Node<K,V>) e);
+            }
+            UNSAFE.putOrderedLong(this, HEAD, h);
+        }
+
+        // Unsafe mechanics
+        private static final sun.misc.Unsafe UNSAFE;
+        private static final long HEAD;
+        private static final long TAIL;
+        private static final long ABASE;
+        private static final int ASHIFT;
+        static {
+            try {
+                UNSAFE = sun.misc.Unsafe.getUnsafe();
+                Class<?> k = ReadBuffer.class;
+                HEAD = UNSAFE.objectFieldOffset
+                    (k.getDeclaredField("head"));
+                TAIL = UNSAFE.objectFieldOffset
+                    (k.getDeclaredField("tail"));
+                Class<?> ak = Object[].class;
+                ABASE = UNSAFE.arrayBaseOffset(ak);
+                int scale = UNSAFE.arrayIndexScale(ak);
+                if ((scale & (scale - 1)) != 0) {
+                    throw new Error("data type scale not a power of two");
+                }
+                ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+            } catch (Exception e) {
+                throw new Error(e);
+            }
+        }
+    }
+
+    /* ---------------- Write tasks -------------- */
+
+    final class AddTask implements Runnable {
+        final Node<K,V> node;
+        AddTask(Node<K,V> node) { this.node = node; }
+        @Override
+        public void run() {
+            Node<K,V> n = node;
+            if (n.state != ALIVE || n.queue != UNLINKED) {
+                return;
+            }
+            int w = n.weight;
+            n.policyWeight = w;
+            weightedSize += w;
+            windowWeight += w;
+            n.queue = WINDOW;
+            linkLast(window, n);
+            if (expireAfterWriteNanos != 0L) {
+                linkLastWrite(writeOrder, n);
+            }
+            sketch.increment(n.hash);
+        }
+    }
+
+    final class UpdateTask implements Runnable {
+        final Node<K,V> node;
+        UpdateTask(Node<K,V> node) { this.node = node; }
+        @Override
+        public void run() {
+            Node<K,V> n = node;
+            if (n.state != ALIVE || n.queue == UNLINKED) {
+                return; // the pending AddTask will see the new weight
+            }
+            int w = n.weight, delta = w - n.policyWeight;
+            n.policyWeight = w;
+            weightedSize += delta;
+            if (n.queue == WINDOW) {
+                windowWeight += delta;
+            } else if (n.queue == PROTECTED) {
+                protectedWeight += delta;
+            }
+            if (expireAfterWriteNanos != 0L) {
+                unlinkWrite(n);
+                linkLastWrite(writeOrder, n);
+            }
+            onAccess(n);
+        }
+    }
+
+    final class RemovalTask implements Runnable {
+        final Node<K,V> node;
+        final boolean evicted;
+        RemovalTask(Node<K,V> node, boolean evicted) {
+            this.node = node;
+            this.evicted = evicted;
+        }
+        @Override
+        public void run() {
+            Node<K,V> n = node;
+            if (n.queue != UNLINKED) {
+                unlinkFromPolicy(n);
+                if (evicted) {
+                    evictionCount.increment();
+                    evictionWeight.add(n.policyWeight);
+                }
+            }
+            n.state = DEAD;
+        }
+    }
+
+    /* ---------------- Policy -------------- */
+
+    /**
+     * Updates the policy for a read of, or write to, a linked node.
+     */
+    final void onAccess(Node<K,V> n) {
+        if (n.state != ALIVE) {
+            return;
+        }
+        switch (n.queue) {
+        case WINDOW:
+            sketch.increment(n.hash);
+            unlink(n);
+            linkLast(window, n);
+            break;
+        case PROBATION:
+            sketch.increment(n.hash);
+            unlink(n);
+            n.queue = PROTECTED;
+            protectedWeight += n.policyWeight;
+            linkLast(protectedSegment, n);
+            demoteFromProtected();
+            break;
+        case PROTECTED:
+            sketch.increment(n.hash);
+            unlink(n);
+            linkLast(protectedSegment, n);
+            break;
+        default:
+            break;
+        }
+    }
+
+    /**
+     * Moves least recently used protected entries to probation while the
+     * protected segment is over its share.
+     */
+    final void demoteFromProtected() {
+        Node<K,V> s = protectedSegment, n;
+        while (protectedWeight > protectedMaximum && (n = s.next) != s) {
+            unlink(n);
+            protectedWeight -= n.policyWeight;
+            n.queue = PROBATION;
+            linkLast(probation, n);
+        }
+    }
+
+    /**
+     * Removes a node from the deques and the weight totals.
+     */
+    final void unlinkFromPolicy(Node<K,V> n) {
+        int q = n.queue;
+        unlink(n);
+        if (expireAfterWriteNanos != 0L) {
+            unlinkWrite(n);
+        }
+        weightedSize -= n.policyWeight;
+        if (q == WINDOW) {
+            windowWeight -= n.policyWeight;
+        } else if (q == PROTECTED) {
+            protectedWeight -= n.policyWeight;
+        }
+        n.queue = UNLINKED;
+    }
+
+    /**
+     * Removes expired entries, oldest first, from each deque.
+     */
+    final void expireEntries(long now) {
+        if (expireAfterAccessNanos != 0L) {
+            expireAccessOrder(window, now);
+            expireAccessOrder(probation, now);
+            expireAccessOrder(protectedSegment, now);
+        }
+        if (expireAfterWriteNanos != 0L) {
+            Node<K,V> s = writeOrder, n;
+            while ((n = s.nextWrite) != s &&
+                   now - n.writeTime >= expireAfterWriteNanos) {
+                if (!evict(n, now)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    final void expireAccessOrder(Node<K,V> s, long now) {
+        Node<K,V> n;
+        while ((n = s.next) != s &&
+               now - n.accessTime >= expireAfterAccessNanos) {
+            if (!evict(n, now)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Moves window overflow into the main region and evicts until the
+     * cache is within its bound, using TinyLFU admission between the
+     * entries leaving the window (candidates, at the probation tail) and
+     * the least recently used probation entries (victims).
+     */
+    final void evictEntries() {
+        int candidates = 0;
+        Node<K,V> n;
+        while (windowWeight > windowMaximum && (n = window.next) != window) {
+            unlink(n);
+            windowWeight -= n.policyWeight;
+            n.queue = PROBATION;
+            linkLast(probation, n);
+            ++candidates;
+        }
+        while (weightedSize > maximum) {
+            Node<K,V> victim = probation.next;
+            if (victim == probation) {
+                // Probation exhausted: fall back to protected, then window
+                Node<K,V> s = (protectedSegment.next != protectedSegment) ?
+                    protectedSegment : window;
+                if ((n = s.next) == s) {
+                    break;
+                }
+                evict(n, Long.MIN_VALUE);
+                continue;
+            }
+            Node<K,V> candidate = (candidates > 0) ? probation.prev : victim;
+            if (candidate != victim && !admit(candidate, victim)) {
+                victim = candidate;
+            }
+            if (victim == candidate && candidates > 0) {
+                --candidates;
+            }
+            evict(victim, Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * Returns true if the candidate should replace the victim.
+     */
+    final boolean admit(Node<K,V> candidate, Node<K,V> victim) {
+        return sketch.frequency(candidate.hash) > sketch.frequency(victim.hash);
+    }
+
+    /**
+     * Removes a linked node from the map and the policy.  If {@code now} is
+     * {@code Long.MIN_VALUE} the node is evicted for size, otherwise only if
+     * it is still expired at that time.
+     *
+     * @return true if the node was unlinked
+     */
+    final boolean evict(Node<K,V> n, long now) {
+        boolean[] mapped = new boolean[1];
+        Node<K,V> r = data.computeIfPresent(n.key, (k, p) -> {
+            if (p != n) {
+                return p;
+            }
+            mapped[0] = true;
+            return (now == Long.MIN_VALUE || hasExpired(p, now)) ? null : p;
+        });
+        if (mapped[0] && r == n) {
+            return false; // refreshed since it expired; leave it in place
+        }
+        if (mapped[0]) {
+            n.state = RETIRED;
+            new RemovalTask(n, true).run();
+        } else {
+            // Already removed from the map; its RemovalTask is pending.
+            unlinkFromPolicy(n);
+        }
+        return true;
+    }
+
+    /* ---------------- Deques -------------- */
+
+    static <K,V> void linkLast(Node<K,V> s, Node<K,V> n) {
+        Node<K,V> p = s.prev;
+        n.prev = p;
+        n.next = s;
+        p.next = n;
+        s.prev = n;
+    }
+
+    static <K,V> void unlink(Node<K,V> n) {
+        Node<K,V> p = n.prev, s = n.next;
+        if (p != null) {
+            p.next = s;
+            s.prev = p;
+            n.prev = n.next = null;
+        }
+    }
+
+    static <K,V> void linkLastWrite(Node<K,V> s, Node<K,V> n) {
+        Node<K,V> p = s.prevWrite;
+        n.prevWrite = p;
+        n.nextWrite = s;
+        p.nextWrite = n;
+        s.prevWrite = n;
+    }
+
+    static <K,V> void unlinkWrite(Node<K,V> n) {
+        Node<K,V> p = n.prevWrite, s = n.nextWrite;
+        if (p != null) {
+            p.nextWrite = s;
+            s.prevWrite = p;
+            n.prevWrite = n.nextWrite = null;
+        }
+    }
+
+    /* ---------------- Nodes -------------- */
+
+    /**
+     * A cache entry.  The value, weight and times are written inside the
+     * map's compute methods; the links, queue and policyWeight only under
+     * the eviction lock.
+     */
+    static final class Node<K,V> {
+        final K key;
+        final int hash;
+        volatile V value;
+        volatile int weight;
+        volatile long writeTime;
+        volatile long accessTime;
+        volatile int state;
+
+        int policyWeight;
+        int queue;
+        Node<K,V> prev, next;
+        Node<K,V> prevWrite, nextWrite;
+
+        /** Creates a sentinel */
+        Node() {
+            this.key = null;
+            this.hash = 0;
+        }
+
+        Node(K key, V value, int weight, long now) {
+            this.key = key;
+            this.hash = FrequencySketch.spread(key.hashCode());
+            this.value = value;
+            this.weight = weight;
+            this.writeTime = now;
+            this.accessTime = now;
+        }
+    }
+
+    /**
+     * A count-min sketch of recent access frequencies, with four 4-bit
+     * counters per key spread over a {@code long[]} (sixteen counters per
+     * element).  Once the number of increments reaches ten times the table
+     * width, every counter is halved so that old popularity fades.
+     * Accessed only under the eviction lock.
+     */
+    static final class FrequencySketch {
+        static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L,
+            0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+        static final long RESET_MASK = 0x7777777777777777L;
+        static final long ONE_MASK = 0x1111111111111111L;
+
+        final long[] table;
+        final int tableMask;
+        final int sampleSize;
+        int size;
+
+        FrequencySketch(long expectedEntries) {
+            int n = (int) Math.min(Math.max(expectedEntries, 8L), 1L << 26);
+            int len = 1 << (32 - Integer.numberOfLeadingZeros(n - 1));
+            table = new long[len];
+            tableMask = len - 1;
+            sampleSize = 10 * len;
+        }
+
+        /**
+         * Scrambles a hash code, as the sketch's row hashes assume
+         * well-mixed input.
+         */
+        static int spread(int h) {
+            h *= 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+
+        int indexOf(int hash, int i) {
+            long h = (hash + SEEDS[i]) * SEEDS[i];
+            h += h >>> 32;
+            return (int) h & tableMask;
+        }
+
+        /**
+         * Returns the estimated number of occurrences of the hash, capped
+         * at 15.
+         */
+        int frequency(int hash) {
+            int start = (hash & 3) << 2, f = 15;
+            for (int i = 0; i < 4; i++) {
+                int c = (int) ((table[indexOf(hash, i)] >>> ((start + i) << 2))
+                               & 0xfL);
+                f = Math.min(f, c);
+            }
+            return f;
+        }
+
+        /**
+         * Increments the counters for the hash, aging the sketch when the
+         * sample period is reached.
+         */
+        void increment(int hash) {
+            int start = (hash & 3) << 2;
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                int j = indexOf(hash, i), offset = (start + i) << 2;
+                long mask = 0xfL << offset;
+                if ((table[j] & mask) != mask) {
+                    table[j] += 1L << offset;
+                    added = true;
+                }
+            }
+            if (added && ++size >= sampleSize) {
+                reset();
+            }
+        }
+
+        /**
+         * Halves every counter.
+         */
+        void reset() {
+            int odd = 0;
+            for (int i = 0; i < table.length; i++) {
+                odd += Long.bitCount(table[i] & ONE_MASK);
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            size = (size >>> 1) - (odd >>> 2);
+        }
+    }
+
+    /* ---------------- Configuration -------------- */
+
+    /**
+     * A builder of {@link BoundedConcurrentCache} instances.  Either
+     * {@link #maximumSize} or {@link #maximumWeight} (together with a
+     * {@link #weigher}) must be set.
+     *
+     * @param <K> the type of keys of the cache
+     * @param <V> the type of values of the cache
+     */
+    public static final class Builder<K,V> {
+        long maximum = -1L;
+        boolean weighted;
+        ToIntBiFunction<? super K, ? super V> weigher;
+        long expireAfterWriteNanos;
+        long expireAfterAccessNanos;
+        int initialCapacity = 16;
+        LongSupplier ticker = System::nanoTime;
+
+        /**
+         * Creates a builder with no bound set.
+         */
+        public Builder() {}
+
+        /**
+         * Bounds the cache to the given number of entries.
+         *
+         * @param maximumSize the maximum number of entries
+         * @return this builder
+         * @throws IllegalArgumentException if {@code maximumSize} is negative
+         * @throws IllegalStateException if a bound was already set
+         */
+        public Builder<K,V> maximumSize(long maximumSize) {
+            setMaximum(maximumSize);
+            return this;
+        }
+
+        /**
+         * Bounds the cache to the given total weight, as computed by the
+         * {@link #weigher}.
+         *
+         * @param maximumWeight the maximum total weight
+         * @return this builder
+         * @throws IllegalArgumentException if {@code maximumWeight} is
+         *         negative
+         * @throws IllegalStateException if a bound was already set
+         */
+        public Builder<K,V> maximumWeight(long maximumWeight) {
+            setMaximum(maximumWeight);
+            weighted = true;
+            return this;
+        }
+
+        private void setMaximum(long m) {
+            if (m < 0L) {
+                throw new IllegalArgumentException();
+            }
+            if (maximum >= 0L) {
+                throw new IllegalStateException("maximum already set");
+            }
+            maximum = m;
+        }
+
+        /**
+         * Sets the function computing the weight of each entry, which must
+         * be non-negative.  Weights are computed when an entry is inserted
+         * or replaced.
+         *
+         * @param weigher the weigher
+         * @return this builder
+         * @throws NullPointerException if {@code weigher} is null
+         */
+        public Builder<K,V> weigher(ToIntBiFunction<? super K, ? super V> weigher) {
+            this.weigher = Objects.requireNonNull(weigher);
+            return this;
+        }
+
+        /**
+         * Expires each entry the given duration after it was created or
+         * its value last replaced.
+         *
+         * @param duration the duration, greater than zero
+         * @param unit the unit of {@code duration}
+         * @return this builder
+         * @throws IllegalArgumentException if {@code duration} is not
+         *         positive
+         */
+        public Builder<K,V> expireAfterWrite(long duration, TimeUnit unit) {
+            expireAfterWriteNanos = toNanos(duration, unit);
+            return this;
+        }
+
+        /**
+         * Expires each entry the given duration after it was last read or
+         * written.
+         *
+         * @param duration the duration, greater than zero
+         * @param unit the unit of {@code duration}
+         * @return this builder
+         * @throws IllegalArgumentException if {@code duration} is not
+         *         positive
+         */
+        public Builder<K,V> expireAfterAccess(long duration, TimeUnit unit) {
+            expireAfterAccessNanos = toNanos(duration, unit);
+            return this;
+        }
+
+        private static long toNanos(long duration, TimeUnit unit) {
+            if (duration <= 0L) {
+                throw new IllegalArgumentException();
+            }
+            return unit.toNanos(duration);
+        }
+
+        /**
+         * Sets the initial capacity of the backing map.
+         *
+         * @param initialCapacity the initial capacity
+         * @return this builder
+         * @throws IllegalArgumentException if {@code initialCapacity} is
+         *         negative
+         */
+        public Builder<K,V> initialCapacity(int initialCapacity) {
+            if (initialCapacity < 0) {
+                throw new IllegalArgumentException();
+            }
+            this.initialCapacity = initialCapacity;
+            return this;
+        }
+
+        /**
+         * Sets the nanosecond time source used for expiration and load
+         * timing; {@link System#nanoTime} by default.
+         *
+         * @param ticker the time source
+         * @return this builder
+         * @throws NullPointerException if {@code ticker} is null
+         */
+        public Builder<K,V> ticker(LongSupplier ticker) {
+            this.ticker = Objects.requireNonNull(ticker);
+            return this;
+        }
+
+        /**
+         * Builds a cache with this configuration.
+         *
+         * @return a new cache
+         * @throws IllegalStateException if no bound was set, or a weigher
+         *         was set without a maximum weight or vice versa
+         */
+        public BoundedConcurrentCache<K,V> build() {
+            if (maximum < 0L) {
+                throw new IllegalStateException("no maximum size or weight");
+            }
+            if (weighted != (weigher != null)) {
+                throw new IllegalStateException(
+                    "maximumWeight and weigher must be used together");
+            }
+            return new BoundedConcurrentCache<K,V>(this);
+        }
+    }
+
+    /**
+     * Immutable snapshot of a cache's statistics.
+     */
+    public static final class Stats {
+        private final long hitCount;
+        private final long missCount;
+        private final long loadSuccessCount;
+        private final long loadFailureCount;
+        private final long totalLoadTime;
+        private final long evictionCount;
+        private final long evictionWeight;
+
+        Stats(long hitCount, long missCount, long loadSuccessCount,
+              long loadFailureCount, long totalLoadTime,
+              long evictionCount, long evictionWeight) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.loadSuccessCount = loadSuccessCount;
+            this.loadFailureCount = loadFailureCount;
+            this.totalLoadTime = totalLoadTime;
+            this.evictionCount = evictionCount;
+            this.evictionWeight = evictionWeight;
+        }
+
+        /** @return the number of lookups that found an unexpired entry */
+        public long hitCount() { return hitCount; }
+
+        /** @return the number of lookups that found no unexpired entry */
+        public long missCount() { return missCount; }
+
+        /** @return {@code hitCount / (hitCount + missCount)}, or 1.0 */
+        public double hitRate() {
+            long requests = hitCount + missCount;
+            return (requests == 0L) ? 1.0 : (double) hitCount / requests;
+        }
+
+        /** @return the number of loader invocations that returned */
+        public long loadSuccessCount() { return loadSuccessCount; }
+
+        /** @return the number of loader invocations that threw */
+        public long loadFailureCount() { return loadFailureCount; }
+
+        /** @return the total nanoseconds spent in the loader */
+        public long totalLoadTime() { return totalLoadTime; }
+
+        /** @return the number of entries evicted for size or expiry */
+        public long evictionCount() { return evictionCount; }
+
+        /** @return the total weight of evicted entries */
+        public long evictionWeight() { return evictionWeight; }
+
+        @Override
+        public String toString() {
+            return "Stats[hitCount=" + hitCount + ", missCount=" + missCount +
+                ", loadSuccessCount=" + loadSuccessCount +
+                ", loadFailureCount=" + loadFailureCount +
+                ", totalLoadTime=" + totalLoadTime +
+                ", evictionCount=" + evictionCount +
+                ", evictionWeight=" + evictionWeight + "]";
+        }
+    }
+}
@@ -34,6 +34,8 @@
  */
 
 package java.util.concurrent;
+import java.util.Arrays;
+import java.util.List;
 import java.util.function.Supplier;
 import java.util.function.Consumer;
 import java.util.function.BiConsumer;
@@ -50,6 +52,7 @@ import java.util.concurrent.TimeoutException;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.LockSupport;
 
 /**
@@ -1428,6 +1431,73 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         return d;
     }
 
+    /**
+     * Collects the results of the sources of allAsList into an array,
+     * completing dep with a list view of it once the count of pending
+     * sources reaches zero, or on the first exceptional result.  One
+     * instance, and one ListElement per source not already complete,
+     * replace the tree of intermediate futures built by allOf.
+     */
+    @SuppressWarnings("serial")
+    static final class ListCollector<T> extends AtomicInteger {
+        final CompletableFuture<List<T>> dep;
+        final Object[] results;
+
+        ListCollector(CompletableFuture<List<T>> dep, int n) {
+            super(n);
+            this.dep = dep;
+            this.results = new Object[n];
+        }
+
+        /** Records the (non-null) result r of the source at index i. */
+        @SuppressWarnings("unchecked")
+        final void set(int i, Object r) {
+            Throwable x;
+            if (r instanceof AltResult) {
+                if ((x = ((AltResult)r).ex) != null) {
+                    dep.completeThrowable(x, r);
+                    return;
+                }
+                r = null;
+            }
+            results[i] = r;
+            if (decrementAndGet() == 0) {
+                dep.completeValue((List<T>)Arrays.asList(results));
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class ListElement<T> extends Completion {
+        ListCollector<T> collector;    // null when fired
+        CompletableFuture<?> src;
+        final int index;
+
+        ListElement(ListCollector<T> collector, CompletableFuture<?> src,
+                    int index) {
+            this.collector = collector; this.src = src; this.index = index;
+        }
+
+        @Override
+        final CompletableFuture<List<T>> tryFire(int mode) {
+            ListCollector<T> c; CompletableFuture<?> a; Object r;
+            if ((c = collector) == null || (a = src) == null ||
+                (r = a.result) == null ||
+                !compareAndSetForkJoinTaskTag((short)0, (short)1)) {
+                return null;
+            }
+            collector = null; src = null;
+            c.set(index, r);
+            return c.dep.postFire(a, mode);
+        }
+
+        @Override
+        final boolean isLive() {
+            ListCollector<T> c;
+            return (c = collector) != null && c.dep.result == null;
+        }
+    }
+
     /* ------------- Projected (Ored) BiCompletions -------------- */
 
     /** Pushes completion to this and b unless either done. */
@@ -1946,6 +2016,104 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         return r;
     }
 
+    /* ------------- Timeouts and delays -------------- */
+
+    /**
+     * Singleton delay scheduler, used only for starting and
+     * cancelling tasks.  Its single daemon thread never runs user
+     * code: delayed tasks are handed to their executor, and timeouts
+     * to asyncPool, which completes the future and so runs its
+     * synchronous dependents.  A slow dependent thus cannot hold up
+     * other timers.  Cancelled timers are removed from its queue at
+     * once, so that timeouts of futures completing in time do not
+     * accumulate.
+     */
+    static final class Delayer {
+        static ScheduledFuture<?> delay(Runnable command, long delay,
+                                        TimeUnit unit) {
+            return delayer.schedule(command, delay, unit);
+        }
+
+        static final class DaemonThreadFactory implements ThreadFactory {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r);
+                t.setDaemon(true);
+                t.setName("CompletableFutureDelayScheduler");
+                return t;
+            }
+        }
+
+        static final ScheduledThreadPoolExecutor delayer;
+        static {
+            (delayer = new ScheduledThreadPoolExecutor(
+                1, new DaemonThreadFactory())).
+                setRemoveOnCancelPolicy(true);
+        }
+    }
+
+    /** Action to submit a delayed task to its executor */
+    static final class TaskSubmitter implements Runnable {
+        final Executor executor;
+        final Runnable action;
+        TaskSubmitter(Executor executor, Runnable action) {
+            this.executor = executor;
+            this.action = action;
+        }
+        @Override
+        public void run() { executor.execute(action); }
+    }
+
+    /** Action to completeExceptionally on timeout, run in asyncPool */
+    static final class Timeout implements Runnable {
+        final CompletableFuture<?> f;
+        Timeout(CompletableFuture<?> f) { this.f = f; }
+        @Override
+        public void run() {
+            if (f != null && !f.isDone()) {
+                f.completeExceptionally(new TimeoutException());
+            }
+        }
+    }
+
+    /** Action to complete on timeout, run in asyncPool */
+    static final class DelayedCompleter<U> implements Runnable {
+        final CompletableFuture<U> f;
+        final U u;
+        DelayedCompleter(CompletableFuture<U> f, U u) { this.f = f; this.u = u; }
+        @Override
+        public void run() {
+            if (f != null) {
+                f.complete(u);
+            }
+        }
+    }
+
+    /** Action to cancel unneeded timeouts */
+    static final class Canceller implements BiConsumer<Object, Throwable> {
+        final Future<?> f;
+        Canceller(Future<?> f) { this.f = f; }
+        @Override
+        public void accept(Object ignore, Throwable ex) {
+            if (f != null && !f.isDone()) {
+                f.cancel(false);
+            }
+        }
+    }
+
+    static final class DelayedExecutor implements Executor {
+        final long delay;
+        final TimeUnit unit;
+        final Executor executor;
+        DelayedExecutor(long delay, TimeUnit unit, Executor executor) {
+            this.delay = delay; this.unit = unit; this.executor = executor;
+        }
+        @Override
+        public void execute(Runnable r) {
+            Delayer.delay(new TaskSubmitter(executor, r), delay, unit);
+        }
+    }
+
     /* ------------- public methods -------------- */
 
     /**
@@ -2400,6 +2568,131 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         return uniExceptionallyStage(fn);
     }
 
+    /**
+     * Exceptionally completes this CompletableFuture with a
+     * {@link TimeoutException} if not otherwise completed before the
+     * given timeout.  The timeout is kept by a single daemon thread
+     * shared by all CompletableFutures, and is cancelled, releasing
+     * its resources, as soon as this CompletableFuture completes.  If
+     * the timeout expires, this CompletableFuture is completed, and
+     * its non-async dependent actions are run, by the default
+     * executor of the async methods, not by that shared thread.
+     *
+     * @param timeout how long to wait before completing exceptionally
+     *        with a TimeoutException, in units of {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the
+     *        {@code timeout} parameter
+     * @return this CompletableFuture
+     * @since 1.8
+     */
+    public CompletableFuture<T> orTimeout(long timeout, TimeUnit unit) {
+        if (unit == null) {
+            throw new NullPointerException();
+        }
+        if (result == null) {
+            whenComplete(new Canceller(Delayer.delay(
+                                           new TaskSubmitter(asyncPool, new Timeout(this)),
+                                           timeout, unit)));
+        }
+        return this;
+    }
+
+    /**
+     * Completes this CompletableFuture with the given value if not
+     * otherwise completed before the given timeout.  The timeout is
+     * kept and cancelled as by {@link #orTimeout}.
+     *
+     * @param value the value to use upon timeout
+     * @param timeout how long to wait before completing normally
+     *        with the given value, in units of {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the
+     *        {@code timeout} parameter
+     * @return this CompletableFuture
+     * @since 1.8
+     */
+    public CompletableFuture<T> completeOnTimeout(T value, long timeout,
+                                                  TimeUnit unit) {
+        if (unit == null) {
+            throw new NullPointerException();
+        }
+        if (result == null) {
+            whenComplete(new Canceller(Delayer.delay(
+                                           new TaskSubmitter(asyncPool,
+                                                             new DelayedCompleter<T>(this, value)),
+                                           timeout, unit)));
+        }
+        return this;
+    }
+
+    /**
+     * Returns a new Executor that submits a task to the given base
+     * executor after the given delay (or no delay if non-positive).
+     * Each delay commences upon invocation of the returned executor's
+     * {@code execute} method.  Delays are kept by the single daemon
+     * thread also keeping the timeouts of {@link #orTimeout}, which
+     * never runs the tasks itself.
+     *
+     * @param delay how long to delay, in units of {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the
+     *        {@code delay} parameter
+     * @param executor the base executor
+     * @return the new delayed executor
+     * @throws NullPointerException if either {@code unit} or
+     *         {@code executor} is null
+     * @since 1.8
+     */
+    public static Executor delayedExecutor(long delay, TimeUnit unit,
+                                           Executor executor) {
+        if (unit == null) {
+            throw new NullPointerException();
+        }
+        return new DelayedExecutor(delay, unit, screenExecutor(executor));
+    }
+
+    /**
+     * Returns a new Executor that submits a task to the default
+     * executor after the given delay (or no delay if non-positive).
+     * Each delay commences upon invocation of the returned executor's
+     * {@code execute} method.
+     *
+     * @param delay how long to delay, in units of {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the
+     *        {@code delay} parameter
+     * @return the new delayed executor
+     * @throws NullPointerException if {@code unit} is null
+     * @since 1.8
+     */
+    public static Executor delayedExecutor(long delay, TimeUnit unit) {
+        if (unit == null) {
+            throw new NullPointerException();
+        }
+        return new DelayedExecutor(delay, unit, asyncPool);
+    }
+
+    /**
+     * Returns a new CompletableFuture that is completed exceptionally
+     * with a {@link TimeoutException} after the given timeout, unless
+     * otherwise completed before.  Combined with {@code
+     * applyToEither} or {@link #anyOf}, it bounds the time a
+     * computation may take, as in: {@code
+     * fetch(key).applyToEither(CompletableFuture.failAfter(200,
+     * MILLISECONDS), Function.identity())}; unlike {@link
+     * #orTimeout}, it leaves the other future unchanged.
+     *
+     * @param timeout how long to wait before completing exceptionally
+     *        with a TimeoutException, in units of {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the
+     *        {@code timeout} parameter
+     * @param <U> the type of the value
+     * @return the new CompletableFuture
+     * @throws NullPointerException if {@code unit} is null
+     * @since 1.8
+     */
+    public static <U> CompletableFuture<U> failAfter(long timeout,
+                                                     TimeUnit unit) {
+        return new CompletableFuture<U>().orTimeout(timeout, unit);
+    }
+
     /* ------------- Arbitrary-arity constructions -------------- */
 
     /**
@@ -2448,6 +2741,63 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         return orTree(cfs, 0, cfs.length - 1);
     }
 
+    /**
+     * Returns a new CompletableFuture that is completed when all of
+     * the given CompletableFutures complete normally, with a list of
+     * their results in the same order.  If any of the given
+     * CompletableFutures completes exceptionally, then the returned
+     * CompletableFuture also does so at once, without waiting for
+     * the others, with a CompletionException holding this exception
+     * as its cause.  If the list is empty, returns a
+     * CompletableFuture completed with an empty list.
+     *
+     * <p>Unlike {@link #allOf}, which combines its arguments pairwise
+     * through a tree of intermediate CompletableFutures, this method
+     * registers a single dependent action on each argument that is
+     * not yet complete, all sharing one array of results.  The list
+     * is a fixed-size view of that array, which may contain {@code
+     * null} elements.
+     *
+     * @param cfs the CompletableFutures
+     * @param <T> the type of the results
+     * @return a new CompletableFuture that is completed with the
+     * results of the given CompletableFutures when all complete
+     * @throws NullPointerException if the list or any of its elements
+     * are {@code null}
+     * @since 1.8
+     */
+    public static <T> CompletableFuture<List<T>> allAsList(
+        List<? extends CompletableFuture<? extends T>> cfs) {
+        Object[] a = cfs.toArray();
+        int n = a.length;
+        for (Object f : a) {
+            if (f == null) {
+                throw new NullPointerException();
+            }
+        }
+        CompletableFuture<List<T>> d = new CompletableFuture<List<T>>();
+        if (n == 0) {
+            d.result = Arrays.asList();
+            return d;
+        }
+        ListCollector<T> c = new ListCollector<T>(d, n);
+        for (int i = 0; i < n && d.result == null; ++i) {
+            CompletableFuture<?> f = (CompletableFuture<?>)a[i];
+            Object r;
+            if ((r = f.result) != null) {
+                c.set(i, r);
+            }
+            else {
+                ListElement<T> e = new ListElement<T>(c, f, i);
+                while (f.result == null && !f.tryPushStack(e)) {
+                    lazySetNext(e, null); // clear on failure
+                }
+                e.tryFire(SYNC);
+            }
+        }
+        return d;
+    }
+
     /* ------------- Control and status methods -------------- */
 
     /**
@@ -54,6 +54,7 @@ import java.util.Spliterator;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiConsumer;
@@ -854,6 +855,12 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
      */
     private transient volatile CounterCell[] counterCells;
 
+    /**
+     * Statistics collector, or null if statistics are not enabled.
+     * Set once, via CAS; read as a plain field on slow paths only.
+     */
+    private transient Statistics<K,V> statistics;
+
     // views
     private transient KeySetView<K,V> keySet;
     private transient ValuesView<K,V> values;
@@ -2291,6 +2298,25 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
         return new KeySetView<K,V>(this, mappedValue);
     }
 
+    /**
+     * Enables the collection of internal statistics for this map, and
+     * returns an {@link javax.management.MXBean MXBean} reporting them.
+     * Collection adds a small cost to resizes and to updates of the
+     * element count under contention; it is not done, and costs nothing,
+     * unless this method is called.  Statistics are not serialized.
+     *
+     * @return the statistics of this map
+     * @since 1.8
+     */
+    public ConcurrentHashMapMXBean enableStatistics() {
+        Statistics<K,V> st;
+        while ((st = statistics) == null) {
+            U.compareAndSwapObject(this, STATISTICS, null,
+                                   new Statistics<K,V>(this));
+        }
+        return st;
+    }
+
     /* ---------------- Special Nodes -------------- */
 
     /**
@@ -2399,12 +2425,16 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
         CounterCell[] as; long b, s;
         if ((as = counterCells) != null ||
             !U.compareAndSwapLong(this, BASECOUNT, b = baseCount, s = b + x)) {
-            CounterCell a; long v; int m;
+            CounterCell a; long v; int m; Statistics<K,V> st;
             boolean uncontended = true;
             if (as == null || (m = as.length - 1) < 0 ||
                 (a = as[ThreadLocalRandom.getProbe() & m]) == null ||
                 !(uncontended =
                   U.compareAndSwapLong(a, CELLVALUE, v = a.value, v + x))) {
+                if ((as == null || !uncontended) &&
+                    (st = statistics) != null) {
+                    st.casFailures.increment();
+                }
                 fullAddCount(x, uncontended);
                 return;
             }
@@ -2515,6 +2545,8 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
      * above for explanation.
      */
     private final void transfer(Node<K,V>[] tab, Node<K,V>[] nextTab) {
+        Statistics<K,V> st = statistics;
+        long start = (st == null) ? 0L : System.nanoTime();
         int n = tab.length, stride;
         if ((stride = (NCPU > 1) ? (n >>> 3) / NCPU : n) < MIN_TRANSFER_STRIDE) {
             stride = MIN_TRANSFER_STRIDE; // subdivide range
@@ -2530,6 +2562,11 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
             }
             nextTable = nextTab;
             transferIndex = n;
+            if (st != null) {
+                st.resizes.increment();
+            }
+        } else if (st != null) {
+            st.helpTransfers.increment();
         }
         int nextn = nextTab.length;
         ForwardingNode<K,V> fwd = new ForwardingNode<K,V>(nextTab);
@@ -2560,10 +2597,16 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
                     nextTable = null;
                     table = nextTab;
                     sizeCtl = (n << 1) - (n >>> 1);
+                    if (st != null) {
+                        st.transferTime.add(System.nanoTime() - start);
+                    }
                     return;
                 }
                 if (U.compareAndSwapInt(this, SIZECTL, sc = sizeCtl, sc - 1)) {
                     if ((sc - 2) != resizeStamp(n) << RESIZE_STAMP_SHIFT) {
+                        if (st != null) {
+                            st.transferTime.add(System.nanoTime() - start);
+                        }
                         return;
                     }
                     finishing = advance = true;
@@ -2790,6 +2833,10 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
                             tl = p;
                         }
                         setTabAt(tab, index, new TreeBin<K,V>(hd));
+                        Statistics<K,V> st;
+                        if ((st = statistics) != null) {
+                            st.treeifications.increment();
+                        }
                     }
                 }
             }
@@ -6745,12 +6792,114 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
         }
     }
 
+    /* ---------------- Statistics -------------- */
+
+    /**
+     * Collector for the statistics reported by enableStatistics.  Event
+     * counts are updated from the instrumented slow paths; the table
+     * shape is computed on demand.
+     */
+    static final class Statistics<K,V> implements ConcurrentHashMapMXBean {
+        /** Number of bin lengths counted individually by the histogram */
+        static final int HISTOGRAM_LENGTH = TREEIFY_THRESHOLD + 1;
+
+        final ConcurrentHashMap<K,V> map;
+        final LongAdder resizes = new LongAdder();
+        final LongAdder transferTime = new LongAdder();
+        final LongAdder helpTransfers = new LongAdder();
+        final LongAdder treeifications = new LongAdder();
+        final LongAdder casFailures = new LongAdder();
+
+        Statistics(ConcurrentHashMap<K,V> map) {
+            this.map = map;
+        }
+
+        @Override
+        public long getMappingCount() {
+            return map.mappingCount();
+        }
+
+        @Override
+        public int getTableLength() {
+            Node<K,V>[] tab = map.table;
+            return (tab == null) ? 0 : tab.length;
+        }
+
+        @Override
+        public long getResizeCount() {
+            return resizes.sum();
+        }
+
+        @Override
+        public long getTransferTime() {
+            return transferTime.sum();
+        }
+
+        @Override
+        public long getHelpTransferCount() {
+            return helpTransfers.sum();
+        }
+
+        @Override
+        public long getTreeifyCount() {
+            return treeifications.sum();
+        }
+
+        @Override
+        public int getTreeBinCount() {
+            int count = 0;
+            Node<K,V>[] tab = map.table;
+            if (tab != null) {
+                for (int i = 0; i < tab.length; ++i) {
+                    if (tabAt(tab, i) instanceof TreeBin) {
+                        ++count;
+                    }
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public long[] getBinLengthHistogram() {
+            long[] hist = new long[HISTOGRAM_LENGTH];
+            Node<K,V>[] tab = map.table;
+            if (tab != null) {
+                for (int i = 0; i < tab.length; ++i) {
+                    Node<K,V> f = tabAt(tab, i);
+                    if (f instanceof TreeBin) {
+                        f = ((TreeBin<K,V>)f).first;
+                    } else if (f != null && f.hash < 0) {
+                        continue;       // forwarded or reserved
+                    }
+                    int len = 0;
+                    for (Node<K,V> e = f; e != null; e = e.next) {
+                        ++len;
+                    }
+                    ++hist[Math.min(len, HISTOGRAM_LENGTH - 1)];
+                }
+            }
+            return hist;
+        }
+
+        @Override
+        public int getCounterCellCount() {
+            CounterCell[] as = map.counterCells;
+            return (as == null) ? 0 : as.length;
+        }
+
+        @Override
+        public long getCounterCasFailureCount() {
+            return casFailures.sum();
+        }
+    }
+
     // Unsafe mechanics
     private static final sun.misc.Unsafe U;
     private static final long SIZECTL;
     private static final long TRANSFERINDEX;
     private static final long BASECOUNT;
     private static final long CELLSBUSY;
+    private static final long STATISTICS;
     private static final long CELLVALUE;
     private static final long ABASE;
     private static final int ASHIFT;
@@ -6767,6 +6916,8 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
                 (k.getDeclaredField("baseCount"));
             CELLSBUSY = U.objectFieldOffset
                 (k.getDeclaredField("cellsBusy"));
+            STATISTICS = U.objectFieldOffset
+                (k.getDeclaredField("statistics"));
             Class<?> ck = CounterCell.class;
             CELLVALUE = U.objectFieldOffset
                 (ck.getDeclaredField("value"));
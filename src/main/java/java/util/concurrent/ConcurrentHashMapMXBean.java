@@ -0,0 +1,117 @@
+package java.util.concurrent;
+
+/**
+ * ConcurrentHashMap 内部统计信息的管理接口：扩容次数与耗时、桶长度分布、树化桶数量、计数单元争用以及协助扩容情况。
+ *
+ * The management interface for the internal statistics of a
+ * {@link ConcurrentHashMap}, obtained from
+ * {@link ConcurrentHashMap#enableStatistics}.  Statistics are collected
+ * only for maps on which they have been enabled; other maps pay no cost
+ * beyond a field read on their resize and contention paths.
+ *
+ * <p>A class implementing this interface is an
+ * {@link javax.management.MXBean}, so it may be registered with the
+ * platform {@link javax.management.MBeanServer MBeanServer} to be read by
+ * JMX clients, for example:
+ * <pre> {@code
+ * ConcurrentHashMapMXBean stats = map.enableStatistics();
+ * ManagementFactory.getPlatformMBeanServer().registerMBean(stats,
+ *     new ObjectName("java.util.concurrent:type=ConcurrentHashMap,name=sessions"));}</pre>
+ *
+ * <p>Counts are cumulative from the time statistics were enabled.  The
+ * table-shape attributes ({@link #getBinLengthHistogram},
+ * {@link #getTreeBinCount}) are computed when read by scanning the table,
+ * which takes time proportional to its length and is not atomic with
+ * respect to concurrent updates.
+ *
+ * @since 1.8
+ */
+public interface ConcurrentHashMapMXBean {
+
+    /**
+     * Returns an estimate of the number of mappings in the map.
+     *
+     * @return the number of mappings
+     * @see ConcurrentHashMap#mappingCount
+     */
+    long getMappingCount();
+
+    /**
+     * Returns the current length of the map's table, or zero if the table
+     * has not yet been allocated.
+     *
+     * @return the table length
+     */
+    int getTableLength();
+
+    /**
+     * Returns the number of resizes started.
+     *
+     * @return the number of resizes
+     */
+    long getResizeCount();
+
+    /**
+     * Returns the total time, in nanoseconds, that threads have spent
+     * moving bins to new tables.  When several threads help with one
+     * resize, each thread's time is included.
+     *
+     * @return the total transfer time in nanoseconds
+     */
+    long getTransferTime();
+
+    /**
+     * Returns the number of times a thread joined a resize already
+     * started by another thread, either because it encountered a
+     * forwarded bin while updating or because its insertion also crossed
+     * the resize threshold.
+     *
+     * @return the number of helping transfers
+     */
+    long getHelpTransferCount();
+
+    /**
+     * Returns the number of bins that have been converted from lists to
+     * trees.  A high count usually indicates poorly distributed
+     * {@code hashCode} values.
+     *
+     * @return the number of treeified bins
+     */
+    long getTreeifyCount();
+
+    /**
+     * Returns the number of bins that are currently trees.
+     *
+     * @return the number of tree bins
+     */
+    int getTreeBinCount();
+
+    /**
+     * Returns the distribution of bin lengths in the current table.
+     * Element {@code i} is the number of bins holding exactly {@code i}
+     * mappings, except the last, which counts all bins holding at least
+     * as many mappings as its index.
+     *
+     * @return the bin length histogram
+     */
+    long[] getBinLengthHistogram();
+
+    /**
+     * Returns the length of the map's array of counter cells, used to
+     * spread updates of the element count under contention, or zero if
+     * none has been needed.
+     *
+     * @return the number of counter cells
+     */
+    int getCounterCellCount();
+
+    /**
+     * Returns the number of updates to the element count whose first
+     * compare-and-set failed because of contention with other threads,
+     * forcing them onto the slower path that creates and rehashes among
+     * counter cells.
+     *
+     * @return the number of contended count updates
+     */
+    long getCounterCasFailureCount();
+}
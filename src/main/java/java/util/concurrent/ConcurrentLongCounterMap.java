@@ -0,0 +1,921 @@
+package java.util.concurrent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * 按键计数的并发哈希表：计数直接存放在 ConcurrentHashMap 式桶的节点中，热点键在竞争时把增量分散到节点自带的计数单元；支持按键或整表的 sumThenReset 快照，以及带 parallelismThreshold 的并行 forEach。
+ *
+ * A hash table mapping keys to {@code long} counts, supporting full
+ * concurrency of retrievals and of updates.  It replaces the common
+ * idiom of a {@code ConcurrentHashMap<K, LongAdder>}, as used for
+ * frequency maps and per-key metrics, without its costs: each count
+ * is held in the node of its key rather than in a separate object
+ * reached through it, so that a lookup and an increment touch one
+ * object, and a key that is rarely updated takes no more space than
+ * a node.  A key that is updated by many threads at once spreads its
+ * updates over a set of counter cells, like a {@link LongAdder}, so
+ * that hot keys do not become points of contention.
+ *
+ * <p>A key that has never been added to has a count of zero, and
+ * adding to an absent key creates its mapping.  Mappings are only
+ * removed by {@link #remove}, which returns the count removed, and by
+ * {@link #clear}; a count that drops to zero remains mapped.  No
+ * update is lost to a concurrent resize or removal: an amount added to
+ * a key that is concurrently removed is either included in the count
+ * returned by {@code remove}, or added to a new mapping for the key.
+ *
+ * <p>Method {@link #sumThenReset(Object)} reads and resets the count
+ * of one key, and {@link #sumThenReset()} that of every key, returning
+ * a snapshot; both are atomic with respect to each update, so that
+ * every amount added is reported by exactly one snapshot, which suits
+ * periodic reporting of counts by interval.  Like the bulk operations
+ * of {@link ConcurrentHashMap}, {@link #forEach(long, ObjLongConsumer)
+ * forEach} takes a {@code parallelismThreshold} above which it runs in
+ * parallel in the {@link ForkJoinPool#commonPool()}.
+ *
+ * <p>Retrievals, bulk operations and snapshots reflect the counts at
+ * some point during their execution, and are <em>weakly
+ * consistent</em>, as the iterators of {@code ConcurrentHashMap} are.
+ * This class does not allow {@code null} keys, and is not serializable.
+ *
+ * @param <K> the type of keys maintained by this map
+ * @see ConcurrentHashMap
+ * @see LongAdder
+ * @since 1.8
+ */
+public class ConcurrentLongCounterMap<K> {
+
+    /*
+     * Overview:
+     *
+     * The table is maintained as in ConcurrentWeakHashMap, which
+     * follows ConcurrentHashMap: bins are linked lists of Nodes, the
+     * first node of an empty bin is inserted by CAS, and all other
+     * changes to a bin hold the monitor of its first node.  Resizing
+     * is done by a single thread, copying each bin into the two
+     * corresponding bins of a table twice as large and then forwarding
+     * it.
+     *
+     * Counts are added without locking.  A node holds a base count and,
+     * once updates to it have been contended, an array of Cells, used
+     * as in Striped64 with the thread probe of ThreadLocalRandom
+     * choosing a cell.  Cell arrays are only replaced as a whole, by a
+     * CAS of the node's cells field, so that a node's cells can be
+     * sealed by CASing the field to the empty array SEALED, after which
+     * no cell can be added to the node.
+     *
+     * The difficulty is that an updater may add to a node that a
+     * concurrent resize or remove is taking out of the table.  Both do
+     * so under the bin lock by "retiring" the node: they set its
+     * retired field, seal its cells, and only then read and clear its
+     * counts, with getAndSet.  An updater, after adding to a node's
+     * base or to one of its cells, rechecks retired, and if set clears
+     * the count it added to, again by getAndSet, and adds what it
+     * cleared to the node now holding the key, found under the bin
+     * lock.  Since every clearing is atomic, each amount added is
+     * taken out of a retired node by exactly one of the retiring
+     * thread or some updater; and since retired is set before the
+     * retiring thread clears counts, an updater adding after that
+     * clearing is sure to see it set.
+     *
+     * A resize gives the copy of a node the cells it sealed, rather
+     * than moving their counts, so a hot key keeps its cells across
+     * resizes.  Cells shared with a copy are still cleared by updaters
+     * finding the original retired, which just moves their counts to
+     * the copy.
+     *
+     * Retrievals and traversals that find a retired node retry, as it
+     * is about to be unlinked or its bin forwarded.  Snapshots that
+     * reset counts use getAndSet as well, so that they too take each
+     * amount exactly once.
+     *
+     * The count of mappings is kept in a LongAdder, used only for
+     * size and to trigger resizing.
+     */
+
+    /* ---------------- Constants -------------- */
+
+    /**
+     * The largest possible table capacity.
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * The default initial table capacity.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /** Number of CPUS, to place bound on the number of cells of a node */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /*
+     * Encodings for Node hash fields.
+     */
+    static final int MOVED     = -1; // hash for forwarding nodes
+    static final int HASH_BITS = 0x7fffffff; // usable bits of normal node hash
+
+    /** The cells of retired nodes */
+    static final Cell[] SEALED = new Cell[0];
+
+    /* ---------------- Nodes -------------- */
+
+    /**
+     * A counter cell of a contended node, padded to reduce cache
+     * contention, as in Striped64.
+     */
+    @sun.misc.Contended static final class Cell {
+        volatile long value;
+
+        Cell(long x) {
+            value = x;
+        }
+
+        final boolean cas(long cmp, long val) {
+            return U.compareAndSwapLong(this, CELLVALUE, cmp, val);
+        }
+
+        final long getAndReset() {
+            return U.getAndSetLong(this, CELLVALUE, 0L);
+        }
+    }
+
+    /**
+     * Key-count entry.  The count is the sum of value and of the
+     * values of cells.
+     */
+    static class Node<K> {
+        final int hash;
+        final K key;
+        volatile Node<K> next;
+        volatile long value;
+        volatile Cell[] cells;
+        volatile boolean retired;
+
+        Node(int hash, K key, long value, Cell[] cells, Node<K> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.cells = cells;
+            this.next = next;
+        }
+
+        /**
+         * Returns the current count.
+         */
+        final long sum() {
+            long sum = value;
+            Cell[] cs = cells;
+            if (cs != null) {
+                for (Cell c : cs) {
+                    sum += c.value;
+                }
+            }
+            return sum;
+        }
+
+        /**
+         * Resets the count to zero, returning the previous count.
+         */
+        final long sumThenReset() {
+            long sum = U.getAndSetLong(this, VALUE, 0L);
+            Cell[] cs = cells;
+            if (cs != null) {
+                for (Cell c : cs) {
+                    sum += c.getAndReset();
+                }
+            }
+            return sum;
+        }
+
+        /**
+         * Marks the node retired and seals its cells, returning the
+         * cells it had.  Called only under the bin lock.
+         */
+        final Cell[] retire() {
+            retired = true;
+            Cell[] cs;
+            do {} while (!U.compareAndSwapObject(this, CELLS, cs = cells, SEALED));
+            return cs;
+        }
+    }
+
+    /**
+     * A node inserted at head of bins during transfer operations.
+     */
+    static final class ForwardingNode<K> extends Node<K> {
+        final Node<K>[] nextTable;
+
+        ForwardingNode(Node<K>[] tab) {
+            super(MOVED, null, 0L, null, null);
+            this.nextTable = tab;
+        }
+    }
+
+    /* ---------------- Static utilities -------------- */
+
+    static final int spread(int h) {
+        return (h ^ (h >>> 16)) & HASH_BITS;
+    }
+
+    private static int tableSizeFor(int c) {
+        int n = c - 1;
+        n |= n >>> 1;
+        n |= n >>> 2;
+        n |= n >>> 4;
+        n |= n >>> 8;
+        n |= n >>> 16;
+        return (n < 0) ? 1 : (n >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY : n + 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    static final <K> Node<K> tabAt(Node<K>[] tab, int i) {
+        return (Node<K>)U.getObjectVolatile(tab, ((long)i << ASHIFT) + ABASE);
+    }
+
+    static final <K> boolean casTabAt(Node<K>[] tab, int i,
+                                      Node<K> c, Node<K> v) {
+        return U.compareAndSwapObject(tab, ((long)i << ASHIFT) + ABASE, c, v);
+    }
+
+    static final <K> void setTabAt(Node<K>[] tab, int i, Node<K> v) {
+        U.putObjectVolatile(tab, ((long)i << ASHIFT) + ABASE, v);
+    }
+
+    /**
+     * Adds the live nodes of bin i of tab to the list, following
+     * forwarding nodes into the corresponding bins of later tables.
+     * Rereads a bin holding a retired node, which is about to be
+     * unlinked or forwarded.
+     */
+    static <K> void collect(Node<K>[] tab, int i, ArrayList<Node<K>> nodes) {
+        for (int mark = nodes.size();;) {
+            Node<K> e = tabAt(tab, i);
+            if (e instanceof ForwardingNode) {
+                Node<K>[] nt = ((ForwardingNode<K>)e).nextTable;
+                collect(nt, i, nodes);
+                collect(nt, i + tab.length, nodes);
+                return;
+            }
+            for (; e != null && !e.retired; e = e.next) {
+                nodes.add(e);
+            }
+            if (e == null) {
+                return;
+            }
+            nodes.subList(mark, nodes.size()).clear();
+            Thread.yield();
+        }
+    }
+
+    /* ---------------- Fields -------------- */
+
+    /**
+     * The array of bins. Lazily initialized upon first insertion.
+     * Size is always a power of two.
+     */
+    transient volatile Node<K>[] table;
+
+    /**
+     * Table initialization and resizing control.  When negative, the
+     * table is being initialized or resized.  Otherwise, when table is
+     * null, holds the initial table size to use upon creation, or 0
+     * for default. After initialization, holds the next element count
+     * value upon which to resize the table.
+     */
+    private transient volatile int sizeCtl;
+
+    /** The number of mappings */
+    private final LongAdder count = new LongAdder();
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Creates a new, empty map with the default initial table size (16).
+     */
+    public ConcurrentLongCounterMap() {
+    }
+
+    /**
+     * Creates a new, empty map with an initial table size
+     * accommodating the specified number of keys without the need
+     * to dynamically resize.
+     *
+     * @param initialCapacity the implementation performs internal
+     * sizing to accommodate this many keys.
+     * @throws IllegalArgumentException if the initial capacity of
+     * elements is negative
+     */
+    public ConcurrentLongCounterMap(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.sizeCtl = (initialCapacity >= (MAXIMUM_CAPACITY >>> 1)) ?
+                   MAXIMUM_CAPACITY :
+                   tableSizeFor(initialCapacity + (initialCapacity >>> 1) + 1);
+    }
+
+    /**
+     * Returns the number of keys in this map.  If the map contains
+     * more than {@code Integer.MAX_VALUE} keys, returns {@code
+     * Integer.MAX_VALUE}.
+     *
+     * @return the number of keys in this map
+     */
+    public int size() {
+        long n = count.sum();
+        return ((n < 0L) ? 0 :
+                (n > (long)Integer.MAX_VALUE) ? Integer.MAX_VALUE :
+                (int)n);
+    }
+
+    /**
+     * Returns {@code true} if this map contains no keys.
+     *
+     * @return {@code true} if this map contains no keys
+     */
+    public boolean isEmpty() {
+        return count.sum() <= 0L; // ignore transient negative values
+    }
+
+    /**
+     * Returns the count of the specified key, or zero if this map
+     * contains no mapping for the key.
+     *
+     * @param key the key whose count is to be returned
+     * @return the count of the key
+     * @throws NullPointerException if the specified key is null
+     */
+    public long get(Object key) {
+        int h = spread(key.hashCode());
+        for (Node<K> e; (e = find(h, key)) != null; ) {
+            long sum = e.sum();
+            if (!e.retired) {
+                return sum;
+            }
+            Thread.yield(); // being moved or removed
+        }
+        return 0L;
+    }
+
+    /**
+     * Tests if the specified object is a key in this map.
+     *
+     * @param  key possible key
+     * @return {@code true} if the key is mapped, whatever its count
+     * @throws NullPointerException if the specified key is null
+     */
+    public boolean containsKey(Object key) {
+        return find(spread(key.hashCode()), key) != null;
+    }
+
+    /**
+     * Adds one to the count of the specified key.
+     *
+     * @param key the key
+     * @throws NullPointerException if the specified key is null
+     */
+    public void increment(K key) {
+        add(key, 1L);
+    }
+
+    /**
+     * Subtracts one from the count of the specified key.
+     *
+     * @param key the key
+     * @throws NullPointerException if the specified key is null
+     */
+    public void decrement(K key) {
+        add(key, -1L);
+    }
+
+    /**
+     * Adds the given value to the count of the specified key, mapping
+     * the key if absent.
+     *
+     * @param key the key
+     * @param x the value to add
+     * @throws NullPointerException if the specified key is null
+     */
+    public void add(K key, long x) {
+        if (key == null) {
+            throw new NullPointerException();
+        }
+        int h = spread(key.hashCode());
+        Node<K> e = find(h, key);
+        if (e == null || ((x = addTo(e, x)) != 0L)) {
+            addLocked(h, key, x);
+        }
+    }
+
+    /**
+     * Removes the specified key from this map.
+     *
+     * @param key the key to remove
+     * @return the count of the key, or zero if it was not mapped
+     * @throws NullPointerException if the specified key is null
+     */
+    public long remove(Object key) {
+        int hash = spread(key.hashCode());
+        for (Node<K>[] tab = table;;) {
+            Node<K> f; int n, i;
+            if (tab == null || (n = tab.length) == 0 ||
+                (f = tabAt(tab, i = (n - 1) & hash)) == null) {
+                return 0L;
+            } else if (f.hash == MOVED) {
+                tab = ((ForwardingNode<K>)f).nextTable;
+            } else {
+                Node<K> removed = null;
+                Cell[] cs = null;
+                boolean validated = false;
+                synchronized (f) {
+                    if (tabAt(tab, i) == f) {
+                        validated = true;
+                        for (Node<K> e = f, pred = null; e != null; pred = e, e = e.next) {
+                            K ek;
+                            if (e.hash == hash &&
+                                ((ek = e.key) == key || key.equals(ek))) {
+                                cs = e.retire();
+                                if (pred == null) {
+                                    setTabAt(tab, i, e.next);
+                                } else {
+                                    pred.next = e.next;
+                                }
+                                removed = e;
+                                break;
+                            }
+                        }
+                    }
+                }
+                if (validated) {
+                    if (removed == null) {
+                        return 0L;
+                    }
+                    count.decrement();
+                    // The node's cells are sealed, so clear the ones
+                    // it had rather than those now in its cells field
+                    long sum = U.getAndSetLong(removed, VALUE, 0L);
+                    if (cs != null) {
+                        for (Cell c : cs) {
+                            sum += c.getAndReset();
+                        }
+                    }
+                    return sum;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all of the keys from this map.
+     */
+    public void clear() {
+        Node<K>[] tab = table;
+        for (int i = 0; tab != null && i < tab.length; ) {
+            Node<K> f = tabAt(tab, i);
+            if (f == null) {
+                ++i;
+            } else if (f.hash == MOVED) {
+                tab = ((ForwardingNode<K>)f).nextTable;
+                i = 0; // restart in the new table
+            } else {
+                synchronized (f) {
+                    if (tabAt(tab, i) == f) {
+                        long removed = 0L;
+                        for (Node<K> e = f; e != null; e = e.next) {
+                            e.retire();
+                            ++removed;
+                        }
+                        setTabAt(tab, i++, null);
+                        count.add(-removed);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the sum of the counts of all keys.
+     *
+     * @return the sum of all counts
+     */
+    public long sum() {
+        long sum = 0L;
+        Node<K>[] tab = table;
+        if (tab != null) {
+            ArrayList<Node<K>> nodes = new ArrayList<>();
+            for (int i = 0; i < tab.length; ++i) {
+                collect(tab, i, nodes);
+                for (Node<K> e : nodes) {
+                    sum += e.sum();
+                }
+                nodes.clear();
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Resets the count of the specified key to zero, returning the
+     * count it had.  Each amount added to the key is included in the
+     * result of exactly one call to this method or to {@link
+     * #sumThenReset()} or {@link #remove}, unless it is added after the
+     * last of them.  The key remains mapped.
+     *
+     * @param key the key
+     * @return the count before the reset, or zero if not mapped
+     * @throws NullPointerException if the specified key is null
+     */
+    public long sumThenReset(Object key) {
+        int h = spread(key.hashCode());
+        long sum = 0L;
+        for (Node<K> e; (e = find(h, key)) != null; ) {
+            sum += e.sumThenReset();
+            if (!e.retired) {
+                break;
+            }
+            Thread.yield(); // being moved or removed
+        }
+        return sum;
+    }
+
+    /**
+     * Resets the counts of all keys to zero, returning the counts they
+     * had.  The reset of each key is atomic, as by {@link
+     * #sumThenReset(Object)}, but the keys are not reset at the same
+     * time.  Keys remain mapped.
+     *
+     * @return a new map from each key found to its count before the
+     *         reset
+     */
+    public Map<K,Long> sumThenReset() {
+        HashMap<K,Long> m = new HashMap<>();
+        Node<K>[] tab = table;
+        if (tab != null) {
+            ArrayList<Node<K>> nodes = new ArrayList<>();
+            for (int i = 0; i < tab.length; ++i) {
+                collect(tab, i, nodes);
+                for (Node<K> e : nodes) {
+                    m.merge(e.key, e.sumThenReset(), Long::sum);
+                }
+                nodes.clear();
+            }
+        }
+        return m;
+    }
+
+    /**
+     * Returns the counts of all keys, without resetting them.
+     *
+     * @return a new map from each key found to its count
+     */
+    public Map<K,Long> snapshot() {
+        HashMap<K,Long> m = new HashMap<>();
+        forEach(Long.MAX_VALUE, m::put);
+        return m;
+    }
+
+    /**
+     * Performs the given action for each key and its count.
+     *
+     * @param parallelismThreshold the (estimated) number of keys
+     * needed for this operation to be executed in parallel
+     * @param action the action
+     * @throws NullPointerException if the action is null
+     */
+    public void forEach(long parallelismThreshold,
+                        ObjLongConsumer<? super K> action) {
+        if (action == null) {
+            throw new NullPointerException();
+        }
+        Node<K>[] tab = table;
+        new ForEachTask<K>
+            (null, batchFor(parallelismThreshold), 0,
+             (tab == null) ? 0 : tab.length, tab, action).invoke();
+    }
+
+    /**
+     * Returns a string representation of this map, in the form of
+     * {@link java.util.AbstractMap#toString}, with the counts read as
+     * by {@link #snapshot}.
+     *
+     * @return a string representation of this map
+     */
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+
+    /* ---------------- Updates -------------- */
+
+    /**
+     * Returns the node for the given key, or null if none, without
+     * locking.  The node returned may have been retired.
+     */
+    private Node<K> find(int h, Object key) {
+        Node<K>[] tab = table;
+        while (tab != null) {
+            Node<K> e = tabAt(tab, (tab.length - 1) & h);
+            if (e instanceof ForwardingNode) {
+                tab = ((ForwardingNode<K>)e).nextTable;
+                continue;
+            }
+            for (K ek; e != null; e = e.next) {
+                if (e.hash == h && ((ek = e.key) == key || key.equals(ek))) {
+                    return e;
+                }
+            }
+            break;
+        }
+        return null;
+    }
+
+    /**
+     * Adds x to the count of node e without locking.
+     *
+     * @return zero, or, if e has been retired, the amount that must
+     *         instead be added to the node now holding its key
+     */
+    private static long addTo(Node<?> e, long x) {
+        Cell[] cs; long v;
+        if ((cs = e.cells) == null &&
+            U.compareAndSwapLong(e, VALUE, v = e.value, v + x)) {
+            return e.retired ? U.getAndSetLong(e, VALUE, 0L) : 0L;
+        }
+        int h;
+        if ((h = ThreadLocalRandom.getProbe()) == 0) {
+            ThreadLocalRandom.current(); // force initialization
+            h = ThreadLocalRandom.getProbe();
+        }
+        boolean collide = false;           // True if last slot nonempty
+        for (;;) {
+            int n;
+            if ((cs = e.cells) == null) {
+                if (U.compareAndSwapLong(e, VALUE, v = e.value, v + x)) {
+                    return e.retired ? U.getAndSetLong(e, VALUE, 0L) : 0L;
+                }
+                Cell[] rs = { new Cell(0L), new Cell(0L) };
+                Cell c = rs[h & 1];
+                c.value = x;
+                if (U.compareAndSwapObject(e, CELLS, null, rs)) {
+                    return e.retired ? c.getAndReset() : 0L;
+                }
+            } else if ((n = cs.length) == 0) {
+                return x;                  // sealed
+            } else {
+                Cell c = cs[(n - 1) & h];
+                if (c.cas(v = c.value, v + x)) {
+                    return e.retired ? c.getAndReset() : 0L;
+                } else if (n >= NCPU || !collide) {
+                    collide = true;
+                } else {
+                    Cell[] rs = new Cell[n << 1];
+                    System.arraycopy(cs, 0, rs, 0, n);
+                    for (int i = n; i < rs.length; ++i) {
+                        rs[i] = new Cell(0L);
+                    }
+                    U.compareAndSwapObject(e, CELLS, cs, rs);
+                    collide = false;
+                    continue;              // Retry with expanded table
+                }
+                h = ThreadLocalRandom.advanceProbe(h);
+            }
+        }
+    }
+
+    /**
+     * Adds x to the count of the key under the bin lock, mapping it if
+     * absent.
+     */
+    private void addLocked(int hash, K key, long x) {
+        for (Node<K>[] tab = table;;) {
+            Node<K> f; int n, i;
+            if (tab == null || (n = tab.length) == 0) {
+                tab = initTable();
+            } else if ((f = tabAt(tab, i = (n - 1) & hash)) == null) {
+                if (casTabAt(tab, i, null, new Node<K>(hash, key, x, null, null))) {
+                    addCount();
+                    return;
+                }
+            } else if (f.hash == MOVED) {
+                tab = ((ForwardingNode<K>)f).nextTable;
+            } else {
+                boolean done = false, added = false;
+                synchronized (f) {
+                    if (tabAt(tab, i) == f) {
+                        done = true;
+                        for (Node<K> e = f;; e = e.next) {
+                            K ek;
+                            if (e.hash == hash &&
+                                ((ek = e.key) == key || key.equals(ek))) {
+                                // cannot be retired while locked
+                                U.getAndAddLong(e, VALUE, x);
+                                break;
+                            }
+                            if (e.next == null) {
+                                e.next = new Node<K>(hash, key, x, null, null);
+                                added = true;
+                                break;
+                            }
+                        }
+                    }
+                }
+                if (done) {
+                    if (added) {
+                        addCount();
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    /* ---------------- Table initialization and resizing -------------- */
+
+    /**
+     * Initializes table, using the size recorded in sizeCtl.
+     */
+    private final Node<K>[] initTable() {
+        Node<K>[] tab; int sc;
+        while ((tab = table) == null || tab.length == 0) {
+            if ((sc = sizeCtl) < 0) {
+                Thread.yield(); // lost initialization race; just spin
+            } else if (U.compareAndSwapInt(this, SIZECTL, sc, -1)) {
+                try {
+                    if ((tab = table) == null || tab.length == 0) {
+                        int n = (sc > 0) ? sc : DEFAULT_CAPACITY;
+                        @SuppressWarnings("unchecked")
+                        Node<K>[] nt = (Node<K>[])new Node<?>[n];
+                        table = tab = nt;
+                        sc = n - (n >>> 2);
+                    }
+                } finally {
+                    sizeCtl = sc;
+                }
+                break;
+            }
+        }
+        return tab;
+    }
+
+    /**
+     * Adds one to count, and if the table is too small and not already
+     * resizing, resizes it.
+     */
+    private void addCount() {
+        count.increment();
+        Node<K>[] tab; int sc;
+        if ((sc = sizeCtl) > 0 && count.sum() >= sc &&
+            (tab = table) != null && tab.length < MAXIMUM_CAPACITY &&
+            U.compareAndSwapInt(this, SIZECTL, sc, -1)) {
+            transfer(tab);
+        }
+    }
+
+    /**
+     * Replaces the nodes in each bin by copies in a table twice as
+     * large, and forwards the bin to the new table.  Each node is
+     * retired, and its copy takes over its cells and base count.
+     * Called only by the thread that set sizeCtl to -1.
+     */
+    private void transfer(Node<K>[] tab) {
+        int n = tab.length;
+        Node<K>[] nextTab = null;
+        try {
+            @SuppressWarnings("unchecked")
+            Node<K>[] nt = (Node<K>[])new Node<?>[n << 1];
+            nextTab = nt;
+        } finally {
+            if (nextTab == null) {      // OOME: give up resizing
+                sizeCtl = Integer.MAX_VALUE;
+            }
+        }
+        ForwardingNode<K> fwd = new ForwardingNode<K>(nextTab);
+        for (int i = n - 1; i >= 0; ) {
+            Node<K> f = tabAt(tab, i);
+            if (f == null) {
+                if (casTabAt(tab, i, null, fwd)) {
+                    --i;
+                }
+                continue;
+            }
+            synchronized (f) {
+                if (tabAt(tab, i) == f) {
+                    Node<K> ln = null, hn = null;
+                    for (Node<K> e = f; e != null; e = e.next) {
+                        Cell[] cs = e.retire();
+                        long v = U.getAndSetLong(e, VALUE, 0L);
+                        if ((e.hash & n) == 0) {
+                            ln = new Node<K>(e.hash, e.key, v, cs, ln);
+                        } else {
+                            hn = new Node<K>(e.hash, e.key, v, cs, hn);
+                        }
+                    }
+                    setTabAt(nextTab, i, ln);
+                    setTabAt(nextTab, i + n, hn);
+                    setTabAt(tab, i, fwd);
+                    --i;
+                }
+            }
+        }
+        table = nextTab;
+        sizeCtl = (n << 1) - (n >>> 1);
+    }
+
+    /* ---------------- Bulk operations -------------- */
+
+    /**
+     * Computes initial batch value for bulk tasks, as in
+     * ConcurrentHashMap. The returned value is approximately
+     * exp2 of the number of times (minus one) to split task by
+     * two before executing leaf action.
+     */
+    final int batchFor(long b) {
+        long n;
+        if (b == Long.MAX_VALUE || (n = count.sum()) <= 1L || n < b) {
+            return 0;
+        }
+        int sp = ForkJoinPool.getCommonPoolParallelism() << 2; // slack of 4
+        return (b <= 0L || (n /= b) >= sp) ? sp : (int)n;
+    }
+
+    /**
+     * Task for forEach, over the bins from baseIndex up to baseLimit.
+     */
+    @SuppressWarnings("serial")
+    static final class ForEachTask<K> extends CountedCompleter<Void> {
+        final Node<K>[] tab;
+        final ObjLongConsumer<? super K> action;
+        final int baseIndex;
+        int baseLimit;
+        int batch;              // split control
+
+        ForEachTask(ForEachTask<K> par, int b, int i, int f, Node<K>[] t,
+                    ObjLongConsumer<? super K> action) {
+            super(par);
+            this.batch = b;
+            this.baseIndex = i;
+            this.baseLimit = f;
+            this.tab = t;
+            this.action = action;
+        }
+
+        @Override
+        public final void compute() {
+            final ObjLongConsumer<? super K> action = this.action;
+            for (int i = baseIndex, f, h; batch > 0 &&
+                     (h = ((f = baseLimit) + i) >>> 1) > i;) {
+                addToPendingCount(1);
+                new ForEachTask<K>
+                    (this, batch >>>= 1, h, f, tab, action).fork();
+                baseLimit = h;
+            }
+            ArrayList<Node<K>> nodes = new ArrayList<>();
+            for (int i = baseIndex; i < baseLimit; ++i) {
+                collect(tab, i, nodes);
+                for (Node<K> e : nodes) {
+                    action.accept(e.key, e.sum());
+                }
+                nodes.clear();
+            }
+            propagateCompletion();
+        }
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long SIZECTL;
+    private static final long VALUE;
+    private static final long CELLS;
+    private static final long CELLVALUE;
+    private static final long ABASE;
+    private static final int ASHIFT;
+
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            Class<?> k = ConcurrentLongCounterMap.class;
+            SIZECTL = U.objectFieldOffset
+                (k.getDeclaredField("sizeCtl"));
+            Class<?> nk = Node.class;
+            VALUE = U.objectFieldOffset
+                (nk.getDeclaredField("value"));
+            CELLS = U.objectFieldOffset
+                (nk.getDeclaredField("cells"));
+            CELLVALUE = U.objectFieldOffset
+                (Cell.class.getDeclaredField("value"));
+            Class<?> ak = Node[].class;
+            ABASE = U.arrayBaseOffset(ak);
+            int scale = U.arrayIndexScale(ak);
+            if ((scale & (scale - 1)) != 0) {
+                throw new Error("data type scale not a power of two");
+            }
+            ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -48,6 +48,7 @@ import java.util.Map;
 import java.util.NavigableMap;
 import java.util.NavigableSet;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
@@ -895,6 +896,17 @@ public class ConcurrentSkipListMap<K,V> extends AbstractMap<K,V>
             }
         }
 
+        insertIndex(z, cmp);
+        return null;
+    }
+
+    /**
+     * Adds a randomly chosen number of index levels for the newly
+     * added node z: none with probability 3/4, and otherwise at least
+     * one, growing the head by at most one level.
+     */
+    private void insertIndex(Node<K,V> z, Comparator<? super K> cmp) {
+        K key = z.key;
         int rnd = ThreadLocalRandom.nextSecondarySeed();
         if ((rnd & 0x80000001) == 0) { // test highest and lowest bits
             int level = 1, max;
@@ -980,7 +992,197 @@ public class ConcurrentSkipListMap<K,V> extends AbstractMap<K,V>
                 }
             }
         }
-        return null;
+    }
+
+    /* ---------------- Sorted bulk insertion -------------- */
+
+    /**
+     * The maximum number of nodes that putAfter traverses forward from
+     * its hint before giving up and searching from the head instead.
+     * Merging a run that is sparse relative to the map would otherwise
+     * degrade to a linear scan of the map.
+     */
+    private static final int MAX_HINTED_STEPS = 32;
+
+    /**
+     * Inserts the mappings of an iteration in strictly ascending key
+     * order (according to this map's ordering): either entries or, if
+     * value is non-null, keys that are all mapped to value.
+     *
+     * If the map is empty, the base-level list and the index levels
+     * are built privately in linear time, giving every 4th node an
+     * index, every 8th a second level, and so on (matching the
+     * expected shape produced by random levels), and published with a
+     * single CAS of the base header's next field.  A concurrent
+     * insertion makes that CAS fail, in which case, or if the map was
+     * not empty to begin with, the mappings are merged in one by one,
+     * each search starting from the node holding the previous key.
+     *
+     * @return true if any mapping was added
+     */
+    @SuppressWarnings("unchecked")
+    private boolean doPutAllSorted(Iterator<?> it, V value,
+                                   boolean onlyIfAbsent) {
+        Comparator<? super K> cmp = comparator;
+        Node<K,V> b = head.node;
+        if (b.next == null) {
+            Node<K,V> first = null, last = null;
+            // Leftmost and rightmost indexes at each level
+            ArrayList<Index<K,V>> lefts = new ArrayList<Index<K,V>>();
+            ArrayList<Index<K,V>> rights = new ArrayList<Index<K,V>>();
+            for (int count = 1; it.hasNext(); ++count) {
+                Node<K,V> z = newNode(it.next(), value);
+                if (last == null) {
+                    first = z;
+                } else {
+                    last.next = z;
+                }
+                last = z;
+                if ((count & 3) == 0) {
+                    int level = 1 + Integer.numberOfTrailingZeros(count >>> 2);
+                    Index<K,V> idx = null;
+                    for (int i = 1; i <= level; ++i) {
+                        idx = new Index<K,V>(z, idx, null);
+                        if (i > rights.size()) {
+                            lefts.add(idx);
+                            rights.add(idx);
+                        } else {
+                            rights.get(i - 1).right = idx;
+                            rights.set(i - 1, idx);
+                        }
+                    }
+                }
+            }
+            if (first == null) {
+                return false;
+            }
+            if (b.casNext(null, first)) {
+                int levels = Math.max(lefts.size(), 1);
+                for (;;) {
+                    HeadIndex<K,V> h = head, nh = null;
+                    for (int i = 1; i <= levels; ++i) {
+                        nh = new HeadIndex<K,V>(b, nh, (i <= lefts.size()) ?
+                                                lefts.get(i - 1) : null, i);
+                    }
+                    if (casHead(h, nh)) {
+                        return true;
+                    }
+                }
+            }
+            // Lost race with another insertion; merge the built nodes
+            boolean added = false;
+            Node<K,V> pred = null;
+            for (Node<K,V> n = first; n != null; n = n.next) {
+                Node<K,V> z = new Node<K,V>(n.key, n.value, null);
+                added |= (pred = putAfter(pred, z, onlyIfAbsent, cmp)) == z;
+            }
+            return added;
+        }
+        boolean added = false;
+        Node<K,V> pred = null;
+        while (it.hasNext()) {
+            Node<K,V> z = newNode(it.next(), value);
+            added |= (pred = putAfter(pred, z, onlyIfAbsent, cmp)) == z;
+        }
+        return added;
+    }
+
+    /**
+     * Returns a new unlinked node for an element of the iteration
+     * passed to doPutAllSorted.
+     */
+    @SuppressWarnings("unchecked")
+    private static <K,V> Node<K,V> newNode(Object x, V value) {
+        K key;
+        Object v;
+        if (value != null) {
+            key = (K) x;
+            v = value;
+        } else {
+            Map.Entry<? extends K, ?> e = (Map.Entry<? extends K, ?>) x;
+            key = e.getKey();
+            v = e.getValue();
+        }
+        if (key == null || v == null) {
+            throw new NullPointerException();
+        }
+        return new Node<K,V>(key, v, null);
+    }
+
+    /**
+     * Inserts the unlinked node z, or if its key is already present,
+     * replaces the existing value with that of z unless onlyIfAbsent.
+     * Same as doPut, except that the search for the insertion point
+     * starts at the given hint, if it is non-null and not deleted,
+     * which must be a node with a key less than that of z.
+     *
+     * @return z if it was inserted, else the node holding its key
+     */
+    private Node<K,V> putAfter(Node<K,V> hint, Node<K,V> z,
+                               boolean onlyIfAbsent,
+                               Comparator<? super K> cmp) {
+        K key = z.key;
+        for (Node<K,V> b = hint;; b = null) {
+            int steps = MAX_HINTED_STEPS;
+            if (b == null || b.value == null) {
+                b = findPredecessor(key, cmp);
+                steps = Integer.MAX_VALUE;
+            }
+            for (Node<K,V> n = b.next;;) {
+                if (n != null) {
+                    Object v; int c;
+                    Node<K,V> f = n.next;
+                    if (n != b.next)               // inconsistent read
+                    {
+                        break;
+                    }
+                    if ((v = n.value) == null) {   // n is deleted
+                        n.helpDelete(b, f);
+                        break;
+                    }
+                    if (b.value == null || v == n) // b is deleted
+                    {
+                        break;
+                    }
+                    if ((c = cpr(cmp, key, n.key)) > 0) {
+                        if (--steps == 0) {        // too far; search
+                            break;
+                        }
+                        b = n;
+                        n = f;
+                        continue;
+                    }
+                    if (c == 0) {
+                        if (onlyIfAbsent || n.casValue(v, z.value)) {
+                            return n;
+                        }
+                        break; // restart if lost race to replace value
+                    }
+                    // else c < 0; fall through
+                }
+
+                z.next = n;
+                if (!b.casNext(n, z)) {
+                    break;         // restart if lost race to append to b
+                }
+                insertIndex(z, cmp);
+                return z;
+            }
+        }
+    }
+
+    /**
+     * Adds all of the given keys, which must be sorted according to
+     * this map's ordering, mapping each absent one to value.  Used by
+     * ConcurrentSkipListSet.addAll.
+     *
+     * @return true if any key was added
+     */
+    boolean putAllSortedIfAbsent(Collection<? extends K> keys, V value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        return doPutAllSorted(keys.iterator(), value, true);
     }
 
     /* ---------------- Deletion -------------- */
@@ -2118,6 +2320,32 @@ public class ConcurrentSkipListMap<K,V> extends AbstractMap<K,V>
         }
     }
 
+    /**
+     * Copies all of the mappings from the specified map to this map.
+     * If the specified map is a {@link SortedMap} using the same
+     * ordering as this map, its mappings are inserted in order: into an
+     * empty map, the base list and index levels are built in linear
+     * time, and otherwise each insertion point is found by searching
+     * forward from that of the previous key rather than from the head
+     * of the map.  As for other bulk operations, the mappings are not
+     * guaranteed to be added atomically.
+     *
+     * @param m mappings to be stored in this map
+     * @throws ClassCastException if the class of a key in the specified
+     *         map prevents it from being compared with the keys in this map
+     * @throws NullPointerException if the specified map or any of its keys
+     *         or values are null
+     */
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        if (m instanceof SortedMap &&
+            Objects.equals(comparator, ((SortedMap<?,?>)m).comparator())) {
+            doPutAllSorted(m.entrySet().iterator(), null, false);
+        } else {
+            super.putAll(m);
+        }
+    }
+
     /* ------ ConcurrentMap API methods ------ */
 
     /**
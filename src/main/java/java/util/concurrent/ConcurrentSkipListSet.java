@@ -42,6 +42,7 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.NavigableSet;
+import java.util.Objects;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.Spliterator;
@@ -338,6 +339,32 @@ public class ConcurrentSkipListSet<E>
         }
     }
 
+    /**
+     * Adds all of the elements in the specified collection to this set.
+     * If the specified collection is a {@link SortedSet} using the same
+     * ordering as this set, its elements are inserted in order: into an
+     * empty set, the underlying skip list is built in linear time, and
+     * otherwise each insertion point is found by searching forward from
+     * that of the previous element.  The elements are not guaranteed to
+     * be added atomically.
+     *
+     * @param  c collection containing elements to be added to this set
+     * @return {@code true} if this set changed as a result of the call
+     * @throws ClassCastException if the class of an element of the
+     *         specified collection prevents it from being added to this set
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements are null
+     */
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        if (c instanceof SortedSet && m instanceof ConcurrentSkipListMap &&
+            Objects.equals(m.comparator(), ((SortedSet<?>)c).comparator())) {
+            return ((ConcurrentSkipListMap<E,Object>)m)
+                .putAllSortedIfAbsent(c, Boolean.TRUE);
+        }
+        return super.addAll(c);
+    }
+
     /**
      * Removes from this set all of its elements that are contained in
      * the specified collection.  If the specified collection is also
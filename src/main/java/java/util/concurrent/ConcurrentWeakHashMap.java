@@ -0,0 +1,1200 @@
+package java.util.concurrent;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 支持弱引用/软引用键和值的并发哈希表：沿用 ConcurrentHashMap 的桶锁与转发节点扩容方式，被回收的条目在写操作中按批从引用队列清除。
+ *
+ * A hash table supporting full concurrency of retrievals and high
+ * expected concurrency for updates, whose keys, values, or both may be
+ * held through {@linkplain WeakReference weak} or {@linkplain
+ * SoftReference soft} references, so that a mapping is removed once
+ * its key or value has been reclaimed by the garbage collector.  It is
+ * a concurrent counterpart of {@link java.util.WeakHashMap}, intended
+ * for caches and registries keyed by objects, such as classes, class
+ * loaders or thread groups, whose lifetime the map should not extend.
+ *
+ * <p>The reference type of the keys and of the values is chosen on
+ * construction; by default keys are weak and values are strong, as in
+ * {@code WeakHashMap}.  Keys are compared with {@code equals}, so, as
+ * with {@code WeakHashMap}, weak or soft keys are best suited to
+ * classes whose {@code equals} is identity, such as {@code Class} or
+ * {@code Thread}: a mapping keyed by a string may be removed while an
+ * equal string is still in use.  Like {@link ConcurrentHashMap}, this
+ * class does not allow {@code null} to be used as a key or value.
+ *
+ * <p>Retrieval operations (including {@code get}) do not block, and
+ * never modify the table.  Updates lock only the bin of the table that
+ * they change, and a resize moves the table one bin at a time, as in
+ * {@code ConcurrentHashMap}.  The {@link #computeIfAbsent
+ * computeIfAbsent} method is performed atomically: the mapping
+ * function is applied at most once per call, and only if the key is
+ * absent.
+ *
+ * <p>References to reclaimed keys and values are processed in batches:
+ * each update first removes at most a small number of mappings whose
+ * references have been enqueued, and only one thread at a time does so,
+ * so the cost of reclamation is spread over updates rather than charged
+ * to every access.  Mappings that have been reclaimed but not yet
+ * removed are never returned by retrievals or iterators, but are
+ * included in {@link #size} until removed.  Methods {@code size},
+ * {@code isEmpty} and {@link #expungeStaleEntries} first remove all
+ * such mappings whose references have been enqueued.
+ *
+ * <p>Iterators and views are <em>weakly consistent</em>, as for
+ * {@code ConcurrentHashMap}.  This class is not serializable.
+ *
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ * @see java.util.WeakHashMap
+ * @see ConcurrentHashMap
+ * @since 1.8
+ */
+public class ConcurrentWeakHashMap<K,V> extends AbstractMap<K,V>
+    implements ConcurrentMap<K,V> {
+
+    /*
+     * Overview:
+     *
+     * The table is an array of bins, each a linked list of Nodes,
+     * maintained as in ConcurrentHashMap: the first node of an empty
+     * bin is inserted by CAS, and all other updates to a bin hold the
+     * monitor of its first node, rechecking after locking that it is
+     * still first.  Nodes are never removed from a bin except under its
+     * lock, and a node that is the first in its bin is only removed by
+     * an operation that then immediately releases the lock.
+     *
+     * A node's key field holds the key itself if keys are strong, or a
+     * WeakRef or SoftRef reference to it, and likewise for its value
+     * field.  References are registered with the map's queue and
+     * carry the spread hash of their mapping, so that an enqueued
+     * reference leads to its bin; the node holding it is found by
+     * comparing the reference itself with the node's fields.  A node
+     * whose key or value has been cleared is "stale": it is invisible
+     * to lookups, and is unlinked when its reference is dequeued, or
+     * earlier if a locked traversal or a resize comes across it.
+     *
+     * Resizing follows ConcurrentHashMap's scheme, simplified to a
+     * single transferring thread: the thread that succeeds in setting
+     * sizeCtl to -1 copies each bin, from the top down, into the two
+     * corresponding bins of a table twice as large, and then replaces
+     * the old bin by a ForwardingNode.  Operations encountering a
+     * ForwardingNode continue in the next table, whose bins for that
+     * index are then complete; other updates during the resize proceed
+     * normally in the bins not yet moved.  Copying rather than moving
+     * nodes lets readers of the old table continue undisturbed.  Stale
+     * nodes are dropped rather than copied.
+     *
+     * The count of nodes is kept in a LongAdder.  It includes stale
+     * nodes until they are unlinked.
+     *
+     * The reference queue is drained by at most one thread at a time,
+     * guarded by the draining field, and by updating operations only:
+     * each drains at most DRAIN_BATCH references.  A drained reference
+     * whose node has already been unlinked (for example because both
+     * its key and value were cleared, or it was replaced) is ignored.
+     */
+
+    /* ---------------- Constants -------------- */
+
+    /**
+     * The largest possible table capacity.
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * The default initial table capacity.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * The maximum number of enqueued references removed by one update.
+     */
+    private static final int DRAIN_BATCH = 64;
+
+    /*
+     * Encodings for Node hash fields.
+     */
+    static final int MOVED     = -1; // hash for forwarding nodes
+    static final int RESERVED  = -3; // hash for transient reservations
+    static final int HASH_BITS = 0x7fffffff; // usable bits of normal node hash
+
+    /**
+     * The kinds of reference through which a {@code ConcurrentWeakHashMap}
+     * may hold its keys or values.
+     *
+     * @since 1.8
+     */
+    public enum ReferenceType {
+        /** Ordinary strong references, never cleared by the collector. */
+        STRONG,
+        /** {@link WeakReference}s, cleared once the referent is weakly reachable. */
+        WEAK,
+        /** {@link SoftReference}s, cleared at the collector's discretion in response to memory demand. */
+        SOFT
+    }
+
+    /* ---------------- Nodes -------------- */
+
+    /**
+     * Key-value entry.  The key and val fields hold either the key and
+     * value themselves or references to them, depending on the map's
+     * reference types.
+     */
+    static class Node<K,V> {
+        final int hash;
+        final Object key;
+        volatile Object val;
+        volatile Node<K,V> next;
+
+        Node(int hash, Object key, Object val, Node<K,V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.val = val;
+            this.next = next;
+        }
+    }
+
+    /**
+     * A node inserted at head of bins during transfer operations.
+     */
+    static final class ForwardingNode<K,V> extends Node<K,V> {
+        final Node<K,V>[] nextTable;
+
+        ForwardingNode(Node<K,V>[] tab) {
+            super(MOVED, null, null, null);
+            this.nextTable = tab;
+        }
+    }
+
+    /**
+     * A place-holder node used in computeIfAbsent.
+     */
+    static final class ReservationNode<K,V> extends Node<K,V> {
+        ReservationNode() {
+            super(RESERVED, null, null, null);
+        }
+    }
+
+    /**
+     * A reference registered with the map's queue, carrying the hash
+     * of its mapping.
+     */
+    interface HashedReference {
+        int hash();
+    }
+
+    static final class WeakRef<T> extends WeakReference<T> implements HashedReference {
+        private final int hash;
+
+        WeakRef(T referent, ReferenceQueue<Object> queue, int hash) {
+            super(referent, queue);
+            this.hash = hash;
+        }
+
+        @Override
+        public int hash() {
+            return hash;
+        }
+    }
+
+    static final class SoftRef<T> extends SoftReference<T> implements HashedReference {
+        private final int hash;
+
+        SoftRef(T referent, ReferenceQueue<Object> queue, int hash) {
+            super(referent, queue);
+            this.hash = hash;
+        }
+
+        @Override
+        public int hash() {
+            return hash;
+        }
+    }
+
+    /* ---------------- Static utilities -------------- */
+
+    static final int spread(int h) {
+        return (h ^ (h >>> 16)) & HASH_BITS;
+    }
+
+    private static int tableSizeFor(int c) {
+        int n = c - 1;
+        n |= n >>> 1;
+        n |= n >>> 2;
+        n |= n >>> 4;
+        n |= n >>> 8;
+        n |= n >>> 16;
+        return (n < 0) ? 1 : (n >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY : n + 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    static final <K,V> Node<K,V> tabAt(Node<K,V>[] tab, int i) {
+        return (Node<K,V>)U.getObjectVolatile(tab, ((long)i << ASHIFT) + ABASE);
+    }
+
+    static final <K,V> boolean casTabAt(Node<K,V>[] tab, int i,
+                                        Node<K,V> c, Node<K,V> v) {
+        return U.compareAndSwapObject(tab, ((long)i << ASHIFT) + ABASE, c, v);
+    }
+
+    static final <K,V> void setTabAt(Node<K,V>[] tab, int i, Node<K,V> v) {
+        U.putObjectVolatile(tab, ((long)i << ASHIFT) + ABASE, v);
+    }
+
+    /* ---------------- Fields -------------- */
+
+    /**
+     * The array of bins. Lazily initialized upon first insertion.
+     * Size is always a power of two.
+     */
+    transient volatile Node<K,V>[] table;
+
+    /**
+     * Table initialization and resizing control.  When negative, the
+     * table is being initialized or resized.  Otherwise, when table is
+     * null, holds the initial table size to use upon creation, or 0
+     * for default. After initialization, holds the next element count
+     * value upon which to resize the table.
+     */
+    private transient volatile int sizeCtl;
+
+    /**
+     * Nonzero while a thread is draining the reference queue.
+     */
+    private transient volatile int draining;
+
+    /** The number of nodes, including stale nodes not yet unlinked */
+    private final LongAdder count = new LongAdder();
+
+    /** The queue with which key and value references are registered */
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+    private final ReferenceType keyType;
+    private final ReferenceType valueType;
+
+    // views
+    private transient Set<Map.Entry<K,V>> entrySet;
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Creates a new, empty map with weak keys, strong values and the
+     * default initial table size (16).
+     */
+    public ConcurrentWeakHashMap() {
+        this(DEFAULT_CAPACITY, ReferenceType.WEAK, ReferenceType.STRONG);
+    }
+
+    /**
+     * Creates a new, empty map with weak keys and strong values, and an
+     * initial table size accommodating the specified number of elements
+     * without the need to dynamically resize.
+     *
+     * @param initialCapacity the implementation performs internal
+     * sizing to accommodate this many elements.
+     * @throws IllegalArgumentException if the initial capacity of
+     * elements is negative
+     */
+    public ConcurrentWeakHashMap(int initialCapacity) {
+        this(initialCapacity, ReferenceType.WEAK, ReferenceType.STRONG);
+    }
+
+    /**
+     * Creates a new, empty map with the given reference types for keys
+     * and values, and the default initial table size (16).
+     *
+     * @param keyType the kind of reference through which keys are held
+     * @param valueType the kind of reference through which values are held
+     * @throws NullPointerException if either type is null
+     */
+    public ConcurrentWeakHashMap(ReferenceType keyType, ReferenceType valueType) {
+        this(DEFAULT_CAPACITY, keyType, valueType);
+    }
+
+    /**
+     * Creates a new, empty map with the given reference types for keys
+     * and values, and an initial table size accommodating the specified
+     * number of elements without the need to dynamically resize.
+     *
+     * @param initialCapacity the implementation performs internal
+     * sizing to accommodate this many elements.
+     * @param keyType the kind of reference through which keys are held
+     * @param valueType the kind of reference through which values are held
+     * @throws IllegalArgumentException if the initial capacity of
+     * elements is negative
+     * @throws NullPointerException if either type is null
+     */
+    public ConcurrentWeakHashMap(int initialCapacity,
+                                 ReferenceType keyType, ReferenceType valueType) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException();
+        }
+        if (keyType == null || valueType == null) {
+            throw new NullPointerException();
+        }
+        this.keyType = keyType;
+        this.valueType = valueType;
+        this.sizeCtl = (initialCapacity >= (MAXIMUM_CAPACITY >>> 1)) ?
+                   MAXIMUM_CAPACITY :
+                   tableSizeFor(initialCapacity + (initialCapacity >>> 1) + 1);
+    }
+
+    /**
+     * Returns the kind of reference through which this map holds keys.
+     *
+     * @return the key reference type
+     */
+    public ReferenceType getKeyType() {
+        return keyType;
+    }
+
+    /**
+     * Returns the kind of reference through which this map holds values.
+     *
+     * @return the value reference type
+     */
+    public ReferenceType getValueType() {
+        return valueType;
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map, after
+     * removing all mappings whose references have been enqueued.  The
+     * result may still include mappings whose key or value has been
+     * reclaimed but whose reference is not yet enqueued.  If the map
+     * contains more than {@code Integer.MAX_VALUE} elements, returns
+     * {@code Integer.MAX_VALUE}.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    @Override
+    public int size() {
+        drain(Integer.MAX_VALUE);
+        long n = count.sum();
+        return ((n < 0L) ? 0 :
+                (n > (long)Integer.MAX_VALUE) ? Integer.MAX_VALUE :
+                (int)n);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEmpty() {
+        drain(Integer.MAX_VALUE);
+        return count.sum() <= 0L; // ignore transient negative values
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or {@code null} if this map contains no mapping for the key
+     * or its value has been reclaimed.
+     *
+     * @throws NullPointerException if the specified key is null
+     */
+    @Override
+    public V get(Object key) {
+        int h = spread(key.hashCode());
+        Node<K,V>[] tab = table;
+        while (tab != null) {
+            Node<K,V> e = tabAt(tab, (tab.length - 1) & h);
+            if (e instanceof ForwardingNode) {
+                tab = ((ForwardingNode<K,V>)e).nextTable;
+                continue;
+            }
+            for (; e != null; e = e.next) {
+                if (e.hash == h && matches(e, key)) {
+                    return valueOf(e);
+                }
+            }
+            break;
+        }
+        return null;
+    }
+
+    /**
+     * Tests if the specified object is a key in this table.
+     *
+     * @param  key possible key
+     * @return {@code true} if and only if the specified object
+     *         is a key in this table, as determined by the
+     *         {@code equals} method; {@code false} otherwise
+     * @throws NullPointerException if the specified key is null
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Returns {@code true} if this map maps one or more keys to the
+     * specified value. Note: This method may require a full traversal
+     * of the map, and is much slower than method {@code containsKey}.
+     *
+     * @param value value whose presence in this map is to be tested
+     * @return {@code true} if this map maps one or more keys to the
+     *         specified value
+     * @throws NullPointerException if the specified value is null
+     */
+    @Override
+    public boolean containsValue(Object value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        for (Iterator<Map.Entry<K,V>> it = new EntryIterator(); it.hasNext(); ) {
+            V v = it.next().getValue();
+            if (v == value || value.equals(v)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Maps the specified key to the specified value in this table.
+     * Neither the key nor the value can be null.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}
+     * @throws NullPointerException if the specified key or value is null
+     */
+    @Override
+    public V put(K key, V value) {
+        return putVal(key, value, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return the previous value associated with the specified key,
+     *         or {@code null} if there was no mapping for the key
+     * @throws NullPointerException if the specified key or value is null
+     */
+    @Override
+    public V putIfAbsent(K key, V value) {
+        return putVal(key, value, true);
+    }
+
+    /** Implementation for put and putIfAbsent */
+    final V putVal(K key, V value, boolean onlyIfAbsent) {
+        if (key == null || value == null) {
+            throw new NullPointerException();
+        }
+        drain(DRAIN_BATCH);
+        int hash = spread(key.hashCode());
+        for (Node<K,V>[] tab = table;;) {
+            Node<K,V> f; int n, i;
+            if (tab == null || (n = tab.length) == 0) {
+                tab = initTable();
+            } else if ((f = tabAt(tab, i = (n - 1) & hash)) == null) {
+                if (casTabAt(tab, i, null, newNode(hash, key, value, null))) {
+                    addCount();
+                    return null;
+                }
+            } else if (f.hash == MOVED) {
+                tab = ((ForwardingNode<K,V>)f).nextTable;
+            } else {
+                V oldVal = null;
+                boolean done = false, added = false;
+                synchronized (f) {
+                    if (tabAt(tab, i) == f) {
+                        if (f.hash == RESERVED) {
+                            throw new IllegalStateException("Recursive update");
+                        }
+                        done = true;
+                        for (Node<K,V> e = f, pred = null;; pred = e, e = e.next) {
+                            Object ek;
+                            if (pred != null && isStale(e)) {
+                                pred.next = e.next;
+                                count.decrement();
+                                e = pred;
+                            } else if (e.hash == hash && (ek = keyOf(e)) != null &&
+                                       (ek == key || key.equals(ek))) {
+                                oldVal = valueOf(e);
+                                if (oldVal == null || !onlyIfAbsent) {
+                                    e.val = wrapValue(value, hash);
+                                }
+                                break;
+                            }
+                            if (e.next == null) {
+                                e.next = newNode(hash, key, value, null);
+                                added = true;
+                                break;
+                            }
+                        }
+                    }
+                }
+                if (done) {
+                    if (added) {
+                        addCount();
+                    }
+                    return oldVal;
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies all of the mappings from the specified map to this one.
+     *
+     * @param m mappings to be stored in this map
+     * @throws NullPointerException if any key or value is null
+     */
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        for (Map.Entry<? extends K, ? extends V> e : m.entrySet()) {
+            putVal(e.getKey(), e.getValue(), false);
+        }
+    }
+
+    /**
+     * Removes the key (and its corresponding value) from this map.
+     * This method does nothing if the key is not in the map.
+     *
+     * @param  key the key that needs to be removed
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}
+     * @throws NullPointerException if the specified key is null
+     */
+    @Override
+    public V remove(Object key) {
+        return replaceNode(key, null, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if the specified key is null
+     */
+    @Override
+    public boolean remove(Object key, Object value) {
+        if (key == null) {
+            throw new NullPointerException();
+        }
+        return value != null && replaceNode(key, null, value) != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if any of the arguments are null
+     */
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        if (key == null || oldValue == null || newValue == null) {
+            throw new NullPointerException();
+        }
+        return replaceNode(key, newValue, oldValue) != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return the previous value associated with the specified key,
+     *         or {@code null} if there was no mapping for the key
+     * @throws NullPointerException if the specified key or value is null
+     */
+    @Override
+    public V replace(K key, V value) {
+        if (key == null || value == null) {
+            throw new NullPointerException();
+        }
+        return replaceNode(key, value, null);
+    }
+
+    /**
+     * Implementation for the four public remove/replace methods:
+     * Replaces node value with v, conditional upon match of cv if
+     * non-null.  If resulting value is null, delete.
+     */
+    final V replaceNode(Object key, V value, Object cv) {
+        drain(DRAIN_BATCH);
+        int hash = spread(key.hashCode());
+        for (Node<K,V>[] tab = table;;) {
+            Node<K,V> f; int n, i;
+            if (tab == null || (n = tab.length) == 0 ||
+                (f = tabAt(tab, i = (n - 1) & hash)) == null) {
+                return null;
+            } else if (f.hash == MOVED) {
+                tab = ((ForwardingNode<K,V>)f).nextTable;
+            } else {
+                V oldVal = null;
+                boolean validated = false;
+                synchronized (f) {
+                    if (tabAt(tab, i) == f) {
+                        validated = true;
+                        for (Node<K,V> e = f, pred = null; e != null; pred = e, e = e.next) {
+                            Object ek;
+                            if (e.hash == hash && (ek = keyOf(e)) != null &&
+                                (ek == key || key.equals(ek))) {
+                                V ev = valueOf(e);
+                                if (ev != null &&
+                                    (cv == null || cv == ev || cv.equals(ev))) {
+                                    oldVal = ev;
+                                    if (value != null) {
+                                        e.val = wrapValue(value, hash);
+                                    } else {
+                                        unlink(tab, i, pred, e);
+                                    }
+                                }
+                                break;
+                            }
+                        }
+                    }
+                }
+                if (validated) {
+                    return oldVal;
+                }
+            }
+        }
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * attempts to compute its value using the given mapping function
+     * and enters it into this map unless {@code null}.  The entire
+     * method invocation is performed atomically, so the function is
+     * applied at most once per key.  Some attempted update operations
+     * on this map by other threads may be blocked while computation
+     * is in progress, so the computation should be short and simple,
+     * and must not attempt to update any other mappings of this map.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param mappingFunction the function to compute a value
+     * @return the current (existing or computed) value associated with
+     *         the specified key, or null if the computed value is null
+     * @throws NullPointerException if the specified key or mappingFunction
+     *         is null
+     * @throws IllegalStateException if the computation detectably
+     *         attempts a recursive update to this map that would
+     *         otherwise never complete
+     * @throws RuntimeException or Error if the mappingFunction does so,
+     *         in which case the mapping is left unestablished
+     */
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        if (key == null || mappingFunction == null) {
+            throw new NullPointerException();
+        }
+        V val = get(key);
+        if (val != null) {
+            return val;
+        }
+        drain(DRAIN_BATCH);
+        int h = spread(key.hashCode());
+        for (Node<K,V>[] tab = table;;) {
+            Node<K,V> f; int n, i;
+            if (tab == null || (n = tab.length) == 0) {
+                tab = initTable();
+            } else if ((f = tabAt(tab, i = (n - 1) & h)) == null) {
+                Node<K,V> r = new ReservationNode<K,V>();
+                synchronized (r) {
+                    if (casTabAt(tab, i, null, r)) {
+                        Node<K,V> node = null;
+                        try {
+                            if ((val = mappingFunction.apply(key)) != null) {
+                                node = newNode(h, key, val, null);
+                            }
+                        } finally {
+                            setTabAt(tab, i, node);
+                        }
+                        if (node != null) {
+                            addCount();
+                        }
+                        return val;
+                    }
+                }
+            } else if (f.hash == MOVED) {
+                tab = ((ForwardingNode<K,V>)f).nextTable;
+            } else {
+                boolean done = false, added = false;
+                synchronized (f) {
+                    if (tabAt(tab, i) == f) {
+                        if (f.hash == RESERVED) {
+                            throw new IllegalStateException("Recursive update");
+                        }
+                        done = true;
+                        for (Node<K,V> e = f;; e = e.next) {
+                            Object ek;
+                            if (e.hash == h && (ek = keyOf(e)) != null &&
+                                (ek == key || key.equals(ek))) {
+                                if ((val = valueOf(e)) == null &&
+                                    (val = mappingFunction.apply(key)) != null) {
+                                    e.val = wrapValue(val, h);
+                                }
+                                break;
+                            }
+                            if (e.next == null) {
+                                if ((val = mappingFunction.apply(key)) != null) {
+                                    e.next = newNode(h, key, val, null);
+                                    added = true;
+                                }
+                                break;
+                            }
+                        }
+                    }
+                }
+                if (done) {
+                    if (added) {
+                        addCount();
+                    }
+                    return val;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    @Override
+    public void clear() {
+        Node<K,V>[] tab = table;
+        for (int i = 0; tab != null && i < tab.length; ) {
+            Node<K,V> f = tabAt(tab, i);
+            if (f == null) {
+                ++i;
+            } else if (f.hash == MOVED) {
+                tab = ((ForwardingNode<K,V>)f).nextTable;
+                i = 0; // restart in the new table
+            } else {
+                synchronized (f) {
+                    if (tabAt(tab, i) == f) {
+                        long removed = 0L;
+                        for (Node<K,V> e = f; e != null; e = e.next) {
+                            if (e.hash >= 0) {
+                                ++removed;
+                            }
+                        }
+                        setTabAt(tab, i++, null);
+                        count.add(-removed);
+                    }
+                }
+            }
+        }
+        drain(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Removes all mappings whose key or value reference has been
+     * cleared and enqueued by the garbage collector.  Updating
+     * operations remove such mappings in small batches, so calling this
+     * method is only needed to release the memory of mappings
+     * reclaimed while the map is not being updated.
+     */
+    public void expungeStaleEntries() {
+        drain(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns a {@link Set} view of the mappings contained in this map.
+     * The set is backed by the map, so changes to the map are
+     * reflected in the set, and vice-versa.  The set supports element
+     * removal, which removes the corresponding mapping from the map,
+     * but not element addition.  Setting the value of an entry puts
+     * the new value into the map.
+     *
+     * <p>The view's iterators are <a href="package-summary.html#Weakly">
+     * <i>weakly consistent</i></a>, and never return mappings whose key
+     * or value has been reclaimed.
+     *
+     * @return the set view
+     */
+    @Override
+    public Set<Map.Entry<K,V>> entrySet() {
+        Set<Map.Entry<K,V>> es;
+        return (es = entrySet) != null ? es : (entrySet = new EntrySet());
+    }
+
+    /* ---------------- Keys and values -------------- */
+
+    private Object wrapKey(K key, int hash) {
+        switch (keyType) {
+            case WEAK:
+                return new WeakRef<K>(key, queue, hash);
+            case SOFT:
+                return new SoftRef<K>(key, queue, hash);
+            default:
+                return key;
+        }
+    }
+
+    private Object wrapValue(V value, int hash) {
+        switch (valueType) {
+            case WEAK:
+                return new WeakRef<V>(value, queue, hash);
+            case SOFT:
+                return new SoftRef<V>(value, queue, hash);
+            default:
+                return value;
+        }
+    }
+
+    private Node<K,V> newNode(int hash, K key, V value, Node<K,V> next) {
+        return new Node<K,V>(hash, wrapKey(key, hash), wrapValue(value, hash), next);
+    }
+
+    /**
+     * Returns the key of a node, or null if it has been reclaimed.
+     */
+    @SuppressWarnings("unchecked")
+    final K keyOf(Node<K,V> e) {
+        Object k = e.key;
+        return (keyType == ReferenceType.STRONG) ? (K)k : ((Reference<K>)k).get();
+    }
+
+    /**
+     * Returns the value of a node, or null if it has been reclaimed.
+     */
+    @SuppressWarnings("unchecked")
+    final V valueOf(Node<K,V> e) {
+        Object v = e.val;
+        return (valueType == ReferenceType.STRONG) ? (V)v : ((Reference<V>)v).get();
+    }
+
+    private boolean matches(Node<K,V> e, Object key) {
+        Object ek = keyOf(e);
+        return ek == key || (ek != null && key.equals(ek));
+    }
+
+    private boolean isStale(Node<K,V> e) {
+        return keyOf(e) == null || valueOf(e) == null;
+    }
+
+    /**
+     * Unlinks node e, whose predecessor is pred or null if first, from
+     * bin i, whose lock is held.  If e is first, the caller must
+     * release the lock without further changes to the bin.
+     */
+    private void unlink(Node<K,V>[] tab, int i, Node<K,V> pred, Node<K,V> e) {
+        if (pred != null) {
+            pred.next = e.next;
+        } else {
+            setTabAt(tab, i, e.next);
+        }
+        count.decrement();
+    }
+
+    /* ---------------- Reclamation -------------- */
+
+    /**
+     * Removes the mappings of up to max enqueued references, unless
+     * another thread is doing so.
+     */
+    private void drain(int max) {
+        Reference<?> r;
+        if (draining != 0 || (r = queue.poll()) == null) {
+            return;
+        }
+        if (!U.compareAndSwapInt(this, DRAINING, 0, 1)) {
+            removeStale(r); // another thread is draining the rest
+            return;
+        }
+        try {
+            for (int k = 0; r != null; r = (++k < max) ? queue.poll() : null) {
+                removeStale(r);
+            }
+        } finally {
+            draining = 0;
+        }
+    }
+
+    /**
+     * Unlinks the node holding the given reference, if still present.
+     */
+    private void removeStale(Reference<?> r) {
+        int hash = ((HashedReference)r).hash();
+        for (Node<K,V>[] tab = table;;) {
+            Node<K,V> f; int n, i;
+            if (tab == null || (n = tab.length) == 0 ||
+                (f = tabAt(tab, i = (n - 1) & hash)) == null) {
+                return;
+            } else if (f.hash == MOVED) {
+                tab = ((ForwardingNode<K,V>)f).nextTable;
+            } else {
+                synchronized (f) {
+                    if (tabAt(tab, i) == f) {
+                        for (Node<K,V> e = f, pred = null; e != null; pred = e, e = e.next) {
+                            if (e.key == r || e.val == r) {
+                                unlink(tab, i, pred, e);
+                                break;
+                            }
+                        }
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /* ---------------- Table initialization and resizing -------------- */
+
+    /**
+     * Initializes table, using the size recorded in sizeCtl.
+     */
+    private final Node<K,V>[] initTable() {
+        Node<K,V>[] tab; int sc;
+        while ((tab = table) == null || tab.length == 0) {
+            if ((sc = sizeCtl) < 0) {
+                Thread.yield(); // lost initialization race; just spin
+            } else if (U.compareAndSwapInt(this, SIZECTL, sc, -1)) {
+                try {
+                    if ((tab = table) == null || tab.length == 0) {
+                        int n = (sc > 0) ? sc : DEFAULT_CAPACITY;
+                        @SuppressWarnings("unchecked")
+                        Node<K,V>[] nt = (Node<K,V>[])new Node<?,?>[n];
+                        table = tab = nt;
+                        sc = n - (n >>> 2);
+                    }
+                } finally {
+                    sizeCtl = sc;
+                }
+                break;
+            }
+        }
+        return tab;
+    }
+
+    /**
+     * Adds one to count, and if the table is too small and not already
+     * resizing, resizes it.
+     */
+    private void addCount() {
+        count.increment();
+        Node<K,V>[] tab; int sc;
+        if ((sc = sizeCtl) > 0 && count.sum() >= sc &&
+            (tab = table) != null && tab.length < MAXIMUM_CAPACITY &&
+            U.compareAndSwapInt(this, SIZECTL, sc, -1)) {
+            transfer(tab);
+        }
+    }
+
+    /**
+     * Copies the nodes in each bin to a table twice as large, dropping
+     * stale nodes, and forwards the bin to the new table.  Called only
+     * by the thread that set sizeCtl to -1.
+     */
+    private void transfer(Node<K,V>[] tab) {
+        int n = tab.length;
+        Node<K,V>[] nextTab = null;
+        try {
+            @SuppressWarnings("unchecked")
+            Node<K,V>[] nt = (Node<K,V>[])new Node<?,?>[n << 1];
+            nextTab = nt;
+        } finally {
+            if (nextTab == null) {      // OOME: give up resizing
+                sizeCtl = Integer.MAX_VALUE;
+            }
+        }
+        ForwardingNode<K,V> fwd = new ForwardingNode<K,V>(nextTab);
+        for (int i = n - 1; i >= 0; ) {
+            Node<K,V> f = tabAt(tab, i);
+            if (f == null) {
+                if (casTabAt(tab, i, null, fwd)) {
+                    --i;
+                }
+                continue;
+            }
+            synchronized (f) {
+                if (tabAt(tab, i) == f) {
+                    Node<K,V> ln = null, hn = null;
+                    for (Node<K,V> e = f; e != null; e = e.next) {
+                        if (isStale(e)) {
+                            count.decrement();
+                        } else if ((e.hash & n) == 0) {
+                            ln = new Node<K,V>(e.hash, e.key, e.val, ln);
+                        } else {
+                            hn = new Node<K,V>(e.hash, e.key, e.val, hn);
+                        }
+                    }
+                    setTabAt(nextTab, i, ln);
+                    setTabAt(nextTab, i + n, hn);
+                    setTabAt(tab, i, fwd);
+                    --i;
+                }
+            }
+        }
+        table = nextTab;
+        sizeCtl = (n << 1) - (n >>> 1);
+    }
+
+    /* ---------------- Iteration -------------- */
+
+    /**
+     * Weakly consistent iterator over live mappings.  Collects the keys
+     * and values of one bin at a time, following forwarding nodes into
+     * the corresponding bins of later tables.
+     */
+    final class EntryIterator implements Iterator<Map.Entry<K,V>> {
+        private final Node<K,V>[] tab = table;
+        private int index;
+        private Object[] buf = new Object[8];   // alternating keys and values
+        private int pos, end;
+        private K lastKey;
+
+        @Override
+        public boolean hasNext() {
+            while (pos >= end) {
+                if (tab == null || index >= tab.length) {
+                    return false;
+                }
+                pos = end = 0;
+                collect(tab, index++);
+            }
+            return true;
+        }
+
+        private void collect(Node<K,V>[] t, int i) {
+            Node<K,V> e = tabAt(t, i);
+            if (e instanceof ForwardingNode) {
+                Node<K,V>[] nt = ((ForwardingNode<K,V>)e).nextTable;
+                collect(nt, i);
+                collect(nt, i + t.length);
+                return;
+            }
+            for (; e != null; e = e.next) {
+                K k; V v;
+                if (e.hash >= 0 && (k = keyOf(e)) != null && (v = valueOf(e)) != null) {
+                    if (end == buf.length) {
+                        buf = java.util.Arrays.copyOf(buf, end << 1);
+                    }
+                    buf[end++] = k;
+                    buf[end++] = v;
+                }
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<K,V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            K k = (K)buf[pos];
+            V v = (V)buf[pos + 1];
+            buf[pos++] = null;
+            buf[pos++] = null;
+            lastKey = k;
+            return new MapEntry(k, v);
+        }
+
+        @Override
+        public void remove() {
+            K k = lastKey;
+            if (k == null) {
+                throw new IllegalStateException();
+            }
+            lastKey = null;
+            ConcurrentWeakHashMap.this.remove(k);
+        }
+    }
+
+    /**
+     * Exported Entry for iterators.  Holds the key and value strongly
+     * while in use.
+     */
+    final class MapEntry extends AbstractMap.SimpleEntry<K,V> {
+        private static final long serialVersionUID = 5926154381580437516L;
+
+        MapEntry(K key, V value) {
+            super(key, value);
+        }
+
+        /**
+         * Sets our entry's value and writes through to the map.
+         */
+        @Override
+        public V setValue(V value) {
+            if (value == null) {
+                throw new NullPointerException();
+            }
+            V v = super.setValue(value);
+            put(getKey(), value);
+            return v;
+        }
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<K,V>> {
+        @Override
+        public Iterator<Map.Entry<K,V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            Object k, v, r;
+            Map.Entry<?,?> e;
+            return ((o instanceof Map.Entry) &&
+                    (k = (e = (Map.Entry<?,?>)o).getKey()) != null &&
+                    (r = get(k)) != null &&
+                    (v = e.getValue()) != null &&
+                    (v == r || v.equals(r)));
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            Object k, v;
+            Map.Entry<?,?> e;
+            return ((o instanceof Map.Entry) &&
+                    (k = (e = (Map.Entry<?,?>)o).getKey()) != null &&
+                    (v = e.getValue()) != null &&
+                    ConcurrentWeakHashMap.this.remove(k, v));
+        }
+
+        @Override
+        public int size() {
+            return ConcurrentWeakHashMap.this.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return ConcurrentWeakHashMap.this.isEmpty();
+        }
+
+        @Override
+        public void clear() {
+            ConcurrentWeakHashMap.this.clear();
+        }
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long SIZECTL;
+    private static final long DRAINING;
+    private static final long ABASE;
+    private static final int ASHIFT;
+
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            Class<?> k = ConcurrentWeakHashMap.class;
+            SIZECTL = U.objectFieldOffset
+                (k.getDeclaredField("sizeCtl"));
+            DRAINING = U.objectFieldOffset
+                (k.getDeclaredField("draining"));
+            Class<?> ak = Node[].class;
+            ABASE = U.arrayBaseOffset(ak);
+            int scale = U.arrayIndexScale(ak);
+            if ((scale & (scale - 1)) != 0) {
+                throw new Error("data type scale not a power of two");
+            }
+            ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -67,11 +67,12 @@ import java.security.Permissions;
  * 与其他ExecutorServices的情况一样，下表总结了三个主要任务执行方法。 这些设计主要由尚未在当前池中进行fork / join计算的客户端使用。 这些方法的主要形式接受的实例ForkJoinTask ，但重载形式也允许的纯混合执行Runnable -或Callable -基础的活动为好。 但是，通常情况下，在池中已经执行的任务会使用表中列出的计算内表单，除非使用不通常连接的异步事件式任务，否则在方法选择方面几乎没有区别。
  *
  * Summary of task execution methods Call from non-fork/join clients Call from within fork/join computations Arrange async execution execute(ForkJoinTask) ForkJoinTask.fork() Await and obtain result invoke(ForkJoinTask) ForkJoinTask.invoke() Arrange exec and obtain Future submit(ForkJoinTask) ForkJoinTask.fork() (ForkJoinTasks are Futures)
- * 公共池默认使用默认参数构建，但这些可以通过设置三个system properties来控制 ：
+ * 公共池默认使用默认参数构建，但这些可以通过设置四个system properties来控制 ：
  *
  * java.util.concurrent.ForkJoinPool.common.parallelism - 并行级别，非负整数
  * java.util.concurrent.ForkJoinPool.common.threadFactory - 类名ForkJoinPool.ForkJoinWorkerThreadFactory
  * java.util.concurrent.ForkJoinPool.common.exceptionHandler - 一个Thread.UncaughtExceptionHandler的类名
+ * java.util.concurrent.ForkJoinPool.common.batchStealing - 为true时启用批量窃取（setBatchStealing）
  * 如果一个SecurityManager存在且没有指定工厂，则默认池使用一个工厂提供的线程不启用Permissions 。 系统类加载器用于加载这些类。 建立这些设置有任何错误，使用默认参数。 通过将parallelism属性设置为零，和/或使用可能返回null的工厂，可以禁用或限制公共池中的线程的使用。 但是这样做可能导致未连接的任务永远不会被执行。
  * 实现注意事项 ：此实现将运行的最大线程数限制为32767.尝试创建大于最大数目的池导致IllegalArgumentException 。
  *
@@ -156,7 +157,7 @@ import java.security.Permissions;
  * </table>
  *
  * <p>The common pool is by default constructed with default
- * parameters, but these may be controlled by setting three
+ * parameters, but these may be controlled by setting four
  * {@linkplain System#getProperty system properties}:
  * <ul>
  * <li>{@code java.util.concurrent.ForkJoinPool.common.parallelism}
@@ -165,6 +166,8 @@ import java.security.Permissions;
  * - the class name of a {@link ForkJoinWorkerThreadFactory}
  * <li>{@code java.util.concurrent.ForkJoinPool.common.exceptionHandler}
  * - the class name of a {@link UncaughtExceptionHandler}
+ * <li>{@code java.util.concurrent.ForkJoinPool.common.batchStealing}
+ * - {@code true} to enable {@linkplain #setBatchStealing batch stealing}
  * </ul>
  * If a {@link SecurityManager} is present and no factory is
  * specified, then the default pool uses a factory supplying
@@ -828,6 +831,8 @@ public class ForkJoinPool extends AbstractExecutorService {
         volatile int scanState;    // versioned, <0: inactive; odd:scanning
         int stackPred;             // pool stack (ctl) predecessor
         int nsteals;               // number of steals
+        long nfailedScans;         // number of scans finding no task
+        long nparks;               // number of times parked
         int hint;                  // randomization and stealer index hint
         int config;                // pool index and mode
         volatile int qlock;        // 1: locked, < 0: terminate; else 0
@@ -1387,6 +1392,13 @@ public class ForkJoinPool extends AbstractExecutorService {
      */
     private static final int SPINS  = 0;
 
+    /**
+     * Maximum number of tasks moved to the thief's queue in one
+     * batch steal, in addition to the one it runs, bounding the time
+     * a worker spends moving tasks before running any.
+     */
+    private static final int MAX_BATCH_STEAL = 1 << 6;
+
     /**
      * Increment for seed generators. See class ThreadLocal for
      * explanation.
@@ -1449,6 +1461,8 @@ public class ForkJoinPool extends AbstractExecutorService {
     final UncaughtExceptionHandler ueh;  // per-worker UEH
     final String workerNamePrefix;       // to create worker name string
     volatile AtomicLong stealCounter;    // also used as sync monitor
+    volatile boolean batchStealing;      // steal half of victim's tasks
+    volatile Statistics statistics;      // created on first request
 
     /**
      * Acquires the runState lock; returns current (locked) runState.
@@ -1771,8 +1785,11 @@ public class ForkJoinPool extends AbstractExecutorService {
         for (ForkJoinTask<?> t;;) {
             if ((t = scan(w, r)) != null) {
                 w.runTask(t);
-            } else if (!awaitWork(w, r)) {
-                break;
+            } else {
+                ++w.nfailedScans;
+                if (!awaitWork(w, r)) {
+                    break;
+                }
             }
             r ^= r << 13; r ^= r >>> 17; r ^= r << 5; // xorshift
         }
@@ -1813,6 +1830,9 @@ public class ForkJoinPool extends AbstractExecutorService {
                                     q.base = b + 1;
                                     if (n < -1)       // signal others
                                     {
+                                        if (n < -3 && q != w && batchStealing) {
+                                            stealBatch(w, q, -n);
+                                        }
                                         signalWork(ws, q);
                                     }
                                     return t;
@@ -1859,6 +1879,31 @@ public class ForkJoinPool extends AbstractExecutorService {
         return null;
     }
 
+    /**
+     * Moves up to half of the tasks of victim q, less the one already
+     * stolen from it, from its base to w's queue, for w to run after
+     * the stolen task or to be stolen from w in turn.  Called by scan
+     * in batch stealing mode, so that on fine-grained workloads a
+     * thief need not rescan for each task.  Stops on any contention
+     * for q's base, leaving the rest to other thieves.
+     *
+     * @param w the thief, which must own its queue
+     * @param q the victim
+     * @param n the size of q when its first task was stolen
+     */
+    private void stealBatch(WorkQueue w, WorkQueue q, int n) {
+        int moved = 0;
+        for (int k = Math.min(n >>> 1, MAX_BATCH_STEAL + 1) - 1;
+             moved < k; ++moved) {
+            ForkJoinTask<?> t; int b;
+            if ((b = q.base) - q.top >= 0 || (t = q.pollAt(b)) == null) {
+                break;
+            }
+            w.push(t);
+        }
+        w.nsteals += moved;
+    }
+
     /**
      * Possibly blocks worker w waiting for a task to steal, or
      * returns false if the worker should terminate.  If inactivating
@@ -1920,6 +1965,7 @@ public class ForkJoinPool extends AbstractExecutorService {
                 w.parker = wt;
                 if (w.scanState < 0 && ctl == c)      // recheck before park
                 {
+                    ++w.nparks;
                     U.park(false, parkTime);
                 }
                 U.putOrderedObject(w, QPARKER, null);
@@ -2958,6 +3004,48 @@ public class ForkJoinPool extends AbstractExecutorService {
         return (config & FIFO_QUEUE) != 0;
     }
 
+    /**
+     * Returns {@code true} if workers of this pool steal in batches.
+     *
+     * @return {@code true} if batch stealing is enabled
+     * @see #setBatchStealing
+     * @since 1.8
+     */
+    public boolean isBatchStealing() {
+        return batchStealing;
+    }
+
+    /**
+     * Enables or disables batch stealing.  By default, a worker that
+     * finds no task in its own queue steals one task from the queue
+     * of another worker, or a submission queue, and scans again for
+     * each task.  When batch stealing is enabled, it instead takes up
+     * to half of the tasks of that queue at once, running one and
+     * moving the rest to its own queue, from which they can in turn
+     * be stolen.  This reduces contention at the base of the victim's
+     * queue for computations forking many small tasks, such as
+     * parallel streams and {@link java.util.Arrays#parallelSort
+     * Arrays.parallelSort}.  A task moved this way is no longer found
+     * by a thread joining it in the victim's queue, which then may
+     * block or activate a spare thread instead of running it, so
+     * computations that mostly join the tasks they fork may run
+     * slower.  Batch stealing of the {@link #commonPool()} may also be
+     * enabled by setting the system property {@code
+     * java.util.concurrent.ForkJoinPool.common.batchStealing} to
+     * {@code true}.
+     *
+     * @param enable {@code true} to enable batch stealing
+     * @throws SecurityException if a security manager exists and
+     *         the caller is not permitted to modify threads
+     *         because it does not hold {@link
+     *         java.lang.RuntimePermission}{@code ("modifyThread")}
+     * @since 1.8
+     */
+    public void setBatchStealing(boolean enable) {
+        checkPermission();
+        batchStealing = enable;
+    }
+
     /**
      * Returns an estimate of the number of worker threads that are
      * not blocked waiting to join tasks or for other managed
@@ -3144,6 +3232,94 @@ public class ForkJoinPool extends AbstractExecutorService {
         return count;
     }
 
+    /**
+     * Returns an {@link javax.management.MXBean MXBean} reporting the
+     * statistics of this pool, including the steal, failed scan and
+     * park counts and the queue depth of each worker.  Workers keep
+     * these counts in their own queues with plain writes, so they are
+     * always maintained; further calls return the same bean.
+     *
+     * @return the statistics of this pool
+     * @since 1.8
+     */
+    public ForkJoinPoolMXBean getStatistics() {
+        Statistics st = statistics;
+        if (st == null) {
+            statistics = st = new Statistics(this);
+        }
+        return st;
+    }
+
+    /**
+     * The statistics of a pool, read from its work queues on demand.
+     * Any number of instances may briefly exist for a pool; all are
+     * equivalent.
+     */
+    static final class Statistics implements ForkJoinPoolMXBean {
+        final ForkJoinPool pool;
+
+        Statistics(ForkJoinPool pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public int getParallelism() {
+            return pool.getParallelism();
+        }
+
+        @Override
+        public int getPoolSize() {
+            return pool.getPoolSize();
+        }
+
+        @Override
+        public int getActiveThreadCount() {
+            return pool.getActiveThreadCount();
+        }
+
+        @Override
+        public long getStealCount() {
+            return pool.getStealCount();
+        }
+
+        @Override
+        public long getQueuedTaskCount() {
+            return pool.getQueuedTaskCount();
+        }
+
+        @Override
+        public int getQueuedSubmissionCount() {
+            return pool.getQueuedSubmissionCount();
+        }
+
+        @Override
+        public boolean isBatchStealing() {
+            return pool.isBatchStealing();
+        }
+
+        @Override
+        public void setBatchStealing(boolean enable) {
+            pool.setBatchStealing(enable);
+        }
+
+        @Override
+        public WorkerStatistics[] getWorkerStatistics() {
+            ArrayList<WorkerStatistics> list = new ArrayList<>();
+            WorkQueue[] ws; WorkQueue w; ForkJoinWorkerThread wt;
+            if ((ws = pool.workQueues) != null) {
+                for (int i = 1; i < ws.length; i += 2) {
+                    if ((w = ws[i]) != null && (wt = w.owner) != null) {
+                        list.add(new WorkerStatistics
+                                 (w.getPoolIndex(), wt.getName(),
+                                  w.nsteals, w.nfailedScans, w.nparks,
+                                  w.queueSize()));
+                    }
+                }
+            }
+            return list.toArray(new WorkerStatistics[list.size()]);
+        }
+    }
+
     /**
      * Returns a string identifying this pool, as well as its state,
      * including indications of run state, parallelism level, and
@@ -3597,6 +3773,7 @@ public class ForkJoinPool extends AbstractExecutorService {
      */
     private static ForkJoinPool makeCommonPool() {
         int parallelism = -1;
+        boolean batchStealing = false;
         ForkJoinWorkerThreadFactory factory = null;
         UncaughtExceptionHandler handler = null;
         try {  // ignore exceptions in accessing/parsing properties
@@ -3606,6 +3783,8 @@ public class ForkJoinPool extends AbstractExecutorService {
                 ("java.util.concurrent.ForkJoinPool.common.threadFactory");
             String hp = System.getProperty
                 ("java.util.concurrent.ForkJoinPool.common.exceptionHandler");
+            batchStealing = Boolean.parseBoolean(System.getProperty
+                ("java.util.concurrent.ForkJoinPool.common.batchStealing"));
             if (pp != null) {
                 parallelism = Integer.parseInt(pp);
             }
@@ -3634,8 +3813,11 @@ public class ForkJoinPool extends AbstractExecutorService {
         if (parallelism > MAX_CAP) {
             parallelism = MAX_CAP;
         }
-        return new ForkJoinPool(parallelism, factory, handler, LIFO_QUEUE,
-                                "ForkJoinPool.commonPool-worker-");
+        ForkJoinPool pool =
+            new ForkJoinPool(parallelism, factory, handler, LIFO_QUEUE,
+                             "ForkJoinPool.commonPool-worker-");
+        pool.batchStealing = batchStealing;
+        return pool;
     }
 
     /**
@@ -0,0 +1,227 @@
+package java.util.concurrent;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * ForkJoinPool 运行统计的管理接口：线程池整体的窃取与排队任务数，以及每个工作线程的窃取次数、扫描失败次数、挂起次数与本地队列深度；并可开关批量窃取。
+ *
+ * The management interface for the statistics of a {@link
+ * ForkJoinPool}, obtained from {@link ForkJoinPool#getStatistics}.
+ * Besides the pool-wide counts also reported by methods of {@code
+ * ForkJoinPool}, it reports for each worker thread how often it stole
+ * tasks, scanned the pool without finding any, and parked, and how many
+ * tasks its queue holds, which shows whether work is spread evenly
+ * and whether workers spend their time stealing rather than running
+ * tasks.  It also allows {@linkplain ForkJoinPool#setBatchStealing
+ * batch stealing} to be switched on and off while the pool runs.
+ *
+ * <p>A class implementing this interface is an
+ * {@link javax.management.MXBean}, so it may be registered with the
+ * platform {@link javax.management.MBeanServer MBeanServer} to be read by
+ * JMX clients, for example:
+ * <pre> {@code
+ * ManagementFactory.getPlatformMBeanServer().registerMBean(
+ *     ForkJoinPool.commonPool().getStatistics(),
+ *     new ObjectName("java.util.concurrent:type=ForkJoinPool,name=common"));}</pre>
+ *
+ * <p>Per-worker counts are kept by each worker in its own queue, and
+ * are cumulative over the life of the worker; they are dropped when a
+ * worker terminates, as idle workers do after a period of inactivity.
+ * Values are read without synchronization, so are estimates while the
+ * pool is active.
+ *
+ * @since 1.8
+ */
+public interface ForkJoinPoolMXBean {
+
+    /**
+     * Returns the targeted parallelism level of the pool.
+     *
+     * @return the targeted parallelism level
+     * @see ForkJoinPool#getParallelism
+     */
+    int getParallelism();
+
+    /**
+     * Returns the number of worker threads that have started but not
+     * yet terminated.
+     *
+     * @return the number of worker threads
+     * @see ForkJoinPool#getPoolSize
+     */
+    int getPoolSize();
+
+    /**
+     * Returns an estimate of the number of threads that are currently
+     * stealing or executing tasks.
+     *
+     * @return the number of active threads
+     * @see ForkJoinPool#getActiveThreadCount
+     */
+    int getActiveThreadCount();
+
+    /**
+     * Returns an estimate of the total number of tasks stolen from
+     * one thread's work queue by another, including those of
+     * terminated workers.
+     *
+     * @return the number of steals
+     * @see ForkJoinPool#getStealCount
+     */
+    long getStealCount();
+
+    /**
+     * Returns an estimate of the total number of tasks currently held
+     * in queues by worker threads.
+     *
+     * @return the number of queued tasks
+     * @see ForkJoinPool#getQueuedTaskCount
+     */
+    long getQueuedTaskCount();
+
+    /**
+     * Returns an estimate of the number of tasks submitted to the pool
+     * that have not yet begun executing.
+     *
+     * @return the number of queued submissions
+     * @see ForkJoinPool#getQueuedSubmissionCount
+     */
+    int getQueuedSubmissionCount();
+
+    /**
+     * Returns {@code true} if workers of the pool steal half of the
+     * tasks of the queue they steal from.
+     *
+     * @return {@code true} if batch stealing is enabled
+     * @see ForkJoinPool#isBatchStealing
+     */
+    boolean isBatchStealing();
+
+    /**
+     * Enables or disables batch stealing.
+     *
+     * @param enable {@code true} to enable batch stealing
+     * @throws SecurityException if a security manager exists and
+     *         the caller is not permitted to modify threads
+     * @see ForkJoinPool#setBatchStealing
+     */
+    void setBatchStealing(boolean enable);
+
+    /**
+     * Returns the statistics of each live worker thread, in order of
+     * pool index.
+     *
+     * @return the statistics of each worker
+     */
+    WorkerStatistics[] getWorkerStatistics();
+
+    /**
+     * The statistics of one worker thread of a {@link ForkJoinPool},
+     * read at one time.
+     *
+     * @since 1.8
+     */
+    final class WorkerStatistics {
+        private final int poolIndex;
+        private final String threadName;
+        private final long stealCount;
+        private final long failedScanCount;
+        private final long parkCount;
+        private final int queuedTaskCount;
+
+        /**
+         * Creates worker statistics with the given values.
+         *
+         * @param poolIndex the index of the worker in its pool
+         * @param threadName the name of the worker thread
+         * @param stealCount the number of tasks stolen by the worker
+         * @param failedScanCount the number of scans finding no task
+         * @param parkCount the number of times the worker parked
+         * @param queuedTaskCount the number of tasks in its queue
+         */
+        @ConstructorProperties({ "poolIndex", "threadName", "stealCount",
+                                 "failedScanCount", "parkCount",
+                                 "queuedTaskCount" })
+        public WorkerStatistics(int poolIndex, String threadName,
+                                long stealCount, long failedScanCount,
+                                long parkCount, int queuedTaskCount) {
+            this.poolIndex = poolIndex;
+            this.threadName = threadName;
+            this.stealCount = stealCount;
+            this.failedScanCount = failedScanCount;
+            this.parkCount = parkCount;
+            this.queuedTaskCount = queuedTaskCount;
+        }
+
+        /**
+         * Returns the index of the worker in its pool.
+         *
+         * @return the pool index
+         * @see ForkJoinWorkerThread#getPoolIndex
+         */
+        public int getPoolIndex() {
+            return poolIndex;
+        }
+
+        /**
+         * Returns the name of the worker thread.
+         *
+         * @return the thread name
+         */
+        public String getThreadName() {
+            return threadName;
+        }
+
+        /**
+         * Returns the number of tasks the worker has taken from other
+         * queues, including those moved to its own queue by batch
+         * stealing.
+         *
+         * @return the number of steals
+         */
+        public long getStealCount() {
+            return stealCount;
+        }
+
+        /**
+         * Returns the number of times the worker scanned all queues
+         * of the pool without finding a task, after which it waits
+         * for work.
+         *
+         * @return the number of failed scans
+         */
+        public long getFailedScanCount() {
+            return failedScanCount;
+        }
+
+        /**
+         * Returns the number of times the worker parked waiting for
+         * work.
+         *
+         * @return the number of parks
+         */
+        public long getParkCount() {
+            return parkCount;
+        }
+
+        /**
+         * Returns the number of tasks in the worker's queue.
+         *
+         * @return the local queue depth
+         */
+        public int getQueuedTaskCount() {
+            return queuedTaskCount;
+        }
+
+        @Override
+        public String toString() {
+            return threadName +
+                "[index = " + poolIndex +
+                ", steals = " + stealCount +
+                ", failed scans = " + failedScanCount +
+                ", parks = " + parkCount +
+                ", tasks = " + queuedTaskCount +
+                "]";
+        }
+    }
+}
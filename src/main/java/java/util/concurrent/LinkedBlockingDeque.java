@@ -844,6 +844,157 @@ public class LinkedBlockingDeque<E>
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Waits for elements and removes them while holding the lock,
+     * releasing it only while waiting.
+     *
+     * @throws InterruptedException          {@inheritDoc}
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    @Override
+    public int drainTo(Collection<? super E> c, int minElements, int maxElements,
+                       long timeout, TimeUnit unit)
+        throws InterruptedException {
+        if (c == null) {
+            throw new NullPointerException();
+        }
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        if (maxElements <= 0) {
+            return 0;
+        }
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            // Take elements as they arrive, so that each wakeup is
+            // paid for by an element, as in takeFirst
+            int n = drainTo(c, maxElements);
+            while (n < minElements && n < maxElements && nanos > 0) {
+                nanos = notEmpty.awaitNanos(nanos);
+                n += drainTo(c, maxElements - n);
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Links as many elements as there is space for at the end of
+     * this deque, and signals waiting takers, under a single
+     * acquisition of the lock, waiting for space as many times as
+     * needed.  Nodes are allocated before the lock is acquired, and no
+     * element is inserted if any of them is null.
+     *
+     * @throws InterruptedException     {@inheritDoc}
+     * @throws NullPointerException     {@inheritDoc}
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    @Override
+    public int offerAll(Collection<? extends E> c, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        return linkAllLast(c, true, unit.toNanos(timeout));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Links as many elements as there is space for at the end of
+     * this deque, and signals waiting takers, under a single
+     * acquisition of the lock, waiting for space as many times as
+     * needed.  Nodes are allocated before the lock is acquired, and no
+     * element is inserted if any of them is null.
+     *
+     * @throws InterruptedException     {@inheritDoc}
+     * @throws NullPointerException     {@inheritDoc}
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    @Override
+    public void putAll(Collection<? extends E> c) throws InterruptedException {
+        linkAllLast(c, false, 0L);
+    }
+
+    /**
+     * Links the elements of c in order as last elements, waiting for
+     * space if necessary, up to the given time if timed.
+     *
+     * @return the number of elements inserted
+     */
+    private int linkAllLast(Collection<? extends E> c, boolean timed, long nanos)
+        throws InterruptedException {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        Node<E> h = null, t = null;
+        int size = 0;
+        for (E e : c) {
+            if (e == null) {
+                throw new NullPointerException();
+            }
+            Node<E> p = new Node<E>(e);
+            if (h == null) {
+                h = p;
+            } else {
+                t.next = p;
+                p.prev = t;
+            }
+            t = p;
+            ++size;
+        }
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            int n = 0;
+            while (n < size) {
+                int k = Math.min(capacity - count, size - n);
+                if (k <= 0) {
+                    if (!timed) {
+                        notFull.await();
+                    } else if (nanos <= 0) {
+                        break;
+                    } else {
+                        nanos = notFull.awaitNanos(nanos);
+                    }
+                    continue;
+                }
+                Node<E> l = h;
+                for (int i = 1; i < k; ++i) {
+                    l = l.next;
+                }
+                Node<E> rest = l.next;
+                if (rest != null) {
+                    l.next = null;
+                    rest.prev = null;
+                }
+                h.prev = last;
+                if (first == null) {
+                    first = h;
+                } else {
+                    last.next = h;
+                }
+                last = l;
+                h = rest;
+                count += k;
+                n += k;
+                for (; k > 0 && lock.hasWaiters(notEmpty); k--) {
+                    notEmpty.signal();
+                }
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
     // Stack methods
 
     /**
@@ -831,6 +831,191 @@ public class LinkedBlockingQueue<E> extends AbstractQueue<E>
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Waits for elements and removes those available under a single
+     * acquisition of the take lock, and acquires it again only if more
+     * elements must be waited for.
+     *
+     * @throws InterruptedException          {@inheritDoc}
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    @Override
+    public int drainTo(Collection<? super E> c, int minElements, int maxElements,
+                       long timeout, TimeUnit unit)
+        throws InterruptedException {
+        if (c == null) {
+            throw new NullPointerException();
+        }
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        if (maxElements <= 0) {
+            return 0;
+        }
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        final AtomicInteger count = this.count;
+        final ReentrantLock takeLock = this.takeLock;
+        int n = 0;
+        do {
+            // notFull is signalled after releasing takeLock, so each
+            // round is a separate acquisition, as in take
+            boolean signalNotFull = false;
+            takeLock.lockInterruptibly();
+            try {
+                long nanos;
+                while (count.get() == 0) {
+                    if (n >= minElements ||
+                        (nanos = deadline - System.nanoTime()) <= 0L) {
+                        return n;
+                    }
+                    notEmpty.awaitNanos(nanos);
+                }
+                int k = Math.min(maxElements - n, count.get());
+                Node<E> h = head;
+                int i = 0;
+                try {
+                    while (i < k) {
+                        Node<E> p = h.next;
+                        c.add(p.item);
+                        p.item = null;
+                        h.next = h;
+                        h = p;
+                        ++i;
+                    }
+                } finally {
+                    // Restore invariants even if c.add() threw
+                    if (i > 0) {
+                        head = h;
+                        int prev = count.getAndAdd(-i);
+                        signalNotFull = (prev == capacity);
+                        if (prev > i) {
+                            notEmpty.signal();
+                        }
+                        n += i;
+                    }
+                }
+            } finally {
+                takeLock.unlock();
+                if (signalNotFull) {
+                    signalNotFull();
+                }
+            }
+        } while (n < minElements && n < maxElements);
+        return n;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Links as many elements as there is space for, and signals
+     * waiting takers, under a single acquisition of the put lock,
+     * acquiring it again only if space must be waited for.  Nodes are
+     * allocated before the lock is acquired, and no element is
+     * inserted if any of them is null.
+     *
+     * @throws InterruptedException     {@inheritDoc}
+     * @throws NullPointerException     {@inheritDoc}
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    @Override
+    public int offerAll(Collection<? extends E> c, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        return enqueueAll(c, true, unit.toNanos(timeout));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Links as many elements as there is space for, and signals
+     * waiting takers, under a single acquisition of the put lock,
+     * acquiring it again only if space must be waited for.  Nodes are
+     * allocated before the lock is acquired, and no element is
+     * inserted if any of them is null.
+     *
+     * @throws InterruptedException     {@inheritDoc}
+     * @throws NullPointerException     {@inheritDoc}
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    @Override
+    public void putAll(Collection<? extends E> c) throws InterruptedException {
+        enqueueAll(c, false, 0L);
+    }
+
+    /**
+     * Links the elements of c in order, waiting for space if
+     * necessary, up to the given time if timed.
+     *
+     * @return the number of elements inserted
+     */
+    private int enqueueAll(Collection<? extends E> c, boolean timed, long nanos)
+        throws InterruptedException {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        Node<E> first = null, tail = null;
+        int size = 0;
+        for (E e : c) {
+            if (e == null) {
+                throw new NullPointerException();
+            }
+            Node<E> p = new Node<E>(e);
+            if (first == null) {
+                first = p;
+            } else {
+                tail.next = p;
+            }
+            tail = p;
+            ++size;
+        }
+        final long deadline = timed ? System.nanoTime() + nanos : 0L;
+        final AtomicInteger count = this.count;
+        final ReentrantLock putLock = this.putLock;
+        int n = 0;
+        while (n < size) {
+            // takers are signalled after releasing putLock, so each
+            // round is a separate acquisition, as in put
+            int prev = -1;
+            putLock.lockInterruptibly();
+            try {
+                while (count.get() == capacity) {
+                    if (!timed) {
+                        notFull.await();
+                    } else if ((nanos = deadline - System.nanoTime()) <= 0L) {
+                        return n;
+                    } else {
+                        notFull.awaitNanos(nanos);
+                    }
+                }
+                int k = Math.min(capacity - count.get(), size - n);
+                Node<E> l = first;
+                for (int i = 1; i < k; ++i) {
+                    l = l.next;
+                }
+                Node<E> rest = l.next;
+                l.next = null;
+                last.next = first;
+                last = l;
+                first = rest;
+                prev = count.getAndAdd(k);
+                n += k;
+                if (prev + k < capacity) {
+                    notFull.signal();
+                }
+            } finally {
+                putLock.unlock();
+            }
+            if (prev == 0) {
+                signalNotEmpty();
+            }
+        }
+        return n;
+    }
+
     /**
      * Returns an iterator over the elements in this queue in proper sequence.
      * The elements will be returned in order from first (head) to last (tail).
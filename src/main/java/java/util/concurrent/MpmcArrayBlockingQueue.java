@@ -0,0 +1,170 @@
+package java.util.concurrent;
+
+/**
+ * 多生产者多消费者的无锁有界环形缓冲阻塞队列：每个槽位带序号，生产者与消费者分别以 CAS 竞争尾、头序号。
+ *
+ * A bounded lock-free {@linkplain BlockingQueue blocking queue} backed
+ * by a ring buffer, for use by any number of producer and consumer
+ * threads.  This queue orders elements FIFO (first-in-first-out) with
+ * respect to the order in which producers claim their slots.
+ *
+ * <p>Unlike {@link ArrayBlockingQueue}, producers and consumers never
+ * acquire a lock, and insertions allocate nothing: each claims a slot
+ * with a single compare-and-set of the tail or head counter, which are
+ * padded into separate cache lines.  Blocking methods wait according
+ * to a {@link WaitStrategy} instead of being signalled.  For use by a
+ * single consumer, {@link MpscArrayBlockingQueue} is faster, and for
+ * use by a single producer and consumer, {@link SpscArrayBlockingQueue}.
+ *
+ * <p>The capacity is rounded up to a power of two, and is at least
+ * two.  The {@link #iterator} returns a snapshot of the elements and
+ * does not support removal, nor does {@code remove(Object)}.  This
+ * class does not permit {@code null} elements, and is not
+ * serializable.
+ *
+ * @param <E> the type of elements held in this queue
+ * @see SpscArrayBlockingQueue
+ * @see MpscArrayBlockingQueue
+ * @since 1.8
+ */
+public class MpmcArrayBlockingQueue<E> extends RingBufferBlockingQueue<E> {
+
+    /*
+     * This is Vyukov's bounded MPMC queue.  Each slot carries a
+     * sequence number, initially its index.  A slot whose sequence
+     * equals t is free for the producer claiming sequence t, which
+     * after claiming it by CAS of tail stores its element and sets the
+     * slot's sequence to t+1.  A slot whose sequence is h+1 is filled
+     * for the consumer claiming h, which after claiming it by CAS of
+     * head takes the element and sets the sequence to h plus the
+     * capacity, freeing the slot for the next lap.  A slot with a
+     * smaller sequence than expected is still in use by the previous
+     * lap, and the queue is full (or empty) unless another thread has
+     * since moved tail (or head) on; a larger one means that this
+     * thread's view of tail or head is stale.
+     */
+
+    /** The slot sequence numbers, indexed like buffer */
+    private final long[] sequences;
+
+    /**
+     * Creates a queue with at least the given capacity, whose blocking
+     * methods wait using {@link WaitStrategy#parking}.
+     *
+     * @param capacity the minimum capacity of this queue
+     * @throws IllegalArgumentException if {@code capacity < 1}
+     */
+    public MpmcArrayBlockingQueue(int capacity) {
+        this(capacity, WaitStrategy.parking());
+    }
+
+    /**
+     * Creates a queue with at least the given capacity, whose blocking
+     * methods wait using the given strategy.
+     *
+     * @param capacity the minimum capacity of this queue
+     * @param waitStrategy how blocking methods wait
+     * @throws IllegalArgumentException if {@code capacity < 1}
+     * @throws NullPointerException if {@code waitStrategy} is null
+     */
+    public MpmcArrayBlockingQueue(int capacity, WaitStrategy waitStrategy) {
+        // With one slot, a filled slot would look free to the next lap
+        super((capacity == 1) ? 2 : capacity, waitStrategy);
+        long[] seq = new long[buffer.length];
+        for (int i = 0; i < seq.length; ++i) {
+            seq[i] = i;
+        }
+        this.sequences = seq;
+    }
+
+    private long sequenceAt(long offset) {
+        return U.getLongVolatile(sequences, offset);
+    }
+
+    private void setSequenceAt(long offset, long s) {
+        U.putOrderedLong(sequences, offset, s);
+    }
+
+    private static long sequenceOffset(long s, int mask) {
+        return ((s & mask) << SSHIFT) + SBASE;
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue if it is
+     * possible to do so immediately without exceeding the queue's
+     * capacity, returning {@code true} upon success and {@code false}
+     * if this queue is full.
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        for (;;) {
+            long t = tail;
+            long so = sequenceOffset(t, mask);
+            long s = sequenceAt(so);
+            if (s == t) {
+                if (casTail(t, t + 1)) {
+                    putOrdered(offset(t, mask), e);
+                    setSequenceAt(so, t + 1);
+                    return true;
+                }
+            } else if (s < t && t - buffer.length >= head) {
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public E poll() {
+        for (;;) {
+            long h = head;
+            long so = sequenceOffset(h, mask);
+            long s = sequenceAt(so);
+            if (s == h + 1) {
+                if (casHead(h, h + 1)) {
+                    long offset = offset(h, mask);
+                    E x = getVolatile(offset);
+                    putOrdered(offset, null);
+                    setSequenceAt(so, h + buffer.length);
+                    return x;
+                }
+            } else if (s < h + 1 && h >= tail) {
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public E peek() {
+        for (;;) {
+            long h = head;
+            long s = sequenceAt(sequenceOffset(h, mask));
+            if (s == h + 1) {
+                E x = getVolatile(offset(h, mask));
+                if (x != null && h == head) {
+                    return x;
+                }
+            } else if (s < h + 1 && h >= tail) {
+                return null;
+            }
+        }
+    }
+
+    // Unsafe mechanics
+    private static final long SBASE;
+    private static final int SSHIFT;
+
+    static {
+        Class<?> ak = long[].class;
+        SBASE = U.arrayBaseOffset(ak);
+        int scale = U.arrayIndexScale(ak);
+        if ((scale & (scale - 1)) != 0) {
+            throw new Error("data type scale not a power of two");
+        }
+        SSHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+    }
+}
@@ -0,0 +1,173 @@
+package java.util.concurrent;
+
+import java.util.function.Consumer;
+
+/**
+ * 多生产者单消费者的无锁有界环形缓冲阻塞队列：生产者以 CAS 竞争尾序号，单一消费者按槽位读取元素。
+ *
+ * A bounded lock-free {@linkplain BlockingQueue blocking queue} backed
+ * by a ring buffer, for use by any number of producer threads and a
+ * single consumer thread.  This queue orders elements FIFO
+ * (first-in-first-out) with respect to the order in which producers
+ * claim their slots.  Any thread may call the insertion methods
+ * ({@code offer}, {@code add}, {@code put} and {@link #fill fill}), but
+ * at most one thread at a time may call the removal methods ({@code
+ * poll}, {@code take}, {@code peek}, {@code drainTo}, {@link #drain
+ * drain} and {@code clear}); the queue is not thread-safe under any
+ * other use, and does not check for it.
+ *
+ * <p>Producers claim a slot with a single compare-and-set of the tail
+ * counter, and read the head counter only when their cached view of it
+ * shows the queue full.  The consumer never writes a shared counter
+ * but the head, and a {@link #drain drain} publishes it once per
+ * batch.  Blocking methods wait according to a {@link WaitStrategy}
+ * instead of being signalled.
+ *
+ * <p>The capacity is rounded up to a power of two.  The {@link
+ * #iterator} returns a snapshot of the elements and does not support
+ * removal, nor does {@code remove(Object)}.  This class does not permit
+ * {@code null} elements, and is not serializable.
+ *
+ * @param <E> the type of elements held in this queue
+ * @see SpscArrayBlockingQueue
+ * @see MpmcArrayBlockingQueue
+ * @since 1.8
+ */
+public class MpscArrayBlockingQueue<E> extends RingBufferBlockingQueue<E> {
+
+    /*
+     * A producer claims sequence t by CAS of tail from t to t+1, and
+     * then stores its element into the slot of t with an ordered
+     * store.  The claim succeeds only if t is less than head plus the
+     * capacity, so the slot has already been emptied by the consumer,
+     * which nulls a slot before advancing head past it.  The consumer
+     * finds the slot of head either filled, or null while tail is
+     * still head (the queue is empty), or null while tail has moved on
+     * (a producer has claimed the slot but not yet filled it; the
+     * element is then awaited by spinning, as it is sure to appear
+     * soon).
+     */
+
+    /**
+     * A lower bound on head plus the capacity, cached by producers to
+     * avoid reading head on every insertion.
+     */
+    @sun.misc.Contended private volatile long producerLimit;
+
+    /**
+     * Creates a queue with at least the given capacity, whose blocking
+     * methods wait using {@link WaitStrategy#parking}.
+     *
+     * @param capacity the minimum capacity of this queue
+     * @throws IllegalArgumentException if {@code capacity < 1}
+     */
+    public MpscArrayBlockingQueue(int capacity) {
+        this(capacity, WaitStrategy.parking());
+    }
+
+    /**
+     * Creates a queue with at least the given capacity, whose blocking
+     * methods wait using the given strategy.
+     *
+     * @param capacity the minimum capacity of this queue
+     * @param waitStrategy how blocking methods wait
+     * @throws IllegalArgumentException if {@code capacity < 1}
+     * @throws NullPointerException if {@code waitStrategy} is null
+     */
+    public MpscArrayBlockingQueue(int capacity, WaitStrategy waitStrategy) {
+        super(capacity, waitStrategy);
+        this.producerLimit = buffer.length;
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue if it is
+     * possible to do so immediately without exceeding the queue's
+     * capacity, returning {@code true} upon success and {@code false}
+     * if this queue is full.
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        long limit = producerLimit;
+        long t;
+        do {
+            t = tail;
+            if (t >= limit) {
+                limit = head + buffer.length;
+                if (t >= limit) {
+                    return false;
+                }
+                producerLimit = limit;
+            }
+        } while (!casTail(t, t + 1));
+        putOrdered(offset(t, mask), e);
+        return true;
+    }
+
+    @Override
+    public E poll() {
+        long h = head;
+        long offset = offset(h, mask);
+        E x = getVolatile(offset);
+        if (x == null) {
+            if (h == tail) {
+                return null;
+            }
+            while ((x = getVolatile(offset)) == null) {
+                // spin for the element of a producer that has claimed h
+            }
+        }
+        putOrdered(offset, null);
+        setHeadOrdered(h + 1);
+        return x;
+    }
+
+    @Override
+    public E peek() {
+        long h = head;
+        long offset = offset(h, mask);
+        E x = getVolatile(offset);
+        if (x == null && h != tail) {
+            while ((x = getVolatile(offset)) == null) {
+                // spin for the element of a producer that has claimed h
+            }
+        }
+        return x;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Only the consumer thread may call this method.
+     */
+    @Override
+    public int drain(Consumer<? super E> action, int limit) {
+        if (action == null) {
+            throw new NullPointerException();
+        }
+        final long h = head;
+        int n = 0;
+        try {
+            while (n < limit) {
+                long offset = offset(h + n, mask);
+                E x = getVolatile(offset);
+                if (x == null) {
+                    if (h + n == tail) {
+                        break;
+                    }
+                    continue; // claimed but not yet filled
+                }
+                putOrdered(offset, null);
+                ++n;
+                action.accept(x);
+            }
+        } finally {
+            setHeadOrdered(h + n);
+        }
+        return n;
+    }
+}
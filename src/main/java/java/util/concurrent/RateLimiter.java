@@ -0,0 +1,543 @@
+package java.util.concurrent;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 非阻塞的令牌桶限流器：以 CAS 更新的理论到达时间表示令牌状态，支持平滑与突发两种模式、只按计算出的等待时间挂起的限时获取，以及面向极高 QPS 调用点的分段变体。
+ *
+ * A rate limiter, granting permits at a configured rate.  Whereas a
+ * {@link Semaphore} bounds the number of activities in progress at
+ * once, a rate limiter bounds the number started per unit of time,
+ * as is needed to protect a downstream service or to meter requests,
+ * without a thread or scheduled task refilling permits.
+ *
+ * <p>Permits are granted one every {@code 1/rate} seconds on average.
+ * A limiter accepts <em>bursts</em> of up to {@code maxBurst} permits
+ * after being idle, and a limiter constructed with a {@code maxBurst}
+ * of one, as by {@link #RateLimiter(double)}, is <em>smooth</em>:
+ * successive permits are spaced evenly.  Unused permits are not
+ * saved beyond the burst size.  A newly created limiter has a full
+ * burst available.  A request for more permits than the burst size
+ * is granted once the extra permits would have accrued.
+ *
+ * <p>Methods {@link #tryAcquire()} and {@link #tryAcquire(int)} never
+ * block.  The timed {@link #tryAcquire(int, long, TimeUnit)} fails
+ * immediately, without taking permits, if they would not be granted
+ * within the timeout, and otherwise reserves them and waits exactly
+ * until they are due, and the {@link #acquire(int) acquire} methods
+ * reserve permits and wait until they are due.  A thread interrupted
+ * while waiting for reserved permits returns them to the limiter and
+ * throws {@code InterruptedException}.  Waiting
+ * threads do not order one another: each waits only for its own
+ * reservation, so a request never waits behind others that have been
+ * granted.
+ *
+ * <p>The state of a limiter is a single time, updated by CAS, which
+ * scales to moderate contention.  For call sites that acquire
+ * millions of permits per second from many threads, a limiter may be
+ * constructed with several <em>stripes</em>, each granting a share
+ * of the rate to the threads that hash to it.  Threads whose stripe
+ * has no permit available try the others before failing or waiting,
+ * so the full rate remains available to a single thread, but with
+ * {@code n} stripes a burst may reach {@code n} permits even for a
+ * smooth limiter.
+ *
+ * <p><b>Sample usage</b>.  A task that sends at most 1000 requests
+ * per second, allowing bursts of 50 after a pause:
+ * <pre> {@code
+ * class Sender {
+ *   private final RateLimiter limiter = new RateLimiter(1000.0, 50);
+ *
+ *   boolean trySend(Request r) {
+ *     if (!limiter.tryAcquire())
+ *       return false;       // over the rate; shed the request
+ *     send(r);
+ *     return true;
+ *   }
+ *
+ *   void sendAll(List<Request> batch) throws InterruptedException {
+ *     limiter.acquire(batch.size());
+ *     for (Request r : batch)
+ *       send(r);
+ *   }
+ * }}</pre>
+ *
+ * @see Semaphore
+ * @since 1.8
+ */
+public class RateLimiter {
+
+    /*
+     * This is the generic cell rate algorithm.  Each stripe holds a
+     * "theoretical arrival time" tat: the time at which all permits
+     * granted so far would have accrued at the stripe's rate, or, if
+     * earlier, the current time, so that idle time is not saved up
+     * beyond the burst.  Granting k permits advances tat by k
+     * intervals from max(tat, now), and the permits are due once the
+     * new tat is within a burst of now, that is, after waiting
+     *
+     *   max(tat, now) + k * interval - burst - now
+     *
+     * when positive.  Reserving is a single CAS of tat, after which
+     * the caller parks (or, for short waits, spins) until due, so
+     * there is no queue of waiters.  A caller interrupted while
+     * waiting refunds its reservation by moving tat of its stripe
+     * back by the cost, but not before the current time; reservations
+     * made meanwhile keep their due times, and the refunded permits
+     * become available to later requests.
+     *
+     * Times are kept in ticks of 1/16 ns, read from System.nanoTime
+     * and compared by subtraction, so that rates up to about 10^8
+     * permits per second are represented with small error, and are
+     * wrap-safe as nanoTime is.  No stripe's tat is ever set more
+     * than MAX_AHEAD ticks past the current time, which keeps
+     * differences far from overflow; a request that would need more
+     * is treated as taking that long.
+     *
+     * Stripes are padded against false sharing and selected by the
+     * thread probe of ThreadLocalRandom, as in Striped64.  A request
+     * scans the stripes starting with the caller's, taking the first
+     * that can grant it at once, or else the one with the shortest
+     * wait.  A failed CAS advances the probe, to spread contending
+     * threads over stripes.  Each stripe has rate/n and a burst of
+     * ceil(maxBurst/n), so a limiter of n stripes grants at most its
+     * rate overall.
+     */
+
+    /** Ticks per nanosecond, as a shift */
+    private static final int TICK_SHIFT = 4;
+
+    /** The furthest ahead of the current time, in ticks, a tat may be */
+    private static final long MAX_AHEAD = Long.MAX_VALUE >>> 2;
+
+    /**
+     * The number of nanoseconds for which it is faster to spin
+     * rather than to use timed park, as in AbstractQueuedSynchronizer.
+     */
+    static final long spinForTimeoutThreshold = 1000L;
+
+    /**
+     * A stripe, holding its theoretical arrival time, padded to
+     * reduce cache contention.
+     */
+    @sun.misc.Contended static final class Stripe {
+        volatile long tat;
+
+        Stripe(long tat) {
+            this.tat = tat;
+        }
+
+        final boolean casTat(long cmp, long val) {
+            return U.compareAndSwapLong(this, TAT, cmp, val);
+        }
+    }
+
+    /** The stripes; a power of two in number */
+    private final Stripe[] stripes;
+
+    /** The rate in permits per second */
+    private final double rate;
+
+    /** The maximum burst, in permits */
+    private final int maxBurst;
+
+    /** The ticks between permits of each stripe */
+    private final long interval;
+
+    /** The burst of each stripe, in ticks */
+    private final long burst;
+
+    /**
+     * Creates a smooth {@code RateLimiter}, granting permits evenly
+     * spaced at the given rate.
+     *
+     * @param permitsPerSecond the rate at which permits are granted
+     * @throws IllegalArgumentException if {@code permitsPerSecond} is
+     *         not positive and finite
+     */
+    public RateLimiter(double permitsPerSecond) {
+        this(permitsPerSecond, 1, 1);
+    }
+
+    /**
+     * Creates a {@code RateLimiter} granting permits at the given rate,
+     * and bursts of up to the given number of permits.
+     *
+     * @param permitsPerSecond the rate at which permits are granted
+     * @param maxBurst the maximum number of permits granted at once
+     *        after the limiter has been idle
+     * @throws IllegalArgumentException if {@code permitsPerSecond} is
+     *         not positive and finite, or {@code maxBurst} is not
+     *         positive
+     */
+    public RateLimiter(double permitsPerSecond, int maxBurst) {
+        this(permitsPerSecond, maxBurst, 1);
+    }
+
+    /**
+     * Creates a {@code RateLimiter} granting permits at the given rate
+     * and bursts of up to about the given number of permits, whose
+     * state is spread over the given number of stripes, rounded up to
+     * a power of two, to reduce contention.  A burst may exceed
+     * {@code maxBurst} by less than the number of stripes.
+     *
+     * @param permitsPerSecond the rate at which permits are granted
+     * @param maxBurst the maximum number of permits granted at once
+     *        after the limiter has been idle
+     * @param stripes the number of stripes, typically no more than the
+     *        number of threads acquiring at once
+     * @throws IllegalArgumentException if {@code permitsPerSecond} is
+     *         not positive and finite, or {@code maxBurst} or {@code
+     *         stripes} is not positive
+     */
+    public RateLimiter(double permitsPerSecond, int maxBurst, int stripes) {
+        if (!(permitsPerSecond > 0.0) ||
+            permitsPerSecond == Double.POSITIVE_INFINITY ||
+            maxBurst <= 0 || stripes <= 0) {
+            throw new IllegalArgumentException();
+        }
+        int n = 1;
+        while (n < stripes && n < (1 << 16)) {
+            n <<= 1;
+        }
+        long iv = Math.round((double)(TimeUnit.SECONDS.toNanos(1L) << TICK_SHIFT) *
+                             n / permitsPerSecond);
+        this.rate = permitsPerSecond;
+        this.maxBurst = maxBurst;
+        this.interval = Math.max(1L, Math.min(iv, MAX_AHEAD));
+        this.burst = cost((maxBurst + n - 1) / n);
+        long now = ticks();
+        Stripe[] ss = new Stripe[n];
+        for (int i = 0; i < n; ++i) {
+            ss[i] = new Stripe(now);
+        }
+        this.stripes = ss;
+    }
+
+    /**
+     * Returns the current time in ticks.
+     */
+    private static long ticks() {
+        return System.nanoTime() << TICK_SHIFT;
+    }
+
+    /**
+     * Returns the ticks taken by the given number of permits.
+     */
+    private long cost(int permits) {
+        long iv = interval;
+        return (permits <= MAX_AHEAD / iv) ? permits * iv : MAX_AHEAD;
+    }
+
+    /**
+     * Returns the tat of a stripe after granting permits costing
+     * cost ticks at time now.
+     */
+    private static long advance(long tat, long now, long cost) {
+        long ahead = ((tat - now > 0L) ? tat - now : 0L) + cost;
+        return now + Math.min(ahead, MAX_AHEAD);
+    }
+
+    /**
+     * Reserves permits from the stripe that grants them soonest,
+     * unless that is more than maxWait ticks from now.
+     *
+     * @param reserved if non-null, a holder for the stripe the
+     *        permits are reserved from, for use by refund
+     * @return the ticks to wait until the permits are due, or
+     *         negative if not reserved
+     */
+    private long reserve(int permits, long maxWait, Stripe[] reserved) {
+        if (permits < 0) {
+            throw new IllegalArgumentException();
+        }
+        final Stripe[] ss = stripes;
+        final int m = ss.length - 1;
+        final long cost = cost(permits), burst = this.burst;
+        int h = 0;
+        if (m != 0 && (h = ThreadLocalRandom.getProbe()) == 0) {
+            ThreadLocalRandom.current(); // force initialization
+            h = ThreadLocalRandom.getProbe();
+        }
+        for (;;) {
+            long now = ticks();
+            Stripe best = null;
+            long bestTat = 0L, bestWait = Long.MAX_VALUE;
+            for (int i = 0; i <= m; ++i) {
+                Stripe s = ss[(h + i) & m];
+                long t = s.tat, w = advance(t, now, cost) - burst - now;
+                if (w < bestWait) {
+                    best = s;
+                    bestTat = t;
+                    bestWait = w;
+                    if (w <= 0L) {
+                        break;
+                    }
+                }
+            }
+            if (bestWait > maxWait) {
+                return -1L;
+            }
+            if (best.casTat(bestTat, advance(bestTat, now, cost))) {
+                if (reserved != null) {
+                    reserved[0] = best;
+                }
+                return (bestWait > 0L) ? bestWait : 0L;
+            }
+            if (m != 0) {
+                h = ThreadLocalRandom.advanceProbe(h);
+            }
+        }
+    }
+
+    /**
+     * Returns the given number of permits, reserved from the given
+     * stripe but not waited for, so that later requests may take them.
+     */
+    private void refund(Stripe s, int permits) {
+        final long cost = cost(permits);
+        for (;;) {
+            long now = ticks(), t = s.tat, r = t - cost;
+            if (t - now <= 0L) {
+                return;  // already accrued
+            }
+            if (s.casTat(t, (r - now > 0L) ? r : now)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Waits until the given number of ticks have passed since the
+     * reservation that returned them, or, if interruptible, until
+     * interrupted.
+     *
+     * @return {@code true} if interrupted while waiting
+     */
+    private boolean await(long waitTicks, boolean interruptible) {
+        if (waitTicks <= 0L) {
+            return false;
+        }
+        long nanos = (waitTicks + (1L << TICK_SHIFT) - 1) >>> TICK_SHIFT;
+        final long deadline = System.nanoTime() + nanos;
+        boolean interrupted = false;
+        while ((nanos = deadline - System.nanoTime()) > 0L) {
+            if (nanos > spinForTimeoutThreshold) {
+                LockSupport.parkNanos(this, nanos);
+            }
+            if (Thread.interrupted()) {
+                interrupted = true;
+                if (interruptible) {
+                    break;
+                }
+            }
+        }
+        return interrupted;
+    }
+
+    /**
+     * Acquires a permit, blocking until it is granted, or the thread
+     * is {@linkplain Thread#interrupt interrupted}.
+     *
+     * @throws InterruptedException if the current thread is interrupted
+     *         while waiting, in which case the permit is returned
+     */
+    public void acquire() throws InterruptedException {
+        acquire(1);
+    }
+
+    /**
+     * Acquires the given number of permits, blocking until they are
+     * granted, or the thread is {@linkplain Thread#interrupt
+     * interrupted}.
+     *
+     * @param permits the number of permits to acquire
+     * @throws InterruptedException if the current thread is interrupted
+     *         while waiting, in which case the permits are returned
+     * @throws IllegalArgumentException if {@code permits} is negative
+     */
+    public void acquire(int permits) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        Stripe[] reserved = new Stripe[1];
+        if (await(reserve(permits, Long.MAX_VALUE, reserved), true)) {
+            refund(reserved[0], permits);
+            throw new InterruptedException();
+        }
+    }
+
+    /**
+     * Acquires a permit, blocking until it is granted.  If the current
+     * thread is interrupted while waiting, it continues to wait, and
+     * its interrupt status is set on return.
+     */
+    public void acquireUninterruptibly() {
+        acquireUninterruptibly(1);
+    }
+
+    /**
+     * Acquires the given number of permits, blocking until they are
+     * granted.  If the current thread is interrupted while waiting,
+     * it continues to wait, and its interrupt status is set on return.
+     *
+     * @param permits the number of permits to acquire
+     * @throws IllegalArgumentException if {@code permits} is negative
+     */
+    public void acquireUninterruptibly(int permits) {
+        if (await(reserve(permits, Long.MAX_VALUE, null), false)) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Acquires a permit only if one is available at the time of
+     * invocation.
+     *
+     * @return {@code true} if a permit was acquired and {@code false}
+     *         otherwise
+     */
+    public boolean tryAcquire() {
+        return reserve(1, 0L, null) >= 0L;
+    }
+
+    /**
+     * Acquires the given number of permits only if they are available
+     * at the time of invocation.
+     *
+     * @param permits the number of permits to acquire
+     * @return {@code true} if the permits were acquired and
+     *         {@code false} otherwise
+     * @throws IllegalArgumentException if {@code permits} is negative
+     */
+    public boolean tryAcquire(int permits) {
+        return reserve(permits, 0L, null) >= 0L;
+    }
+
+    /**
+     * Acquires a permit if it will be granted within the given
+     * waiting time, waiting until it is.
+     *
+     * @param timeout the maximum time to wait for a permit
+     * @param unit the time unit of the {@code timeout} argument
+     * @return {@code true} if a permit was acquired and {@code false}
+     *         if it would not be granted within the waiting time
+     * @throws InterruptedException if the current thread is interrupted
+     *         while waiting, in which case the permit is returned
+     */
+    public boolean tryAcquire(long timeout, TimeUnit unit)
+        throws InterruptedException {
+        return tryAcquire(1, timeout, unit);
+    }
+
+    /**
+     * Acquires the given number of permits if they will be granted
+     * within the given waiting time, waiting until they are.  If they
+     * would not be granted in time, returns {@code false} at once,
+     * without taking any permits.
+     *
+     * @param permits the number of permits to acquire
+     * @param timeout the maximum time to wait for the permits
+     * @param unit the time unit of the {@code timeout} argument
+     * @return {@code true} if the permits were acquired and {@code false}
+     *         if they would not be granted within the waiting time
+     * @throws InterruptedException if the current thread is interrupted
+     *         while waiting, in which case the permits are returned
+     * @throws IllegalArgumentException if {@code permits} is negative
+     */
+    public boolean tryAcquire(int permits, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        long nanos = unit.toNanos(timeout);
+        long maxWait = (nanos <= 0L) ? 0L :
+            (nanos >= (MAX_AHEAD >>> TICK_SHIFT)) ? MAX_AHEAD :
+            nanos << TICK_SHIFT;
+        Stripe[] reserved = new Stripe[1];
+        long w = reserve(permits, maxWait, reserved);
+        if (w < 0L) {
+            return false;
+        }
+        if (await(w, true)) {
+            refund(reserved[0], permits);
+            throw new InterruptedException();
+        }
+        return true;
+    }
+
+    /**
+     * Returns the rate at which this limiter grants permits.
+     *
+     * @return the rate, in permits per second
+     */
+    public double getRate() {
+        return rate;
+    }
+
+    /**
+     * Returns the maximum number of permits granted at once after this
+     * limiter has been idle, as given on construction.
+     *
+     * @return the maximum burst
+     */
+    public int getMaxBurst() {
+        return maxBurst;
+    }
+
+    /**
+     * Returns the number of stripes of this limiter.
+     *
+     * @return the number of stripes
+     */
+    public int getStripes() {
+        return stripes.length;
+    }
+
+    /**
+     * Returns an estimate of the number of permits that could be
+     * acquired at once now.  This method is typically used for
+     * monitoring rather than to decide whether to acquire.
+     *
+     * @return the number of permits available
+     */
+    public long availablePermits() {
+        long now = ticks(), n = 0L;
+        for (Stripe s : stripes) {
+            long t = s.tat, idle = burst - ((t - now > 0L) ? t - now : 0L);
+            if (idle > 0L) {
+                n += idle / interval;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Returns a string identifying this limiter, as well as its
+     * state.  The state, in brackets, includes the String {@code
+     * "Rate = "} followed by the rate in permits per second, and the
+     * String {@code "Available = "} followed by the number of permits
+     * available.
+     *
+     * @return a string identifying this limiter, as well as its state
+     */
+    @Override
+    public String toString() {
+        return super.toString() + "[Rate = " + rate +
+            ", Available = " + availablePermits() + "]";
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long TAT;
+
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            TAT = U.objectFieldOffset
+                (Stripe.class.getDeclaredField("tat"));
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package java.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 环形缓冲阻塞队列的公共基类：保存数组、带缓存行填充的头尾序号，并以非阻塞操作加等待策略实现阻塞方法。
+ *
+ * Skeletal implementation of the bounded lock-free ring-buffer
+ * queues.  Holds the element array and the head and tail sequence
+ * counters, and implements the blocking methods of {@link
+ * BlockingQueue} by retrying the non-blocking ones under a {@link
+ * WaitStrategy}.  Subclasses implement {@code offer}, {@code poll} and
+ * {@code peek} according to the number of producer and consumer
+ * threads they admit, and may override {@link #drain} and {@link
+ * #fill} with batched versions.
+ *
+ * <p>Sequences count the elements ever inserted ({@code tail}) and
+ * removed ({@code head}); the slot of sequence {@code s} is {@code s &
+ * mask}.  The two counters are written by different threads, so each
+ * is padded into its own cache line.
+ *
+ * @param <E> the type of elements held in this queue
+ * @since 1.8
+ */
+abstract class RingBufferBlockingQueue<E> extends AbstractQueue<E>
+    implements BlockingQueue<E> {
+
+    /**
+     * The largest possible capacity.
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /** The queued items, indexed by sequence & mask */
+    final Object[] buffer;
+
+    /** buffer.length - 1 */
+    final int mask;
+
+    /** How threads wait in blocking operations */
+    final WaitStrategy waitStrategy;
+
+    /** Sequence of the next element to remove */
+    @sun.misc.Contended volatile long head;
+
+    /** Sequence of the next element to insert */
+    @sun.misc.Contended volatile long tail;
+
+    /**
+     * Creates a queue holding {@code capacity} rounded up to a power of
+     * two elements.
+     *
+     * @throws IllegalArgumentException if {@code capacity < 1}
+     * @throws NullPointerException if {@code waitStrategy} is null
+     */
+    RingBufferBlockingQueue(int capacity, WaitStrategy waitStrategy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException();
+        }
+        if (waitStrategy == null) {
+            throw new NullPointerException();
+        }
+        int n = (capacity >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY :
+            Integer.highestOneBit(capacity - 1) << 1;
+        this.buffer = new Object[Math.max(n, 1)];
+        this.mask = buffer.length - 1;
+        this.waitStrategy = waitStrategy;
+    }
+
+    // Element access
+
+    static long offset(long sequence, int mask) {
+        return ((sequence & mask) << ASHIFT) + ABASE;
+    }
+
+    @SuppressWarnings("unchecked")
+    final E getVolatile(long offset) {
+        return (E)U.getObjectVolatile(buffer, offset);
+    }
+
+    final void putOrdered(long offset, Object x) {
+        U.putOrderedObject(buffer, offset, x);
+    }
+
+    final boolean casTail(long cmp, long val) {
+        return U.compareAndSwapLong(this, TAIL, cmp, val);
+    }
+
+    final boolean casHead(long cmp, long val) {
+        return U.compareAndSwapLong(this, HEAD, cmp, val);
+    }
+
+    final void setTailOrdered(long val) {
+        U.putOrderedLong(this, TAIL, val);
+    }
+
+    final void setHeadOrdered(long val) {
+        U.putOrderedLong(this, HEAD, val);
+    }
+
+    /**
+     * Waits according to the wait strategy, returning the attempt
+     * count for the next call.
+     */
+    final int idle(int attempts) {
+        waitStrategy.idle(attempts);
+        return (attempts < Integer.MAX_VALUE) ? attempts + 1 : attempts;
+    }
+
+    // Batch operations
+
+    /**
+     * Removes at most the given number of available elements, passing
+     * each to the given action in order, without waiting.  Only
+     * consumer threads may call this method.
+     *
+     * @param action the action to perform on each removed element
+     * @param limit the maximum number of elements to remove
+     * @return the number of elements removed
+     * @throws NullPointerException if the action is null
+     */
+    public int drain(Consumer<? super E> action, int limit) {
+        if (action == null) {
+            throw new NullPointerException();
+        }
+        int n = 0;
+        for (E e; n < limit && (e = poll()) != null; ++n) {
+            action.accept(e);
+        }
+        return n;
+    }
+
+    /**
+     * Inserts at most the given number of elements obtained from the
+     * given supplier, as many as there is space for, without waiting.
+     * The supplier is called once for each element inserted.  Only
+     * producer threads may call this method.
+     *
+     * @param supplier the supplier of elements to insert
+     * @param limit the maximum number of elements to insert
+     * @return the number of elements inserted
+     * @throws NullPointerException if the supplier is null or
+     *         supplies a null element
+     */
+    public int fill(Supplier<? extends E> supplier, int limit) {
+        if (supplier == null) {
+            throw new NullPointerException();
+        }
+        int n = 0;
+        while (n < limit && remainingCapacity() > 0) {
+            E e = supplier.get();
+            // Another producer may have taken the space since it was
+            // checked; the element is already obtained, so wait for it
+            for (int k = 0; !offer(e); ) {
+                k = idle(k);
+            }
+            ++n;
+        }
+        return n;
+    }
+
+    // BlockingQueue methods
+
+    /**
+     * Inserts the specified element at the tail of this queue, waiting
+     * according to the wait strategy for space to become available.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     */
+    @Override
+    public void put(E e) throws InterruptedException {
+        for (int k = 0; !offer(e); ) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            k = idle(k);
+        }
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue, waiting
+     * up to the specified wait time for space to become available.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     */
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (int k = 0; !offer(e); ) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (deadline - System.nanoTime() <= 0L) {
+                return false;
+            }
+            k = idle(k);
+        }
+        return true;
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        E x;
+        for (int k = 0; (x = poll()) == null; ) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            k = idle(k);
+        }
+        return x;
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        E x;
+        for (int k = 0; (x = poll()) == null; ) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (deadline - System.nanoTime() <= 0L) {
+                return null;
+            }
+            k = idle(k);
+        }
+        return x;
+    }
+
+    /**
+     * Returns the number of elements in this queue.  The value is
+     * exact only when no other thread is inserting or removing
+     * elements.
+     *
+     * @return the number of elements in this queue
+     */
+    @Override
+    public int size() {
+        for (;;) {
+            long h = head;
+            long t = tail;
+            if (h == head) {
+                long n = t - h;
+                return (n <= 0L) ? 0 : (n >= buffer.length) ? buffer.length : (int)n;
+            }
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns the number of additional elements that this queue can
+     * ideally (in the absence of memory or resource constraints)
+     * accept without blocking.
+     */
+    @Override
+    public int remainingCapacity() {
+        return buffer.length - size();
+    }
+
+    /**
+     * Returns the capacity of this queue, which is the capacity given
+     * on construction rounded up to a power of two.
+     *
+     * @return the capacity of this queue
+     */
+    public int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == null) {
+            throw new NullPointerException();
+        }
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        return (maxElements <= 0) ? 0 : drain(c::add, maxElements);
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the elements in this
+     * queue, in proper sequence.  The snapshot is taken without
+     * removing elements, and if other threads are concurrently
+     * inserting or removing elements, it may miss some elements and
+     * include some that have been removed.  The iterator does not
+     * support {@code remove}.
+     *
+     * @return an iterator over the elements in this queue
+     */
+    @Override
+    public Iterator<E> iterator() {
+        ArrayList<E> snapshot = new ArrayList<>();
+        long h = head, t = tail;
+        if (t - h > buffer.length) {
+            h = t - buffer.length;
+        }
+        for (long s = h; s < t; ++s) {
+            E e = getVolatile(offset(s, mask));
+            if (e != null) {
+                snapshot.add(e);
+            }
+        }
+        Iterator<E> it = snapshot.iterator();
+        return new Iterator<E>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public E next() {
+                return it.next();
+            }
+        };
+    }
+
+    /**
+     * Removes all of the elements from this queue, by draining it until
+     * it is found empty.  This is not atomic: elements inserted by
+     * producers meanwhile may also be removed, or may remain when this
+     * method returns.  Only consumer threads may call this method.
+     */
+    @Override
+    public void clear() {
+        while (drain(e -> { }, Integer.MAX_VALUE) > 0) {
+        }
+    }
+
+    // Unsafe mechanics
+    static final sun.misc.Unsafe U;
+    private static final long HEAD;
+    private static final long TAIL;
+    static final long ABASE;
+    static final int ASHIFT;
+
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            Class<?> k = RingBufferBlockingQueue.class;
+            HEAD = U.objectFieldOffset
+                (k.getDeclaredField("head"));
+            TAIL = U.objectFieldOffset
+                (k.getDeclaredField("tail"));
+            Class<?> ak = Object[].class;
+            ABASE = U.arrayBaseOffset(ak);
+            int scale = U.arrayIndexScale(ak);
+            if ((scale & (scale - 1)) != 0) {
+                throw new Error("data type scale not a power of two");
+            }
+            ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -322,6 +322,20 @@ public class ScheduledThreadPoolExecutor
         }
     }
 
+    /**
+     * Returns the time a delayed task became due, so that statistics
+     * count its queue wait from then rather than from its scheduling.
+     */
+    @Override
+    long readyTime(Runnable task) {
+        if (task instanceof ScheduledFutureTask) {
+            return ((ScheduledFutureTask<?>)task).time;
+        } else if (task instanceof Delayed) {
+            return now() + ((Delayed)task).getDelay(NANOSECONDS);
+        }
+        return super.readyTime(task);
+    }
+
     /**
      * Returns true if can run a task given current run state
      * and run-after-shutdown parameters.
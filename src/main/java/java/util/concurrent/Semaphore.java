@@ -158,6 +158,13 @@ import java.util.concurrent.locks.AbstractQueuedSynchronizer;
  * permits at a time.  Beware of the increased risk of indefinite
  * postponement when these methods are used without fairness set true.
  *
+ * <p>A semaphore may also be constructed with <em>adaptive
+ * spinning</em> enabled, in which case the longest-waiting thread
+ * spins for a while before blocking, for a time adapted to recent
+ * waits for permits; see {@link
+ * java.util.concurrent.locks.AbstractQueuedSynchronizer#setAdaptiveSpinning}.
+ * This suits semaphores whose permits are held only briefly.
+ *
  * <p>Memory consistency effects: Actions in a thread prior to calling
  * a "release" method such as {@code release()}
  * <a href="package-summary.html#MemoryVisibility"><i>happen-before</i></a>
@@ -184,6 +191,14 @@ public class Semaphore implements java.io.Serializable {
             setState(permits);
         }
 
+        final void setSpinning(boolean adaptiveSpinning) {
+            setAdaptiveSpinning(adaptiveSpinning);
+        }
+
+        final boolean isSpinning() {
+            return isAdaptiveSpinning();
+        }
+
         final int getPermits() {
             return getState();
         }
@@ -307,6 +322,25 @@ public class Semaphore implements java.io.Serializable {
         sync = fair ? new FairSync(permits) : new NonfairSync(permits);
     }
 
+    /**
+     * Creates a {@code Semaphore} with the given number of
+     * permits and the given fairness and spinning settings.
+     *
+     * @param permits the initial number of permits available.
+     *        This value may be negative, in which case releases
+     *        must occur before any acquires will be granted.
+     * @param fair {@code true} if this semaphore will guarantee
+     *        first-in first-out granting of permits under contention,
+     *        else {@code false}
+     * @param adaptiveSpinning {@code true} if waiting threads should
+     *        spin for a while before blocking
+     * @since 1.8
+     */
+    public Semaphore(int permits, boolean fair, boolean adaptiveSpinning) {
+        sync = fair ? new FairSync(permits) : new NonfairSync(permits);
+        sync.setSpinning(adaptiveSpinning);
+    }
+
     /**
      * Acquires a permit from this semaphore, blocking until one is
      * available, or the thread is {@linkplain Thread#interrupt interrupted}.
@@ -692,6 +726,17 @@ public class Semaphore implements java.io.Serializable {
         return sync instanceof FairSync;
     }
 
+    /**
+     * Returns {@code true} if this semaphore has adaptive spinning
+     * enabled.
+     *
+     * @return {@code true} if this semaphore has adaptive spinning enabled
+     * @since 1.8
+     */
+    public boolean isAdaptiveSpinning() {
+        return sync.isSpinning();
+    }
+
     /**
      * Queries whether any threads are waiting to acquire. Note that
      * because cancellations may occur at any time, a {@code true}
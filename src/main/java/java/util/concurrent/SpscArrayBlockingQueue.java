@@ -0,0 +1,177 @@
+package java.util.concurrent;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 单生产者单消费者的无锁有界环形缓冲阻塞队列：通过槽位是否为空判断满/空，生产者与消费者互不读取对方的序号。
+ *
+ * A bounded lock-free {@linkplain BlockingQueue blocking queue} backed
+ * by a ring buffer, for use by a single producer thread and a single
+ * consumer thread.  This queue orders elements FIFO
+ * (first-in-first-out).  At any time, at most one thread may call the
+ * insertion methods ({@code offer}, {@code add}, {@code put} and
+ * {@link #fill fill}), and at most one other thread the removal
+ * methods ({@code poll}, {@code take}, {@code peek}, {@code
+ * drainTo}, {@link #drain drain} and {@code clear}); the queue is not
+ * thread-safe under any other use, and does not check for it.
+ *
+ * <p>Unlike {@link ArrayBlockingQueue}, producers and consumers never
+ * acquire a lock, and insertions allocate nothing.  The producer finds
+ * a slot free, and the consumer finds it filled, by reading the slot
+ * itself, so that in the steady state neither reads the counter the
+ * other one writes.  The batch methods {@link #fill fill} and {@link
+ * #drain drain} publish their progress once per batch rather than once
+ * per element.  Blocking methods wait according to a {@link
+ * WaitStrategy} instead of being signalled.
+ *
+ * <p>The capacity is rounded up to a power of two.  The {@link
+ * #iterator} returns a snapshot of the elements and does not support
+ * removal, nor does {@code remove(Object)}.  This class does not permit
+ * {@code null} elements, and is not serializable.
+ *
+ * @param <E> the type of elements held in this queue
+ * @see MpscArrayBlockingQueue
+ * @see MpmcArrayBlockingQueue
+ * @since 1.8
+ */
+public class SpscArrayBlockingQueue<E> extends RingBufferBlockingQueue<E> {
+
+    /*
+     * This is the FastFlow variant of Lamport's queue: the producer
+     * stores an element into the slot of tail only if that slot is
+     * null, and the consumer takes the element in the slot of head
+     * only if it is non-null, nulling it with an ordered store.  The
+     * head and tail counters are written with ordered stores for the
+     * benefit of size() and the iterator only.
+     */
+
+    /**
+     * Creates a queue with at least the given capacity, whose blocking
+     * methods wait using {@link WaitStrategy#parking}.
+     *
+     * @param capacity the minimum capacity of this queue
+     * @throws IllegalArgumentException if {@code capacity < 1}
+     */
+    public SpscArrayBlockingQueue(int capacity) {
+        this(capacity, WaitStrategy.parking());
+    }
+
+    /**
+     * Creates a queue with at least the given capacity, whose blocking
+     * methods wait using the given strategy.
+     *
+     * @param capacity the minimum capacity of this queue
+     * @param waitStrategy how blocking methods wait
+     * @throws IllegalArgumentException if {@code capacity < 1}
+     * @throws NullPointerException if {@code waitStrategy} is null
+     */
+    public SpscArrayBlockingQueue(int capacity, WaitStrategy waitStrategy) {
+        super(capacity, waitStrategy);
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue if it is
+     * possible to do so immediately without exceeding the queue's
+     * capacity, returning {@code true} upon success and {@code false}
+     * if this queue is full.
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        long t = tail;
+        long offset = offset(t, mask);
+        if (getVolatile(offset) != null) {
+            return false;
+        }
+        putOrdered(offset, e);
+        setTailOrdered(t + 1);
+        return true;
+    }
+
+    @Override
+    public E poll() {
+        long h = head;
+        long offset = offset(h, mask);
+        E x = getVolatile(offset);
+        if (x != null) {
+            putOrdered(offset, null);
+            setHeadOrdered(h + 1);
+        }
+        return x;
+    }
+
+    @Override
+    public E peek() {
+        return getVolatile(offset(head, mask));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Only the consumer thread may call this method.
+     */
+    @Override
+    public int drain(Consumer<? super E> action, int limit) {
+        if (action == null) {
+            throw new NullPointerException();
+        }
+        final long h = head;
+        int n = 0;
+        try {
+            for (E x; n < limit &&
+                     (x = getVolatile(offset(h + n, mask))) != null; ) {
+                putOrdered(offset(h + n, mask), null);
+                ++n;
+                action.accept(x);
+            }
+        } finally {
+            setHeadOrdered(h + n);
+        }
+        return n;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Only the producer thread may call this method.
+     */
+    @Override
+    public int fill(Supplier<? extends E> supplier, int limit) {
+        if (supplier == null) {
+            throw new NullPointerException();
+        }
+        final long t = tail;
+        int free = 0;
+        if (limit > 0) {
+            // The consumer empties slots in order, so if the last slot
+            // of the batch is free, all those before it are too
+            int batch = Math.min(limit, buffer.length);
+            if (getVolatile(offset(t + batch - 1, mask)) == null) {
+                free = batch;
+            } else {
+                while (free < batch && getVolatile(offset(t + free, mask)) == null) {
+                    ++free;
+                }
+            }
+        }
+        int n = 0;
+        try {
+            while (n < free) {
+                E e = supplier.get();
+                if (e == null) {
+                    throw new NullPointerException();
+                }
+                putOrdered(offset(t + n, mask), e);
+                ++n;
+            }
+        } finally {
+            setTailOrdered(t + n);
+        }
+        return n;
+    }
+}
@@ -42,6 +42,9 @@ import java.util.concurrent.locks.AbstractQueuedSynchronizer;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.*;
 
 /**
@@ -615,6 +618,13 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
     /* The context to be used when executing the finalizer, or null. */
     private final AccessControlContext acc;
 
+    /**
+     * Statistics recorded by workers, or null unless enabled by
+     * enableStatistics.  Updates of pool-size statistics are made
+     * while holding mainLock, all others without locking.
+     */
+    private volatile Statistics statistics;
+
     /**
      * Class Worker mainly maintains interrupt control state for
      * threads running tasks, along with other minor bookkeeping.
@@ -875,7 +885,24 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      * Package-protected for use by ScheduledThreadPoolExecutor.
      */
     final void reject(Runnable command) {
-        handler.rejectedExecution(command, this);
+        RejectedExecutionHandler h = handler;
+        Statistics st = statistics;
+        if (st != null) {
+            st.taskRejected(h);
+        }
+        h.rejectedExecution(command, this);
+    }
+
+    /**
+     * Returns the System.nanoTime at which the given task, taken from
+     * the queue, became ready to run, or Statistics.UNKNOWN.  The
+     * submission times of tasks passed to execute while statistics
+     * are enabled are recorded by Statistics instead.  Overridden by
+     * ScheduledThreadPoolExecutor to report the time delayed tasks
+     * became due.
+     */
+    long readyTime(Runnable task) {
+        return Statistics.UNKNOWN;
     }
 
     /**
@@ -1004,6 +1031,10 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
                         if (s > largestPoolSize) {
                             largestPoolSize = s;
                         }
+                        Statistics st = statistics;
+                        if (st != null) {
+                            st.poolSizeChanged(s, maximumPoolSize);
+                        }
                         workerAdded = true;
                     }
                 } finally {
@@ -1012,6 +1043,10 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
                 if (workerAdded) {
                     t.start();
                     workerStarted = true;
+                    Statistics st = statistics;
+                    if (st != null) {
+                        st.startedWorkers.increment();
+                    }
                 }
             }
         } finally {
@@ -1033,8 +1068,11 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
         final ReentrantLock mainLock = this.mainLock;
         mainLock.lock();
         try {
-            if (w != null) {
-                workers.remove(w);
+            if (w != null && workers.remove(w)) {
+                Statistics st = statistics;
+                if (st != null) {
+                    st.poolSizeChanged(workers.size(), maximumPoolSize);
+                }
             }
             decrementWorkerCount();
             tryTerminate();
@@ -1067,6 +1105,11 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
         try {
             completedTaskCount += w.completedTasks;
             workers.remove(w);
+            Statistics st = statistics;
+            if (st != null) {
+                st.poolSizeChanged(workers.size(), maximumPoolSize);
+                st.workerExited(completedAbruptly);
+            }
         } finally {
             mainLock.unlock();
         }
@@ -1207,9 +1250,16 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
                     !wt.isInterrupted()) {
                     wt.interrupt();
                 }
+                final Statistics st = statistics;
+                long readyTime = Statistics.UNKNOWN;
+                if (st != null &&
+                    (readyTime = st.takeSubmitTime(task)) == Statistics.UNKNOWN) {
+                    readyTime = readyTime(task);
+                }
                 try {
                     beforeExecute(wt, task);
                     Throwable thrown = null;
+                    long startTime = (st == null) ? 0L : st.taskStarted(readyTime);
                     try {
                         task.run();
                     } catch (RuntimeException x) {
@@ -1219,6 +1269,9 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
                     } catch (Throwable x) {
                         thrown = x; throw new Error(x);
                     } finally {
+                        if (st != null) {
+                            st.taskFinished(startTime, thrown);
+                        }
                         afterExecute(task, thrown);
                     }
                 } finally {
@@ -1430,7 +1483,13 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
          * 3. If we cannot queue task, then we try to add a new
          * thread.  If it fails, we know we are shut down or saturated
          * and so reject the task.
+         *
+         * When statistics are enabled, the submission time of the
+         * command is recorded aside, for runWorker to take; the
+         * command itself is what is queued or rejected.
          */
+        Statistics st = statistics;
+        boolean timed = st != null && st.taskSubmitted(command);
         int c = ctl.get();
         if (workerCountOf(c) < corePoolSize) {
             if (addWorker(command, true)) {
@@ -1447,6 +1506,9 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
             }
         }
         else if (!addWorker(command, false)) {
+            if (timed) {
+                st.takeSubmitTime(command);
+            }
             reject(command);
         }
     }
@@ -1771,6 +1833,16 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
         if (workerCountOf(ctl.get()) > maximumPoolSize) {
             interruptIdleWorkers();
         }
+        Statistics st = statistics;
+        if (st != null) {
+            final ReentrantLock mainLock = this.mainLock;
+            mainLock.lock();
+            try {
+                st.poolSizeChanged(workers.size(), this.maximumPoolSize);
+            } finally {
+                mainLock.unlock();
+            }
+        }
     }
 
     /**
@@ -1857,6 +1929,10 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      */
     public boolean remove(Runnable task) {
         boolean removed = workQueue.remove(task);
+        Statistics st;
+        if (removed && (st = statistics) != null) {
+            st.takeSubmitTime(task);
+        }
         tryTerminate(); // In case SHUTDOWN and now empty
         return removed;
     }
@@ -2001,6 +2077,41 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
         }
     }
 
+    /**
+     * Enables the collection of statistics for this executor, and
+     * returns an {@link javax.management.MXBean MXBean} reporting them:
+     * the time tasks wait in the queue and take to execute, rejections,
+     * the starting and exiting of workers, and the time spent at the
+     * maximum pool size.  Unlike the statistics methods of this class,
+     * the returned bean never acquires the lock guarding the worker set
+     * when read.  Collection adds a few timer reads and counter updates
+     * per task, and, for tasks passed to {@code execute}, an entry in
+     * a table of submission times, weakly keyed by the task; tasks are
+     * queued unchanged.  It is not done, and costs nothing, unless
+     * this method is called.  Once enabled, statistics
+     * remain enabled, and further calls return the same bean.
+     *
+     * @return the statistics of this executor
+     * @since 1.8
+     */
+    public ThreadPoolExecutorMXBean enableStatistics() {
+        Statistics st = statistics;
+        if (st == null) {
+            final ReentrantLock mainLock = this.mainLock;
+            mainLock.lock();
+            try {
+                if ((st = statistics) == null) {
+                    st = new Statistics(this);
+                    st.poolSizeChanged(workers.size(), maximumPoolSize);
+                    statistics = st;
+                }
+            } finally {
+                mainLock.unlock();
+            }
+        }
+        return st;
+    }
+
     /**
      * Returns a string identifying this pool, as well as its state,
      * including indications of run state and estimated worker and
@@ -2114,6 +2225,296 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      */
     protected void terminated() { }
 
+    /* Statistics collection */
+
+    /**
+     * Collector for the statistics reported by enableStatistics.  Task
+     * and worker events are counted by the threads causing them;
+     * pool-size changes are recorded by threads holding mainLock, in
+     * volatile fields that readers need not lock.
+     */
+    static final class Statistics implements ThreadPoolExecutorMXBean {
+        /** Marks an unknown time; no System.nanoTime value is this far off */
+        static final long UNKNOWN = Long.MIN_VALUE;
+
+        /** The quantiles reported as percentiles */
+        private static final double[] PERCENTILES = { 0.50, 0.90, 0.99, 0.999 };
+
+        final ThreadPoolExecutor executor;
+        final LatencyHistogram queueWait = new LatencyHistogram();
+        final LatencyHistogram execution = new LatencyHistogram();
+        final AtomicInteger active = new AtomicInteger();
+        final LongAdder completed = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final ConcurrentHashMap<String, LongAdder> rejectedByHandler =
+            new ConcurrentHashMap<String, LongAdder>();
+        final LongAdder startedWorkers = new LongAdder();
+        final LongAdder exitedWorkers = new LongAdder();
+        final LongAdder abruptExits = new LongAdder();
+
+        /**
+         * Submission times of tasks passed to execute and not yet
+         * started.  Keys are weak, so that tasks removed from the queue
+         * other than through the executor are not retained.
+         */
+        final ConcurrentWeakHashMap<Runnable, Long> submitTimes =
+            new ConcurrentWeakHashMap<Runnable, Long>();
+
+        // Written only while holding mainLock
+        volatile int poolSize;
+        volatile int largestPoolSize;
+        volatile long saturatedTime;
+        volatile long saturatedSince = UNKNOWN;
+
+        Statistics(ThreadPoolExecutor executor) {
+            this.executor = executor;
+        }
+
+        /**
+         * Records the submission time of a task passed to execute.
+         * Returns false if the task, already queued, has one recorded,
+         * in which case the earlier time is kept.
+         */
+        boolean taskSubmitted(Runnable task) {
+            return submitTimes.putIfAbsent(task, System.nanoTime()) == null;
+        }
+
+        /**
+         * Removes and returns the recorded submission time of the given
+         * task, or UNKNOWN if none.
+         */
+        long takeSubmitTime(Runnable task) {
+            Long t = submitTimes.remove(task);
+            return (t == null) ? UNKNOWN : t;
+        }
+
+        /**
+         * Records the start of a task that became ready at the given
+         * time, and returns the start time.
+         */
+        long taskStarted(long readyTime) {
+            long now = System.nanoTime();
+            if (readyTime != UNKNOWN) {
+                queueWait.record(now - readyTime);
+            }
+            active.incrementAndGet();
+            return now;
+        }
+
+        void taskFinished(long startTime, Throwable thrown) {
+            execution.record(System.nanoTime() - startTime);
+            active.decrementAndGet();
+            completed.increment();
+            if (thrown != null) {
+                failed.increment();
+            }
+        }
+
+        void taskRejected(RejectedExecutionHandler handler) {
+            rejected.increment();
+            rejectedByHandler.computeIfAbsent(handler.getClass().getName(),
+                                              k -> new LongAdder()).increment();
+        }
+
+        void workerExited(boolean completedAbruptly) {
+            exitedWorkers.increment();
+            if (completedAbruptly) {
+                abruptExits.increment();
+            }
+        }
+
+        /**
+         * Records the pool size after a change of the worker set or of
+         * the maximum pool size.  Call only when holding mainLock.
+         */
+        void poolSizeChanged(int size, int maximumPoolSize) {
+            poolSize = size;
+            if (size > largestPoolSize) {
+                largestPoolSize = size;
+            }
+            long since = saturatedSince;
+            if (size >= maximumPoolSize) {
+                if (since == UNKNOWN) {
+                    saturatedSince = System.nanoTime();
+                }
+            } else if (since != UNKNOWN) {
+                saturatedTime += System.nanoTime() - since;
+                saturatedSince = UNKNOWN;
+            }
+        }
+
+        @Override
+        public int getPoolSize() {
+            return runStateAtLeast(executor.ctl.get(), TIDYING) ? 0 : poolSize;
+        }
+
+        @Override
+        public int getLargestPoolSize() {
+            return largestPoolSize;
+        }
+
+        @Override
+        public int getActiveCount() {
+            return Math.max(active.get(), 0);
+        }
+
+        @Override
+        public int getQueueSize() {
+            return executor.workQueue.size();
+        }
+
+        @Override
+        public long getCompletedTaskCount() {
+            return completed.sum();
+        }
+
+        @Override
+        public long getFailedTaskCount() {
+            return failed.sum();
+        }
+
+        @Override
+        public long getRejectedTaskCount() {
+            return rejected.sum();
+        }
+
+        @Override
+        public Map<String, Long> getRejectedTaskCountByHandler() {
+            Map<String, Long> m = new TreeMap<String, Long>();
+            for (Map.Entry<String, LongAdder> e : rejectedByHandler.entrySet()) {
+                m.put(e.getKey(), e.getValue().sum());
+            }
+            return m;
+        }
+
+        @Override
+        public long getStartedWorkerCount() {
+            return startedWorkers.sum();
+        }
+
+        @Override
+        public long getExitedWorkerCount() {
+            return exitedWorkers.sum();
+        }
+
+        @Override
+        public long getAbruptWorkerExitCount() {
+            return abruptExits.sum();
+        }
+
+        @Override
+        public long getMaximumPoolSizeTime() {
+            for (;;) {
+                long since = saturatedSince;
+                long time = saturatedTime;
+                if (since == saturatedSince) {  // not torn by a change
+                    return (since == UNKNOWN) ? time :
+                        time + (System.nanoTime() - since);
+                }
+            }
+        }
+
+        @Override
+        public long getQueueWaitTime() {
+            return queueWait.total.sum();
+        }
+
+        @Override
+        public long getMaxQueueWaitTime() {
+            return queueWait.max.get();
+        }
+
+        @Override
+        public long[] getQueueWaitTimePercentiles() {
+            return queueWait.percentiles(PERCENTILES);
+        }
+
+        @Override
+        public long getExecutionTime() {
+            return execution.total.sum();
+        }
+
+        @Override
+        public long getMaxExecutionTime() {
+            return execution.max.get();
+        }
+
+        @Override
+        public long[] getExecutionTimePercentiles() {
+            return execution.percentiles(PERCENTILES);
+        }
+    }
+
+    /**
+     * A lock-free histogram of nanosecond durations.  Values below 8
+     * are counted exactly; larger ones in 8 buckets per power of two,
+     * so that a bucket's values are within 12.5% of each other.
+     */
+    static final class LatencyHistogram {
+        static final int SUB_BITS = 3;
+        static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+        final AtomicLongArray counts =
+            new AtomicLongArray((64 - SUB_BITS) * SUB_BUCKETS);
+        final LongAdder total = new LongAdder();
+        final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+        static int indexOf(long v) {
+            if (v < SUB_BUCKETS) {
+                return (int)v;
+            }
+            int e = 63 - Long.numberOfLeadingZeros(v);
+            return ((e - SUB_BITS + 1) << SUB_BITS) +
+                (int)((v >>> (e - SUB_BITS)) & (SUB_BUCKETS - 1));
+        }
+
+        /** Returns the largest value counted in bucket i */
+        static long highestValueOf(int i) {
+            if (i < SUB_BUCKETS) {
+                return i;
+            }
+            int shift = (i >>> SUB_BITS) - 1;
+            long lowest = (long)(SUB_BUCKETS + (i & (SUB_BUCKETS - 1))) << shift;
+            return lowest + (1L << shift) - 1;
+        }
+
+        void record(long nanos) {
+            long v = Math.max(nanos, 0L);
+            counts.incrementAndGet(indexOf(v));
+            total.add(v);
+            max.accumulate(v);
+        }
+
+        /**
+         * Returns, for each of the given quantiles, the highest value
+         * of the bucket holding it, but no more than the maximum.
+         */
+        long[] percentiles(double[] quantiles) {
+            int len = counts.length();
+            long[] c = new long[len];
+            long n = 0L;
+            for (int i = 0; i < len; ++i) {
+                n += (c[i] = counts.get(i));
+            }
+            long[] values = new long[quantiles.length];
+            if (n == 0L) {
+                return values;
+            }
+            long m = max.get();
+            for (int q = 0; q < quantiles.length; ++q) {
+                long rank = Math.max(1L, (long)Math.ceil(quantiles[q] * n));
+                long seen = 0L;
+                int i = 0;
+                while (i < len - 1 && (seen += c[i]) < rank) {
+                    ++i;
+                }
+                values[q] = Math.min(highestValueOf(i), m);
+            }
+            return values;
+        }
+    }
+
     /* Predefined RejectedExecutionHandlers */
 
     /**
@@ -0,0 +1,188 @@
+package java.util.concurrent;
+
+import java.util.Map;
+
+/**
+ * ThreadPoolExecutor 运行统计的管理接口：任务排队等待与执行耗时分布、拒绝次数（按处理器分类）、工作线程的创建与退出，以及线程池处于最大线程数的累计时间。
+ *
+ * The management interface for the statistics of a
+ * {@link ThreadPoolExecutor}, obtained from
+ * {@link ThreadPoolExecutor#enableStatistics}.  Statistics are collected
+ * only for executors on which they have been enabled; other executors
+ * pay no cost beyond a field read per task.
+ *
+ * <p>A class implementing this interface is an
+ * {@link javax.management.MXBean}, so it may be registered with the
+ * platform {@link javax.management.MBeanServer MBeanServer} to be read by
+ * JMX clients, for example:
+ * <pre> {@code
+ * ThreadPoolExecutorMXBean stats = executor.enableStatistics();
+ * ManagementFactory.getPlatformMBeanServer().registerMBean(stats,
+ *     new ObjectName("java.util.concurrent:type=ThreadPoolExecutor,name=io"));}</pre>
+ *
+ * <p>Counts and times are cumulative from the time statistics were
+ * enabled, and tasks already queued or running at that time are not
+ * included.  No attribute is read under the executor's main lock, so
+ * reading statistics never delays the submission or completion of
+ * tasks; in exchange, attributes read together are not a consistent
+ * snapshot.  Times are in nanoseconds.  Percentiles are computed from a
+ * histogram whose buckets bound the relative error of each reported
+ * value to 12.5%.
+ *
+ * @since 1.8
+ */
+public interface ThreadPoolExecutorMXBean {
+
+    /**
+     * Returns the current number of threads in the pool.
+     *
+     * @return the number of threads
+     * @see ThreadPoolExecutor#getPoolSize
+     */
+    int getPoolSize();
+
+    /**
+     * Returns the largest number of threads that have simultaneously
+     * been in the pool since statistics were enabled.
+     *
+     * @return the largest number of threads
+     */
+    int getLargestPoolSize();
+
+    /**
+     * Returns the number of threads currently executing tasks.
+     *
+     * @return the number of active threads
+     * @see ThreadPoolExecutor#getActiveCount
+     */
+    int getActiveCount();
+
+    /**
+     * Returns the number of tasks waiting in the work queue.
+     *
+     * @return the queue length
+     */
+    int getQueueSize();
+
+    /**
+     * Returns the number of tasks that have completed execution,
+     * normally or by throwing an exception.
+     *
+     * @return the number of completed tasks
+     */
+    long getCompletedTaskCount();
+
+    /**
+     * Returns the number of tasks whose execution threw an exception.
+     * Tasks submitted as {@link Future}s capture their exceptions and
+     * are not counted.
+     *
+     * @return the number of failed tasks
+     */
+    long getFailedTaskCount();
+
+    /**
+     * Returns the number of tasks passed to the executor's
+     * {@link RejectedExecutionHandler}.
+     *
+     * @return the number of rejected tasks
+     */
+    long getRejectedTaskCount();
+
+    /**
+     * Returns the number of rejected tasks for each
+     * {@link RejectedExecutionHandler} class that has handled any, keyed
+     * by class name.  The handler may be changed with
+     * {@link ThreadPoolExecutor#setRejectedExecutionHandler}.
+     *
+     * @return the number of rejected tasks per handler class
+     */
+    Map<String, Long> getRejectedTaskCountByHandler();
+
+    /**
+     * Returns the number of worker threads started.
+     *
+     * @return the number of started workers
+     */
+    long getStartedWorkerCount();
+
+    /**
+     * Returns the number of worker threads that have exited, whether
+     * because they were idle for longer than the keep-alive time, the
+     * pool was shut down or resized, or a task threw an exception.
+     *
+     * @return the number of exited workers
+     */
+    long getExitedWorkerCount();
+
+    /**
+     * Returns the number of worker threads that have exited because a
+     * task, or a {@code beforeExecute} or {@code afterExecute} hook,
+     * threw an exception.  Each such worker is replaced by a new one.
+     *
+     * @return the number of workers exited abruptly
+     */
+    long getAbruptWorkerExitCount();
+
+    /**
+     * Returns the total time during which the pool held its
+     * {@linkplain ThreadPoolExecutor#getMaximumPoolSize maximum number}
+     * of threads, including the current period if it holds it now.
+     * While saturated, tasks are queued or, if the queue is full,
+     * rejected.
+     *
+     * @return the time at the maximum pool size
+     */
+    long getMaximumPoolSizeTime();
+
+    /**
+     * Returns the total time that started tasks spent between their
+     * submission and the start of their execution.  For a
+     * {@link ScheduledThreadPoolExecutor}, a task is counted from the
+     * time it was scheduled to run.
+     *
+     * @return the total queue wait time
+     */
+    long getQueueWaitTime();
+
+    /**
+     * Returns the longest time that a started task spent between its
+     * submission and the start of its execution.
+     *
+     * @return the maximum queue wait time
+     * @see #getQueueWaitTime
+     */
+    long getMaxQueueWaitTime();
+
+    /**
+     * Returns the 50th, 90th, 99th and 99.9th percentiles, in that
+     * order, of the time that started tasks spent between their
+     * submission and the start of their execution.
+     *
+     * @return the queue wait time percentiles
+     * @see #getQueueWaitTime
+     */
+    long[] getQueueWaitTimePercentiles();
+
+    /**
+     * Returns the total time spent executing tasks.
+     *
+     * @return the total execution time
+     */
+    long getExecutionTime();
+
+    /**
+     * Returns the longest time spent executing a task.
+     *
+     * @return the maximum execution time
+     */
+    long getMaxExecutionTime();
+
+    /**
+     * Returns the 50th, 90th, 99th and 99.9th percentiles, in that
+     * order, of the time spent executing tasks.
+     *
+     * @return the execution time percentiles
+     */
+    long[] getExecutionTimePercentiles();
+}
@@ -0,0 +1,863 @@
+package java.util.concurrent;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 基于分层哈希时间轮的 ScheduledExecutorService：调度与取消均为 O(1)，提交无锁，适用于同时挂起数百万个超时任务的场景。
+ *
+ * A {@link ScheduledExecutorService} backed by a hierarchical hashed
+ * timing wheel, for programs that keep very large numbers of delayed
+ * tasks pending, such as per-request timeouts, most of which are
+ * cancelled before they expire.
+ *
+ * <p>A {@link ScheduledThreadPoolExecutor} keeps its delayed tasks in a
+ * binary heap guarded by a single lock, so that scheduling and removing
+ * a task take time logarithmic in the number of pending tasks, all while
+ * holding that lock.  This executor instead rounds trigger times up to
+ * a multiple of a configurable <em>tick</em> and files each task in a
+ * slot of a wheel of 64 slots per level, one level per 6 bits of the
+ * tick count.  Scheduling a task is a lock-free enqueue onto a
+ * submission queue, from which the wheel's thread moves it into its slot
+ * in constant time; cancelling a task is likewise constant time, and a
+ * cancelled task is unlinked from the wheel at the next tick rather than
+ * lingering until its trigger time.  On each tick, the wheel's thread
+ * expires the tasks of one slot of the lowest level, after moving down
+ * the tasks of any higher level slot whose span begins at that tick.
+ *
+ * <p>The price is resolution: a task runs no earlier than requested, but
+ * up to one tick later, and the wheel's thread wakes on every tick while
+ * any task is pending.  The default tick is one millisecond.
+ *
+ * <p>Tasks are run by the single thread that advances the wheel, in the
+ * manner of {@link java.util.Timer}, so tasks should complete quickly,
+ * handing off longer work to another executor; a task that runs for
+ * many ticks delays all others due in the meantime.  Tasks due in the
+ * same tick are not guaranteed to run in any particular order.
+ *
+ * <p>After {@link #shutdown}, pending delayed tasks still run, but
+ * periodic tasks are cancelled, as for a {@code ScheduledThreadPoolExecutor}
+ * with default policies.  The executor terminates once no task remains.
+ *
+ * @since 1.8
+ */
+public class TimingWheelScheduledExecutor extends AbstractExecutorService
+    implements ScheduledExecutorService {
+
+    /*
+     * Overview:
+     *
+     * Time is measured in ticks since the executor was created.  A
+     * task due at tick d is held in the wheel relative to the tick c
+     * last processed: at level l, the index of the highest 6-bit group
+     * in which d and c differ, and in slot (d >>> 6l) & 63 of that
+     * level.  Processing tick t first moves down, highest level first,
+     * the tasks of every level l slot whose span starts at t (that
+     * is, each l for which the low 6l bits of t are zero), re-filing
+     * each relative to t, and then expires the tasks of level 0 slot
+     * t & 63, all of which are due at t.  This is the scheme of
+     * Varghese and Lauck's "Hashed and Hierarchical Timing Wheels".
+     *
+     * The wheel is only ever touched by the ticker thread, and by
+     * shutdownNow, under wheelLock; the lock is therefore uncontended
+     * except at shutdown.  Other threads communicate with the ticker
+     * through two lock-free queues: submissions, holding new and
+     * rescheduled periodic tasks, and cancellations, holding cancelled
+     * tasks to unlink.  Both are drained at each tick.  Each slot is a
+     * doubly linked list threaded through the tasks themselves, so
+     * that a cancelled task can be unlinked in constant time.
+     *
+     * When the wheel is empty, the ticker parks until a submitter
+     * unparks it, and on waking skips directly to the current tick.
+     */
+
+    /** The number of bits of the tick count resolved by each level */
+    private static final int WHEEL_BITS = 6;
+
+    /** The number of slots in each level */
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    /** The number of levels needed to resolve a full long tick count */
+    private static final int LEVELS = (Long.SIZE + WHEEL_BITS - 1) / WHEEL_BITS;
+
+    /** The default tick duration, one millisecond */
+    private static final long DEFAULT_TICK_NANOS = 1000L * 1000L;
+
+    /*
+     * Run states, in the same order as those of ThreadPoolExecutor.
+     */
+    private static final int RUNNING    = 0;
+    private static final int SHUTDOWN   = 1;
+    private static final int STOP       = 2;
+    private static final int TERMINATED = 3;
+
+    private volatile int runState;
+
+    /** The duration of one tick, in nanoseconds */
+    private final long tickNanos;
+
+    /** The value of System.nanoTime() at tick 0 */
+    private final long startTime;
+
+    /** The heads of the slot lists of all levels, level by level */
+    private final ScheduledWheelTask<?>[] slots =
+        new ScheduledWheelTask<?>[LEVELS * WHEEL_SIZE];
+
+    /** The tick last processed, or being processed */
+    private long currentTick;
+
+    /** The number of tasks held in slots */
+    private int wheelCount;
+
+    /** New and rescheduled tasks, not yet filed in the wheel */
+    private final ConcurrentLinkedQueue<ScheduledWheelTask<?>> submissions =
+        new ConcurrentLinkedQueue<ScheduledWheelTask<?>>();
+
+    /** Cancelled tasks, possibly still filed in the wheel */
+    private final ConcurrentLinkedQueue<ScheduledWheelTask<?>> cancellations =
+        new ConcurrentLinkedQueue<ScheduledWheelTask<?>>();
+
+    /** Guards the wheel, and wait conditions for awaitTermination */
+    private final ReentrantLock wheelLock = new ReentrantLock();
+
+    private final Condition termination = wheelLock.newCondition();
+
+    /** The thread advancing the wheel and running expired tasks */
+    private final Thread ticker;
+
+    /** True while the ticker is parked waiting for a submission */
+    private volatile boolean idle;
+
+    /**
+     * Sequence number to break scheduling ties, and in turn to
+     * guarantee FIFO order among tied entries.
+     */
+    private static final AtomicLong sequencer = new AtomicLong();
+
+    /**
+     * Creates a new {@code TimingWheelScheduledExecutor} with a tick of
+     * one millisecond and the {@linkplain Executors#defaultThreadFactory
+     * default thread factory}.
+     */
+    public TimingWheelScheduledExecutor() {
+        this(DEFAULT_TICK_NANOS, NANOSECONDS, Executors.defaultThreadFactory());
+    }
+
+    /**
+     * Creates a new {@code TimingWheelScheduledExecutor} with the given
+     * tick duration and the {@linkplain Executors#defaultThreadFactory
+     * default thread factory}.
+     *
+     * @param tickDuration the resolution of the wheel: tasks run at
+     *        most this long after their trigger time, given a free
+     *        thread
+     * @param unit the time unit of the {@code tickDuration} argument
+     * @throws IllegalArgumentException if {@code tickDuration} is
+     *         less than one nanosecond
+     * @throws NullPointerException if {@code unit} is null
+     */
+    public TimingWheelScheduledExecutor(long tickDuration, TimeUnit unit) {
+        this(tickDuration, unit, Executors.defaultThreadFactory());
+    }
+
+    /**
+     * Creates a new {@code TimingWheelScheduledExecutor} with the given
+     * tick duration and thread factory.  The thread that advances the
+     * wheel and runs tasks is created and started by this constructor.
+     *
+     * @param tickDuration the resolution of the wheel: tasks run at
+     *        most this long after their trigger time, given a free
+     *        thread
+     * @param unit the time unit of the {@code tickDuration} argument
+     * @param threadFactory the factory to use to create the thread
+     * @throws IllegalArgumentException if {@code tickDuration} is
+     *         less than one nanosecond
+     * @throws NullPointerException if {@code unit} or
+     *         {@code threadFactory} is null, or if the thread factory
+     *         fails to create a thread
+     */
+    public TimingWheelScheduledExecutor(long tickDuration, TimeUnit unit,
+                                        ThreadFactory threadFactory) {
+        if (unit == null || threadFactory == null) {
+            throw new NullPointerException();
+        }
+        long t = unit.toNanos(tickDuration);
+        if (t <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.tickNanos = t;
+        this.startTime = System.nanoTime();
+        Thread w = threadFactory.newThread(new Ticker());
+        if (w == null) {
+            throw new NullPointerException();
+        }
+        this.ticker = w;
+        w.start();
+    }
+
+    /**
+     * Returns the tick duration, in the given unit.
+     *
+     * @param unit the time unit of the result
+     * @return the tick duration
+     */
+    public long getTickDuration(TimeUnit unit) {
+        return unit.convert(tickNanos, NANOSECONDS);
+    }
+
+    private class ScheduledWheelTask<V>
+            extends FutureTask<V> implements RunnableScheduledFuture<V> {
+
+        /** Sequence number to break ties FIFO */
+        private final long sequenceNumber;
+
+        /** The time the task is enabled to execute in nanoTime units */
+        private long time;
+
+        /**
+         * Period in nanoseconds for repeating tasks.  A positive
+         * value indicates fixed-rate execution.  A negative value
+         * indicates fixed-delay execution.  A value of 0 indicates a
+         * non-repeating task.
+         */
+        private final long period;
+
+        /** The tick at which the task is due, once filed in the wheel */
+        long deadline;
+
+        /** Index into slots, or -1 if not filed in the wheel */
+        int slot = -1;
+
+        /** Links within the slot's list */
+        ScheduledWheelTask<?> prev, next;
+
+        /**
+         * Creates a periodic or one-shot action with given nanoTime-based
+         * trigger time and period.
+         */
+        ScheduledWheelTask(Runnable r, V result, long ns, long period) {
+            super(r, result);
+            this.time = ns;
+            this.period = period;
+            this.sequenceNumber = sequencer.getAndIncrement();
+        }
+
+        /**
+         * Creates a one-shot action with given nanoTime-based trigger time.
+         */
+        ScheduledWheelTask(Callable<V> callable, long ns) {
+            super(callable);
+            this.time = ns;
+            this.period = 0;
+            this.sequenceNumber = sequencer.getAndIncrement();
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(time - System.nanoTime(), NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other == this) // compare zero if same object
+            {
+                return 0;
+            }
+            if (other instanceof ScheduledWheelTask) {
+                ScheduledWheelTask<?> x = (ScheduledWheelTask<?>)other;
+                long diff = time - x.time;
+                if (diff < 0) {
+                    return -1;
+                } else if (diff > 0) {
+                    return 1;
+                } else if (sequenceNumber < x.sequenceNumber) {
+                    return -1;
+                } else {
+                    return 1;
+                }
+            }
+            long diff = getDelay(NANOSECONDS) - other.getDelay(NANOSECONDS);
+            return (diff < 0) ? -1 : (diff > 0) ? 1 : 0;
+        }
+
+        /**
+         * Returns {@code true} if this is a periodic (not a one-shot) action.
+         *
+         * @return {@code true} if periodic
+         */
+        @Override
+        public boolean isPeriodic() {
+            return period != 0;
+        }
+
+        /**
+         * Returns the tick at which a task triggered at the current
+         * time is due, rounding up so that it never runs early.
+         */
+        long dueTick() {
+            long d = time - startTime;
+            return (d <= 0) ? 0 : (d - 1) / tickNanos + 1;
+        }
+
+        /**
+         * Sets the next time to run for a periodic task.
+         */
+        private void setNextRunTime() {
+            long p = period;
+            if (p > 0) {
+                time += p;
+            } else {
+                time = triggerTime(-p);
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                cancellations.offer(this);
+            }
+            return cancelled;
+        }
+
+        /**
+         * Overrides FutureTask version so as to reschedule if periodic.
+         */
+        @Override
+        public void run() {
+            boolean periodic = isPeriodic();
+            if (!canRunInCurrentRunState(periodic)) {
+                cancel(false);
+            } else if (!periodic) {
+                ScheduledWheelTask.super.run();
+            } else if (ScheduledWheelTask.super.runAndReset()) {
+                setNextRunTime();
+                if (canRunInCurrentRunState(true)) {
+                    submissions.offer(this);
+                } else {
+                    cancel(false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns true if a task can run in the current run state:
+     * periodic tasks only while running, and delayed tasks until
+     * stopped.
+     */
+    boolean canRunInCurrentRunState(boolean periodic) {
+        int rs = runState;
+        return rs == RUNNING || (rs == SHUTDOWN && !periodic);
+    }
+
+    /**
+     * Returns the trigger time of a delayed action.
+     */
+    private long triggerTime(long delay, TimeUnit unit) {
+        return triggerTime(unit.toNanos((delay < 0) ? 0 : delay));
+    }
+
+    /**
+     * Returns the trigger time of a delayed action, clamping delays to
+     * half the range of nanoTime to keep tick arithmetic from
+     * overflowing.
+     */
+    long triggerTime(long delay) {
+        return System.nanoTime() +
+            ((delay < (Long.MAX_VALUE >> 1)) ? delay : (Long.MAX_VALUE >> 1));
+    }
+
+    /**
+     * Main execution method for delayed or periodic tasks.  Rejects
+     * the task if the executor is shut down; otherwise enqueues it for
+     * the ticker, waking the ticker if it is idle.  If the executor is
+     * shut down while the task is being enqueued, the task is removed
+     * and rejected if the ticker has not yet taken it.
+     */
+    private void delayedExecute(ScheduledWheelTask<?> task) {
+        if (runState != RUNNING) {
+            throw new RejectedExecutionException();
+        }
+        submissions.offer(task);
+        if (runState != RUNNING && submissions.remove(task)) {
+            throw new RejectedExecutionException();
+        }
+        if (idle) {
+            LockSupport.unpark(ticker);
+        }
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command,
+                                       long delay,
+                                       TimeUnit unit) {
+        if (command == null || unit == null) {
+            throw new NullPointerException();
+        }
+        ScheduledWheelTask<Void> t =
+            new ScheduledWheelTask<Void>(command, null,
+                                         triggerTime(delay, unit), 0);
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable,
+                                           long delay,
+                                           TimeUnit unit) {
+        if (callable == null || unit == null) {
+            throw new NullPointerException();
+        }
+        ScheduledWheelTask<V> t =
+            new ScheduledWheelTask<V>(callable, triggerTime(delay, unit));
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     * @throws IllegalArgumentException   {@inheritDoc}
+     */
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command,
+                                                  long initialDelay,
+                                                  long period,
+                                                  TimeUnit unit) {
+        if (command == null || unit == null) {
+            throw new NullPointerException();
+        }
+        if (period <= 0) {
+            throw new IllegalArgumentException();
+        }
+        ScheduledWheelTask<Void> t =
+            new ScheduledWheelTask<Void>(command, null,
+                                         triggerTime(initialDelay, unit),
+                                         unit.toNanos(period));
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     * @throws IllegalArgumentException   {@inheritDoc}
+     */
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command,
+                                                     long initialDelay,
+                                                     long delay,
+                                                     TimeUnit unit) {
+        if (command == null || unit == null) {
+            throw new NullPointerException();
+        }
+        if (delay <= 0) {
+            throw new IllegalArgumentException();
+        }
+        ScheduledWheelTask<Void> t =
+            new ScheduledWheelTask<Void>(command, null,
+                                         triggerTime(initialDelay, unit),
+                                         unit.toNanos(-delay));
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * Executes {@code command} with zero required delay, that is, at
+     * the next tick.  This has effect equivalent to
+     * {@link #schedule(Runnable,long,TimeUnit) schedule(command, 0, anyUnit)}.
+     *
+     * @throws RejectedExecutionException if the executor is shut down
+     * @throws NullPointerException {@inheritDoc}
+     */
+    @Override
+    public void execute(Runnable command) {
+        schedule(command, 0, NANOSECONDS);
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    @Override
+    public Future<?> submit(Runnable task) {
+        return schedule(task, 0, NANOSECONDS);
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    @Override
+    public <T> Future<T> submit(Runnable task, T result) {
+        return schedule(Executors.callable(task, result), 0, NANOSECONDS);
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    @Override
+    public <T> Future<T> submit(Callable<T> task) {
+        return schedule(task, 0, NANOSECONDS);
+    }
+
+    /**
+     * Initiates an orderly shutdown in which previously submitted
+     * delayed tasks are executed when due, periodic tasks are
+     * cancelled, and no new tasks will be accepted.  Invocation has no
+     * additional effect if already shut down.
+     *
+     * <p>This method does not wait for previously submitted tasks to
+     * complete execution.  Use {@link #awaitTermination awaitTermination}
+     * to do that.
+     *
+     * @throws SecurityException {@inheritDoc}
+     */
+    @Override
+    public void shutdown() {
+        wheelLock.lock();
+        try {
+            if (runState == RUNNING) {
+                runState = SHUTDOWN;
+            }
+        } finally {
+            wheelLock.unlock();
+        }
+        LockSupport.unpark(ticker);
+    }
+
+    /**
+     * Attempts to stop all actively executing tasks, halts the
+     * processing of waiting tasks, and returns a list of the tasks
+     * that were awaiting execution.  These tasks are drained (removed)
+     * from the wheel upon return from this method.
+     *
+     * <p>This method does not wait for actively executing tasks to
+     * terminate.  Use {@link #awaitTermination awaitTermination} to
+     * do that.
+     *
+     * <p>There are no guarantees beyond best-effort attempts to stop
+     * processing actively executing tasks.  This implementation
+     * interrupts the executor's thread; any task that fails to respond
+     * to interrupts may never terminate.  Tasks already expired but not
+     * yet started when this method is called are cancelled.
+     *
+     * @return list of tasks that never commenced execution.
+     *         Each element of this list is a {@link ScheduledFuture}.
+     * @throws SecurityException {@inheritDoc}
+     */
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> tasks = new ArrayList<Runnable>();
+        wheelLock.lock();
+        try {
+            if (runState < STOP) {
+                runState = STOP;
+            }
+            for (int i = 0; i < slots.length; ++i) {
+                ScheduledWheelTask<?> t = slots[i];
+                slots[i] = null;
+                while (t != null) {
+                    ScheduledWheelTask<?> n = t.next;
+                    t.prev = t.next = null;
+                    t.slot = -1;
+                    if (!t.isDone()) {
+                        tasks.add(t);
+                    }
+                    t = n;
+                }
+            }
+            wheelCount = 0;
+            for (ScheduledWheelTask<?> t; (t = submissions.poll()) != null; ) {
+                if (!t.isDone()) {
+                    tasks.add(t);
+                }
+            }
+        } finally {
+            wheelLock.unlock();
+        }
+        ticker.interrupt();
+        LockSupport.unpark(ticker);
+        return tasks;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return runState != RUNNING;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return runState == TERMINATED;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit)
+        throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = wheelLock;
+        lock.lock();
+        try {
+            for (;;) {
+                if (runState == TERMINATED) {
+                    return true;
+                }
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = termination.awaitNanos(nanos);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns an estimate of the number of tasks waiting to run,
+     * including those not yet moved into the wheel and cancelled tasks
+     * not yet removed from it.
+     *
+     * @return the number of pending tasks
+     */
+    public int getPendingTaskCount() {
+        return wheelCount + submissions.size();
+    }
+
+    /* ---------------- Wheel maintenance -------------- */
+
+    /**
+     * Files task t, due at tick d or at the given minimum tick if
+     * later, in the slot for it relative to the current tick.  Called
+     * only with wheelLock held.
+     */
+    private void place(ScheduledWheelTask<?> t, long d, long min) {
+        if (d < min) {
+            d = min;
+        }
+        t.deadline = d;
+        int level = (63 - Long.numberOfLeadingZeros(d ^ currentTick)) / WHEEL_BITS;
+        int i = (level << WHEEL_BITS) +
+            (int)((d >>> (level * WHEEL_BITS)) & WHEEL_MASK);
+        ScheduledWheelTask<?> h = slots[i];
+        t.slot = i;
+        t.prev = null;
+        if ((t.next = h) != null) {
+            h.prev = t;
+        }
+        slots[i] = t;
+        ++wheelCount;
+    }
+
+    /**
+     * Removes task t from its slot, if filed.  Called only with
+     * wheelLock held.
+     */
+    private void unlink(ScheduledWheelTask<?> t) {
+        int i = t.slot;
+        if (i >= 0) {
+            ScheduledWheelTask<?> p = t.prev, n = t.next;
+            if (p == null) {
+                slots[i] = n;
+            } else {
+                p.next = n;
+            }
+            if (n != null) {
+                n.prev = p;
+            }
+            t.prev = t.next = null;
+            t.slot = -1;
+            --wheelCount;
+        }
+    }
+
+    /**
+     * Detaches and returns the list of slot i.  Called only with
+     * wheelLock held.
+     */
+    private ScheduledWheelTask<?> detach(int i) {
+        ScheduledWheelTask<?> h = slots[i];
+        slots[i] = null;
+        for (ScheduledWheelTask<?> t = h; t != null; t = t.next) {
+            t.slot = -1;
+            --wheelCount;
+        }
+        return h;
+    }
+
+    /**
+     * Moves submitted tasks into the wheel, due no earlier than the
+     * next tick, and unlinks cancelled tasks.  Called only with
+     * wheelLock held.
+     */
+    private void drainQueues() {
+        for (ScheduledWheelTask<?> t; (t = submissions.poll()) != null; ) {
+            if (!t.isDone()) {
+                place(t, t.dueTick(), currentTick + 1);
+            }
+        }
+        for (ScheduledWheelTask<?> t; (t = cancellations.poll()) != null; ) {
+            unlink(t);
+        }
+    }
+
+    /**
+     * Processes tick t, adding the tasks due at it to expired.  Called
+     * only with wheelLock held.
+     */
+    private void advance(long t, List<ScheduledWheelTask<?>> expired) {
+        currentTick = t;
+        int top = 0;
+        while (top < LEVELS - 1 &&
+               (t & ((1L << ((top + 1) * WHEEL_BITS)) - 1)) == 0) {
+            ++top;
+        }
+        for (int level = top; level > 0; --level) {
+            int i = (level << WHEEL_BITS) +
+                (int)((t >>> (level * WHEEL_BITS)) & WHEEL_MASK);
+            for (ScheduledWheelTask<?> x = detach(i), n; x != null; x = n) {
+                n = x.next;
+                if (!x.isDone()) {
+                    place(x, x.deadline, t);
+                }
+            }
+        }
+        for (ScheduledWheelTask<?> x = detach((int)(t & WHEEL_MASK)), n;
+             x != null; x = n) {
+            n = x.next;
+            x.prev = x.next = null;
+            if (!x.isDone()) {
+                expired.add(x);
+            }
+        }
+    }
+
+    /**
+     * Cancels all periodic tasks in the wheel, on shutdown.  Called
+     * only with wheelLock held.
+     */
+    private void cancelPeriodicTasks() {
+        for (ScheduledWheelTask<?> t; (t = submissions.poll()) != null; ) {
+            if (t.isPeriodic()) {
+                t.cancel(false);
+            } else if (!t.isDone()) {
+                place(t, t.dueTick(), currentTick + 1);
+            }
+        }
+        for (int i = 0; i < slots.length; ++i) {
+            for (ScheduledWheelTask<?> t = slots[i], n; t != null; t = n) {
+                n = t.next;
+                if (t.isPeriodic()) {
+                    t.cancel(false);
+                    unlink(t);
+                }
+            }
+        }
+    }
+
+    /**
+     * The ticker's main loop.  Under wheelLock, drains the queues and
+     * processes all ticks that have come due, collecting the expired
+     * tasks, then runs them without the lock.  Between ticks it parks
+     * until the next tick is due, or, if no task is pending, until
+     * woken by a submission.
+     */
+    private final class Ticker implements Runnable {
+        @Override
+        public void run() {
+            final ReentrantLock lock = wheelLock;
+            List<ScheduledWheelTask<?>> expired =
+                new ArrayList<ScheduledWheelTask<?>>();
+            boolean shutdownSeen = false;
+            try {
+                for (;;) {
+                    long parkNanos = 0L;
+                    lock.lock();
+                    try {
+                        int rs = runState;
+                        if (rs >= STOP) {
+                            break;
+                        }
+                        if (rs == SHUTDOWN && !shutdownSeen) {
+                            shutdownSeen = true;
+                            cancelPeriodicTasks();
+                        }
+                        drainQueues();
+                        long now = System.nanoTime();
+                        if (wheelCount == 0) {
+                            if (rs != RUNNING) {
+                                break;
+                            }
+                            // Nothing pending: skip ahead to the current tick
+                            long c = (now - startTime) / tickNanos - 1;
+                            if (c > currentTick) {
+                                currentTick = c;
+                            }
+                            parkNanos = -1L;
+                        } else {
+                            long t;
+                            while (now - (startTime + (t = currentTick + 1) * tickNanos) >= 0) {
+                                advance(t, expired);
+                            }
+                            if (expired.isEmpty()) {
+                                parkNanos = startTime + t * tickNanos - now;
+                            }
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                    if (parkNanos < 0L) {
+                        idle = true;
+                        if (submissions.isEmpty() && runState == RUNNING) {
+                            LockSupport.park(this);
+                        }
+                        idle = false;
+                    } else if (parkNanos > 0L) {
+                        LockSupport.parkNanos(this, parkNanos);
+                    } else {
+                        for (int i = 0, n = expired.size(); i < n; ++i) {
+                            ScheduledWheelTask<?> task = expired.get(i);
+                            if (runState >= STOP) {
+                                task.cancel(false);
+                            } else {
+                                task.run();
+                            }
+                        }
+                        expired.clear();
+                    }
+                    if (runState < STOP) {
+                        Thread.interrupted(); // clear interrupts from tasks
+                    }
+                }
+            } finally {
+                for (ScheduledWheelTask<?> task : expired) {
+                    task.cancel(false);
+                }
+                lock.lock();
+                try {
+                    runState = TERMINATED;
+                    termination.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package java.util.concurrent;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 等待策略：当非阻塞的环形缓冲队列暂时无法插入或取出元素时，决定线程如何等待（自旋、让出 CPU 或短暂挂起）。
+ *
+ * A policy for how a thread waits while a lock-free queue is
+ * momentarily unable to accept or supply an element.  The blocking
+ * operations of {@link SpscArrayBlockingQueue}, {@link
+ * MpscArrayBlockingQueue} and {@link MpmcArrayBlockingQueue} retry
+ * their non-blocking counterparts, calling {@link #idle} between
+ * attempts, rather than waiting on a lock condition.  No thread
+ * signals a waiting thread, so a strategy must return within a bounded
+ * time for the waiting thread to observe progress, interruption, or
+ * the expiry of a timeout.
+ *
+ * <p>The strategies provided trade latency against processor use:
+ * {@link #busySpin} reacts fastest but occupies a processor for the
+ * whole wait, {@link #yielding} lets other threads run on the
+ * processor, and {@link #parking} eventually suspends the thread for
+ * intervals growing to about a millisecond, so that a thread waiting
+ * for a long time consumes little processor time.
+ *
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface WaitStrategy {
+
+    /**
+     * Waits briefly before the caller retries its operation.
+     *
+     * @param attempts the number of times this method has already been
+     *        called during the current wait, starting from zero
+     */
+    void idle(int attempts);
+
+    /**
+     * Returns a strategy that returns immediately, so that the waiting
+     * thread retries continuously.  Suitable only when each waiting
+     * thread has a processor to itself.
+     *
+     * @return a busy-spinning strategy
+     */
+    static WaitStrategy busySpin() {
+        return attempts -> { };
+    }
+
+    /**
+     * Returns a strategy that spins for a short time and then calls
+     * {@link Thread#yield} on each attempt.
+     *
+     * @return a yielding strategy
+     */
+    static WaitStrategy yielding() {
+        return attempts -> {
+            if (attempts >= 100) {
+                Thread.yield();
+            }
+        };
+    }
+
+    /**
+     * Returns a strategy that spins, then yields, and then parks the
+     * waiting thread, for a microsecond at first and twice as long on
+     * each further attempt, up to about a millisecond.  A thread that
+     * waits briefly thus resumes within microseconds, while one that
+     * waits for a long time wakes about a thousand times a second; its
+     * timed operations may return up to a millisecond after their
+     * timeout.  This is the strategy used by the ring-buffer queues
+     * unless another is given.
+     *
+     * @return a parking strategy
+     */
+    static WaitStrategy parking() {
+        return attempts -> {
+            if (attempts >= 200) {
+                // 1us, doubling on each attempt up to 1024us
+                LockSupport.parkNanos(1000L << Math.min(attempts - 200, 10));
+            } else if (attempts >= 100) {
+                Thread.yield();
+            }
+        };
+    }
+}
@@ -0,0 +1,692 @@
+package java.util.concurrent.atomic;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * 并发对数线性直方图：按二进制有效位分桶记录非负 long 值，桶计数按 Striped64 的探针分散到多个条带，支持无锁记录、百分位查询、快照并清零、合并与紧凑的序列化形式。
+ *
+ * A histogram of non-negative {@code long} values, such as latencies
+ * in nanoseconds, that many threads may record into concurrently.
+ * Values are counted in log-linear buckets: each power of two is
+ * divided into 2<sup>{@code precision}</sup> buckets of equal width,
+ * and values below 2<sup>{@code precision}</sup> are counted exactly,
+ * so that every value is counted in a bucket whose values are within
+ * a relative distance of 2<sup>-{@code precision}</sup> of it, whatever
+ * its magnitude.  The sum, minimum and maximum of recorded values are
+ * kept exactly.
+ *
+ * <p>Recording is lock-free, and under contention spreads its updates
+ * in the same way as {@link LongAdder}: threads that contend are
+ * moved to separate copies of the bucket counts, up to about the
+ * number of processors, which are added together when read.  Queries
+ * such as {@link #getValueAtPercentile} and {@link #getCount} read all
+ * copies without locking, so are not atomic snapshots when values are
+ * recorded concurrently; for an exact view of a period, use {@link
+ * #snapshotAndReset}.  The memory used is about
+ * 8&middot;(64&minus;{@code precision})&middot;2<sup>{@code
+ * precision}</sup> bytes per copy, that is 15 kilobytes for the
+ * default precision of 5.
+ *
+ * <p>Histograms can be {@linkplain #merge merged}, for example to
+ * aggregate per-thread or per-endpoint histograms.  The
+ * serialized form holds only the non-zero buckets, encoded as
+ * variable-length integers.
+ *
+ * <p>The {@code Number} methods of this class return the number of
+ * recorded values.  This class does not override {@code equals} or
+ * {@code hashCode}.
+ *
+ * @see LongAdder
+ * @since 1.8
+ */
+public class LongHistogram extends Striped64 implements Serializable {
+    private static final long serialVersionUID = -3226386521409566587L;
+
+    /*
+     * The sum of recorded values is kept in the cells and base of
+     * Striped64, exactly as by LongAdder, whose add method is
+     * inlined in record.  Contention on the sum is what expands the
+     * cells table and rehashes the probes of contending threads.  The
+     * bucket counts are kept in an array of Stripes that follows the
+     * size of the cells table, each thread updating the stripe that
+     * its probe selects, so threads spread across the cells also
+     * spread across stripes.  Stripes are created and the stripe
+     * table grown while holding the cellsBusy spinlock of Striped64.
+     *
+     * Bucket index of a value v: if v < 2^p, v itself; otherwise,
+     * with e the index of the highest one bit of v, (e - p + 1) * 2^p
+     * plus the p bits of v below the highest.  So the table holds
+     * (64 - p) * 2^p buckets for values up to Long.MAX_VALUE.
+     */
+
+    /** The default number of sub-bucket bits */
+    static final int DEFAULT_PRECISION = 5;
+
+    /** The largest supported number of sub-bucket bits */
+    static final int MAX_PRECISION = 10;
+
+    /** Copy of the bucket counts, one per contending thread group */
+    @sun.misc.Contended static final class Stripe {
+        final long[] counts;
+        Stripe(int n) { counts = new long[n]; }
+    }
+
+    /** The number of sub-bucket bits */
+    private final int precision;
+
+    /** The table of stripes; length is a power of two */
+    private transient volatile Stripe[] stripes;
+
+    private transient volatile long min;
+    private transient volatile long max;
+
+    /**
+     * Creates a new empty histogram with a precision of 5 bits,
+     * counting values in buckets of relative width at most 1/32.
+     */
+    public LongHistogram() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * Creates a new empty histogram counting values in buckets of
+     * relative width at most 2<sup>-{@code precision}</sup>.
+     *
+     * @param precision the number of bits by which to subdivide each
+     *        power of two, between 0 and 10
+     * @throws IllegalArgumentException if {@code precision} is
+     *         negative or greater than 10
+     */
+    public LongHistogram(int precision) {
+        if (precision < 0 || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException();
+        }
+        this.precision = precision;
+        this.stripes = new Stripe[] { new Stripe(bucketCount(precision)) };
+        this.min = Long.MAX_VALUE;
+    }
+
+    // Buckets
+
+    static int bucketCount(int p) {
+        return (64 - p) << p;
+    }
+
+    static int indexOf(long v, int p) {
+        if (v < (1L << p)) {
+            return (int)v;
+        }
+        int e = 63 - Long.numberOfLeadingZeros(v);
+        return ((e - p + 1) << p) + (int)((v >>> (e - p)) & ((1 << p) - 1));
+    }
+
+    /** Returns the smallest value counted in bucket i */
+    static long lowestValueOf(int i, int p) {
+        if (i < (1 << p)) {
+            return i;
+        }
+        int shift = (i >>> p) - 1;
+        return (long)((1 << p) + (i & ((1 << p) - 1))) << shift;
+    }
+
+    /** Returns the largest value counted in bucket i */
+    static long highestValueOf(int i, int p) {
+        if (i < (1 << p)) {
+            return i;
+        }
+        int shift = (i >>> p) - 1;
+        return lowestValueOf(i, p) + ((1L << shift) - 1);
+    }
+
+    private static long offset(int i) {
+        return ((long)i << ASHIFT) + ABASE;
+    }
+
+    // Recording
+
+    /**
+     * Records the given value.
+     *
+     * @param value the value to record
+     * @throws IllegalArgumentException if {@code value} is negative
+     */
+    public void record(long value) {
+        record(value, 1L);
+    }
+
+    /**
+     * Records the given value the given number of times.
+     *
+     * @param value the value to record
+     * @param count the number of times to record it
+     * @throws IllegalArgumentException if {@code value} or {@code
+     *         count} is negative
+     */
+    public void record(long value, long count) {
+        if (value < 0L || count < 0L) {
+            throw new IllegalArgumentException();
+        }
+        if (count == 0L) {
+            return;
+        }
+        long x = value * count;
+        Cell[] as; long b, v; int m; Cell a;
+        if ((as = cells) != null || !casBase(b = base, b + x)) {
+            boolean uncontended = true;
+            if (as == null || (m = as.length - 1) < 0 ||
+                (a = as[getProbe() & m]) == null ||
+                !(uncontended = a.cas(v = a.value, v + x))) {
+                longAccumulate(x, null, uncontended);
+            }
+            as = cells;
+        }
+        Stripe[] ss; Stripe s; int n;
+        if ((ss = stripes).length < (n = (as == null) ? 1 : as.length) ||
+            (s = ss[getProbe() & (ss.length - 1)]) == null) {
+            s = stripe(n);
+        }
+        U.getAndAddLong(s.counts, offset(indexOf(value, precision)), count);
+        long e;
+        while (value < (e = min) && !U.compareAndSwapLong(this, MIN, e, value)) {
+        }
+        while (value > (e = max) && !U.compareAndSwapLong(this, MAX, e, value)) {
+        }
+    }
+
+    /**
+     * Returns the stripe of the current thread, first growing the
+     * stripe table to at least n stripes and creating the stripe if
+     * needed.
+     */
+    private Stripe stripe(int n) {
+        for (;;) {
+            Stripe[] ss = stripes; Stripe s; int h = getProbe();
+            if (ss.length >= n && (s = ss[h & (ss.length - 1)]) != null) {
+                return s;
+            }
+            if (cellsBusy == 0 && casCellsBusy()) {
+                try {
+                    if ((ss = stripes).length < n) {
+                        stripes = ss = Arrays.copyOf(ss, n);
+                    }
+                    int j = h & (ss.length - 1);
+                    if (ss[j] == null) {
+                        ss[j] = new Stripe(bucketCount(precision));
+                    }
+                } finally {
+                    cellsBusy = 0;
+                }
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
+    // Queries
+
+    /**
+     * Returns the number of bits by which this histogram subdivides
+     * each power of two.
+     *
+     * @return the precision
+     */
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Returns the current bucket counts, summed across stripes,
+     * optionally resetting them to zero.
+     */
+    private long[] counts(boolean reset) {
+        long[] c = new long[bucketCount(precision)];
+        for (Stripe s : stripes) {
+            if (s != null) {
+                long[] sc = s.counts;
+                for (int i = 0; i < c.length; ++i) {
+                    c[i] += reset ?
+                        U.getAndSetLong(sc, offset(i), 0L) :
+                        U.getLongVolatile(sc, offset(i));
+                }
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return the number of recorded values
+     */
+    public long getCount() {
+        long n = 0L;
+        for (long c : counts(false)) {
+            n += c;
+        }
+        return n;
+    }
+
+    /**
+     * Returns the sum of recorded values, which overflows like {@code
+     * long} arithmetic.
+     *
+     * @return the sum of recorded values
+     */
+    public long getSum() {
+        Cell[] as = cells; Cell a;
+        long sum = base;
+        if (as != null) {
+            for (int i = 0; i < as.length; ++i) {
+                if ((a = as[i]) != null) {
+                    sum += a.value;
+                }
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the smallest recorded value, or zero if there is none.
+     *
+     * @return the smallest recorded value
+     */
+    public long getMin() {
+        long m = min;
+        return (m == Long.MAX_VALUE && max == 0L) ? 0L : m;
+    }
+
+    /**
+     * Returns the largest recorded value, or zero if there is none.
+     *
+     * @return the largest recorded value
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the mean of recorded values, or zero if there is none.
+     *
+     * @return the mean of recorded values
+     */
+    public double getMean() {
+        long n = getCount();
+        return (n == 0L) ? 0.0 : (double)getSum() / n;
+    }
+
+    /**
+     * Returns the value below which lies the given percentage of
+     * recorded values: the largest value of the bucket holding the
+     * recorded value of that rank, but no more than the maximum
+     * recorded value.  Returns zero if there are no recorded values.
+     *
+     * @param percentile the percentage, between 0 and 100
+     * @return the value at the given percentile
+     * @throws IllegalArgumentException if {@code percentile} is not
+     *         between 0 and 100
+     */
+    public long getValueAtPercentile(double percentile) {
+        return getValuesAtPercentiles(percentile)[0];
+    }
+
+    /**
+     * Returns the values at each of the given percentiles, as by
+     * {@link #getValueAtPercentile}, read from a single pass over the
+     * bucket counts.
+     *
+     * @param percentiles the percentages, each between 0 and 100
+     * @return the value at each of the given percentiles
+     * @throws IllegalArgumentException if a percentile is not between
+     *         0 and 100
+     */
+    public long[] getValuesAtPercentiles(double... percentiles) {
+        for (double q : percentiles) {
+            if (!(q >= 0.0 && q <= 100.0)) {
+                throw new IllegalArgumentException();
+            }
+        }
+        long[] c = counts(false);
+        long n = 0L;
+        int last = -1;
+        for (int i = 0; i < c.length; ++i) {
+            if (c[i] != 0L) {
+                n += c[i];
+                last = i;
+            }
+        }
+        long[] values = new long[percentiles.length];
+        if (n == 0L) {
+            return values;
+        }
+        long m = max;
+        for (int k = 0; k < percentiles.length; ++k) {
+            long rank = Math.max(1L, (long)Math.ceil(percentiles[k] / 100.0 * n));
+            long seen = 0L;
+            int i = 0;
+            while (i < last && (seen += c[i]) < rank) {
+                ++i;
+            }
+            values[k] = Math.min(highestValueOf(i, precision), m);
+        }
+        return values;
+    }
+
+    // Bulk operations
+
+    /**
+     * Returns a new histogram holding the values recorded so far.
+     *
+     * @return a copy of this histogram
+     */
+    public LongHistogram snapshot() {
+        LongHistogram h = new LongHistogram(precision);
+        h.init(counts(false), getSum(), min, max);
+        return h;
+    }
+
+    /**
+     * Returns a new histogram holding the values recorded so far, and
+     * removes them from this histogram.  Each value recorded
+     * concurrently is counted in either the returned histogram or
+     * this one, but its contribution to the sum, minimum and maximum
+     * may be counted in the other one.
+     *
+     * @return the values recorded since the last reset
+     */
+    public LongHistogram snapshotAndReset() {
+        long lo = U.getAndSetLong(this, MIN, Long.MAX_VALUE);
+        long hi = U.getAndSetLong(this, MAX, 0L);
+        long sum = 0L, v;
+        Cell[] as = cells; Cell a;
+        while (!casBase(v = base, 0L)) {
+        }
+        sum += v;
+        if (as != null) {
+            for (int i = 0; i < as.length; ++i) {
+                if ((a = as[i]) != null) {
+                    while (!a.cas(v = a.value, 0L)) {
+                    }
+                    sum += v;
+                }
+            }
+        }
+        LongHistogram h = new LongHistogram(precision);
+        h.init(counts(true), sum, lo, hi);
+        return h;
+    }
+
+    /**
+     * Removes all recorded values.  As for {@link #snapshotAndReset},
+     * values recorded concurrently may be only partially removed.
+     */
+    public void reset() {
+        snapshotAndReset();
+    }
+
+    /**
+     * Adds the values recorded in the given histogram to this one.
+     * If the histograms differ in precision, each value of the given
+     * histogram is counted as the smallest value of its bucket.
+     *
+     * @param other the histogram to merge into this one
+     * @throws NullPointerException if {@code other} is null
+     */
+    public void merge(LongHistogram other) {
+        long[] c = other.counts(false);
+        int p = other.precision;
+        long lo = other.min, hi = other.max;
+        Stripe[] ss = stripes; Stripe s;
+        if ((s = ss[getProbe() & (ss.length - 1)]) == null) {
+            s = stripe(ss.length);
+        }
+        long n = 0L;
+        for (int i = 0; i < c.length; ++i) {
+            if (c[i] != 0L) {
+                int j = (p == precision) ? i :
+                    indexOf(Math.min(Math.max(lowestValueOf(i, p), lo), hi),
+                            precision);
+                U.getAndAddLong(s.counts, offset(j), c[i]);
+                n += c[i];
+            }
+        }
+        if (n != 0L) {
+            add(other.getSum());
+            long e;
+            while (lo < (e = min) && !U.compareAndSwapLong(this, MIN, e, lo)) {
+            }
+            while (hi > (e = max) && !U.compareAndSwapLong(this, MAX, e, hi)) {
+            }
+        }
+    }
+
+    /** Adds x to the sum, as by LongAdder.add */
+    private void add(long x) {
+        Cell[] as; long b, v; int m; Cell a;
+        if ((as = cells) != null || !casBase(b = base, b + x)) {
+            boolean uncontended = true;
+            if (as == null || (m = as.length - 1) < 0 ||
+                (a = as[getProbe() & m]) == null ||
+                !(uncontended = a.cas(v = a.value, v + x))) {
+                longAccumulate(x, null, uncontended);
+            }
+        }
+    }
+
+    /**
+     * Sets the state of a new histogram, not yet shared.
+     */
+    private void init(long[] counts, long sum, long lo, long hi) {
+        System.arraycopy(counts, 0, stripes[0].counts, 0, counts.length);
+        base = sum;
+        min = lo;
+        max = hi;
+    }
+
+    /**
+     * Returns the String representation of this histogram: its count,
+     * mean, and the values at the 50th, 90th, 99th and 99.9th
+     * percentiles and the maximum.
+     *
+     * @return the String representation of this histogram
+     */
+    @Override
+    public String toString() {
+        long[] v = getValuesAtPercentiles(50.0, 90.0, 99.0, 99.9);
+        return "[count=" + getCount() +
+            ", mean=" + getMean() +
+            ", p50=" + v[0] +
+            ", p90=" + v[1] +
+            ", p99=" + v[2] +
+            ", p99.9=" + v[3] +
+            ", max=" + getMax() +
+            "]";
+    }
+
+    /**
+     * Equivalent to {@link #getCount}.
+     *
+     * @return the number of recorded values
+     */
+    @Override
+    public long longValue() {
+        return getCount();
+    }
+
+    /**
+     * Returns the {@link #getCount} as an {@code int} after a
+     * narrowing primitive conversion.
+     */
+    @Override
+    public int intValue() {
+        return (int)getCount();
+    }
+
+    /**
+     * Returns the {@link #getCount} as a {@code float}
+     * after a widening primitive conversion.
+     */
+    @Override
+    public float floatValue() {
+        return (float)getCount();
+    }
+
+    /**
+     * Returns the {@link #getCount} as a {@code double} after a widening
+     * primitive conversion.
+     */
+    @Override
+    public double doubleValue() {
+        return (double)getCount();
+    }
+
+    /**
+     * Serialization proxy, used to avoid reference to the non-public
+     * Striped64 superclass in serialized forms, and to write only the
+     * non-zero buckets.
+     * @serial include
+     */
+    private static class SerializationProxy implements Serializable {
+        private static final long serialVersionUID = -3226386521409566587L;
+
+        /**
+         * The number of sub-bucket bits.
+         * @serial
+         */
+        private final int precision;
+
+        /**
+         * The sum, minimum and maximum of recorded values.
+         * @serial
+         */
+        private final long sum, min, max;
+
+        /**
+         * The non-zero bucket counts: for each, the difference between
+         * its index and that of the previous one, then its count, each
+         * as an unsigned variable-length integer of seven bits per
+         * byte, least significant first.
+         * @serial
+         */
+        private final byte[] buckets;
+
+        SerializationProxy(LongHistogram h) {
+            long[] c = h.counts(false);
+            byte[] b = new byte[64];
+            int len = 0;
+            for (int i = 0, prev = 0; i < c.length; ++i) {
+                if (c[i] != 0L) {
+                    if (len + 20 > b.length) {
+                        b = Arrays.copyOf(b, b.length << 1);
+                    }
+                    len = putVarLong(b, len, i - prev);
+                    len = putVarLong(b, len, c[i]);
+                    prev = i;
+                }
+            }
+            precision = h.precision;
+            sum = h.getSum();
+            min = h.min;
+            max = h.max;
+            buckets = Arrays.copyOf(b, len);
+        }
+
+        private static int putVarLong(byte[] b, int pos, long v) {
+            while ((v & ~0x7FL) != 0L) {
+                b[pos++] = (byte)((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            b[pos++] = (byte)v;
+            return pos;
+        }
+
+        /**
+         * Return a {@code LongHistogram} object with initial state
+         * held by this proxy.
+         *
+         * @return a {@code LongHistogram} object with initial state
+         * held by this proxy.
+         * @throws java.io.InvalidObjectException if the state is invalid
+         */
+        private Object readResolve() throws java.io.InvalidObjectException {
+            if (precision < 0 || precision > MAX_PRECISION || buckets == null) {
+                throw new java.io.InvalidObjectException("Invalid histogram");
+            }
+            long[] c = new long[bucketCount(precision)];
+            byte[] b = buckets;
+            int pos = 0, i = 0;
+            long[] v = new long[2];
+            while (pos < b.length) {
+                for (int k = 0; k < 2; ++k) {
+                    long x = 0L;
+                    for (int shift = 0; ; shift += 7) {
+                        if (pos >= b.length || shift > 63) {
+                            throw new java.io.InvalidObjectException("Invalid histogram");
+                        }
+                        byte y = b[pos++];
+                        x |= (long)(y & 0x7F) << shift;
+                        if (y >= 0) {
+                            break;
+                        }
+                    }
+                    v[k] = x;
+                }
+                if (v[0] >= c.length - i || v[1] < 0L) {
+                    throw new java.io.InvalidObjectException("Invalid histogram");
+                }
+                i += (int)v[0];
+                c[i] = v[1];
+            }
+            LongHistogram h = new LongHistogram(precision);
+            h.init(c, sum, min, max);
+            return h;
+        }
+    }
+
+    /**
+     * Returns a
+     * <a href="../../../../serialized-form.html#java.util.concurrent.atomic.LongHistogram.SerializationProxy">
+     * SerializationProxy</a>
+     * representing the state of this instance.
+     *
+     * @return a {@link SerializationProxy}
+     * representing the state of this instance
+     */
+    private Object writeReplace() {
+        return new SerializationProxy(this);
+    }
+
+    /**
+     * @param s the stream
+     * @throws java.io.InvalidObjectException always
+     */
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.InvalidObjectException {
+        throw new java.io.InvalidObjectException("Proxy required");
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long MIN;
+    private static final long MAX;
+    private static final long ABASE;
+    private static final int ASHIFT;
+
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            Class<?> k = LongHistogram.class;
+            MIN = U.objectFieldOffset(k.getDeclaredField("min"));
+            MAX = U.objectFieldOffset(k.getDeclaredField("max"));
+            Class<?> ak = long[].class;
+            ABASE = U.arrayBaseOffset(ak);
+            int scale = U.arrayIndexScale(ak);
+            if ((scale & (scale - 1)) != 0) {
+                throw new Error("data type scale not a power of two");
+            }
+            ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -38,6 +38,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
 import sun.misc.Unsafe;
 
 /**
@@ -254,6 +255,16 @@ import sun.misc.Unsafe;
  * and/or {@link #hasQueuedThreads} to only do so if the synchronizer
  * is likely not to be contended.
  *
+ * <p>For synchronizers that are held only briefly, the time taken to
+ * park and unpark a waiting thread may exceed the time it waits.
+ * Subclasses may then enable <em>adaptive spinning</em> with {@link
+ * #setAdaptiveSpinning}: the first queued thread spins, retrying to
+ * acquire, for a while before parking.  The time it spins is adapted
+ * to the waits of recent spins of the same synchronizer, so that
+ * waiters soon stop spinning when holds grow longer, and no thread
+ * spins on a uniprocessor or while half of the processors are already
+ * spinning.
+ *
  * <p>This class provides an efficient and scalable basis for
  * synchronization in part by specializing its range of use to
  * synchronizers that can rely on {@code int} state, acquire, and
@@ -615,6 +626,17 @@ public abstract class AbstractQueuedSynchronizer
      */
     private volatile int state;
 
+    /**
+     * Whether the first queued thread spins before parking.
+     */
+    private volatile boolean adaptiveSpinning;
+
+    /**
+     * The current spin time in nanoseconds, adapted to the waits of
+     * recent spins, or zero if not yet spun.
+     */
+    private transient volatile int spinNanos;
+
     /**
      * Returns the current value of synchronization state.
      * This operation has memory semantics of a {@code volatile} read.
@@ -649,6 +671,34 @@ public abstract class AbstractQueuedSynchronizer
         return unsafe.compareAndSwapInt(this, stateOffset, expect, update);
     }
 
+    /**
+     * Enables or disables adaptive spinning: when enabled, a queued
+     * thread that is next in line to acquire, and would otherwise
+     * park, first spins for a while, retrying to acquire whenever the
+     * synchronization state changes.  The time spent spinning is
+     * adapted to the waits of recent successful spins, and shortened
+     * after unsuccessful ones.  Spinning is skipped on a uniprocessor,
+     * and while half of the available processors are spinning to
+     * acquire any synchronizer, to avoid delaying the threads that
+     * would release them.  Typically invoked by the constructors of
+     * subclasses.
+     *
+     * @param enable {@code true} to enable adaptive spinning
+     */
+    protected final void setAdaptiveSpinning(boolean enable) {
+        adaptiveSpinning = enable;
+    }
+
+    /**
+     * Returns {@code true} if adaptive spinning is enabled.
+     *
+     * @return {@code true} if adaptive spinning is enabled
+     * @see #setAdaptiveSpinning
+     */
+    protected final boolean isAdaptiveSpinning() {
+        return adaptiveSpinning;
+    }
+
     // Queuing utilities
 
     /**
@@ -658,6 +708,30 @@ public abstract class AbstractQueuedSynchronizer
      */
     static final long spinForTimeoutThreshold = 1000L;
 
+    /** Number of CPUS, to bound the number of spinning threads */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The maximum number of threads spinning in adaptive spins of all
+     * synchronizers at once.  Beyond it, spinning would delay the
+     * threads holding the synchronizers, so waiters park instead.
+     */
+    static final int MAX_SPINNERS = NCPU >>> 1;
+
+    /** The bounds and initial value of adaptive spin times, in nanoseconds */
+    static final int MIN_SPIN_NANOS = 1 << 8;
+    static final int INITIAL_SPIN_NANOS = 1 << 12;
+    static final int MAX_SPIN_NANOS = 1 << 15;
+
+    /** The number of spins between retries while the state is unchanged */
+    static final int SPINS_PER_RETRY = 1 << 6;
+
+    /**
+     * The number of threads in adaptive spins, shared with
+     * AbstractQueuedLongSynchronizer.
+     */
+    static final AtomicInteger spinners = new AtomicInteger();
+
     /**
      * Inserts node into queue, initializing if necessary. See picture above.
      * @param node the node to insert
@@ -934,6 +1008,61 @@ public abstract class AbstractQueuedSynchronizer
         return Thread.interrupted();
     }
 
+    /**
+     * Spins before a thread whose node follows head parks, retrying
+     * to acquire whenever the state changes and every SPINS_PER_RETRY
+     * spins otherwise, until acquired or spinNanos have passed; then
+     * adapts spinNanos.  A successful spin moves spinNanos halfway
+     * towards twice its wait, and an unsuccessful one halves it,
+     * within MIN_SPIN_NANOS and MAX_SPIN_NANOS.  Spins only if pred
+     * has been marked SIGNAL, which acquire loops do just before
+     * parking, so at most once per park, and only while fewer than
+     * MAX_SPINNERS threads spin.
+     *
+     * @param pred the node's predecessor, which was head
+     * @param arg the acquire argument
+     * @param shared whether to acquire in shared mode
+     * @return in shared mode, the result of the last tryAcquireShared,
+     *         or negative if none; in exclusive mode, 1 if acquired,
+     *         else -1
+     */
+    private int spinForAcquire(Node pred, int arg, boolean shared) {
+        int n;
+        if (pred.waitStatus != Node.SIGNAL ||
+            (n = spinners.get()) >= MAX_SPINNERS ||
+            !spinners.compareAndSet(n, n + 1)) {
+            return -1;
+        }
+        int limit = spinNanos;
+        if (limit == 0) {
+            limit = INITIAL_SPIN_NANOS;
+        }
+        int r = -1;
+        long start = System.nanoTime(), elapsed;
+        try {
+            int k = 0;
+            for (int s = state;;) {
+                int c = state;
+                if (c != s || ++k >= SPINS_PER_RETRY) {
+                    s = c;
+                    k = 0;
+                    r = shared ? tryAcquireShared(arg) : tryAcquire(arg) ? 1 : -1;
+                    elapsed = System.nanoTime() - start;
+                    if (r >= 0 || elapsed >= limit) {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            spinners.decrementAndGet();
+        }
+        limit = (r >= 0) ?
+            (limit + (int)Math.min(elapsed << 1, MAX_SPIN_NANOS)) >>> 1 :
+            limit >>> 1;
+        spinNanos = Math.max(limit, MIN_SPIN_NANOS);
+        return r;
+    }
+
     /*
      * Various flavors of acquire, varying in exclusive/shared and
      * control modes.  Each is mostly the same, but annoyingly
@@ -957,7 +1086,9 @@ public abstract class AbstractQueuedSynchronizer
             boolean interrupted = false;
             for (;;) {
                 final Node p = node.predecessor();
-                if (p == head && tryAcquire(arg)) {
+                if (p == head &&
+                    (tryAcquire(arg) ||
+                     (adaptiveSpinning && spinForAcquire(p, arg, false) >= 0))) {
                     setHead(node);
                     p.next = null; // help GC
                     failed = false;
@@ -986,7 +1117,9 @@ public abstract class AbstractQueuedSynchronizer
         try {
             for (;;) {
                 final Node p = node.predecessor();
-                if (p == head && tryAcquire(arg)) {
+                if (p == head &&
+                    (tryAcquire(arg) ||
+                     (adaptiveSpinning && spinForAcquire(p, arg, false) >= 0))) {
                     setHead(node);
                     p.next = null; // help GC
                     failed = false;
@@ -1022,7 +1155,9 @@ public abstract class AbstractQueuedSynchronizer
         try {
             for (;;) {
                 final Node p = node.predecessor();
-                if (p == head && tryAcquire(arg)) {
+                if (p == head &&
+                    (tryAcquire(arg) ||
+                     (adaptiveSpinning && spinForAcquire(p, arg, false) >= 0))) {
                     setHead(node);
                     p.next = null; // help GC
                     failed = false;
@@ -1060,6 +1195,9 @@ public abstract class AbstractQueuedSynchronizer
                 final Node p = node.predecessor();
                 if (p == head) {
                     int r = tryAcquireShared(arg);
+                    if (r < 0 && adaptiveSpinning) {
+                        r = spinForAcquire(p, arg, true);
+                    }
                     if (r >= 0) {
                         setHeadAndPropagate(node, r);
                         p.next = null; // help GC
@@ -1095,6 +1233,9 @@ public abstract class AbstractQueuedSynchronizer
                 final Node p = node.predecessor();
                 if (p == head) {
                     int r = tryAcquireShared(arg);
+                    if (r < 0 && adaptiveSpinning) {
+                        r = spinForAcquire(p, arg, true);
+                    }
                     if (r >= 0) {
                         setHeadAndPropagate(node, r);
                         p.next = null; // help GC
@@ -1134,6 +1275,9 @@ public abstract class AbstractQueuedSynchronizer
                 final Node p = node.predecessor();
                 if (p == head) {
                     int r = tryAcquireShared(arg);
+                    if (r < 0 && adaptiveSpinning) {
+                        r = spinForAcquire(p, arg, true);
+                    }
                     if (r >= 0) {
                         setHeadAndPropagate(node, r);
                         p.next = null; // help GC
@@ -0,0 +1,425 @@
+package java.util.concurrent.locks;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 读偏向的读写锁：读者在偏向模式下只占用按线程散列的独立槽位，不写共享状态；写者撤销偏向并等待槽位清空，写多时退化为 StampedLock。
+ *
+ * A reader-biased {@link ReadWriteLock} for read-mostly data, such as
+ * routing tables and configuration, that is read on hot paths by many
+ * threads and rarely written.  In the common case, a thread acquiring
+ * the read lock writes only a slot of this lock chosen by hashing the
+ * thread, and no state shared with other readers, so that read
+ * throughput grows with the number of cores rather than being limited
+ * by contention on a single word, as it is for {@link
+ * ReentrantReadWriteLock} and {@link StampedLock}.
+ *
+ * <p>The lock is built on a {@link StampedLock}, which it uses for
+ * all writers and for readers that find their slot taken.  While the
+ * lock is <em>read-biased</em>, as it is initially, readers claim their
+ * slot instead.  A writer acquiring the lock revokes the bias, and then
+ * waits for readers holding slots to release them, which takes time
+ * proportional to the number of slots.  The bias is restored by a
+ * later reader only after a delay proportional to the time revocation
+ * took, so that under write-heavy load the lock behaves, and performs,
+ * like its underlying {@code StampedLock}.
+ *
+ * <p>Like {@code StampedLock}, this lock is not reentrant, has no
+ * ownership of the write lock, and its locks do not support {@link
+ * Condition}s: method {@link Lock#newCondition()} throws {@code
+ * UnsupportedOperationException}.  A thread holding the read lock
+ * must not acquire it again while a writer may be waiting.  A writer
+ * that finds readers holding slots waits for them to leave, except in
+ * {@code tryLock()} of the write lock, which then fails at once, and in
+ * {@code tryLock(long, TimeUnit)} and {@code lockInterruptibly()},
+ * which fail once the time limit passes or the thread is interrupted;
+ * a failed attempt restores the bias.  Each instance uses memory
+ * proportional to the number of processors, of the order of a hundred
+ * bytes per processor, so this lock suits a few heavily read objects
+ * rather than many fine-grained ones.
+ *
+ * <p><b>Sample usage</b>.
+ * <pre> {@code
+ * class RoutingTable {
+ *   private final Map<String, Route> routes = new HashMap<>();
+ *   private final BiasedReadWriteLock rwl = new BiasedReadWriteLock();
+ *   private final Lock r = rwl.readLock();
+ *   private final Lock w = rwl.writeLock();
+ *
+ *   public Route lookup(String key) {
+ *     r.lock();
+ *     try { return routes.get(key); }
+ *     finally { r.unlock(); }
+ *   }
+ *
+ *   public void update(String key, Route route) {
+ *     w.lock();
+ *     try { routes.put(key, route); }
+ *     finally { w.unlock(); }
+ *   }
+ * }}</pre>
+ *
+ * @see StampedLock
+ * @since 1.8
+ */
+public class BiasedReadWriteLock implements ReadWriteLock {
+
+    /*
+     * This is the BRAVO scheme (Dice and Kogan, "BRAVO: Biased
+     * Locking for Reader-Writer Locks", USENIX ATC 2019), with the
+     * table of visible readers kept per lock rather than global, so
+     * that a slot can hold the reading Thread itself and the read
+     * unlock needs no thread-local record of how the lock was taken.
+     *
+     * A reader in biased mode CASes its slot from null to its Thread,
+     * then rechecks readBias; if the bias has been revoked meanwhile
+     * it clears the slot and takes the slow path, acquiring a read
+     * lock of the StampedLock.  A writer acquires the write lock of
+     * the StampedLock, which excludes slow readers and so also
+     * prevents the bias being restored, then clears readBias and
+     * waits for every slot to be empty.  A writer that gives up the
+     * wait, on timeout or interrupt, sets readBias again before
+     * releasing the write lock.  The CAS of the reader and
+     * the volatile write of the writer ensure that either the reader
+     * sees the bias revoked or the writer sees the slot taken.
+     *
+     * A read unlock releases the slot if it holds the current thread,
+     * and otherwise a read lock of the StampedLock.  A thread holding
+     * several read locks, some by slot and some not, may release them
+     * in any order, since all its read holds are alike.
+     *
+     * A slow reader restores the bias, while holding the read lock,
+     * once inhibitUntil has passed.  Each revocation sets inhibitUntil
+     * to INHIBIT_MULTIPLIER times the time it took, which bounds the
+     * fraction of time writers spend revoking to about
+     * 1/(INHIBIT_MULTIPLIER + 1).
+     *
+     * Slots are SLOT_SPACING bytes apart to keep readers on different
+     * cores from sharing cache lines.  A thread's slot is a hash of
+     * its (never reused while alive) id, so is stable across its lock
+     * and unlock.  Two threads hashing to the same slot just send one
+     * of them down the slow path.
+     */
+
+    /** Number of CPUS, to size the slot table */
+    private static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /** The minimum and maximum number of reader slots */
+    private static final int MIN_SLOTS = 1 << 3;
+    private static final int MAX_SLOTS = 1 << 8;
+
+    /** Distance in bytes between slots; covers adjacent-line prefetch */
+    private static final int SLOT_SPACING = 128;
+
+    /** The inhibition time after a revocation, as a multiple of its length */
+    private static final long INHIBIT_MULTIPLIER = 9L;
+
+    /** Number of times a revoking writer spins on a slot before yielding */
+    private static final int REVOKE_SPINS = 1 << 6;
+
+    /** The lock used by writers, and by readers in slow mode */
+    private final StampedLock sync;
+
+    /** Reader slots, holding reading threads, SLOT_SPACING bytes apart */
+    private final Object[] slots;
+
+    /** The number of slots minus one */
+    private final int mask;
+
+    /** Whether readers may claim slots */
+    private volatile boolean readBias;
+
+    /** The System.nanoTime before which the bias may not be restored */
+    private volatile long inhibitUntil;
+
+    private final ReadLock readerLock;
+    private final WriteLock writerLock;
+
+    /**
+     * Creates a new lock, initially unlocked and read-biased.
+     */
+    public BiasedReadWriteLock() {
+        int n = MIN_SLOTS;
+        while (n < (NCPU << 1) && n < MAX_SLOTS) {
+            n <<= 1;
+        }
+        this.mask = n - 1;
+        this.slots = new Object[(n * SLOT_SPACING) >>> ASHIFT];
+        this.sync = new StampedLock();
+        this.readerLock = new ReadLock();
+        this.writerLock = new WriteLock();
+        this.inhibitUntil = System.nanoTime();
+        this.readBias = true;
+    }
+
+    @Override
+    public Lock readLock() { return readerLock; }
+
+    @Override
+    public Lock writeLock() { return writerLock; }
+
+    // Reader slots
+
+    /**
+     * Returns the offset of the slot of the given thread.
+     */
+    private long slotOffset(Thread t) {
+        long id = t.getId();
+        int h = (int)(id ^ (id >>> 32)) * 0x9e3779b9;
+        return ((long)((h >>> 16) & mask) * SLOT_SPACING) + ABASE;
+    }
+
+    /**
+     * Tries to acquire the read lock by claiming the slot of the
+     * current thread.
+     *
+     * @return true if acquired
+     */
+    private boolean tryBiasedRead() {
+        if (readBias) {
+            Thread t = Thread.currentThread();
+            long o = slotOffset(t);
+            if (U.compareAndSwapObject(slots, o, null, t)) {
+                if (readBias) {
+                    return true;
+                }
+                U.putObjectVolatile(slots, o, null); // revoked; back out
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Called by readers after acquiring the read lock of sync;
+     * restores the bias if no longer inhibited.
+     */
+    private void readAcquired() {
+        if (!readBias && System.nanoTime() - inhibitUntil >= 0L) {
+            readBias = true;
+        }
+    }
+
+    /**
+     * Called by writers after acquiring the write lock of sync;
+     * revokes the bias and waits for readers in slots to leave.  If
+     * readers remain at the deadline, or the thread is interrupted
+     * when interruptible, abandons the revocation: restores the bias,
+     * releases the write lock, and returns false, leaving the
+     * interrupt status set.
+     *
+     * @param interruptible if true, abandon if the thread is interrupted
+     * @param timed if true, abandon once the deadline has passed
+     * @param deadline the System.nanoTime at which to abandon, if timed
+     * @return true if the write lock is held
+     */
+    private boolean writeAcquired(boolean interruptible, boolean timed,
+                                  long deadline) {
+        if (readBias) {
+            readBias = false;
+            long start = System.nanoTime();
+            Object[] s = slots;
+            for (int i = 0; i <= mask; ++i) {
+                long o = ((long)i * SLOT_SPACING) + ABASE;
+                for (int k = 0; U.getObjectVolatile(s, o) != null; ) {
+                    if ((timed && deadline - System.nanoTime() <= 0L) ||
+                        (interruptible && Thread.currentThread().isInterrupted())) {
+                        readBias = true;
+                        sync.unstampedUnlockWrite();
+                        return false;
+                    }
+                    if (++k > REVOKE_SPINS) {
+                        Thread.yield();
+                    }
+                }
+            }
+            long now = System.nanoTime();
+            inhibitUntil = now + (now - start) * INHIBIT_MULTIPLIER;
+        }
+        return true;
+    }
+
+    private void unlockRead() {
+        Thread t = Thread.currentThread();
+        long o = slotOffset(t);
+        if (U.getObject(slots, o) == t) {
+            U.putOrderedObject(slots, o, null);
+        } else {
+            sync.unstampedUnlockRead();
+        }
+    }
+
+    // Status
+
+    /**
+     * Returns {@code true} if readers currently acquire this lock by
+     * claiming slots rather than through the underlying {@link
+     * StampedLock}.
+     *
+     * @return {@code true} if this lock is read-biased
+     */
+    public boolean isReadBiased() {
+        return readBias;
+    }
+
+    /**
+     * Returns {@code true} if the lock is currently held exclusively.
+     *
+     * @return {@code true} if the lock is currently held exclusively
+     */
+    public boolean isWriteLocked() {
+        return sync.isWriteLocked();
+    }
+
+    /**
+     * Queries the number of read locks held for this lock. This
+     * method is designed for use in monitoring system state, not for
+     * synchronization control.
+     *
+     * @return the number of read locks held
+     */
+    public int getReadLockCount() {
+        int n = sync.getReadLockCount();
+        Object[] s = slots;
+        for (int i = 0; i <= mask; ++i) {
+            if (U.getObjectVolatile(s, ((long)i * SLOT_SPACING) + ABASE) != null) {
+                ++n;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Returns a string identifying this lock, as well as its lock
+     * state.  The state, in brackets, includes the String {@code
+     * "Unlocked"} or the String {@code "Write-locked"} or the String
+     * {@code "Read-locks:"} followed by the current number of
+     * read-locks held, and, if read-biased, the String {@code
+     * ", read-biased"}.
+     *
+     * @return a string identifying this lock, as well as its lock state
+     */
+    @Override
+    public String toString() {
+        int r;
+        return super.toString() +
+            (isWriteLocked() ? "[Write-locked" :
+             (r = getReadLockCount()) == 0 ? "[Unlocked" :
+             "[Read-locks:" + r) +
+            (readBias ? ", read-biased]" : "]");
+    }
+
+    // Lock views
+
+    final class ReadLock implements Lock {
+        @Override
+        public void lock() {
+            if (!tryBiasedRead()) {
+                sync.readLock();
+                readAcquired();
+            }
+        }
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (!tryBiasedRead()) {
+                sync.readLockInterruptibly();
+                readAcquired();
+            }
+        }
+        @Override
+        public boolean tryLock() {
+            if (tryBiasedRead()) {
+                return true;
+            }
+            if (sync.tryReadLock() != 0L) {
+                readAcquired();
+                return true;
+            }
+            return false;
+        }
+        @Override
+        public boolean tryLock(long time, TimeUnit unit)
+            throws InterruptedException {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (tryBiasedRead()) {
+                return true;
+            }
+            if (sync.tryReadLock(time, unit) != 0L) {
+                readAcquired();
+                return true;
+            }
+            return false;
+        }
+        @Override
+        public void unlock() { unlockRead(); }
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    final class WriteLock implements Lock {
+        @Override
+        public void lock() {
+            sync.writeLock();
+            writeAcquired(false, false, 0L);
+        }
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            sync.writeLockInterruptibly();
+            if (!writeAcquired(true, false, 0L)) {
+                Thread.interrupted();
+                throw new InterruptedException();
+            }
+        }
+        @Override
+        public boolean tryLock() {
+            return sync.tryWriteLock() != 0L &&
+                writeAcquired(false, true, System.nanoTime());
+        }
+        @Override
+        public boolean tryLock(long time, TimeUnit unit)
+            throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(time);
+            if (sync.tryWriteLock(time, unit) != 0L) {
+                if (writeAcquired(true, true, deadline)) {
+                    return true;
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            return false;
+        }
+        @Override
+        public void unlock() { sync.unstampedUnlockWrite(); }
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long ABASE;
+    private static final int ASHIFT;
+
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            Class<?> ak = Object[].class;
+            ABASE = U.arrayBaseOffset(ak);
+            int scale = U.arrayIndexScale(ak);
+            if ((scale & (scale - 1)) != 0) {
+                throw new Error("data type scale not a power of two");
+            }
+            ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
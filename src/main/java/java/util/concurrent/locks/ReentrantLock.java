@@ -81,6 +81,14 @@ import java.util.Collection;
  * honor the fairness setting. It will succeed if the lock
  * is available even if other threads are waiting.
  *
+ * <p>A lock may also be constructed with <em>adaptive spinning</em>
+ * enabled, in which case the longest-waiting thread spins for a
+ * while before blocking, for a time adapted to recent waits for this
+ * lock; see {@link AbstractQueuedSynchronizer#setAdaptiveSpinning}.
+ * This can raise throughput for locks that are held only briefly, by
+ * saving the cost of blocking and unblocking threads, at the expense
+ * of processor time spent spinning.
+ *
  * <p>It is recommended practice to <em>always</em> immediately
  * follow a call to {@code lock} with a {@code try} block, most
  * typically in a before/after construction such as:
@@ -291,6 +299,20 @@ public class ReentrantLock implements Lock, java.io.Serializable {
         sync = fair ? new FairSync() : new NonfairSync();
     }
 
+    /**
+     * Creates an instance of {@code ReentrantLock} with the
+     * given fairness and spinning policies.
+     *
+     * @param fair {@code true} if this lock should use a fair ordering policy
+     * @param adaptiveSpinning {@code true} if waiting threads should
+     *        spin for a while before blocking
+     * @since 1.8
+     */
+    public ReentrantLock(boolean fair, boolean adaptiveSpinning) {
+        sync = fair ? new FairSync() : new NonfairSync();
+        sync.setAdaptiveSpinning(adaptiveSpinning);
+    }
+
     /**
      * 获得锁。
      * 如果锁没有被另一个线程占用并且立即返回，则将锁定计数设置为1。
@@ -711,6 +733,17 @@ public class ReentrantLock implements Lock, java.io.Serializable {
         return sync instanceof FairSync;
     }
 
+    /**
+     * 如果此锁启用了自适应自旋，则返回 true 。
+     * Returns {@code true} if this lock has adaptive spinning enabled.
+     *
+     * @return {@code true} if this lock has adaptive spinning enabled
+     * @since 1.8
+     */
+    public final boolean isAdaptiveSpinning() {
+        return sync.isAdaptiveSpinning();
+    }
+
     /**
      * 返回当前拥有此锁的线程，如果不拥有，则返回null 。 当这个方法被不是所有者的线程调用时，返回值反映了当前锁定状态的尽力近似。 例如，业主可能暂时null即使有线程试图获取锁，但还没有这样做。 该方法旨在便于构建提供更广泛的锁定监控设施的子类。
      *
@@ -31,6 +31,9 @@ import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.BinaryOperator;
 import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
 import java.util.function.Supplier;
 
 /**
@@ -338,4 +341,325 @@ public interface Collector<T, A, R> {
          */
         IDENTITY_FINISH
     }
+
+    /**
+     * A {@code Collector} specialized for {@code int} input elements.
+     * Its {@link #intAccumulator()} incorporates elements without
+     * boxing them, and is used by {@link IntStream#collect(Collector.OfInt)},
+     * so that a collection from a {@code IntStream}, sequential or parallel,
+     * boxes no element.  The {@link #accumulator()} of such a collector
+     * unboxes elements and passes them to the {@code intAccumulator},
+     * so that it may also be used with a stream of {@code Integer}.
+     * {@link PrimitiveCollectors} provides implementations of common
+     * reductions.
+     *
+     * @param <A> the mutable accumulation type of the reduction operation
+     * @param <R> the result type of the reduction operation
+     * @since 1.8
+     */
+    interface OfInt<A, R> extends Collector<Integer, A, R> {
+
+        /**
+         * A function that folds a {@code int} value into a mutable
+         * result container.
+         *
+         * @return a function that folds a value into a mutable result container
+         */
+        ObjIntConsumer<A> intAccumulator();
+
+        /**
+         * {@inheritDoc}
+         * @implSpec
+         * The default implementation returns a function that unboxes
+         * its second argument and passes it to the function returned
+         * by {@link #intAccumulator()}.
+         */
+        @Override
+        default BiConsumer<A, Integer> accumulator() {
+            ObjIntConsumer<A> accumulator = intAccumulator();
+            return accumulator::accept;
+        }
+
+        /**
+         * Returns a new {@code Collector.OfInt} described by the given
+         * {@code supplier}, {@code accumulator}, and {@code combiner}
+         * functions.  The resulting {@code Collector.OfInt} has the
+         * {@code Collector.Characteristics.IDENTITY_FINISH}
+         * characteristic.
+         *
+         * @param supplier The supplier function for the new collector
+         * @param accumulator The accumulator function for the new collector
+         * @param combiner The combiner function for the new collector
+         * @param characteristics The collector characteristics for the new
+         *                        collector
+         * @param <R> The type of intermediate accumulation result, and final result,
+         *           for the new collector
+         * @throws NullPointerException if any argument is null
+         * @return the new {@code Collector.OfInt}
+         */
+        public static<R> OfInt<R, R> of(Supplier<R> supplier,
+                                        ObjIntConsumer<R> accumulator,
+                                        BinaryOperator<R> combiner,
+                                        Characteristics... characteristics) {
+            Objects.requireNonNull(supplier);
+            Objects.requireNonNull(accumulator);
+            Objects.requireNonNull(combiner);
+            Objects.requireNonNull(characteristics);
+            Set<Characteristics> cs = (characteristics.length == 0)
+                                      ? Collectors.CH_ID
+                                      : Collections.unmodifiableSet(EnumSet.of(Collector.Characteristics.IDENTITY_FINISH,
+                                                                               characteristics));
+            return new PrimitiveCollectors.IntCollectorImpl<>(supplier, accumulator, combiner,
+                                                              Collectors.castingIdentity(), cs);
+        }
+
+        /**
+         * Returns a new {@code Collector.OfInt} described by the given
+         * {@code supplier}, {@code accumulator}, {@code combiner}, and
+         * {@code finisher} functions.
+         *
+         * @param supplier The supplier function for the new collector
+         * @param accumulator The accumulator function for the new collector
+         * @param combiner The combiner function for the new collector
+         * @param finisher The finisher function for the new collector
+         * @param characteristics The collector characteristics for the new
+         *                        collector
+         * @param <A> The intermediate accumulation type of the new collector
+         * @param <R> The final result type of the new collector
+         * @throws NullPointerException if any argument is null
+         * @return the new {@code Collector.OfInt}
+         */
+        public static<A, R> OfInt<A, R> of(Supplier<A> supplier,
+                                           ObjIntConsumer<A> accumulator,
+                                           BinaryOperator<A> combiner,
+                                           Function<A, R> finisher,
+                                           Characteristics... characteristics) {
+            Objects.requireNonNull(supplier);
+            Objects.requireNonNull(accumulator);
+            Objects.requireNonNull(combiner);
+            Objects.requireNonNull(finisher);
+            Objects.requireNonNull(characteristics);
+            Set<Characteristics> cs = Collectors.CH_NOID;
+            if (characteristics.length > 0) {
+                cs = EnumSet.noneOf(Characteristics.class);
+                Collections.addAll(cs, characteristics);
+                cs = Collections.unmodifiableSet(cs);
+            }
+            return new PrimitiveCollectors.IntCollectorImpl<>(supplier, accumulator, combiner, finisher, cs);
+        }
+    }
+
+    /**
+     * A {@code Collector} specialized for {@code long} input elements.
+     * Its {@link #longAccumulator()} incorporates elements without
+     * boxing them, and is used by {@link LongStream#collect(Collector.OfLong)},
+     * so that a collection from a {@code LongStream}, sequential or parallel,
+     * boxes no element.  The {@link #accumulator()} of such a collector
+     * unboxes elements and passes them to the {@code longAccumulator},
+     * so that it may also be used with a stream of {@code Long}.
+     * {@link PrimitiveCollectors} provides implementations of common
+     * reductions.
+     *
+     * @param <A> the mutable accumulation type of the reduction operation
+     * @param <R> the result type of the reduction operation
+     * @since 1.8
+     */
+    interface OfLong<A, R> extends Collector<Long, A, R> {
+
+        /**
+         * A function that folds a {@code long} value into a mutable
+         * result container.
+         *
+         * @return a function that folds a value into a mutable result container
+         */
+        ObjLongConsumer<A> longAccumulator();
+
+        /**
+         * {@inheritDoc}
+         * @implSpec
+         * The default implementation returns a function that unboxes
+         * its second argument and passes it to the function returned
+         * by {@link #longAccumulator()}.
+         */
+        @Override
+        default BiConsumer<A, Long> accumulator() {
+            ObjLongConsumer<A> accumulator = longAccumulator();
+            return accumulator::accept;
+        }
+
+        /**
+         * Returns a new {@code Collector.OfLong} described by the given
+         * {@code supplier}, {@code accumulator}, and {@code combiner}
+         * functions.  The resulting {@code Collector.OfLong} has the
+         * {@code Collector.Characteristics.IDENTITY_FINISH}
+         * characteristic.
+         *
+         * @param supplier The supplier function for the new collector
+         * @param accumulator The accumulator function for the new collector
+         * @param combiner The combiner function for the new collector
+         * @param characteristics The collector characteristics for the new
+         *                        collector
+         * @param <R> The type of intermediate accumulation result, and final result,
+         *           for the new collector
+         * @throws NullPointerException if any argument is null
+         * @return the new {@code Collector.OfLong}
+         */
+        public static<R> OfLong<R, R> of(Supplier<R> supplier,
+                                        ObjLongConsumer<R> accumulator,
+                                        BinaryOperator<R> combiner,
+                                        Characteristics... characteristics) {
+            Objects.requireNonNull(supplier);
+            Objects.requireNonNull(accumulator);
+            Objects.requireNonNull(combiner);
+            Objects.requireNonNull(characteristics);
+            Set<Characteristics> cs = (characteristics.length == 0)
+                                      ? Collectors.CH_ID
+                                      : Collections.unmodifiableSet(EnumSet.of(Collector.Characteristics.IDENTITY_FINISH,
+                                                                               characteristics));
+            return new PrimitiveCollectors.LongCollectorImpl<>(supplier, accumulator, combiner,
+                                                              Collectors.castingIdentity(), cs);
+        }
+
+        /**
+         * Returns a new {@code Collector.OfLong} described by the given
+         * {@code supplier}, {@code accumulator}, {@code combiner}, and
+         * {@code finisher} functions.
+         *
+         * @param supplier The supplier function for the new collector
+         * @param accumulator The accumulator function for the new collector
+         * @param combiner The combiner function for the new collector
+         * @param finisher The finisher function for the new collector
+         * @param characteristics The collector characteristics for the new
+         *                        collector
+         * @param <A> The intermediate accumulation type of the new collector
+         * @param <R> The final result type of the new collector
+         * @throws NullPointerException if any argument is null
+         * @return the new {@code Collector.OfLong}
+         */
+        public static<A, R> OfLong<A, R> of(Supplier<A> supplier,
+                                           ObjLongConsumer<A> accumulator,
+                                           BinaryOperator<A> combiner,
+                                           Function<A, R> finisher,
+                                           Characteristics... characteristics) {
+            Objects.requireNonNull(supplier);
+            Objects.requireNonNull(accumulator);
+            Objects.requireNonNull(combiner);
+            Objects.requireNonNull(finisher);
+            Objects.requireNonNull(characteristics);
+            Set<Characteristics> cs = Collectors.CH_NOID;
+            if (characteristics.length > 0) {
+                cs = EnumSet.noneOf(Characteristics.class);
+                Collections.addAll(cs, characteristics);
+                cs = Collections.unmodifiableSet(cs);
+            }
+            return new PrimitiveCollectors.LongCollectorImpl<>(supplier, accumulator, combiner, finisher, cs);
+        }
+    }
+
+    /**
+     * A {@code Collector} specialized for {@code double} input elements.
+     * Its {@link #doubleAccumulator()} incorporates elements without
+     * boxing them, and is used by {@link DoubleStream#collect(Collector.OfDouble)},
+     * so that a collection from a {@code DoubleStream}, sequential or parallel,
+     * boxes no element.  The {@link #accumulator()} of such a collector
+     * unboxes elements and passes them to the {@code doubleAccumulator},
+     * so that it may also be used with a stream of {@code Double}.
+     * {@link PrimitiveCollectors} provides implementations of common
+     * reductions.
+     *
+     * @param <A> the mutable accumulation type of the reduction operation
+     * @param <R> the result type of the reduction operation
+     * @since 1.8
+     */
+    interface OfDouble<A, R> extends Collector<Double, A, R> {
+
+        /**
+         * A function that folds a {@code double} value into a mutable
+         * result container.
+         *
+         * @return a function that folds a value into a mutable result container
+         */
+        ObjDoubleConsumer<A> doubleAccumulator();
+
+        /**
+         * {@inheritDoc}
+         * @implSpec
+         * The default implementation returns a function that unboxes
+         * its second argument and passes it to the function returned
+         * by {@link #doubleAccumulator()}.
+         */
+        @Override
+        default BiConsumer<A, Double> accumulator() {
+            ObjDoubleConsumer<A> accumulator = doubleAccumulator();
+            return accumulator::accept;
+        }
+
+        /**
+         * Returns a new {@code Collector.OfDouble} described by the given
+         * {@code supplier}, {@code accumulator}, and {@code combiner}
+         * functions.  The resulting {@code Collector.OfDouble} has the
+         * {@code Collector.Characteristics.IDENTITY_FINISH}
+         * characteristic.
+         *
+         * @param supplier The supplier function for the new collector
+         * @param accumulator The accumulator function for the new collector
+         * @param combiner The combiner function for the new collector
+         * @param characteristics The collector characteristics for the new
+         *                        collector
+         * @param <R> The type of intermediate accumulation result, and final result,
+         *           for the new collector
+         * @throws NullPointerException if any argument is null
+         * @return the new {@code Collector.OfDouble}
+         */
+        public static<R> OfDouble<R, R> of(Supplier<R> supplier,
+                                        ObjDoubleConsumer<R> accumulator,
+                                        BinaryOperator<R> combiner,
+                                        Characteristics... characteristics) {
+            Objects.requireNonNull(supplier);
+            Objects.requireNonNull(accumulator);
+            Objects.requireNonNull(combiner);
+            Objects.requireNonNull(characteristics);
+            Set<Characteristics> cs = (characteristics.length == 0)
+                                      ? Collectors.CH_ID
+                                      : Collections.unmodifiableSet(EnumSet.of(Collector.Characteristics.IDENTITY_FINISH,
+                                                                               characteristics));
+            return new PrimitiveCollectors.DoubleCollectorImpl<>(supplier, accumulator, combiner,
+                                                              Collectors.castingIdentity(), cs);
+        }
+
+        /**
+         * Returns a new {@code Collector.OfDouble} described by the given
+         * {@code supplier}, {@code accumulator}, {@code combiner}, and
+         * {@code finisher} functions.
+         *
+         * @param supplier The supplier function for the new collector
+         * @param accumulator The accumulator function for the new collector
+         * @param combiner The combiner function for the new collector
+         * @param finisher The finisher function for the new collector
+         * @param characteristics The collector characteristics for the new
+         *                        collector
+         * @param <A> The intermediate accumulation type of the new collector
+         * @param <R> The final result type of the new collector
+         * @throws NullPointerException if any argument is null
+         * @return the new {@code Collector.OfDouble}
+         */
+        public static<A, R> OfDouble<A, R> of(Supplier<A> supplier,
+                                           ObjDoubleConsumer<A> accumulator,
+                                           BinaryOperator<A> combiner,
+                                           Function<A, R> finisher,
+                                           Characteristics... characteristics) {
+            Objects.requireNonNull(supplier);
+            Objects.requireNonNull(accumulator);
+            Objects.requireNonNull(combiner);
+            Objects.requireNonNull(finisher);
+            Objects.requireNonNull(characteristics);
+            Set<Characteristics> cs = Collectors.CH_NOID;
+            if (characteristics.length > 0) {
+                cs = EnumSet.noneOf(Characteristics.class);
+                Collections.addAll(cs, characteristics);
+                cs = Collections.unmodifiableSet(cs);
+            }
+            return new PrimitiveCollectors.DoubleCollectorImpl<>(supplier, accumulator, combiner, finisher, cs);
+        }
+    }
 }
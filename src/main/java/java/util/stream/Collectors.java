@@ -134,7 +134,7 @@ public final class Collectors {
     }
 
     @SuppressWarnings("unchecked")
-    private static <I, R> Function<I, R> castingIdentity() {
+    static <I, R> Function<I, R> castingIdentity() {
         return i -> (R) i;
     }
 
@@ -1542,7 +1542,7 @@ public final class Collectors {
     /**
      * Implementation class used by partitioningBy.
      */
-    private static final class Partition<T>
+    static final class Partition<T>
             extends AbstractMap<Boolean, T>
             implements Map<Boolean, T> {
         final T forTrue;
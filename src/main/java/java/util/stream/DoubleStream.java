@@ -454,6 +454,53 @@ public interface DoubleStream extends BaseStream<Double, DoubleStream> {
                   ObjDoubleConsumer<R> accumulator,
                   BiConsumer<R, R> combiner);
 
+    /**
+     * Performs a <a href="package-summary.html#MutableReduction">mutable
+     * reduction</a> operation on the elements of this stream using a
+     * {@code Collector.OfDouble}, which encapsulates the functions used as
+     * arguments to {@link #collect(Supplier, ObjDoubleConsumer, BiConsumer)}
+     * and allows for reuse of collection strategies and composition of
+     * collect operations such as grouping or partitioning, without
+     * boxing the elements of this stream.
+     *
+     * <p>If the stream is parallel, and the collector is {@link
+     * Collector.Characteristics#CONCURRENT concurrent}, and either the
+     * stream is unordered or the collector is {@link
+     * Collector.Characteristics#UNORDERED unordered}, then a concurrent
+     * reduction will be performed, as by {@link Stream#collect(Collector)}.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">terminal
+     * operation</a>.
+     *
+     * @apiNote
+     * The following will sum the elements of a stream by their
+     * remainder modulo 10, boxing only the sums of the result:
+     * <pre>{@code
+     *     LongHashMap<Double> sums = stream.collect(
+     *         PrimitiveCollectors.groupingByDouble(d -> (long)d % 10, PrimitiveCollectors.summingDouble(d -> d)));
+     * }</pre>
+     *
+     * @implSpec
+     * The default implementation boxes the elements of this stream and
+     * collects them as if by:
+     * <pre>{@code
+     *     return boxed().collect(collector);
+     * }</pre>
+     * The {@code DoubleStream} implementations of this package override it to
+     * collect the elements without boxing.
+     *
+     * @param <A> the intermediate accumulation type of the collector
+     * @param <R> the type of the result
+     * @param collector the {@code Collector.OfDouble} describing the reduction
+     * @return the result of the reduction
+     * @see Stream#collect(Collector)
+     * @see PrimitiveCollectors
+     * @since 1.8
+     */
+    default <A, R> R collect(Collector.OfDouble<A, R> collector) {
+        return boxed().collect(collector);
+    }
+
     /**
      * Returns the sum of elements in this stream.
      *
@@ -446,6 +446,53 @@ public interface IntStream extends BaseStream<Integer, IntStream> {
                   ObjIntConsumer<R> accumulator,
                   BiConsumer<R, R> combiner);
 
+    /**
+     * Performs a <a href="package-summary.html#MutableReduction">mutable
+     * reduction</a> operation on the elements of this stream using a
+     * {@code Collector.OfInt}, which encapsulates the functions used as
+     * arguments to {@link #collect(Supplier, ObjIntConsumer, BiConsumer)}
+     * and allows for reuse of collection strategies and composition of
+     * collect operations such as grouping or partitioning, without
+     * boxing the elements of this stream.
+     *
+     * <p>If the stream is parallel, and the collector is {@link
+     * Collector.Characteristics#CONCURRENT concurrent}, and either the
+     * stream is unordered or the collector is {@link
+     * Collector.Characteristics#UNORDERED unordered}, then a concurrent
+     * reduction will be performed, as by {@link Stream#collect(Collector)}.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">terminal
+     * operation</a>.
+     *
+     * @apiNote
+     * The following will sum the elements of a stream by their
+     * remainder modulo 10, boxing only the sums of the result:
+     * <pre>{@code
+     *     IntHashMap<Long> sums = stream.collect(
+     *         PrimitiveCollectors.groupingByInt(i -> i % 10, PrimitiveCollectors.summingInt(i -> i)));
+     * }</pre>
+     *
+     * @implSpec
+     * The default implementation boxes the elements of this stream and
+     * collects them as if by:
+     * <pre>{@code
+     *     return boxed().collect(collector);
+     * }</pre>
+     * The {@code IntStream} implementations of this package override it to
+     * collect the elements without boxing.
+     *
+     * @param <A> the intermediate accumulation type of the collector
+     * @param <R> the type of the result
+     * @param collector the {@code Collector.OfInt} describing the reduction
+     * @return the result of the reduction
+     * @see Stream#collect(Collector)
+     * @see PrimitiveCollectors
+     * @since 1.8
+     */
+    default <A, R> R collect(Collector.OfInt<A, R> collector) {
+        return boxed().collect(collector);
+    }
+
     /**
      * Returns the sum of elements in this stream.  This is a special case
      * of a <a href="package-summary.html#Reduction">reduction</a>
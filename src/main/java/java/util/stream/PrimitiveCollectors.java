@@ -0,0 +1,726 @@
+package java.util.stream;
+
+import java.util.IntHashMap;
+import java.util.LongHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BinaryOperator;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleToLongFunction;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * 基本类型收集器：为 IntStream、LongStream、DoubleStream 提供不装箱元素的分组、分区、求和与转数组操作，分组结果收集到以基本类型为键的 IntHashMap、LongHashMap 中，键不装箱。
+ *
+ * Implementations of {@link Collector.OfInt}, {@link Collector.OfLong}
+ * and {@link Collector.OfDouble} that implement common reductions of
+ * primitive streams, such as grouping elements by a key, partitioning
+ * them by a predicate, summing them, and collecting them into arrays.
+ * Unlike the collectors of {@link Collectors}, which applied to a
+ * primitive stream require its elements to be {@link IntStream#boxed()
+ * boxed}, these accumulate elements as primitive values.  Grouping
+ * collectors keep their groups in an {@link IntHashMap} or {@link
+ * LongHashMap}, keyed by primitive values, so that no key is ever
+ * boxed.
+ *
+ * <p>Methods are named after the type of the elements they collect:
+ * {@code groupingByInt}, {@code partitioningByInt}, {@code summingInt}
+ * and {@code toIntArray} collect an {@code IntStream}, and so on.
+ *
+ * <p>The following are examples of using these collectors:
+ * <pre>{@code
+ *     // Count the occurrences of each value of a stream of small ints
+ *     IntHashMap<Long> counts
+ *         = ints.collect(PrimitiveCollectors.groupingByInt(i -> i,
+ *                                                          PrimitiveCollectors.summingInt(i -> 1L)));
+ *
+ *     // Partition timestamps into those before and after a cutoff
+ *     Map<Boolean, long[]> split
+ *         = timestamps.collect(PrimitiveCollectors.partitioningByLong(t -> t < cutoff));
+ *
+ *     // Sum readings by the whole part of their value
+ *     LongHashMap<Double> totals
+ *         = readings.collect(PrimitiveCollectors.groupingByDouble(d -> (long) d,
+ *                                                                 PrimitiveCollectors.summingDouble(d -> d)));
+ * }</pre>
+ *
+ * @since 1.8
+ */
+public final class PrimitiveCollectors {
+
+    private PrimitiveCollectors() { }
+
+    /**
+     * Simple implementation class for {@code Collector.OfInt}.
+     *
+     * @param <A> the mutable accumulation type
+     * @param <R> the type of the result
+     */
+    static class IntCollectorImpl<A, R> implements Collector.OfInt<A, R> {
+        private final Supplier<A> supplier;
+        private final ObjIntConsumer<A> accumulator;
+        private final BinaryOperator<A> combiner;
+        private final Function<A, R> finisher;
+        private final Set<Characteristics> characteristics;
+
+        IntCollectorImpl(Supplier<A> supplier,
+                         ObjIntConsumer<A> accumulator,
+                         BinaryOperator<A> combiner,
+                         Function<A, R> finisher,
+                         Set<Characteristics> characteristics) {
+            this.supplier = supplier;
+            this.accumulator = accumulator;
+            this.combiner = combiner;
+            this.finisher = finisher;
+            this.characteristics = characteristics;
+        }
+
+        @Override
+        public ObjIntConsumer<A> intAccumulator() {
+            return accumulator;
+        }
+
+        @Override
+        public Supplier<A> supplier() {
+            return supplier;
+        }
+
+        @Override
+        public BinaryOperator<A> combiner() {
+            return combiner;
+        }
+
+        @Override
+        public Function<A, R> finisher() {
+            return finisher;
+        }
+
+        @Override
+        public Set<Characteristics> characteristics() {
+            return characteristics;
+        }
+    }
+
+    /**
+     * Simple implementation class for {@code Collector.OfLong}.
+     *
+     * @param <A> the mutable accumulation type
+     * @param <R> the type of the result
+     */
+    static class LongCollectorImpl<A, R> implements Collector.OfLong<A, R> {
+        private final Supplier<A> supplier;
+        private final ObjLongConsumer<A> accumulator;
+        private final BinaryOperator<A> combiner;
+        private final Function<A, R> finisher;
+        private final Set<Characteristics> characteristics;
+
+        LongCollectorImpl(Supplier<A> supplier,
+                          ObjLongConsumer<A> accumulator,
+                          BinaryOperator<A> combiner,
+                          Function<A, R> finisher,
+                          Set<Characteristics> characteristics) {
+            this.supplier = supplier;
+            this.accumulator = accumulator;
+            this.combiner = combiner;
+            this.finisher = finisher;
+            this.characteristics = characteristics;
+        }
+
+        @Override
+        public ObjLongConsumer<A> longAccumulator() {
+            return accumulator;
+        }
+
+        @Override
+        public Supplier<A> supplier() {
+            return supplier;
+        }
+
+        @Override
+        public BinaryOperator<A> combiner() {
+            return combiner;
+        }
+
+        @Override
+        public Function<A, R> finisher() {
+            return finisher;
+        }
+
+        @Override
+        public Set<Characteristics> characteristics() {
+            return characteristics;
+        }
+    }
+
+    /**
+     * Simple implementation class for {@code Collector.OfDouble}.
+     *
+     * @param <A> the mutable accumulation type
+     * @param <R> the type of the result
+     */
+    static class DoubleCollectorImpl<A, R> implements Collector.OfDouble<A, R> {
+        private final Supplier<A> supplier;
+        private final ObjDoubleConsumer<A> accumulator;
+        private final BinaryOperator<A> combiner;
+        private final Function<A, R> finisher;
+        private final Set<Characteristics> characteristics;
+
+        DoubleCollectorImpl(Supplier<A> supplier,
+                            ObjDoubleConsumer<A> accumulator,
+                            BinaryOperator<A> combiner,
+                            Function<A, R> finisher,
+                            Set<Characteristics> characteristics) {
+            this.supplier = supplier;
+            this.accumulator = accumulator;
+            this.combiner = combiner;
+            this.finisher = finisher;
+            this.characteristics = characteristics;
+        }
+
+        @Override
+        public ObjDoubleConsumer<A> doubleAccumulator() {
+            return accumulator;
+        }
+
+        @Override
+        public Supplier<A> supplier() {
+            return supplier;
+        }
+
+        @Override
+        public BinaryOperator<A> combiner() {
+            return combiner;
+        }
+
+        @Override
+        public Function<A, R> finisher() {
+            return finisher;
+        }
+
+        @Override
+        public Set<Characteristics> characteristics() {
+            return characteristics;
+        }
+    }
+
+    // Grouping
+
+    /**
+     * Returns a {@code Collector.OfInt} implementing a "group by"
+     * operation on {@code int} elements, grouping elements according
+     * to a classification function, and then performing a reduction
+     * operation on the elements of each group using the specified
+     * downstream {@code Collector.OfInt}.
+     *
+     * <p>There are no guarantees on the mutability, serializability,
+     * or thread-safety of the map returned.  Within each group,
+     * elements are presented to the downstream collector in encounter
+     * order.
+     *
+     * @param <A> the intermediate accumulation type of the downstream collector
+     * @param <D> the result type of the downstream reduction
+     * @param classifier a classifier function mapping input elements to keys
+     * @param downstream a {@code Collector.OfInt} implementing the downstream reduction
+     * @return a {@code Collector.OfInt} implementing the cascaded group-by operation
+     * @see Collectors#groupingBy(Function, Collector)
+     */
+    public static <A, D> Collector.OfInt<?, IntHashMap<D>>
+    groupingByInt(IntUnaryOperator classifier,
+                  Collector.OfInt<A, D> downstream) {
+        Objects.requireNonNull(classifier);
+        Supplier<A> downstreamSupplier = downstream.supplier();
+        ObjIntConsumer<A> downstreamAccumulator = downstream.intAccumulator();
+        ObjIntConsumer<IntHashMap<A>> accumulator = (m, t) -> {
+            int key = classifier.applyAsInt(t);
+            A container = m.get(key);
+            if (container == null) {
+                container = downstreamSupplier.get();
+                m.put(key, container);
+            }
+            downstreamAccumulator.accept(container, t);
+        };
+        BinaryOperator<A> downstreamCombiner = downstream.combiner();
+        BinaryOperator<IntHashMap<A>> merger = (left, right) -> {
+            right.forEach((c, k) -> left.merge(k, c, downstreamCombiner));
+            return left;
+        };
+        if (downstream.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)) {
+            return new IntCollectorImpl<>(IntHashMap::new, accumulator, merger,
+                                          Collectors.castingIdentity(), Collectors.CH_ID);
+        }
+        Function<A, D> downstreamFinisher = downstream.finisher();
+        Function<IntHashMap<A>, IntHashMap<D>> finisher = m -> {
+            IntHashMap<D> r = new IntHashMap<>(m.size());
+            m.forEach((c, k) -> r.put(k, downstreamFinisher.apply(c)));
+            return r;
+        };
+        return new IntCollectorImpl<>(IntHashMap::new, accumulator, merger,
+                                      finisher, Collectors.CH_NOID);
+    }
+
+    /**
+     * Returns a {@code Collector.OfInt} implementing a "group by"
+     * operation on {@code int} elements, grouping elements according
+     * to a classification function, and returning the results in a
+     * map whose values are arrays of the elements of each
+     * group, in encounter order.
+     *
+     * @param classifier the classifier function mapping input elements to keys
+     * @return a {@code Collector.OfInt} implementing the group-by operation
+     * @see #groupingByInt(IntUnaryOperator, Collector.OfInt)
+     */
+    public static Collector.OfInt<?, IntHashMap<int[]>>
+    groupingByInt(IntUnaryOperator classifier) {
+        return groupingByInt(classifier, toIntArray());
+    }
+
+    /**
+     * Returns a {@code Collector.OfLong} implementing a "group by"
+     * operation on {@code long} elements, grouping elements according
+     * to a classification function, and then performing a reduction
+     * operation on the elements of each group using the specified
+     * downstream {@code Collector.OfLong}.
+     *
+     * <p>There are no guarantees on the mutability, serializability,
+     * or thread-safety of the map returned.  Within each group,
+     * elements are presented to the downstream collector in encounter
+     * order.
+     *
+     * @param <A> the intermediate accumulation type of the downstream collector
+     * @param <D> the result type of the downstream reduction
+     * @param classifier a classifier function mapping input elements to keys
+     * @param downstream a {@code Collector.OfLong} implementing the downstream reduction
+     * @return a {@code Collector.OfLong} implementing the cascaded group-by operation
+     * @see Collectors#groupingBy(Function, Collector)
+     */
+    public static <A, D> Collector.OfLong<?, LongHashMap<D>>
+    groupingByLong(LongUnaryOperator classifier,
+                   Collector.OfLong<A, D> downstream) {
+        Objects.requireNonNull(classifier);
+        Supplier<A> downstreamSupplier = downstream.supplier();
+        ObjLongConsumer<A> downstreamAccumulator = downstream.longAccumulator();
+        ObjLongConsumer<LongHashMap<A>> accumulator = (m, t) -> {
+            long key = classifier.applyAsLong(t);
+            A container = m.get(key);
+            if (container == null) {
+                container = downstreamSupplier.get();
+                m.put(key, container);
+            }
+            downstreamAccumulator.accept(container, t);
+        };
+        BinaryOperator<A> downstreamCombiner = downstream.combiner();
+        BinaryOperator<LongHashMap<A>> merger = (left, right) -> {
+            right.forEach((c, k) -> left.merge(k, c, downstreamCombiner));
+            return left;
+        };
+        if (downstream.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)) {
+            return new LongCollectorImpl<>(LongHashMap::new, accumulator, merger,
+                                           Collectors.castingIdentity(), Collectors.CH_ID);
+        }
+        Function<A, D> downstreamFinisher = downstream.finisher();
+        Function<LongHashMap<A>, LongHashMap<D>> finisher = m -> {
+            LongHashMap<D> r = new LongHashMap<>(m.size());
+            m.forEach((c, k) -> r.put(k, downstreamFinisher.apply(c)));
+            return r;
+        };
+        return new LongCollectorImpl<>(LongHashMap::new, accumulator, merger,
+                                       finisher, Collectors.CH_NOID);
+    }
+
+    /**
+     * Returns a {@code Collector.OfLong} implementing a "group by"
+     * operation on {@code long} elements, grouping elements according
+     * to a classification function, and returning the results in a
+     * map whose values are arrays of the elements of each
+     * group, in encounter order.
+     *
+     * @param classifier the classifier function mapping input elements to keys
+     * @return a {@code Collector.OfLong} implementing the group-by operation
+     * @see #groupingByLong(LongUnaryOperator, Collector.OfLong)
+     */
+    public static Collector.OfLong<?, LongHashMap<long[]>>
+    groupingByLong(LongUnaryOperator classifier) {
+        return groupingByLong(classifier, toLongArray());
+    }
+
+    /**
+     * Returns a {@code Collector.OfDouble} implementing a "group by"
+     * operation on {@code double} elements, grouping elements
+     * according to a classification function returning {@code long}
+     * keys, such as a bucket number, and then performing a reduction
+     * operation on the elements of each group using the specified
+     * downstream {@code Collector.OfDouble}.
+     *
+     * <p>There are no guarantees on the mutability, serializability,
+     * or thread-safety of the map returned.  Within each group,
+     * elements are presented to the downstream collector in encounter
+     * order.
+     *
+     * @param <A> the intermediate accumulation type of the downstream collector
+     * @param <D> the result type of the downstream reduction
+     * @param classifier a classifier function mapping input elements to keys
+     * @param downstream a {@code Collector.OfDouble} implementing the downstream reduction
+     * @return a {@code Collector.OfDouble} implementing the cascaded group-by operation
+     * @see Collectors#groupingBy(Function, Collector)
+     */
+    public static <A, D> Collector.OfDouble<?, LongHashMap<D>>
+    groupingByDouble(DoubleToLongFunction classifier,
+                     Collector.OfDouble<A, D> downstream) {
+        Objects.requireNonNull(classifier);
+        Supplier<A> downstreamSupplier = downstream.supplier();
+        ObjDoubleConsumer<A> downstreamAccumulator = downstream.doubleAccumulator();
+        ObjDoubleConsumer<LongHashMap<A>> accumulator = (m, t) -> {
+            long key = classifier.applyAsLong(t);
+            A container = m.get(key);
+            if (container == null) {
+                container = downstreamSupplier.get();
+                m.put(key, container);
+            }
+            downstreamAccumulator.accept(container, t);
+        };
+        BinaryOperator<A> downstreamCombiner = downstream.combiner();
+        BinaryOperator<LongHashMap<A>> merger = (left, right) -> {
+            right.forEach((c, k) -> left.merge(k, c, downstreamCombiner));
+            return left;
+        };
+        if (downstream.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)) {
+            return new DoubleCollectorImpl<>(LongHashMap::new, accumulator, merger,
+                                             Collectors.castingIdentity(), Collectors.CH_ID);
+        }
+        Function<A, D> downstreamFinisher = downstream.finisher();
+        Function<LongHashMap<A>, LongHashMap<D>> finisher = m -> {
+            LongHashMap<D> r = new LongHashMap<>(m.size());
+            m.forEach((c, k) -> r.put(k, downstreamFinisher.apply(c)));
+            return r;
+        };
+        return new DoubleCollectorImpl<>(LongHashMap::new, accumulator, merger,
+                                         finisher, Collectors.CH_NOID);
+    }
+
+    /**
+     * Returns a {@code Collector.OfDouble} implementing a "group by"
+     * operation on {@code double} elements, grouping elements
+     * according to a classification function returning {@code long}
+     * keys, and returning the results in a map whose values are
+     * arrays of the elements of each group, in encounter order.
+     *
+     * @param classifier the classifier function mapping input elements to keys
+     * @return a {@code Collector.OfDouble} implementing the group-by operation
+     * @see #groupingByDouble(DoubleToLongFunction, Collector.OfDouble)
+     */
+    public static Collector.OfDouble<?, LongHashMap<double[]>>
+    groupingByDouble(DoubleToLongFunction classifier) {
+        return groupingByDouble(classifier, toDoubleArray());
+    }
+
+    // Partitioning
+
+    /**
+     * Returns a {@code Collector.OfInt} which partitions the input
+     * elements according to an {@code IntPredicate}, reduces the
+     * values in each partition according to another {@code
+     * Collector.OfInt}, and organizes them into a
+     * {@code Map<Boolean, D>} whose values are the result of the
+     * downstream reduction.
+     *
+     * <p>There are no guarantees on the type, mutability,
+     * serializability, or thread-safety of the {@code Map} returned.
+     *
+     * @param <A> the intermediate accumulation type of the downstream collector
+     * @param <D> the result type of the downstream reduction
+     * @param predicate a predicate used for classifying input elements
+     * @param downstream a {@code Collector.OfInt} implementing the downstream
+     *                   reduction
+     * @return a {@code Collector.OfInt} implementing the cascaded partitioning
+     *         operation
+     * @see Collectors#partitioningBy(java.util.function.Predicate, Collector)
+     */
+    public static <A, D> Collector.OfInt<?, Map<Boolean, D>>
+    partitioningByInt(IntPredicate predicate,
+                      Collector.OfInt<A, D> downstream) {
+        ObjIntConsumer<A> downstreamAccumulator = downstream.intAccumulator();
+        ObjIntConsumer<Collectors.Partition<A>> accumulator = (result, t) ->
+                downstreamAccumulator.accept(predicate.test(t) ? result.forTrue : result.forFalse, t);
+        return new IntCollectorImpl<>(partitionSupplier(downstream),
+                                      accumulator,
+                                      partitionMerger(downstream),
+                                      partitionFinisher(downstream),
+                                      Collectors.CH_NOID);
+    }
+
+    /**
+     * Returns a {@code Collector.OfInt} which partitions the input
+     * elements according to an {@code IntPredicate}, and organizes
+     * them into a {@code Map<Boolean, int[]>}, the elements of each
+     * partition in encounter order.
+     *
+     * @param predicate a predicate used for classifying input elements
+     * @return a {@code Collector.OfInt} implementing the partitioning operation
+     * @see #partitioningByInt(IntPredicate, Collector.OfInt)
+     */
+    public static Collector.OfInt<?, Map<Boolean, int[]>>
+    partitioningByInt(IntPredicate predicate) {
+        return partitioningByInt(predicate, toIntArray());
+    }
+
+    /**
+     * Returns a {@code Collector.OfLong} which partitions the input
+     * elements according to a {@code LongPredicate}, reduces the
+     * values in each partition according to another {@code
+     * Collector.OfLong}, and organizes them into a
+     * {@code Map<Boolean, D>} whose values are the result of the
+     * downstream reduction.
+     *
+     * <p>There are no guarantees on the type, mutability,
+     * serializability, or thread-safety of the {@code Map} returned.
+     *
+     * @param <A> the intermediate accumulation type of the downstream collector
+     * @param <D> the result type of the downstream reduction
+     * @param predicate a predicate used for classifying input elements
+     * @param downstream a {@code Collector.OfLong} implementing the downstream
+     *                   reduction
+     * @return a {@code Collector.OfLong} implementing the cascaded partitioning
+     *         operation
+     * @see Collectors#partitioningBy(java.util.function.Predicate, Collector)
+     */
+    public static <A, D> Collector.OfLong<?, Map<Boolean, D>>
+    partitioningByLong(LongPredicate predicate,
+                       Collector.OfLong<A, D> downstream) {
+        ObjLongConsumer<A> downstreamAccumulator = downstream.longAccumulator();
+        ObjLongConsumer<Collectors.Partition<A>> accumulator = (result, t) ->
+                downstreamAccumulator.accept(predicate.test(t) ? result.forTrue : result.forFalse, t);
+        return new LongCollectorImpl<>(partitionSupplier(downstream),
+                                       accumulator,
+                                       partitionMerger(downstream),
+                                       partitionFinisher(downstream),
+                                       Collectors.CH_NOID);
+    }
+
+    /**
+     * Returns a {@code Collector.OfLong} which partitions the input
+     * elements according to a {@code LongPredicate}, and organizes
+     * them into a {@code Map<Boolean, long[]>}, the elements of each
+     * partition in encounter order.
+     *
+     * @param predicate a predicate used for classifying input elements
+     * @return a {@code Collector.OfLong} implementing the partitioning operation
+     * @see #partitioningByLong(LongPredicate, Collector.OfLong)
+     */
+    public static Collector.OfLong<?, Map<Boolean, long[]>>
+    partitioningByLong(LongPredicate predicate) {
+        return partitioningByLong(predicate, toLongArray());
+    }
+
+    /**
+     * Returns a {@code Collector.OfDouble} which partitions the input
+     * elements according to a {@code DoublePredicate}, reduces the
+     * values in each partition according to another {@code
+     * Collector.OfDouble}, and organizes them into a
+     * {@code Map<Boolean, D>} whose values are the result of the
+     * downstream reduction.
+     *
+     * <p>There are no guarantees on the type, mutability,
+     * serializability, or thread-safety of the {@code Map} returned.
+     *
+     * @param <A> the intermediate accumulation type of the downstream collector
+     * @param <D> the result type of the downstream reduction
+     * @param predicate a predicate used for classifying input elements
+     * @param downstream a {@code Collector.OfDouble} implementing the downstream
+     *                   reduction
+     * @return a {@code Collector.OfDouble} implementing the cascaded partitioning
+     *         operation
+     * @see Collectors#partitioningBy(java.util.function.Predicate, Collector)
+     */
+    public static <A, D> Collector.OfDouble<?, Map<Boolean, D>>
+    partitioningByDouble(DoublePredicate predicate,
+                         Collector.OfDouble<A, D> downstream) {
+        ObjDoubleConsumer<A> downstreamAccumulator = downstream.doubleAccumulator();
+        ObjDoubleConsumer<Collectors.Partition<A>> accumulator = (result, t) ->
+                downstreamAccumulator.accept(predicate.test(t) ? result.forTrue : result.forFalse, t);
+        return new DoubleCollectorImpl<>(partitionSupplier(downstream),
+                                         accumulator,
+                                         partitionMerger(downstream),
+                                         partitionFinisher(downstream),
+                                         Collectors.CH_NOID);
+    }
+
+    /**
+     * Returns a {@code Collector.OfDouble} which partitions the input
+     * elements according to a {@code DoublePredicate}, and organizes
+     * them into a {@code Map<Boolean, double[]>}, the elements of each
+     * partition in encounter order.
+     *
+     * @param predicate a predicate used for classifying input elements
+     * @return a {@code Collector.OfDouble} implementing the partitioning operation
+     * @see #partitioningByDouble(DoublePredicate, Collector.OfDouble)
+     */
+    public static Collector.OfDouble<?, Map<Boolean, double[]>>
+    partitioningByDouble(DoublePredicate predicate) {
+        return partitioningByDouble(predicate, toDoubleArray());
+    }
+
+    private static <A> Supplier<Collectors.Partition<A>>
+    partitionSupplier(Collector<?, A, ?> downstream) {
+        Supplier<A> supplier = downstream.supplier();
+        return () -> new Collectors.Partition<>(supplier.get(), supplier.get());
+    }
+
+    private static <A> BinaryOperator<Collectors.Partition<A>>
+    partitionMerger(Collector<?, A, ?> downstream) {
+        BinaryOperator<A> op = downstream.combiner();
+        return (left, right) ->
+                new Collectors.Partition<>(op.apply(left.forTrue, right.forTrue),
+                                           op.apply(left.forFalse, right.forFalse));
+    }
+
+    private static <A, D> Function<Collectors.Partition<A>, Map<Boolean, D>>
+    partitionFinisher(Collector<?, A, D> downstream) {
+        Function<A, D> finisher = downstream.finisher();
+        return par -> new Collectors.Partition<>(finisher.apply(par.forTrue),
+                                                 finisher.apply(par.forFalse));
+    }
+
+    // Summing
+
+    /**
+     * Returns a {@code Collector.OfInt} that produces the sum of a
+     * {@code long}-valued function applied to the input elements.  If
+     * no elements are present, the result is 0.  Summing as {@code
+     * long} values, the result does not overflow as the sum of the
+     * {@code int} elements would.
+     *
+     * @param mapper a function extracting the value to be summed
+     * @return a {@code Collector.OfInt} that produces the sum of the
+     *         mapped values
+     * @see Collectors#summingLong(java.util.function.ToLongFunction)
+     */
+    public static Collector.OfInt<?, Long>
+    summingInt(IntToLongFunction mapper) {
+        return new IntCollectorImpl<>(
+                () -> new long[1],
+                (a, t) -> { a[0] += mapper.applyAsLong(t); },
+                (a, b) -> { a[0] += b[0]; return a; },
+                a -> a[0], Collectors.CH_NOID);
+    }
+
+    /**
+     * Returns a {@code Collector.OfLong} that produces the sum of a
+     * {@code long}-valued function applied to the input elements.  If
+     * no elements are present, the result is 0.
+     *
+     * @param mapper a function extracting the value to be summed
+     * @return a {@code Collector.OfLong} that produces the sum of the
+     *         mapped values
+     * @see Collectors#summingLong(java.util.function.ToLongFunction)
+     */
+    public static Collector.OfLong<?, Long>
+    summingLong(LongUnaryOperator mapper) {
+        return new LongCollectorImpl<>(
+                () -> new long[1],
+                (a, t) -> { a[0] += mapper.applyAsLong(t); },
+                (a, b) -> { a[0] += b[0]; return a; },
+                a -> a[0], Collectors.CH_NOID);
+    }
+
+    /**
+     * Returns a {@code Collector.OfDouble} that produces the sum of a
+     * {@code double}-valued function applied to the input elements.
+     * If no elements are present, the result is 0.
+     *
+     * <p>As for {@link Collectors#summingDouble}, the sum is computed
+     * with compensated summation, and the sum returned can vary
+     * depending upon the order in which values are recorded.  If any
+     * recorded value is a {@code NaN} or the sum is at any point a
+     * {@code NaN} then the sum will be {@code NaN}.
+     *
+     * @param mapper a function extracting the value to be summed
+     * @return a {@code Collector.OfDouble} that produces the sum of the
+     *         mapped values
+     * @see Collectors#summingDouble(java.util.function.ToDoubleFunction)
+     */
+    public static Collector.OfDouble<?, Double>
+    summingDouble(DoubleUnaryOperator mapper) {
+        /*
+         * The arrays are laid out as in Collectors.summingDouble: the
+         * high-order and low-order bits of the compensated sum, then
+         * the simple sum.
+         */
+        return new DoubleCollectorImpl<>(
+                () -> new double[3],
+                (a, t) -> { double v = mapper.applyAsDouble(t);
+                            Collectors.sumWithCompensation(a, v);
+                            a[2] += v; },
+                (a, b) -> { Collectors.sumWithCompensation(a, b[0]);
+                            a[2] += b[2];
+                            return Collectors.sumWithCompensation(a, b[1]); },
+                a -> Collectors.computeFinalSum(a),
+                Collectors.CH_NOID);
+    }
+
+    // Arrays
+
+    /**
+     * Returns a {@code Collector.OfInt} that accumulates the input
+     * elements into an {@code int[]}, in encounter order.
+     *
+     * @return a {@code Collector.OfInt} which collects all the input
+     *         elements into an array
+     * @see IntStream#toArray()
+     */
+    public static Collector.OfInt<?, int[]> toIntArray() {
+        return new IntCollectorImpl<>(
+                SpinedBuffer.OfInt::new,
+                SpinedBuffer.OfInt::accept,
+                (left, right) -> { right.forEach((IntConsumer) left); return left; },
+                SpinedBuffer.OfInt::asPrimitiveArray,
+                Collectors.CH_NOID);
+    }
+
+    /**
+     * Returns a {@code Collector.OfLong} that accumulates the input
+     * elements into a {@code long[]}, in encounter order.
+     *
+     * @return a {@code Collector.OfLong} which collects all the input
+     *         elements into an array
+     * @see LongStream#toArray()
+     */
+    public static Collector.OfLong<?, long[]> toLongArray() {
+        return new LongCollectorImpl<>(
+                SpinedBuffer.OfLong::new,
+                SpinedBuffer.OfLong::accept,
+                (left, right) -> { right.forEach((LongConsumer) left); return left; },
+                SpinedBuffer.OfLong::asPrimitiveArray,
+                Collectors.CH_NOID);
+    }
+
+    /**
+     * Returns a {@code Collector.OfDouble} that accumulates the input
+     * elements into a {@code double[]}, in encounter order.
+     *
+     * @return a {@code Collector.OfDouble} which collects all the input
+     *         elements into an array
+     * @see DoubleStream#toArray()
+     */
+    public static Collector.OfDouble<?, double[]> toDoubleArray() {
+        return new DoubleCollectorImpl<>(
+                SpinedBuffer.OfDouble::new,
+                SpinedBuffer.OfDouble::accept,
+                (left, right) -> { right.forEach((DoubleConsumer) left); return left; },
+                SpinedBuffer.OfDouble::asPrimitiveArray,
+                Collectors.CH_NOID);
+    }
+}
@@ -0,0 +1,46 @@
+package java.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImmutableCollectionsTest {
+
+    @SuppressWarnings("unchecked")
+    private static <T> T roundTrip(T o) throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(o);
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+            return (T) ois.readObject();
+        }
+    }
+
+    @Test
+    void serializationRoundTrip() throws Exception {
+        List<Object> values = Arrays.asList(
+                List.of(), List.of(1), List.of(1, 2, 3),
+                Set.of(), Set.of("a"), Set.of("a", "b", "c"),
+                Map.of(), Map.of(1, "a"), Map.ofEntries(Map.entry(1, "a"), Map.entry(2, "b"), Map.entry(3, "c")));
+        for (Object o : values) {
+            Object copy = roundTrip(o);
+            assertEquals(o, copy);
+            assertEquals(o.getClass(), copy.getClass());
+        }
+    }
+
+    @Test
+    void rejectsNullsAndMutation() {
+        assertThrows(NullPointerException.class, () -> List.of(1, null, 3));
+        assertThrows(IllegalArgumentException.class, () -> Set.of("a", "a"));
+        assertThrows(UnsupportedOperationException.class, () -> List.of(1).add(2));
+        assertThrows(UnsupportedOperationException.class, () -> Map.of(1, "a").put(2, "b"));
+        assertEquals(Arrays.asList(2, 3), List.of(1, 2, 3, 4).subList(1, 3));
+    }
+}
@@ -0,0 +1,44 @@
+package java.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntHashSetTest {
+
+    @Test
+    void addRemoveContains() {
+        IntHashSet set = new IntHashSet();
+        for (int i = -1000; i < 1000; i++) {
+            assertTrue(set.add(i));
+        }
+        assertFalse(set.add(0));
+        assertEquals(2000, set.size());
+        assertTrue(set.contains(0));
+        assertTrue(set.remove(0));
+        assertFalse(set.contains(0));
+        assertEquals(1999, set.size());
+    }
+
+    @Test
+    void forEachWithImplicitLambda() {
+        IntHashSet set = new IntHashSet();
+        set.addAll(1, 2, 3, 0);
+        long[] sum = new long[1];
+        set.forEach(x -> sum[0] += x);
+        set.forEachInt(x -> sum[0] += x);
+        assertEquals(12L, sum[0]);
+    }
+
+    @Test
+    void longSetForEachWithImplicitLambda() {
+        LongHashSet set = new LongHashSet();
+        set.addAll(1L, 2L, Long.MIN_VALUE, 0L);
+        long[] sum = new long[1];
+        set.forEachLong(x -> sum[0] += x);
+        assertEquals(3L + Long.MIN_VALUE, sum[0]);
+        List<Long> boxed = new ArrayList<>();
+        set.forEach(x -> boxed.add(x));
+        assertEquals(4, boxed.size());
+    }
+}
@@ -0,0 +1,94 @@
+package java.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapLongMapTest {
+
+    @Test
+    void putGetRemoveAcrossGrowth() throws Exception {
+        try (OffHeapLongMap m = new OffHeapLongMap(0L)) {
+            long cap = m.capacity();
+            for (long k = 0L; k < 10000L; k++) {
+                assertTrue(m.put(k * 31L, k));
+            }
+            assertTrue(m.capacity() > cap);
+            assertEquals(10000L, m.size());
+            for (long k = 0L; k < 10000L; k++) {
+                assertEquals(k, m.getOrDefault(k * 31L, -1L));
+            }
+            assertTrue(m.remove(0L));
+            assertTrue(m.remove(31L));
+            assertFalse(m.containsKey(31L));
+            assertEquals(9998L, m.size());
+            assertEquals(5L, m.addTo(31L, 5L));
+        }
+    }
+
+    @Test
+    void fileBackedMapPersists() throws Exception {
+        Path f = Files.createTempFile("offheap", ".map");
+        try {
+            Files.delete(f);
+            try (OffHeapLongMap m = OffHeapLongMap.open(f, 100L)) {
+                m.put(0L, 7L);
+                m.put(42L, 43L);
+            }
+            try (OffHeapLongMap m = OffHeapLongMap.open(f, 0L)) {
+                assertEquals(2L, m.size());
+                assertEquals(7L, m.getOrDefault(0L, -1L));
+                assertEquals(43L, m.getOrDefault(42L, -1L));
+            }
+        } finally {
+            Files.deleteIfExists(f);
+        }
+    }
+
+    @Test
+    void failedGrowLeavesMapUsable() throws Exception {
+        Class<?> bits = Class.forName("java.nio.Bits");
+        Field maxMemory = bits.getDeclaredField("maxMemory");
+        Field limitSet = bits.getDeclaredField("memoryLimitSet");
+        Field reserved = bits.getDeclaredField("reservedMemory");
+        maxMemory.setAccessible(true);
+        limitSet.setAccessible(true);
+        reserved.setAccessible(true);
+        try (OffHeapLongMap m = new OffHeapLongMap(1000L)) {
+            long cap = m.capacity();
+            long oldMax = maxMemory.getLong(null);
+            boolean oldSet = limitSet.getBoolean(null);
+            long k = 1L;
+            try {
+                // Leave less direct memory than doubling the table needs
+                limitSet.setBoolean(null, true);
+                maxMemory.setLong(null, ((AtomicLong) reserved.get(null)).get() + cap);
+                assertThrows(OutOfMemoryError.class, () -> {
+                    for (long i = 1L; ; i++) {
+                        m.put(i, -i);
+                    }
+                });
+            } finally {
+                maxMemory.setLong(null, oldMax);
+                limitSet.setBoolean(null, oldSet);
+            }
+            assertEquals(cap, m.capacity());
+            long n = m.size();
+            for (; k <= n; k++) {
+                assertEquals(-k, m.getOrDefault(k, 0L));
+            }
+            for (; k <= 4 * n; k++) {
+                m.put(k, -k);
+            }
+            assertTrue(m.capacity() > cap);
+            for (long i = 1L; i < k; i++) {
+                assertEquals(-i, m.getOrDefault(i, 0L));
+            }
+        }
+    }
+}
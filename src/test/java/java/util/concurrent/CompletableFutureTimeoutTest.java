@@ -0,0 +1,60 @@
+package java.util.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompletableFutureTimeoutTest {
+
+    static final String DELAYER = "CompletableFutureDelayScheduler";
+
+    @Test
+    void timeoutDependentsDoNotRunOnDelayScheduler() throws Exception {
+        CompletableFuture<Object> f = new CompletableFuture<>();
+        CompletableFuture<String> thread = f.orTimeout(10, TimeUnit.MILLISECONDS)
+                .handle((r, ex) -> {
+                    assertTrue(ex instanceof TimeoutException);
+                    return Thread.currentThread().getName();
+                });
+        assertNotEquals(DELAYER, thread.get(10, TimeUnit.SECONDS));
+
+        CompletableFuture<String> g = new CompletableFuture<>();
+        CompletableFuture<String> name = g.completeOnTimeout("late", 10, TimeUnit.MILLISECONDS)
+                .thenApply(v -> v + " " + Thread.currentThread().getName());
+        String s = name.get(10, TimeUnit.SECONDS);
+        assertTrue(s.startsWith("late "));
+        assertNotEquals("late " + DELAYER, s);
+    }
+
+    @Test
+    void blockedDependentDoesNotHoldUpOtherTimeouts() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<Object> slow = new CompletableFuture<>();
+            slow.whenComplete((r, ex) -> {
+                try {
+                    release.await();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            slow.orTimeout(1, TimeUnit.MILLISECONDS);
+            CompletableFuture<Object> other = new CompletableFuture<>();
+            other.orTimeout(50, TimeUnit.MILLISECONDS);
+            ExecutionException ee = assertThrows(ExecutionException.class,
+                                                 () -> other.get(10, TimeUnit.SECONDS));
+            assertTrue(ee.getCause() instanceof TimeoutException);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void completionInTimeCancelsTimeout() throws Exception {
+        CompletableFuture<String> f = new CompletableFuture<>();
+        f.orTimeout(50, TimeUnit.MILLISECONDS);
+        assertTrue(f.complete("done"));
+        Thread.sleep(100);
+        assertEquals("done", f.get());
+    }
+}
@@ -0,0 +1,82 @@
+package java.util.concurrent;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentLongCounterMapTest {
+
+    /** Returns the node of the key, found by scanning the table. */
+    static <K> ConcurrentLongCounterMap.Node<K> node(ConcurrentLongCounterMap<K> m, K key) {
+        for (ConcurrentLongCounterMap.Node<K> f : m.table) {
+            for (ConcurrentLongCounterMap.Node<K> e = f; e != null; e = e.next) {
+                if (key.equals(e.key)) {
+                    return e;
+                }
+            }
+        }
+        throw new AssertionError("not mapped: " + key);
+    }
+
+    @Test
+    void removeIncludesCountsOfCells() {
+        ConcurrentLongCounterMap<String> m = new ConcurrentLongCounterMap<>();
+        m.add("hot", 1L);
+        node(m, "hot").cells = new ConcurrentLongCounterMap.Cell[] {
+            new ConcurrentLongCounterMap.Cell(5L), new ConcurrentLongCounterMap.Cell(7L)
+        };
+        assertEquals(13L, m.get("hot"));
+        assertEquals(13L, m.remove("hot"));
+        assertEquals(0L, m.get("hot"));
+        assertEquals(0L, m.remove("hot"));
+    }
+
+    @Test
+    void sumThenResetIncludesCountsOfCells() {
+        ConcurrentLongCounterMap<String> m = new ConcurrentLongCounterMap<>();
+        m.add("hot", 1L);
+        node(m, "hot").cells = new ConcurrentLongCounterMap.Cell[] {
+            new ConcurrentLongCounterMap.Cell(5L), new ConcurrentLongCounterMap.Cell(7L)
+        };
+        assertEquals(13L, m.sumThenReset("hot"));
+        assertEquals(0L, m.get("hot"));
+    }
+
+    @Test
+    void removeTakesEachContendedAmountOnce() throws Exception {
+        ConcurrentLongCounterMap<String> m = new ConcurrentLongCounterMap<>();
+        int nThreads = 4, perThread = 200_000;
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] ts = new Thread[nThreads];
+        for (int t = 0; t < nThreads; t++) {
+            ts[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    m.increment("hot");
+                }
+            });
+            ts[t].start();
+        }
+        AtomicLong removed = new AtomicLong();
+        start.countDown();
+        boolean alive = true;
+        while (alive) {
+            removed.addAndGet(m.remove("hot"));
+            alive = false;
+            for (Thread t : ts) {
+                alive |= t.isAlive();
+            }
+        }
+        for (Thread t : ts) {
+            t.join();
+        }
+        removed.addAndGet(m.remove("hot"));
+        assertEquals((long) nThreads * perThread, removed.get());
+    }
+}
@@ -0,0 +1,67 @@
+package java.util.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    @Test
+    void grantsBurstThenRefuses() {
+        RateLimiter limiter = new RateLimiter(1.0, 5);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire(2));
+    }
+
+    @Test
+    void timedTryAcquireFailsAtOnceWithoutTakingPermits() throws Exception {
+        RateLimiter limiter = new RateLimiter(10.0);
+        assertTrue(limiter.tryAcquire());
+        long start = System.nanoTime();
+        assertFalse(limiter.tryAcquire(100, 10, TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+        // the next permit is still due in about 100ms
+        assertTrue(limiter.tryAcquire(1, 1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void interruptedAcquireReturnsPermits() throws Exception {
+        RateLimiter limiter = new RateLimiter(1.0);
+        assertTrue(limiter.tryAcquire());
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        Thread waiter = new Thread(() -> {
+            try {
+                limiter.acquire();
+            } catch (Throwable e) {
+                thrown.set(e);
+            }
+        });
+        waiter.start();
+        Thread.sleep(50);
+        waiter.interrupt();
+        waiter.join();
+        assertTrue(thrown.get() instanceof InterruptedException);
+        // Without the refund the next permit would be two seconds away
+        assertTrue(limiter.tryAcquire(1, 1500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void doesNotExceedRate() throws Exception {
+        RateLimiter limiter = new RateLimiter(200.0, 10, 4);
+        long start = System.nanoTime(), end = start + TimeUnit.MILLISECONDS.toNanos(500);
+        int granted = 0;
+        while (System.nanoTime() - end < 0L) {
+            if (limiter.tryAcquire()) {
+                granted++;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        assertTrue(granted > 0);
+        assertTrue(granted <= 200.0 * seconds + 12 + 1, "granted " + granted);
+    }
+}
@@ -0,0 +1,91 @@
+package java.util.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RingBufferBlockingQueueTest {
+
+    @Test
+    void spscPreservesOrder() throws Exception {
+        SpscArrayBlockingQueue<Integer> q = new SpscArrayBlockingQueue<>(64);
+        int n = 100000;
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < n; i++) {
+                    q.put(i);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        for (int i = 0; i < n; i++) {
+            assertEquals(i, (int) q.take());
+        }
+        producer.join();
+        assertNull(q.poll());
+    }
+
+    @Test
+    void mpmcTransfersEachElementOnce() throws Exception {
+        MpmcArrayBlockingQueue<Long> q = new MpmcArrayBlockingQueue<>(128);
+        int producers = 3, consumers = 3, perProducer = 20000;
+        AtomicLong sum = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            threads.add(new Thread(() -> {
+                try {
+                    for (long i = 1; i <= perProducer; i++) {
+                        q.put(i);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        for (int c = 0; c < consumers; c++) {
+            threads.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < perProducer; i++) {
+                        sum.addAndGet(q.take());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertEquals(producers * (long) perProducer * (perProducer + 1) / 2, sum.get());
+        assertTrue(q.isEmpty());
+    }
+
+    @Test
+    void timedOperationsTimeOut() throws Exception {
+        MpscArrayBlockingQueue<String> q = new MpscArrayBlockingQueue<>(2);
+        assertNull(q.poll(20, TimeUnit.MILLISECONDS));
+        assertTrue(q.offer("a"));
+        assertTrue(q.offer("b"));
+        assertFalse(q.offer("c", 20, TimeUnit.MILLISECONDS));
+        q.clear();
+        assertTrue(q.isEmpty());
+    }
+
+    @Test
+    void parkingBacksOffToAboutAMillisecond() {
+        WaitStrategy s = WaitStrategy.parking();
+        long start = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            s.idle(10000);
+        }
+        // ten long-waiting attempts must not wake once per microsecond
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(5));
+    }
+}
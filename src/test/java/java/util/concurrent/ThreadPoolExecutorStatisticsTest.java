@@ -0,0 +1,131 @@
+package java.util.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThreadPoolExecutorStatisticsTest {
+
+    static final class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+        final int priority;
+        final List<Integer> log;
+
+        PrioritizedTask(int priority, List<Integer> log) {
+            this.priority = priority;
+            this.log = log;
+        }
+
+        @Override
+        public void run() {
+            log.add(priority);
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask o) {
+            return Integer.compare(priority, o.priority);
+        }
+    }
+
+    @Test
+    void queuesUnwrappedTasks() throws Exception {
+        ThreadPoolExecutor e = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                                                      new PriorityBlockingQueue<Runnable>());
+        ThreadPoolExecutorMXBean stats = e.enableStatistics();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        try {
+            e.execute(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            started.await();
+            List<Integer> log = Collections.synchronizedList(new ArrayList<>());
+            PrioritizedTask removed = new PrioritizedTask(0, log);
+            for (int p : new int[] { 3, 1, 2 }) {
+                e.execute(new PrioritizedTask(p, log));
+            }
+            e.execute(removed);
+            assertTrue(e.getQueue().contains(removed));
+            for (Runnable r : e.getQueue()) {
+                assertTrue(r instanceof PrioritizedTask);
+            }
+            assertTrue(e.remove(removed));
+            assertFalse(e.remove(removed));
+            release.countDown();
+            e.shutdown();
+            assertTrue(e.awaitTermination(10, TimeUnit.SECONDS));
+            assertEquals(java.util.Arrays.asList(1, 2, 3), log);
+            assertEquals(4L, stats.getCompletedTaskCount());
+            assertTrue(stats.getMaxQueueWaitTime() > 0L);
+            assertTrue(((ThreadPoolExecutor.Statistics) stats).submitTimes.isEmpty());
+        } finally {
+            release.countDown();
+            e.shutdownNow();
+        }
+    }
+
+    @Test
+    void shutdownNowReturnsSubmittedTasks() throws Exception {
+        ThreadPoolExecutor e = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                                                      new LinkedBlockingQueue<Runnable>());
+        e.enableStatistics();
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            e.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            Runnable queued = () -> { };
+            e.execute(queued);
+            List<Runnable> pending = e.shutdownNow();
+            assertEquals(Collections.singletonList(queued), pending);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void countsRejections() throws Exception {
+        ThreadPoolExecutor e = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                                                      new SynchronousQueue<Runnable>(),
+                                                      new ThreadPoolExecutor.CallerRunsPolicy());
+        ThreadPoolExecutorMXBean stats = e.enableStatistics();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        try {
+            e.execute(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            // The worker has taken the submit time of the first task
+            // once the task has started
+            started.await();
+            boolean[] ran = new boolean[1];
+            Runnable rejected = () -> ran[0] = true;
+            e.execute(rejected);
+            assertTrue(ran[0]);
+            assertEquals(1L, stats.getRejectedTaskCount());
+            assertFalse(((ThreadPoolExecutor.Statistics) stats).submitTimes.containsKey(rejected));
+            assertTrue(((ThreadPoolExecutor.Statistics) stats).submitTimes.isEmpty());
+        } finally {
+            release.countDown();
+            e.shutdown();
+            assertTrue(e.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package java.util.concurrent.locks;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BiasedReadWriteLockTest {
+
+    /**
+     * Starts a thread that holds the read lock until released.
+     */
+    private static Thread holdReadLock(BiasedReadWriteLock rwl, CountDownLatch release)
+        throws InterruptedException {
+        CountDownLatch locked = new CountDownLatch(1);
+        Thread t = new Thread(() -> {
+            rwl.readLock().lock();
+            try {
+                locked.countDown();
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                rwl.readLock().unlock();
+            }
+        });
+        t.start();
+        locked.await();
+        return t;
+    }
+
+    @Test
+    void tryLockFailsAtOnceWhileReaderHoldsSlot() throws Exception {
+        BiasedReadWriteLock rwl = new BiasedReadWriteLock();
+        CountDownLatch release = new CountDownLatch(1);
+        Thread reader = holdReadLock(rwl, release);
+        long start = System.nanoTime();
+        assertFalse(rwl.writeLock().tryLock());
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+        assertTrue(rwl.isReadBiased());
+        assertFalse(rwl.isWriteLocked());
+        release.countDown();
+        reader.join();
+        assertTrue(rwl.writeLock().tryLock());
+        rwl.writeLock().unlock();
+    }
+
+    @Test
+    void timedTryLockHonorsDeadline() throws Exception {
+        BiasedReadWriteLock rwl = new BiasedReadWriteLock();
+        CountDownLatch release = new CountDownLatch(1);
+        Thread reader = holdReadLock(rwl, release);
+        long start = System.nanoTime();
+        assertFalse(rwl.writeLock().tryLock(50, TimeUnit.MILLISECONDS));
+        long elapsed = System.nanoTime() - start;
+        assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertTrue(elapsed < TimeUnit.SECONDS.toNanos(1));
+        assertFalse(rwl.isWriteLocked());
+        // readers are not blocked by the abandoned attempt
+        Thread other = new Thread(() -> {
+            rwl.readLock().lock();
+            rwl.readLock().unlock();
+        });
+        other.start();
+        other.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(other.isAlive());
+        release.countDown();
+        reader.join();
+    }
+
+    @Test
+    void lockInterruptiblyIsInterruptibleDuringRevocation() throws Exception {
+        BiasedReadWriteLock rwl = new BiasedReadWriteLock();
+        CountDownLatch release = new CountDownLatch(1);
+        Thread reader = holdReadLock(rwl, release);
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            try {
+                rwl.writeLock().lockInterruptibly();
+                rwl.writeLock().unlock();
+            } catch (InterruptedException e) {
+                thrown.set(e);
+            }
+        });
+        writer.start();
+        while (!rwl.isWriteLocked() && writer.isAlive()) {
+            Thread.yield();
+        }
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(writer.isAlive());
+        assertTrue(thrown.get() instanceof InterruptedException);
+        assertFalse(rwl.isWriteLocked());
+        release.countDown();
+        reader.join();
+        rwl.writeLock().lock();
+        rwl.writeLock().unlock();
+    }
+
+    @Test
+    void writersExcludeReaders() throws Exception {
+        BiasedReadWriteLock rwl = new BiasedReadWriteLock();
+        int[] pair = new int[2];
+        Thread[] threads = new Thread[4];
+        AtomicReference<String> failure = new AtomicReference<>();
+        for (int t = 0; t < threads.length; t++) {
+            boolean writer = (t == 0);
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 20000; i++) {
+                    if (writer) {
+                        rwl.writeLock().lock();
+                        try {
+                            pair[0]++;
+                            pair[1]++;
+                        } finally {
+                            rwl.writeLock().unlock();
+                        }
+                    } else {
+                        rwl.readLock().lock();
+                        try {
+                            if (pair[0] != pair[1]) {
+                                failure.set("torn read at " + i);
+                            }
+                        } finally {
+                            rwl.readLock().unlock();
+                        }
+                    }
+                }
+            });
+        }
+        for (Thread t : threads) {
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertNull(failure.get());
+        assertEquals(20000, pair[0]);
+        assertEquals(0, rwl.getReadLockCount());
+    }
+}
@@ -0,0 +1,94 @@
+package java.util.stream;
+
+import java.util.Arrays;
+import java.util.IntHashMap;
+import java.util.LongHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrimitiveCollectorsTest {
+
+    private static final int N = 10_000;
+
+    @Test
+    void groupingByIntMatchesBoxedGrouping() {
+        Map<Integer, Long> expected = IntStream.range(-N, N).boxed()
+                .collect(Collectors.groupingBy(i -> i % 7, Collectors.summingLong(i -> i)));
+        for (boolean parallel : new boolean[] { false, true }) {
+            IntStream s = IntStream.range(-N, N);
+            IntHashMap<Long> sums = (parallel ? s.parallel() : s)
+                    .collect(PrimitiveCollectors.groupingByInt(i -> i % 7, PrimitiveCollectors.summingInt(i -> i)));
+            assertEquals(expected.size(), sums.size());
+            expected.forEach((k, v) -> assertEquals(v, sums.get(k)));
+        }
+    }
+
+    @Test
+    void groupingByLongKeepsEncounterOrderWithinGroups() {
+        LongHashMap<long[]> groups = LongStream.range(0, N).parallel()
+                .collect(PrimitiveCollectors.groupingByLong(l -> l & 3));
+        assertEquals(4, groups.size());
+        for (long k = 0; k < 4; k++) {
+            final long key = k;
+            assertArrayEquals(LongStream.range(0, N).filter(l -> (l & 3) == key).toArray(), groups.get(k));
+        }
+    }
+
+    @Test
+    void groupingByDoubleBucketsByLongKey() {
+        LongHashMap<Double> totals = DoubleStream.of(0.5, 1.25, 1.75, 3.0, 0.25)
+                .collect(PrimitiveCollectors.groupingByDouble(d -> (long) d, PrimitiveCollectors.summingDouble(d -> d)));
+        assertEquals(3, totals.size());
+        assertEquals(0.75, totals.get(0L), 0.0);
+        assertEquals(3.0, totals.get(1L), 0.0);
+        assertEquals(3.0, totals.get(3L), 0.0);
+        assertNull(totals.get(2L));
+    }
+
+    @Test
+    void groupingByIntWithIdentityFinishDownstream() {
+        Collector.OfInt<long[], long[]> counter = Collector.OfInt.of(
+                () -> new long[1], (a, t) -> a[0]++, (l, r) -> { l[0] += r[0]; return l; });
+        IntHashMap<long[]> counts = IntStream.range(0, N).parallel()
+                .collect(PrimitiveCollectors.groupingByInt(i -> i % 3, counter));
+        assertEquals(3, counts.size());
+        assertEquals(N / 3 + 1, counts.get(0)[0]);
+        assertEquals(N / 3, counts.get(1)[0]);
+        assertEquals(N / 3, counts.get(2)[0]);
+    }
+
+    @Test
+    void groupingRejectsNullClassifier() {
+        assertThrows(NullPointerException.class,
+                     () -> PrimitiveCollectors.groupingByInt(null, PrimitiveCollectors.toIntArray()));
+    }
+
+    @Test
+    void partitioningByInt() {
+        Map<Boolean, int[]> parts = IntStream.range(0, 10).parallel()
+                .collect(PrimitiveCollectors.partitioningByInt(i -> i % 2 == 0));
+        assertArrayEquals(new int[] { 0, 2, 4, 6, 8 }, parts.get(true));
+        assertArrayEquals(new int[] { 1, 3, 5, 7, 9 }, parts.get(false));
+    }
+
+    @Test
+    void toArrayCollectors() {
+        assertArrayEquals(IntStream.range(0, N).toArray(),
+                          IntStream.range(0, N).parallel().collect(PrimitiveCollectors.toIntArray()));
+        assertArrayEquals(LongStream.range(0, N).toArray(),
+                          LongStream.range(0, N).parallel().collect(PrimitiveCollectors.toLongArray()));
+        double[] ds = { 1.5, -2.0, 3.25 };
+        assertTrue(Arrays.equals(ds, DoubleStream.of(ds).collect(PrimitiveCollectors.toDoubleArray())));
+    }
+
+    @Test
+    void primitiveCollectorsWorkOnBoxedStreams() {
+        Map<Integer, Long> sums = Stream.of(1, 2, 3, 4)
+                .collect(Collectors.groupingBy(Function.identity(), PrimitiveCollectors.summingInt(i -> i)));
+        assertEquals(Long.valueOf(4L), sums.get(4));
+    }
+}